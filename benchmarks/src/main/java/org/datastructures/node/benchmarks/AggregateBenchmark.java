@@ -0,0 +1,103 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks subtree sums of the objects referenced by the nodes, computed by iterating the (sub-)tree and read from a registered {@link Node.Aggregate}, and the cost of keeping the aggregate up to date when setting the object referenced by a node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AggregateBenchmark {
+    /**
+     * The sum of the objects referenced by the nodes.
+     */
+    private static final Node.Aggregate<Integer, Long> SUM = new Node.Aggregate<>(Integer::longValue, Long::sum);
+
+    /**
+     * A prebuilt tree having {@link #SUM} registered, along with a node picked at random per invocation.
+     */
+    @State(Scope.Benchmark)
+    public static class AggregateState extends TreeState {
+        /**
+         * Source of the picked nodes.
+         */
+        private Random random;
+        /**
+         * The nodes of the tree in breadth-first order of encounter.
+         */
+        private Node<Integer>[] nodes;
+        /**
+         * The node picked by the current invocation.
+         */
+        public Node<Integer> node;
+
+        /**
+         * Builds the tree, registers the aggregate and collects the nodes once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            super.setUp();
+            this.root.addAggregate(SUM);
+            this.random = new Random(this.size);
+            this.nodes = new Node[this.size];
+            int i = 0;
+            for (Node<Integer> tmp = this.root; tmp != null; this.nodes[i++] = tmp, tmp = tmp.getBreadthFirstLeftNext()) ;
+        }
+
+        /**
+         * Picks a node.
+         */
+        @Setup(Level.Invocation)
+        public void pick() {
+            this.node = this.nodes[this.random.nextInt(this.size)];
+        }
+    }
+
+    /**
+     * Sums the objects referenced by the nodes of the (sub-)tree having the picked node as its root by iterating it.
+     */
+    @Benchmark
+    public long iterate(AggregateState state) {
+        long result = 0;
+        for (Integer tmp : state.node) {
+            result += tmp;
+        }
+        return result;
+    }
+
+    /**
+     * Reads the sum of the objects referenced by the nodes of the (sub-)tree having the picked node as its root from the aggregate.
+     */
+    @Benchmark
+    public long read(AggregateState state) {
+        return state.node.getAggregate(SUM);
+    }
+
+    /**
+     * Sets the object referenced by the picked node, which updates the aggregate over the node and its predecessors.
+     */
+    @Benchmark
+    public Node<Integer> update(AggregateState state) {
+        state.node.setElement(state.node.getElement() + 1);
+        return state.node;
+    }
+}
@@ -0,0 +1,111 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.AncestorQueries;
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks lowest common ancestor queries over random pairs of nodes, walking up the predecessors by hand and using {@link AncestorQueries}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AncestorBenchmark {
+    /**
+     * The number of pairs of nodes queried per benchmark invocation.
+     */
+    private static final int PAIRS = 10000;
+
+    /**
+     * A prebuilt tree along with its query structures and random pairs of its nodes.
+     */
+    @State(Scope.Benchmark)
+    public static class AncestorState extends TreeState {
+        /**
+         * The query structures of {@link #root}.
+         */
+        public AncestorQueries<Integer> queries;
+        /**
+         * The first nodes of the pairs.
+         */
+        public Node<Integer>[] nodes1;
+        /**
+         * The second nodes of the pairs.
+         */
+        public Node<Integer>[] nodes2;
+
+        /**
+         * Builds the tree, its query structures and the pairs once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            super.setUp();
+            Object[] nodes = new Object[this.size];
+            int count = 0;
+            for (Node<Integer> tmp = this.root; tmp != null; tmp = tmp.getDepthFirstLeftNext()) {
+                nodes[count++] = tmp;
+            }
+            Random random = new Random(this.size);
+            this.nodes1 = new Node[PAIRS];
+            this.nodes2 = new Node[PAIRS];
+            for (int i = 0; i < PAIRS; i++) {
+                this.nodes1[i] = (Node<Integer>) nodes[random.nextInt(count)];
+                this.nodes2[i] = (Node<Integer>) nodes[random.nextInt(count)];
+            }
+            this.queries = new AncestorQueries<>(this.root);
+        }
+    }
+
+    /**
+     * Finds the lowest common ancestor of every pair by walking up the predecessors of both nodes.
+     */
+    @Benchmark
+    public int walk(AncestorState state) {
+        int result = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            Node<Integer> tmp1 = state.nodes1[i], tmp2 = state.nodes2[i];
+            for (; tmp1.getY() > tmp2.getY(); tmp1 = tmp1.getPredecessor()) ;
+            for (; tmp2.getY() > tmp1.getY(); tmp2 = tmp2.getPredecessor()) ;
+            for (; tmp1 != tmp2; tmp1 = tmp1.getPredecessor(), tmp2 = tmp2.getPredecessor()) ;
+            result += tmp1.getY();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the lowest common ancestor of every pair, one query at a time.
+     */
+    @Benchmark
+    public int query(AncestorState state) {
+        int result = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            result += state.queries.getLowestCommonAncestor(state.nodes1[i], state.nodes2[i]).getY();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the lowest common ancestors of all the pairs with a single batch query.
+     */
+    @Benchmark
+    public Node<Integer>[] batch(AncestorState state) {
+        return state.queries.getLowestCommonAncestors(state.nodes1, state.nodes2);
+    }
+}
@@ -0,0 +1,100 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.datastructures.node.TreeDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link TreeDiff}: computing the edit script between a tree and a copy of it with a given number of changes, and applying it to a replica.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiffBenchmark {
+    /**
+     * A prebuilt tree along with a changed copy of it and the edit script between them.
+     */
+    @State(Scope.Benchmark)
+    public static class DiffState extends TreeState {
+        /**
+         * The number of changes, half of them updates and half of them moves.
+         */
+        @Param({"1", "100"})
+        public int changes;
+        /**
+         * The changed copy of {@link #root}.
+         */
+        public Node<Integer> target;
+        /**
+         * The edit script from {@link #root} to {@link #target}.
+         */
+        public TreeDiff<Integer> diff;
+        /**
+         * A copy of {@link #root} to which the edit script is applied.
+         */
+        public Node<Integer> replica;
+
+        /**
+         * Builds the trees and the edit script once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            super.setUp();
+            this.target = (Node<Integer>) this.root.clone();
+            Random random = new Random(this.changes);
+            for (int i = 0; i < this.changes; i++) {
+                Node<Integer> node = this.target.findDepthFirstLeftNext(random.nextInt(this.size));
+                if (i % 2 == 0) {
+                    node.setElement(node.getElement() + this.size);
+                } else if (node != this.target) {
+                    this.target.add(node);
+                }
+            }
+            this.diff = Node.diff(this.root, this.target, e -> e % this.size);
+        }
+
+        /**
+         * Copies the source tree before each application of the edit script.
+         */
+        @Setup(Level.Invocation)
+        @SuppressWarnings("unchecked")
+        public void copy() {
+            this.replica = (Node<Integer>) this.root.clone();
+        }
+    }
+
+    /**
+     * Computes the edit script.
+     */
+    @Benchmark
+    public Object diff(DiffState state) {
+        return Node.diff(state.root, state.target, e -> e % state.size);
+    }
+
+    /**
+     * Applies the edit script to a copy of the source tree.
+     */
+    @Benchmark
+    public Object apply(DiffState state) {
+        state.diff.apply(state.replica);
+        return state.replica;
+    }
+}
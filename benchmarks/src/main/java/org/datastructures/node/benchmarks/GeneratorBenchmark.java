@@ -0,0 +1,101 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.LazyNode;
+import org.datastructures.node.Node;
+import org.datastructures.node.ParallelNodeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Benchmarks building a tree from a generator function, using the recursive generator constructor of {@link Node} and {@link ParallelNodeBuilder}, and searching a tree built from a generator function eagerly and on demand by {@link LazyNode}. The generator walks a prebuilt tree and burns a given amount of CPU per node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark {
+    /**
+     * A prebuilt tree along with a generator function walking it.
+     */
+    @State(Scope.Benchmark)
+    public static class GeneratorState extends TreeState {
+        /**
+         * The amount of CPU burnt by each call to the generator, in {@link Blackhole#consumeCPU(long)} tokens.
+         */
+        @Param({"0", "1000"})
+        public long work;
+        /**
+         * The number of worker threads used by {@link ParallelNodeBuilder}.
+         */
+        @Param({"1", "4"})
+        public int parallelism;
+        /**
+         * The generator function, returning the direct descendants of a node of {@link #root}.
+         */
+        public Function<Node<Integer>, Node<Integer>[]> generator;
+
+        /**
+         * Builds the tree and the generator function once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            super.setUp();
+            long work = this.work;
+            this.generator = e -> {
+                Blackhole.consumeCPU(work);
+                Node<Integer>[] result = new Node[e.countDescendants()];
+                for (int i = 0; i < result.length; result[i] = e.getDescendant(i++)) ;
+                return result;
+            };
+        }
+    }
+
+    /**
+     * Builds the tree using the recursive generator constructor.
+     */
+    @Benchmark
+    public Node<Integer> sequential(GeneratorState state) {
+        return new Node<>(state.generator, state.root, Node::getElement);
+    }
+
+    /**
+     * Builds the tree using {@link ParallelNodeBuilder}.
+     */
+    @Benchmark
+    public Node<Integer> parallel(GeneratorState state) {
+        return new ParallelNodeBuilder<Node<Integer>, Integer>(state.generator, Node::getElement, Integer.MAX_VALUE, state.parallelism).build(state.root);
+    }
+
+    /**
+     * Builds the tree using the recursive generator constructor, then searches it for the object referenced by the node created at 1% of the tree size.
+     */
+    @Benchmark
+    public Node<Integer> eagerSearch(GeneratorState state) {
+        return new Node<>(state.generator, state.root, Node::getElement).findDepthFirstLeftNext(state.size / 100);
+    }
+
+    /**
+     * Searches a lazy tree for the object referenced by the node created at 1% of the tree size.
+     */
+    @Benchmark
+    public LazyNode<Integer> lazySearch(GeneratorState state) {
+        return new LazyNode<>(state.generator, state.root, Node::getElement).findDepthFirstLeftNext(state.size / 100);
+    }
+}
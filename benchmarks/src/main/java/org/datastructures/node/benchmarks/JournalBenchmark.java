@@ -0,0 +1,130 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Journal;
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks persisting a change of the object referenced by a node picked at random: recorded by a {@link Journal} and committed, against rewriting the whole tree with {@link Node#write(Node, FileChannel, Node.ElementCodec)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JournalBenchmark {
+    /**
+     * A prebuilt journaled tree, along with a node picked at random per invocation.
+     */
+    @State(Scope.Benchmark)
+    public static class JournalState extends TreeState {
+        /**
+         * The directory holding the files.
+         */
+        private Path directory;
+        /**
+         * The journal of the tree.
+         */
+        public Journal<Integer> journal;
+        /**
+         * The file rewritten by {@link #write(JournalState)}.
+         */
+        public Path file;
+        /**
+         * Source of the picked nodes.
+         */
+        private Random random;
+        /**
+         * The nodes of the tree in breadth-first order of encounter.
+         */
+        private Node<Integer>[] nodes;
+        /**
+         * The node picked by the current invocation.
+         */
+        public Node<Integer> node;
+
+        /**
+         * Builds the tree, creates its journal and collects the nodes once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            super.setUp();
+            try {
+                this.directory = Files.createTempDirectory("journal");
+                this.file = this.directory.resolve("tree");
+                this.journal = Journal.create(this.root, this.directory, Node.ElementCodec.INTEGER, 1, Integer.MAX_VALUE);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            this.random = new Random(this.size);
+            this.nodes = new Node[this.size];
+            int i = 0;
+            for (Node<Integer> tmp = this.root; tmp != null; this.nodes[i++] = tmp, tmp = tmp.getBreadthFirstLeftNext()) ;
+        }
+
+        /**
+         * Picks a node.
+         */
+        @Setup(Level.Invocation)
+        public void pick() {
+            this.node = this.nodes[this.random.nextInt(this.size)];
+        }
+
+        /**
+         * Closes the journal and deletes the files.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.journal.close();
+            try (Stream<Path> files = Files.list(this.directory)) {
+                for (Path tmp : (Iterable<Path>) files::iterator) {
+                    Files.delete(tmp);
+                }
+            }
+            Files.delete(this.directory);
+        }
+    }
+
+    /**
+     * Sets the object referenced by the picked node, which is recorded and committed to the journal.
+     */
+    @Benchmark
+    public Node<Integer> journal(JournalState state) {
+        state.node.setElement(state.node.getElement() + 1);
+        return state.node;
+    }
+
+    /**
+     * Rewrites the whole tree.
+     */
+    @Benchmark
+    public Node<Integer> write(JournalState state) throws IOException {
+        try (FileChannel channel = FileChannel.open(state.file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Node.write(state.node.getRoot(), channel, Node.ElementCodec.INTEGER);
+            channel.force(true);
+        }
+        return state.node;
+    }
+}
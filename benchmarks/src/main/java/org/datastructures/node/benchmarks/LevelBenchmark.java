@@ -0,0 +1,60 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the functions relying on the depth levels of a tree: stepping from node to node in a breadth-first order of encounter, getting the first and last siblings of every node, and walking every depth level through {@link Node#getLevel(int)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LevelBenchmark {
+    /**
+     * Steps from the root node to the last node in a breadth-first left-to-right order of encounter.
+     */
+    @Benchmark
+    public int step(TreeState state) {
+        int result = 0;
+        for (Node<Integer> tmp = state.root; tmp != null; tmp = tmp.getBreadthFirstLeftNext()) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the first and last siblings of every node.
+     */
+    @Benchmark
+    public void siblings(TreeState state, Blackhole blackhole) {
+        for (Node<Integer> tmp = state.root; tmp != null; tmp = tmp.getBreadthFirstLeftNext()) {
+            blackhole.consume(tmp.getFirstSibling());
+            blackhole.consume(tmp.getLastSibling());
+        }
+    }
+
+    /**
+     * Walks the nodes of every depth level, from the root node down to the first empty depth level.
+     */
+    @Benchmark
+    public int levels(TreeState state) {
+        int result = 0;
+        for (int y = 0; !state.root.getLevel(y).isEmpty(); y++) {
+            for (Node<Integer> tmp : state.root.getLevel(y)) {
+                result += tmp.getY();
+            }
+        }
+        return result;
+    }
+}
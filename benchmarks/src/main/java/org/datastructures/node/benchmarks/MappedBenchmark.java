@@ -0,0 +1,99 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.MappedTree;
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the time to the first answer of a query on a tree stored in a file: reading the whole tree with {@link Node#read(FileChannel, Node.ElementCodec)} against opening it with {@link MappedTree#open(Path, Node.ElementCodec)}, then searching the (sub-)tree having the first direct descendant of the root node as its root, which is the whole tree if the root node has no descendants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappedBenchmark {
+    /**
+     * A prebuilt tree written to a binary file and to a mapped tree file.
+     */
+    @State(Scope.Benchmark)
+    public static class MappedState extends TreeState {
+        /**
+         * The file written by {@link Node#write(Node, FileChannel, Node.ElementCodec)}.
+         */
+        public Path binary;
+        /**
+         * The file written by {@link MappedTree#write(Node, Path, Node.ElementCodec)}.
+         */
+        public Path mapped;
+
+        /**
+         * Builds the tree and writes the files once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            try {
+                this.binary = Files.createTempFile("tree", ".bin");
+                this.mapped = Files.createTempFile("tree", ".map");
+                try (FileChannel channel = FileChannel.open(this.binary, StandardOpenOption.WRITE)) {
+                    Node.write(this.root, channel, Node.ElementCodec.INTEGER);
+                }
+                MappedTree.write(this.root, this.mapped, Node.ElementCodec.INTEGER);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            this.root = null;
+        }
+
+        /**
+         * Deletes the files.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(this.binary);
+            Files.deleteIfExists(this.mapped);
+        }
+    }
+
+    /**
+     * Reads the whole tree, then searches the (sub-)tree having the first direct descendant of the root node as its root.
+     */
+    @Benchmark
+    public Node<Integer> read(MappedState state) throws IOException {
+        try (FileChannel channel = FileChannel.open(state.binary, StandardOpenOption.READ)) {
+            Node<Integer> root = Node.read(channel, Node.ElementCodec.INTEGER), first = root.getFirstDescendant() == null ? root : root.getFirstDescendant();
+            return first.findDepthFirstLeftNext(e -> e < 0, first);
+        }
+    }
+
+    /**
+     * Opens the mapped tree, then searches the (sub-)tree having the first direct descendant of the root node as its root.
+     */
+    @Benchmark
+    public int open(MappedState state) throws IOException {
+        try (MappedTree<Integer> tree = MappedTree.open(state.mapped, Node.ElementCodec.INTEGER)) {
+            int first = Math.max(0, tree.getFirstDescendant(0));
+            return tree.findDepthFirstLeftNext(first, e -> e < 0, first);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Node#add(Node)} and {@link Node#detach()}, both when building whole trees and when moving single nodes around in a tree of a given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MutationBenchmark {
+    /**
+     * State of the construction benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class BuildState {
+        /**
+         * The number of nodes in the tree.
+         */
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int size;
+        /**
+         * The shape of the tree.
+         */
+        @Param({"WIDE", "DEEP", "RANDOM"})
+        public TreeShape shape;
+    }
+
+    /**
+     * State of the move benchmark: a prebuilt tree and a leaf that is repeatedly detached and attached again.
+     */
+    @State(Scope.Benchmark)
+    public static class MoveState extends TreeState {
+        /**
+         * Source of the nodes that are moved.
+         */
+        private Random random;
+        /**
+         * The nodes of the tree in breadth-first order of encounter.
+         */
+        private Node<Integer>[] nodes;
+        /**
+         * The node moved by the current invocation.
+         */
+        public Node<Integer> node;
+        /**
+         * The node to which the moved node is attached.
+         */
+        public Node<Integer> target;
+
+        /**
+         * Collects the nodes of the tree once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            super.setUp();
+            this.random = new Random(this.size);
+            this.nodes = new Node[this.size];
+            int i = 0;
+            for (Node<Integer> tmp = this.root; tmp != null; this.nodes[i++] = tmp, tmp = tmp.getBreadthFirstLeftNext()) ;
+        }
+
+        /**
+         * Picks a leaf to move and a new predecessor for it.
+         */
+        @Setup(Level.Invocation)
+        public void pick() {
+            do {
+                this.node = this.nodes[1 + this.random.nextInt(this.size - 1)];
+            } while (this.node.countDescendants() > 0);
+            this.target = this.nodes[this.random.nextInt(this.size)];
+            if (this.target == this.node) {
+                this.target = this.root;
+            }
+        }
+    }
+
+    /**
+     * Builds a whole tree node by node.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    public Node<Integer> build(BuildState state) {
+        return state.shape.build(state.size, new Random(state.size));
+    }
+
+    /**
+     * Detaches a leaf and attaches it to another node of the same tree.
+     */
+    @Benchmark
+    public Node<Integer> move(MoveState state) {
+        state.node.detach();
+        state.target.add(state.node);
+        return state.node;
+    }
+}
@@ -0,0 +1,124 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.datastructures.node.PersistentNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Node#equals(Object)}, {@link Node#hashCode()}, incremental rehashing and {@link Node#clone()}, along with {@link Node#snapshot()} and the path-copy updates of {@link PersistentNode}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ObjectMethodsBenchmark {
+    /**
+     * A prebuilt tree along with an equal copy of it.
+     */
+    @State(Scope.Benchmark)
+    public static class PairState extends TreeState {
+        /**
+         * A tree equal to, but not the same as, {@link #root}.
+         */
+        public Node<Integer> copy;
+
+        /**
+         * Builds both trees once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.copy = this.shape.build(this.size, new java.util.Random(this.size));
+        }
+    }
+
+    /**
+     * A prebuilt tree along with its furthest left-most node.
+     */
+    @State(Scope.Benchmark)
+    public static class LeafState extends TreeState {
+        /**
+         * The furthest left-most node of {@link #root}.
+         */
+        public Node<Integer> leaf;
+
+        /**
+         * Builds the tree once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.leaf = this.root.getInmostLeft();
+        }
+    }
+
+    /**
+     * A prebuilt persistent copy of a tree along with the path to the furthest left-most node.
+     */
+    @State(Scope.Benchmark)
+    public static class SnapshotState extends TreeState {
+        /**
+         * The path to the furthest left-most node of the persistent copy of {@link #root}.
+         */
+        public PersistentNode.Path<Integer> path;
+
+        /**
+         * Builds the tree and its persistent copy once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            for (this.path = this.root.snapshot().getPath(); this.path.countDescendants() > 0; this.path = this.path.getDescendant(0)) ;
+        }
+    }
+
+    @Benchmark
+    public boolean equals(PairState state) {
+        return state.root.equals(state.copy);
+    }
+
+    @Benchmark
+    public int hashCode(TreeState state) {
+        return state.root.hashCode();
+    }
+
+    /**
+     * Changes a single node, then rehashes the tree, which only recomputes the hashes along the path to the changed node.
+     */
+    @Benchmark
+    public int rehash(LeafState state) {
+        state.leaf.setElement(state.leaf.getElement() + 1);
+        return state.root.hashCode();
+    }
+
+    @Benchmark
+    public Object clone(TreeState state) {
+        return state.root.clone();
+    }
+
+    @Benchmark
+    public Object snapshot(TreeState state) {
+        return state.root.snapshot();
+    }
+
+    @Benchmark
+    public Object snapshotUpdate(SnapshotState state) {
+        return state.path.withElement(-1);
+    }
+}
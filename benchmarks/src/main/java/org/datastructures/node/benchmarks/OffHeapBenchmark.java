@@ -0,0 +1,127 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.CompactTree;
+import org.datastructures.node.Node;
+import org.datastructures.node.OffHeapTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a tree held by a {@link CompactTree} against its {@link OffHeapTree} copy: iterating every node and searching for a missing object along a given traversal algorithm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OffHeapBenchmark {
+    /**
+     * A prebuilt tree along with its compact and off-heap copies.
+     */
+    @State(Scope.Benchmark)
+    public static class OffHeapState extends TreeState {
+        /**
+         * The traversal algorithm to be applied.
+         */
+        @Param({"BREADTH_FIRST_LEFT", "DEPTH_FIRST_LEFT", "DEPTH_FIRST_RIGHT"})
+        public Node.TraversalAlgorithm traversalAlgorithm;
+        /**
+         * The compact copy of {@link #root}.
+         */
+        public CompactTree<Integer> compact;
+        /**
+         * The off-heap copy of {@link #root}.
+         */
+        public OffHeapTree<Integer> offHeap;
+
+        /**
+         * Builds the tree and its copies once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.compact = this.root.compact();
+            this.offHeap = new OffHeapTree<>(this.root);
+        }
+
+        /**
+         * Releases the off-heap copy.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.offHeap.close();
+        }
+    }
+
+    /**
+     * Iterates every node of the compact tree.
+     */
+    @Benchmark
+    public long iterateCompact(OffHeapState state) {
+        return OffHeapBenchmark.sum(state.compact.iterator(0, state.traversalAlgorithm));
+    }
+
+    /**
+     * Iterates every node of the off-heap tree.
+     */
+    @Benchmark
+    public long iterateOffHeap(OffHeapState state) {
+        return OffHeapBenchmark.sum(state.offHeap.iterator(0, state.traversalAlgorithm));
+    }
+
+    /**
+     * Searches the compact tree for a missing object, which visits every node.
+     */
+    @Benchmark
+    public int findCompact(OffHeapState state) {
+        switch (state.traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return state.compact.findBreadthFirstLeftNext(0, e -> e < 0);
+            case DEPTH_FIRST_LEFT:
+                return state.compact.findDepthFirstLeftNext(0, e -> e < 0);
+            default:
+                return state.compact.findDepthFirstRightNext(0, e -> e < 0);
+        }
+    }
+
+    /**
+     * Searches the off-heap tree for a missing object, which visits every node.
+     */
+    @Benchmark
+    public int findOffHeap(OffHeapState state) {
+        switch (state.traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return state.offHeap.findBreadthFirstLeftNext(0, e -> e < 0);
+            case DEPTH_FIRST_LEFT:
+                return state.offHeap.findDepthFirstLeftNext(0, e -> e < 0);
+            default:
+                return state.offHeap.findDepthFirstRightNext(0, e -> e < 0);
+        }
+    }
+
+    /**
+     * Sums the objects returned by the given iterator.
+     */
+    private static long sum(Iterator<Integer> iterator) {
+        long result = 0;
+        while (iterator.hasNext()) {
+            result += iterator.next();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.CompactTree;
+import org.datastructures.node.IntCompactTree;
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a tree of numbers held by a {@link CompactTree} of boxed values against its {@link IntCompactTree} copy: searching for a missing value, summing the values and copying them to an array.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrimitiveBenchmark {
+    /**
+     * A prebuilt tree along with its compact copies.
+     */
+    @State(Scope.Benchmark)
+    public static class PrimitiveState extends TreeState {
+        /**
+         * The compact copy of {@link #root}, holding boxed values.
+         */
+        public CompactTree<Integer> boxed;
+        /**
+         * The compact copy of {@link #root}, holding primitive values.
+         */
+        public IntCompactTree primitive;
+
+        /**
+         * Builds the tree and its compact copies once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.root.setTraversalAlgorithm(Node.TraversalAlgorithm.DEPTH_FIRST_LEFT);
+            this.boxed = this.root.compact();
+            this.primitive = this.root.compactToInt(Integer::intValue);
+        }
+    }
+
+    /**
+     * Searches the boxed values for a missing value, which visits every node.
+     */
+    @Benchmark
+    public int findBoxed(PrimitiveState state) {
+        return state.boxed.findDepthFirstLeftNext(0, e -> e < 0);
+    }
+
+    /**
+     * Searches the primitive values for a missing value, which visits every node.
+     */
+    @Benchmark
+    public int findPrimitive(PrimitiveState state) {
+        return state.primitive.findDepthFirstLeftNext(0, e -> e < 0);
+    }
+
+    /**
+     * Sums the boxed values.
+     */
+    @Benchmark
+    public long sumBoxed(PrimitiveState state) {
+        return state.boxed.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * Sums the primitive values.
+     */
+    @Benchmark
+    public long sumPrimitive(PrimitiveState state) {
+        return state.primitive.intStream().asLongStream().sum();
+    }
+
+    /**
+     * Copies the boxed values to an array.
+     */
+    @Benchmark
+    public Object[] toArrayBoxed(PrimitiveState state) {
+        return state.boxed.toArray();
+    }
+
+    /**
+     * Copies the primitive values to an array.
+     */
+    @Benchmark
+    public int[] toArrayPrimitive(PrimitiveState state) {
+        return state.primitive.toIntArray();
+    }
+}
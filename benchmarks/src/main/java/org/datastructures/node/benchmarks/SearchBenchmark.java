@@ -0,0 +1,203 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Benchmarks the <code>find*Next</code> family and {@link Node#contains(Object)}.
+ * <p/>
+ * The searched element is never found, so every benchmark visits the whole tree (or (sub-)tree for the root-bounded variants), except for the <code>*Indexed</code> benchmarks which look the element up in the index of the tree. The <code>*Labeled</code> benchmarks run the root-bounded variants over a labeled tree, and the <code>*Subtree</code> benchmarks run them over the largest (sub-)tree having a direct descendant of the root node as its root. The <code>walk*</code> benchmarks step through that (sub-)tree with a {@link Node.Cursor} and with the root-bounded stepper functions, which validate the root at every step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+    /**
+     * A predicate that matches no element of the trees built by {@link TreeShape}.
+     */
+    private static final Predicate<Integer> NONE = e -> e < 0;
+
+    /**
+     * A prebuilt tree having an index of its elements.
+     */
+    @State(Scope.Benchmark)
+    public static class IndexedState extends TreeState {
+        /**
+         * Builds and indexes the tree once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.root.setIndexed(true);
+        }
+    }
+
+    /**
+     * A prebuilt tree having an interval labeling of its nodes.
+     */
+    @State(Scope.Benchmark)
+    public static class LabeledState extends TreeState {
+        /**
+         * Builds and labels the tree once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.root.setLabeled(true);
+        }
+    }
+
+    /**
+     * A prebuilt tree along with the largest (sub-)tree having a direct descendant of the root node as its root.
+     */
+    @State(Scope.Benchmark)
+    public static class SubtreeState extends TreeState {
+        /**
+         * The root node of the (sub-)tree.
+         */
+        public Node<Integer> subtree;
+
+        /**
+         * Builds the tree and picks the (sub-)tree once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.subtree = this.root;
+            for (int i = 0; i < this.root.countDescendants(); i++) {
+                Node<Integer> tmp = this.root.getDescendant(i);
+                if (this.subtree == this.root || tmp.size() > this.subtree.size()) {
+                    this.subtree = tmp;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Node<Integer> findBreadthFirstLeftNext(TreeState state) {
+        return state.root.findBreadthFirstLeftNext(NONE);
+    }
+
+    @Benchmark
+    public Node<Integer> findBreadthFirstRightNext(TreeState state) {
+        return state.root.findBreadthFirstRightNext(NONE);
+    }
+
+    @Benchmark
+    public Node<Integer> findDepthFirstLeftNext(TreeState state) {
+        return state.root.findDepthFirstLeftNext(NONE);
+    }
+
+    @Benchmark
+    public Node<Integer> findDepthFirstRightNext(TreeState state) {
+        return state.root.findDepthFirstRightNext(NONE);
+    }
+
+    @Benchmark
+    public Node<Integer> findBreadthFirstLeftNextBounded(TreeState state) {
+        return state.root.findBreadthFirstLeftNext(NONE, state.root);
+    }
+
+    @Benchmark
+    public Node<Integer> findBreadthFirstRightNextBounded(TreeState state) {
+        return state.root.findBreadthFirstRightNext(NONE, state.root);
+    }
+
+    @Benchmark
+    public Node<Integer> findDepthFirstLeftNextBounded(TreeState state) {
+        return state.root.findDepthFirstLeftNext(NONE, state.root);
+    }
+
+    @Benchmark
+    public Node<Integer> findDepthFirstRightNextBounded(TreeState state) {
+        return state.root.findDepthFirstRightNext(NONE, state.root);
+    }
+
+    @Benchmark
+    public boolean contains(TreeState state) {
+        return state.root.contains(-1);
+    }
+
+    @Benchmark
+    public boolean containsIndexed(IndexedState state) {
+        return state.root.contains(-1);
+    }
+
+    @Benchmark
+    public Node<Integer> findBreadthFirstLeftNextIndexed(IndexedState state) {
+        return state.root.findBreadthFirstLeftNext(-1);
+    }
+
+    @Benchmark
+    public Node<Integer> findDepthFirstLeftNextIndexed(IndexedState state) {
+        return state.root.findDepthFirstLeftNext(-1);
+    }
+
+    @Benchmark
+    public Node<Integer> findBreadthFirstLeftNextLabeled(LabeledState state) {
+        return state.root.findBreadthFirstLeftNext(NONE, state.root);
+    }
+
+    @Benchmark
+    public Node<Integer> findDepthFirstLeftNextLabeled(LabeledState state) {
+        return state.root.findDepthFirstLeftNext(NONE, state.root);
+    }
+
+    @Benchmark
+    public Node<Integer> findBreadthFirstLeftNextSubtree(SubtreeState state) {
+        return state.subtree.findBreadthFirstLeftNext(NONE, state.subtree);
+    }
+
+    @Benchmark
+    public Node<Integer> findDepthFirstLeftNextSubtree(SubtreeState state) {
+        return state.subtree.findDepthFirstLeftNext(NONE, state.subtree);
+    }
+
+    @Benchmark
+    public int walkBreadthFirstLeftCursor(SubtreeState state) {
+        int count = 0;
+        Node.Cursor<Integer> cursor = state.subtree.cursor(state.subtree, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+        for (Node<Integer> tmp = cursor.getNode(); tmp != null; count++, tmp = cursor.next()) ;
+        return count;
+    }
+
+    @Benchmark
+    public int walkBreadthFirstLeftStepper(SubtreeState state) {
+        int count = 0;
+        for (Node<Integer> tmp = state.subtree; tmp != null; count++, tmp = tmp.getBreadthFirstLeftNext(state.subtree)) ;
+        return count;
+    }
+
+    @Benchmark
+    public int walkDepthFirstLeftCursor(SubtreeState state) {
+        int count = 0;
+        Node.Cursor<Integer> cursor = state.subtree.cursor(state.subtree, Node.TraversalAlgorithm.DEPTH_FIRST_LEFT);
+        for (Node<Integer> tmp = cursor.getNode(); tmp != null; count++, tmp = cursor.next()) ;
+        return count;
+    }
+
+    @Benchmark
+    public int walkDepthFirstLeftStepper(SubtreeState state) {
+        int count = 0;
+        for (Node<Integer> tmp = state.subtree; tmp != null; count++, tmp = tmp.getDepthFirstLeftNext(state.subtree)) ;
+        return count;
+    }
+}
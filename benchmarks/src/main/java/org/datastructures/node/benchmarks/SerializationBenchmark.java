@@ -0,0 +1,103 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks Java serialization and the binary codec of {@link Node} on whole trees.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmark {
+    /**
+     * A prebuilt tree along with its serialized form.
+     */
+    @State(Scope.Benchmark)
+    public static class SerializedState extends TreeState {
+        /**
+         * The serialized form of {@link #root}.
+         */
+        public byte[] bytes;
+        /**
+         * The binary form of {@link #root} written by {@link Node#write(Node, java.io.OutputStream, Node.ElementCodec)}.
+         */
+        public byte[] encoded;
+
+        /**
+         * Builds and serializes the tree once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            try {
+                this.bytes = write(this.root);
+                this.encoded = encode(this.root);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] writeObject(TreeState state) throws IOException {
+        return write(state.root);
+    }
+
+    @Benchmark
+    public Object readObject(SerializedState state) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state.bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] write(TreeState state) throws IOException {
+        return encode(state.root);
+    }
+
+    @Benchmark
+    public Node<Integer> read(SerializedState state) throws IOException {
+        return Node.read(new ByteArrayInputStream(state.encoded), Node.ElementCodec.INTEGER);
+    }
+
+    /**
+     * Writes the given tree into a byte array using the binary codec.
+     */
+    private static byte[] encode(Node<Integer> root) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        Node.write(root, result, Node.ElementCodec.INTEGER);
+        return result.toByteArray();
+    }
+
+    /**
+     * Serializes the given tree into a byte array.
+     */
+    private static byte[] write(Node<Integer> root) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(result)) {
+            out.writeObject(root);
+        }
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.CompactTree;
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks full iterations over a tree using {@link Node.NodeIterator} and {@link java.util.Spliterator}, and over its {@link CompactTree} copy, with every {@link Node.TraversalAlgorithm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TraversalBenchmark {
+    /**
+     * A prebuilt tree along with the traversal algorithm to apply.
+     */
+    @State(Scope.Benchmark)
+    public static class TraversalState extends TreeState {
+        /**
+         * The traversal algorithm to apply.
+         */
+        @Param({"BREADTH_FIRST_LEFT", "BREADTH_FIRST_RIGHT", "DEPTH_FIRST_LEFT", "DEPTH_FIRST_RIGHT"})
+        public Node.TraversalAlgorithm algorithm;
+
+        /**
+         * Builds the tree and sets its preferred traversal algorithm once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.root.setTraversalAlgorithm(this.algorithm);
+        }
+    }
+
+    /**
+     * A prebuilt tree along with its compact copy.
+     */
+    @State(Scope.Benchmark)
+    public static class CompactState extends TraversalState {
+        /**
+         * The compact copy of {@link #root}.
+         */
+        public CompactTree<Integer> compact;
+
+        /**
+         * Builds the tree and its compact copy once per trial.
+         */
+        @Override
+        @Setup(Level.Trial)
+        public void setUp() {
+            super.setUp();
+            this.compact = this.root.compact();
+        }
+    }
+
+    /**
+     * Iterates over every element of the tree.
+     */
+    @Benchmark
+    public void iterate(TraversalState state, Blackhole blackhole) {
+        for (Integer tmp : state.root) {
+            blackhole.consume(tmp);
+        }
+    }
+
+    /**
+     * Copies every element of the tree into an array.
+     */
+    @Benchmark
+    public Object[] toArray(TraversalState state) {
+        return state.root.toArray();
+    }
+
+    /**
+     * Sums every element of the tree using a sequential stream.
+     */
+    @Benchmark
+    public long stream(TraversalState state) {
+        return state.root.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * Sums every element of the tree using a parallel stream.
+     */
+    @Benchmark
+    public long parallelStream(TraversalState state) {
+        return state.root.parallelStream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * Iterates over every element of the compact copy of the tree.
+     */
+    @Benchmark
+    public void iterateCompact(CompactState state, Blackhole blackhole) {
+        for (Integer tmp : state.compact) {
+            blackhole.consume(tmp);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Enumerates the tree shapes used by the benchmarks.
+ * <p/>
+ * Every shape builds its tree top-down, one {@link Node#add(Node)} call per node, which is the way client code usually grows a tree.
+ */
+public enum TreeShape {
+    /**
+     * A root node having all the other nodes as direct descendants.
+     */
+    WIDE {
+        @Override
+        public Node<Integer> build(int size, Random random) {
+            Node<Integer> root = new Node<>(0);
+            for (int i = 1; i < size; root.add(new Node<>(i++))) ;
+            return root;
+        }
+    },
+    /**
+     * A chain of nodes where every node has exactly one direct descendant.
+     */
+    DEEP {
+        @Override
+        public Node<Integer> build(int size, Random random) {
+            Node<Integer> root = new Node<>(0), tail = root;
+            for (int i = 1; i < size; i++) {
+                Node<Integer> tmp = new Node<>(i);
+                tail.add(tmp);
+                tail = tmp;
+            }
+            return root;
+        }
+    },
+    /**
+     * A random recursive tree where the predecessor of every node is picked uniformly among the nodes created before it.
+     */
+    RANDOM {
+        @Override
+        public Node<Integer> build(int size, Random random) {
+            List<Node<Integer>> nodes = new ArrayList<>(size);
+            nodes.add(new Node<>(0));
+            for (int i = 1; i < size; i++) {
+                Node<Integer> tmp = new Node<>(i);
+                nodes.get(random.nextInt(nodes.size())).add(tmp);
+                nodes.add(tmp);
+            }
+            return nodes.get(0);
+        }
+    };
+
+    /**
+     * Builds a tree of the given size whose nodes reference the integers from 0 to <code><b>size</b></code> - 1 in creation order.
+     *
+     * @param size   the number of nodes in the tree.
+     * @param random the source of randomness for shapes that need one.
+     * @return the root node of the tree.
+     */
+    public abstract Node<Integer> build(int size, Random random);
+}
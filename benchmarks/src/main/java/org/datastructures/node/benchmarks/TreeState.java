@@ -0,0 +1,41 @@
+package org.datastructures.node.benchmarks;
+
+import org.datastructures.node.Node;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * A prebuilt tree shared by the read-only benchmarks.
+ * <p/>
+ * The default sizes range from 1e3 to 1e7 nodes. Large sizes of the {@link TreeShape#DEEP} shape may take very long to build or overflow the stack in recursive operations, which is exactly the kind of scaling cliff these benchmarks are meant to expose; narrow the range with <code>-p size=...</code> when needed.
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+    /**
+     * The number of nodes in the tree.
+     */
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+    /**
+     * The shape of the tree.
+     */
+    @Param({"WIDE", "DEEP", "RANDOM"})
+    public TreeShape shape;
+    /**
+     * The root node of the tree.
+     */
+    public Node<Integer> root;
+
+    /**
+     * Builds the tree once per trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.root = this.shape.build(this.size, new Random(this.size));
+    }
+}
@@ -0,0 +1,79 @@
+package org.datastructures.node.jcstress;
+
+import org.datastructures.node.ConcurrentNode;
+import org.datastructures.node.Node;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * Tests {@link ConcurrentNode#add(Node, Object)} against concurrent writes and reads.
+ */
+public class AddTest {
+    /**
+     * Two writers append a node to the same predecessor: both nodes must end up in the tree.
+     */
+    @JCStressTest
+    @Outcome(id = "4, 3", expect = ACCEPTABLE, desc = "Both nodes are appended.")
+    @Outcome(expect = FORBIDDEN, desc = "A node is lost.")
+    @State
+    public static class AddAdd {
+        /**
+         * The tree, having a root node and a single descendant.
+         */
+        private final ConcurrentNode<Integer> tree = new ConcurrentNode<>(new Node<>(0, 1));
+        /**
+         * The descendant of the root node.
+         */
+        private final Node<Integer> node = this.tree.getRoot().getFirstDescendant();
+
+        @Actor
+        public void actor1() {
+            this.tree.add(this.node, 2);
+        }
+
+        @Actor
+        public void actor2() {
+            this.tree.add(this.node, 3);
+        }
+
+        @Arbiter
+        public void arbiter(II_Result result) {
+            result.r1 = this.tree.size();
+            result.r2 = this.tree.read(e -> this.node.size());
+        }
+    }
+
+    /**
+     * A writer appends a node while a reader counts the nodes of the tree, and searches the appended node.
+     */
+    @JCStressTest
+    @Outcome(id = "2, 0", expect = ACCEPTABLE, desc = "The reader runs first.")
+    @Outcome(id = "3, 1", expect = ACCEPTABLE, desc = "The writer runs first.")
+    @Outcome(expect = FORBIDDEN, desc = "The reader observes a partial write.")
+    @State
+    public static class AddRead {
+        /**
+         * The tree, having a root node and a single descendant.
+         */
+        private final ConcurrentNode<Integer> tree = new ConcurrentNode<>(new Node<>(0, 1));
+
+        @Actor
+        public void writer() {
+            this.tree.add(this.tree.getRoot(), 2);
+        }
+
+        @Actor
+        public void reader(II_Result result) {
+            int[] tmp = this.tree.read(e -> new int[]{e.toArray().length, e.contains(2) && e.getBreadth() == 2 && e.findDepthFirstLeftNext(2) != null ? 1 : 0});
+            result.r1 = tmp[0];
+            result.r2 = tmp[1];
+        }
+    }
+}
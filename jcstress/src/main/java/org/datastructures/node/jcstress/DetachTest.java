@@ -0,0 +1,134 @@
+package org.datastructures.node.jcstress;
+
+import org.datastructures.node.ConcurrentNode;
+import org.datastructures.node.Node;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * Tests {@link ConcurrentNode#detach(Node)} and {@link ConcurrentNode#add(Node, Node)} against concurrent writes and reads.
+ */
+public class DetachTest {
+    /**
+     * A writer detaches a subtree while a reader traverses the tree.
+     */
+    @JCStressTest
+    @Outcome(id = "5, 1", expect = ACCEPTABLE, desc = "The reader runs first.")
+    @Outcome(id = "2, 0", expect = ACCEPTABLE, desc = "The writer runs first.")
+    @Outcome(expect = FORBIDDEN, desc = "The reader observes a partial write.")
+    @State
+    public static class DetachRead {
+        /**
+         * The tree, having a root node, two descendants, and two descendants of the first descendant.
+         */
+        private final ConcurrentNode<Integer> tree = new ConcurrentNode<>(new Node<>(0, new Node<>(1, 3, 4), new Node<>(2)));
+        /**
+         * The first descendant of the root node.
+         */
+        private final Node<Integer> node = this.tree.getRoot().getFirstDescendant();
+
+        @Actor
+        public void writer() {
+            this.tree.detach(this.node);
+        }
+
+        @Actor
+        public void reader(II_Result result) {
+            int[] tmp = this.tree.read(e -> {
+                int count = 0;
+                for (Integer ignored : e) {
+                    count++;
+                }
+                return new int[]{count, e.findDepthFirstRightNext(4) != null ? 1 : 0};
+            });
+            result.r1 = tmp[0];
+            result.r2 = tmp[1];
+        }
+    }
+
+    /**
+     * A writer moves a node from one predecessor to another while a reader locates it.
+     */
+    @JCStressTest
+    @Outcome(id = "5, 1, 1", expect = ACCEPTABLE, desc = "The reader runs first.")
+    @Outcome(id = "5, 2, 1", expect = ACCEPTABLE, desc = "The writer runs first.")
+    @Outcome(expect = FORBIDDEN, desc = "The reader observes a partial write.")
+    @State
+    public static class MoveRead {
+        /**
+         * The tree, having a root node, two descendants, and a descendant of the first descendant.
+         */
+        private final ConcurrentNode<Integer> tree = new ConcurrentNode<>(new Node<>(0, new Node<>(1, 3), new Node<>(2)));
+        /**
+         * The descendant of the first descendant of the root node.
+         */
+        private final Node<Integer> node = this.tree.getRoot().getFirstDescendant().getFirstDescendant();
+
+        @Actor
+        public void writer() {
+            this.tree.add(this.tree.getRoot().getLastDescendant(), this.node);
+        }
+
+        @Actor
+        public void reader(III_Result result) {
+            int[] tmp = this.tree.read(e -> new int[]{e.size(), this.node.getPredecessor().getElement(), this.node.getY()});
+            result.r1 = tmp[0];
+            result.r2 = tmp[1];
+            result.r3 = tmp[2];
+        }
+    }
+
+    /**
+     * Two writers move a node under one another: one of the moves has to fail, and the tree must remain consistent.
+     */
+    @JCStressTest
+    @Outcome(id = "4, 1, 2", expect = ACCEPTABLE, desc = "The first writer runs first.")
+    @Outcome(id = "4, 2, 1", expect = ACCEPTABLE, desc = "The second writer runs first.")
+    @Outcome(expect = FORBIDDEN, desc = "A cycle or a lost node.")
+    @State
+    public static class MoveMove {
+        /**
+         * The tree, having a root node and three descendants.
+         */
+        private final ConcurrentNode<Integer> tree = new ConcurrentNode<>(new Node<>(0, 1, 2, 3));
+        /**
+         * The first descendant of the root node.
+         */
+        private final Node<Integer> first = this.tree.getRoot().getFirstDescendant();
+        /**
+         * The second descendant of the root node.
+         */
+        private final Node<Integer> second = this.first.getNextSibling();
+
+        @Actor
+        public void actor1() {
+            try {
+                this.tree.add(this.first, this.second);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        @Actor
+        public void actor2() {
+            try {
+                this.tree.add(this.second, this.first);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        @Arbiter
+        public void arbiter(III_Result result) {
+            result.r1 = this.tree.size();
+            result.r2 = this.first.getY();
+            result.r3 = this.second.getY();
+        }
+    }
+}
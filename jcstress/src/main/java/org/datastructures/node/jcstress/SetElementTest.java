@@ -0,0 +1,83 @@
+package org.datastructures.node.jcstress;
+
+import org.datastructures.node.ConcurrentNode;
+import org.datastructures.node.Node;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * Tests {@link ConcurrentNode#setElement(Node, Object)} against concurrent reads.
+ */
+public class SetElementTest {
+    /**
+     * A writer replaces the object referenced by a node while a reader searches the new object, then the former one.
+     */
+    @JCStressTest
+    @Outcome(id = "0, 1", expect = ACCEPTABLE, desc = "The reader runs first.")
+    @Outcome(id = "1, 0", expect = ACCEPTABLE, desc = "The writer runs first.")
+    @Outcome(id = "0, 0", expect = ACCEPTABLE, desc = "The writer runs between the two searches.")
+    @Outcome(expect = FORBIDDEN, desc = "The new object is found before the former one.")
+    @State
+    public static class SetFind {
+        /**
+         * The tree, having a root node and two descendants.
+         */
+        private final ConcurrentNode<Integer> tree = new ConcurrentNode<>(new Node<>(0, 1, 2));
+        /**
+         * The last descendant of the root node.
+         */
+        private final Node<Integer> node = this.tree.getRoot().getLastDescendant();
+
+        @Actor
+        public void writer() {
+            this.tree.setElement(this.node, 3);
+        }
+
+        @Actor
+        public void reader(II_Result result) {
+            Node<Integer> root = this.tree.getRoot();
+            result.r1 = this.tree.findBreadthFirstLeftNext(root, 3) == this.node ? 1 : 0;
+            result.r2 = this.tree.findBreadthFirstLeftNext(root, 2) == this.node ? 1 : 0;
+        }
+    }
+
+    /**
+     * A writer replaces the object referenced by a node while a reader copies the referenced objects into an array.
+     */
+    @JCStressTest
+    @Outcome(id = "3", expect = ACCEPTABLE, desc = "The reader runs first.")
+    @Outcome(id = "4", expect = ACCEPTABLE, desc = "The writer runs first.")
+    @Outcome(expect = FORBIDDEN, desc = "The reader observes a partial write.")
+    @State
+    public static class SetToArray {
+        /**
+         * The tree, having a root node and two descendants.
+         */
+        private final ConcurrentNode<Integer> tree = new ConcurrentNode<>(new Node<>(0, 1, 2));
+        /**
+         * The last descendant of the root node.
+         */
+        private final Node<Integer> node = this.tree.getRoot().getLastDescendant();
+
+        @Actor
+        public void writer() {
+            this.tree.setElement(this.node, 3);
+        }
+
+        @Actor
+        public void reader(I_Result result) {
+            int sum = 0;
+            for (Object tmp : this.tree.toArray()) {
+                sum += (Integer) tmp;
+            }
+            result.r1 = sum;
+        }
+    }
+}
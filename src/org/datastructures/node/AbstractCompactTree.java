@@ -0,0 +1,742 @@
+package org.datastructures.node;
+
+import java.util.*;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Notes:
+ * . A compact tree is a copy of a tree of nodes whose structure is frozen, meant for read-heavy workloads on large trees, where the per-node headers and references of Node dominate the memory footprint.
+ * . Nodes are identified by their position in a depth-first left-to-right order of encounter, the root node being at position 0. The (sub-)tree having a given node as its root occupies a contiguous range of positions, starting at that node and spanning its size.
+ * . The structural properties of the nodes are int columns indexed by position, read through a Columns accessor, so that the traversals and searches are written once whatever the storage: CompactTree and the primitive trees store each column in an int array on the heap, whereas OffHeapTree and MappedTree store fixed-width records of int fields in byte buffers. The accessor is a final field, hence the JIT compiler inlines its functions at call sites seeing one or two storages.
+ * . The referenced objects are stored by the subclasses, either in a single array of objects or in a single array of primitive values, which may be replaced in place.
+ * . The breadth-first orders of encounter are served by an additional array listing the positions of the nodes depth level by depth level. The nodes of a (sub-)tree at a given depth level are adjacent in that array, and are found by binary search since positions grow from left to right at each depth level.
+ */
+/**
+ * The <code><b>AbstractCompactTree</b></code> class is the base class of the trees stored in a struct-of-arrays layout whose structure is read-only, holding their structure, traversal orders and searches.
+ * <p/>
+ * A compact tree is created from a {@link Node}, and converted back to a {@link Node} by {@link #toNode()}. It offers the traversal orders of {@link Node} on nodes identified by their positions, along with a read-only {@link Collection} view of the referenced objects. Functions returning a node return -1 where {@link Node} returns null.
+ * <p/>
+ * Any function reading the structure of a tree whose storage has been released, see {@link OffHeapTree#close()}, throws an {@link IllegalStateException}.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ * @see CompactTree
+ * @see PrimitiveCompactTree
+ * @see IntCompactTree
+ * @see LongCompactTree
+ * @see DoubleCompactTree
+ * @see OffHeapTree
+ */
+public abstract class AbstractCompactTree<N> extends AbstractCollection<N> {
+    /**
+     * The positions of the structural properties among the int columns of a node.
+     */
+    static final int PREDECESSOR = 0, FIRST_DESCENDANT = 1, LAST_DESCENDANT = 2, NEXT_SIBLING = 3, PREVIOUS_SIBLING = 4, X = 5, Y = 6, SIZE = 7, LEVEL_INDEX = 8;
+    /**
+     * The number of int columns of a node.
+     */
+    static final int FIELDS = 9;
+    /**
+     * The int columns holding the structural properties of the nodes and their positions depth level by depth level.
+     */
+    private final Columns columns;
+    /**
+     * The index of the first node at each depth level in the positions of the nodes depth level by depth level, followed by the number of nodes.
+     */
+    private final int[] levelStarts;
+    /**
+     * Preferred traversal algorithm for the tree.
+     */
+    private final Node.TraversalAlgorithm traversalAlgorithm;
+
+    /**
+     * Creates the structure of a compact tree holding a copy of the (sub-)tree having the given node as its root in int arrays, handing the object referenced by each node along with its position to the given consumer.
+     * <p/>
+     * The (sub-)tree is walked once iteratively, and the depth levels are indexed in a second pass over the positions.
+     *
+     * @param root     the root node of the (sub-)tree to be copied.
+     * @param elements the consumer storing the object referenced by each node at its position.
+     * @param <E>      type of elements referenced by the nodes of the (sub-)tree.
+     * @throws NullPointerException if the given node is null.
+     */
+    <E> AbstractCompactTree(Node<E> root, ObjIntConsumer<? super E> elements) {
+        this(root, new ArrayColumns(root.size()), elements);
+    }
+
+    /**
+     * Creates the structure of a compact tree holding a copy of the (sub-)tree having the given node as its root in the given columns, handing the object referenced by each node along with its position to the given consumer.
+     *
+     * @param root     the root node of the (sub-)tree to be copied.
+     * @param columns  the columns holding at least as many nodes as the (sub-)tree.
+     * @param elements the consumer storing the object referenced by each node at its position.
+     * @param <E>      type of elements referenced by the nodes of the (sub-)tree.
+     */
+    <E> AbstractCompactTree(Node<E> root, Columns columns, ObjIntConsumer<? super E> elements) {
+        this(columns, AbstractCompactTree.layout(root, columns, elements), root.getTraversalAlgorithm());
+    }
+
+    /**
+     * Creates a compact tree over the given columns holding the structure laid out by {@link #layout(Node, Columns, ObjIntConsumer)}.
+     *
+     * @param columns            the columns holding the structure of the tree.
+     * @param levelStarts        the index of the first node at each depth level, followed by the number of nodes.
+     * @param traversalAlgorithm the preferred traversal algorithm for the tree.
+     */
+    AbstractCompactTree(Columns columns, int[] levelStarts, Node.TraversalAlgorithm traversalAlgorithm) {
+        this.columns = columns;
+        this.levelStarts = levelStarts;
+        this.traversalAlgorithm = traversalAlgorithm;
+    }
+
+    /**
+     * Writes the structural properties of the nodes of the (sub-)tree having the given node as its root into the given columns, followed by the positions of the nodes depth level by depth level, and hands each referenced object to the given consumer in the order of the positions.
+     * <p/>
+     * The (sub-)tree is walked once iteratively, counting the nodes at each depth level, and the depth levels are indexed in a second pass over the positions.
+     *
+     * @param root     the root node of the (sub-)tree to be written.
+     * @param columns  the columns holding at least as many nodes as the (sub-)tree.
+     * @param elements the consumer of the referenced objects and their positions.
+     * @param <E>      type of elements referenced by the nodes of the (sub-)tree.
+     * @return the index of the first node at each depth level, followed by the number of nodes.
+     * @throws NullPointerException if the given node is null.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> int[] layout(Node<E> root, Columns columns, ObjIntConsumer<? super E> elements) {
+        int count = root.size();
+        Node<E>[] nodes = (Node<E>[]) new Node<?>[16];
+        int[] positions = new int[16], cursors = new int[16], counts = new int[16];
+        int next = 1, leaves = 0, height = 0;
+        AbstractCompactTree.set(columns, 0, -1, 0, 0);
+        elements.accept(root.getElement(), 0);
+        nodes[0] = root;
+        counts[0] = 1;
+        for (int top = 0; top >= 0; ) {
+            Node<E> node = nodes[top];
+            int position = positions[top];
+            if (cursors[top] < node.countDescendants()) {
+                Node<E> descendant = node.getDescendant(cursors[top]++);
+                int tmp = next++, last = columns.get(position, LAST_DESCENDANT);
+                AbstractCompactTree.set(columns, tmp, position, top + 1, leaves);
+                elements.accept(descendant.getElement(), tmp);
+                if (last < 0) {
+                    columns.set(position, FIRST_DESCENDANT, tmp);
+                } else {
+                    columns.set(last, NEXT_SIBLING, tmp);
+                    columns.set(tmp, PREVIOUS_SIBLING, last);
+                }
+                columns.set(position, LAST_DESCENDANT, tmp);
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top << 1);
+                    positions = Arrays.copyOf(positions, top << 1);
+                    cursors = Arrays.copyOf(cursors, top << 1);
+                    counts = Arrays.copyOf(counts, top << 1);
+                }
+                nodes[top] = descendant;
+                positions[top] = tmp;
+                cursors[top] = 0;
+                counts[top]++;
+                height = Math.max(height, top);
+            } else {
+                columns.set(position, SIZE, next - position);
+                leaves += node.countDescendants() == 0 ? 1 : 0;
+                nodes[top--] = null;
+            }
+        }
+        int[] result = new int[height + 2];
+        for (int i = 1; i < result.length; result[i] = result[i - 1] + counts[i - 1], i++) ;
+        int[] fill = Arrays.copyOf(result, height + 1);
+        for (int i = 0; i < count; i++) {
+            int index = fill[columns.get(i, Y)]++;
+            columns.setLevel(index, i);
+            columns.set(i, LEVEL_INDEX, index);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the structural properties of the node at the given position but its size and its index in the depth levels.
+     */
+    private static void set(Columns columns, int position, int predecessor, int y, int x) {
+        columns.set(position, PREDECESSOR, predecessor);
+        columns.set(position, FIRST_DESCENDANT, -1);
+        columns.set(position, LAST_DESCENDANT, -1);
+        columns.set(position, NEXT_SIBLING, -1);
+        columns.set(position, PREVIOUS_SIBLING, -1);
+        columns.set(position, Y, y);
+        columns.set(position, X, x);
+    }
+
+    /**
+     * Converts this compact tree back to a tree of nodes.
+     * <p/>
+     * The nodes are created in a depth-first left-to-right order of encounter and connected in a single pass.
+     *
+     * @return the root node of a tree having the same structure and referencing the same objects as this compact tree.
+     */
+    public Node<N> toNode() {
+        return this.toNode(0);
+    }
+
+    /**
+     * Converts the (sub-)tree having the given node as its root to a tree of nodes.
+     * <p/>
+     * The (sub-)tree occupies a contiguous range of positions, hence only the properties of its nodes are read.
+     *
+     * @param root the position of the root node of the (sub-)tree to be converted.
+     * @return the root node of a tree having the same structure and referencing the same objects as the (sub-)tree having the given node as its root.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public Node<N> toNode(int root) {
+        Node.Builder<N> builder = new Node.Builder<>(this.traversalAlgorithm);
+        for (int i = root, end = root + this.columns.get(root, SIZE); i < end; builder.append(this.getElement(i), this.countDescendants(i)), i++) ;
+        return builder.getRoot();
+    }
+
+    /**
+     * Gets the preferred traversal algorithm for the tree, which is the one of the tree this compact tree was created from.
+     *
+     * @return the preferred traversal algorithm for the tree.
+     */
+    public Node.TraversalAlgorithm getTraversalAlgorithm() {
+        return this.traversalAlgorithm;
+    }
+
+    /**
+     * Gets the root node of the tree.
+     *
+     * @return 0.
+     */
+    public int getRoot() {
+        return 0;
+    }
+
+    /**
+     * Gets the object referenced by the given node.
+     *
+     * @param node the position of the node.
+     * @return the object referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public abstract N getElement(int node);
+
+    /**
+     * Gets the predecessor of the given node.
+     *
+     * @param node the position of the node.
+     * @return the position of the predecessor of the given node, or -1 if the given node is the root node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int getPredecessor(int node) {
+        return this.columns.get(node, PREDECESSOR);
+    }
+
+    /**
+     * Gets the first direct descendant of the given node.
+     *
+     * @param node the position of the node.
+     * @return the position of the first direct descendant of the given node, or -1 if the given node has no descendants.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int getFirstDescendant(int node) {
+        return this.columns.get(node, FIRST_DESCENDANT);
+    }
+
+    /**
+     * Gets the last direct descendant of the given node.
+     *
+     * @param node the position of the node.
+     * @return the position of the last direct descendant of the given node, or -1 if the given node has no descendants.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int getLastDescendant(int node) {
+        return this.columns.get(node, LAST_DESCENDANT);
+    }
+
+    /**
+     * Gets the adjacent node to the right of the given node having the same predecessor.
+     *
+     * @param node the position of the node.
+     * @return the position of the next direct descendant of the given node's predecessor, or -1 if the given node is the last one.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int getNextSibling(int node) {
+        return this.columns.get(node, NEXT_SIBLING);
+    }
+
+    /**
+     * Gets the adjacent node to the left of the given node having the same predecessor.
+     *
+     * @param node the position of the node.
+     * @return the position of the previous direct descendant of the given node's predecessor, or -1 if the given node is the first one.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int getPreviousSibling(int node) {
+        return this.columns.get(node, PREVIOUS_SIBLING);
+    }
+
+    /**
+     * Counts the direct descendants of the given node.
+     *
+     * @param node the position of the node.
+     * @return the number of direct descendants of the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int countDescendants(int node) {
+        int result = 0;
+        for (int tmp = this.columns.get(node, FIRST_DESCENDANT); tmp >= 0; tmp = this.columns.get(tmp, NEXT_SIBLING), result++) ;
+        return result;
+    }
+
+    /**
+     * Gets the number of nodes in the (sub-)tree having the given node as its root.
+     *
+     * @param node the position of the node.
+     * @return the size of the (sub-)tree having the given node as its root.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int size(int node) {
+        return this.columns.get(node, SIZE);
+    }
+
+    /**
+     * Gets the abscissa of the given node in the plane.
+     *
+     * @param node the position of the node.
+     * @return the abscissa of the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int getX(int node) {
+        return this.columns.get(node, X);
+    }
+
+    /**
+     * Gets the ordinate of the given node in the plane.
+     *
+     * @param node the position of the node.
+     * @return the ordinate of the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public int getY(int node) {
+        return this.columns.get(node, Y);
+    }
+
+    /**
+     * Tells whether the given node is a descendant of the given root node.
+     *
+     * @param node the position of the node.
+     * @param root the position of the root node.
+     * @return true if the given node is the given root node or one of its descendants, false otherwise.
+     */
+    public boolean isDescendantOf(int node, int root) {
+        return node >= root && node < root + this.columns.get(root, SIZE);
+    }
+
+    /*
+     * Traversal.
+     */
+    /**
+     * Traverses to the next node in a breadth-first left-to-right order of encounter in the tree.
+     *
+     * @param node the position of the current node.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     */
+    public int getBreadthFirstLeftNext(int node) {
+        return this.getBreadthFirstLeftNext(node, 0);
+    }
+
+    /**
+     * Traverses to the next node in a breadth-first right-to-left order of encounter in the tree.
+     *
+     * @param node the position of the current node.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     */
+    public int getBreadthFirstRightNext(int node) {
+        return this.getBreadthFirstRightNext(node, 0);
+    }
+
+    /**
+     * Traverses to the next node in a depth-first left-to-right order of encounter in the tree.
+     *
+     * @param node the position of the current node.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     */
+    public int getDepthFirstLeftNext(int node) {
+        return this.getDepthFirstLeftNext(node, 0);
+    }
+
+    /**
+     * Traverses to the next node in a depth-first right-to-left order of encounter in the tree.
+     *
+     * @param node the position of the current node.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     */
+    public int getDepthFirstRightNext(int node) {
+        return this.getDepthFirstRightNext(node, 0);
+    }
+
+    /**
+     * Traverses to the next node in a breadth-first left-to-right order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * The next node at the current depth level is the next entry of the depth level index if it belongs to the (sub-)tree, otherwise, the first node of the (sub-)tree at the next depth level is found by binary search.
+     *
+     * @param node the position of the current node.
+     * @param root the position of the root node of the (sub-)tree to be traversed.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int getBreadthFirstLeftNext(int node, int root) {
+        this.validateRoot(node, root);
+        int y = this.columns.get(node, Y), tmp = this.columns.get(node, LEVEL_INDEX) + 1, next;
+        if (tmp < this.levelStarts[y + 1] && (next = this.columns.level(tmp)) < root + this.columns.get(root, SIZE)) {
+            return next;
+        }
+        return y + 2 < this.levelStarts.length ? this.first(y + 1, root) : -1;
+    }
+
+    /**
+     * Traverses to the next node in a breadth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * See {@link #getBreadthFirstLeftNext(int, int)}.
+     *
+     * @param node the position of the current node.
+     * @param root the position of the root node of the (sub-)tree to be traversed.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int getBreadthFirstRightNext(int node, int root) {
+        this.validateRoot(node, root);
+        int y = this.columns.get(node, Y), tmp = this.columns.get(node, LEVEL_INDEX) - 1, next;
+        if (tmp >= this.levelStarts[y] && (next = this.columns.level(tmp)) >= root) {
+            return next;
+        }
+        return y + 2 < this.levelStarts.length ? this.last(y + 1, root) : -1;
+    }
+
+    /**
+     * Traverses to the next node in a depth-first left-to-right order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * Positions follow this order of encounter, hence the next node is the next position if it belongs to the (sub-)tree.
+     *
+     * @param node the position of the current node.
+     * @param root the position of the root node of the (sub-)tree to be traversed.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int getDepthFirstLeftNext(int node, int root) {
+        this.validateRoot(node, root);
+        return node + 1 < root + this.columns.get(root, SIZE) ? node + 1 : -1;
+    }
+
+    /**
+     * Traverses to the next node in a depth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     *
+     * @param node the position of the current node.
+     * @param root the position of the root node of the (sub-)tree to be traversed.
+     * @return the position of the next node, or -1 if the given node is the last node.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int getDepthFirstRightNext(int node, int root) {
+        this.validateRoot(node, root);
+        int last = this.columns.get(node, LAST_DESCENDANT);
+        if (last >= 0) {
+            return last;
+        }
+        for (int tmp = node; tmp != root; tmp = this.columns.get(tmp, PREDECESSOR)) {
+            int previous = this.columns.get(tmp, PREVIOUS_SIBLING);
+            if (previous >= 0) {
+                return previous;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Validates whether the given node is a descendant of the given root node.
+     *
+     * @param node the position of the node.
+     * @param root the position of the root node.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public void validateRoot(int node, int root) {
+        if (!this.isDescendantOf(node, root)) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Finds the left-most node of the (sub-)tree having the given node as its root at the given depth level.
+     *
+     * @return the position of the node, or -1 if the (sub-)tree has no node at the given depth level.
+     */
+    private int first(int y, int root) {
+        int low = this.levelStarts[y], high = this.levelStarts[y + 1], end = high, result;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.columns.level(mid) < root) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < end && (result = this.columns.level(low)) < root + this.columns.get(root, SIZE) ? result : -1;
+    }
+
+    /**
+     * Finds the right-most node of the (sub-)tree having the given node as its root at the given depth level.
+     *
+     * @return the position of the node, or -1 if the (sub-)tree has no node at the given depth level.
+     */
+    private int last(int y, int root) {
+        int low = this.levelStarts[y], high = this.levelStarts[y + 1], start = low, end = root + this.columns.get(root, SIZE), result;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.columns.level(mid) < end) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low > start && (result = this.columns.level(low - 1)) >= root ? result : -1;
+    }
+
+    /**
+     * Returns the first encountered node whose position matches the given predicate and follows the given node, the given node included, in the order of encounter of the given traversal algorithm in the (sub-)tree having the given node as its root.
+     * <p/>
+     * The (sub-)tree occupies a contiguous range of positions, hence a depth-first left-to-right search is a linear scan of the positions, which reads no structural property but the size of the (sub-)tree.
+     *
+     * @param node               the position of the node from which the search starts.
+     * @param matcher            the predicate that is applied to the position of each encountered node, testing the object it references.
+     * @param root               the position of the root node of the (sub-)tree to be searched.
+     * @param traversalAlgorithm the traversal algorithm to be applied.
+     * @return the position of the matching node, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    int find(int node, IntPredicate matcher, int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        this.validateRoot(node, root);
+        if (traversalAlgorithm == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT) {
+            for (int i = node, end = root + this.size(root); i < end; i++) {
+                if (matcher.test(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        IntBinaryOperator stepper = this.stepper(traversalAlgorithm);
+        for (int tmp = node; tmp >= 0; tmp = stepper.applyAsInt(tmp, root)) {
+            if (matcher.test(tmp)) {
+                return tmp;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the stepper function of the given traversal algorithm, which maps the current node and the root node of the (sub-)tree to the next node.
+     *
+     * @param traversalAlgorithm the traversal algorithm.
+     * @return the stepper function of the given traversal algorithm.
+     * @throws NullPointerException if the given traversal algorithm is null.
+     */
+    IntBinaryOperator stepper(Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (Objects.requireNonNull(traversalAlgorithm)) {
+            case BREADTH_FIRST_LEFT:
+                return this::getBreadthFirstLeftNext;
+            case BREADTH_FIRST_RIGHT:
+                return this::getBreadthFirstRightNext;
+            case DEPTH_FIRST_LEFT:
+                return this::getDepthFirstLeftNext;
+            default:
+                return this::getDepthFirstRightNext;
+        }
+    }
+
+    /*
+     * Collection.
+     */
+    /**
+     * Gets the number of nodes in the tree.
+     *
+     * @return the size of the tree.
+     */
+    @Override
+    public int size() {
+        return this.levelStarts[this.levelStarts.length - 1];
+    }
+
+    /**
+     * Returns an iterator over the objects referenced by the nodes of the tree, applying the preferred traversal algorithm for the tree.
+     *
+     * @return an iterator over the objects referenced by the nodes of the tree.
+     */
+    @Override
+    public Iterator<N> iterator() {
+        return this.iterator(0, this.traversalAlgorithm);
+    }
+
+    /**
+     * Returns an iterator over the objects referenced by the nodes of the (sub-)tree having the given node as its root, applying the given traversal algorithm.
+     *
+     * @param root               the position of the root node of the (sub-)tree to be traversed.
+     * @param traversalAlgorithm the traversal algorithm to be applied.
+     * @return an iterator over the objects referenced by the nodes of the (sub-)tree having the given node as its root.
+     * @throws NullPointerException      if the given traversal algorithm is null.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public Iterator<N> iterator(int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        PrimitiveIterator.OfInt positions = this.positionIterator(root, traversalAlgorithm);
+        return new Iterator<N>() {
+            @Override
+            public boolean hasNext() {
+                return positions.hasNext();
+            }
+
+            @Override
+            public N next() {
+                return AbstractCompactTree.this.getElement(positions.nextInt());
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the positions of the nodes of the (sub-)tree having the given node as its root, applying the given traversal algorithm.
+     *
+     * @param root               the position of the root node of the (sub-)tree to be traversed.
+     * @param traversalAlgorithm the traversal algorithm to be applied.
+     * @return an iterator over the positions of the nodes of the (sub-)tree having the given node as its root.
+     * @throws NullPointerException      if the given traversal algorithm is null.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    PrimitiveIterator.OfInt positionIterator(int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        IntBinaryOperator stepper = this.stepper(traversalAlgorithm);
+        this.validateRoot(root, root);
+        return new PrimitiveIterator.OfInt() {
+            /**
+             * The position of the next node to be returned, or -1 if the iteration is complete.
+             */
+            private int next = root;
+
+            @Override
+            public boolean hasNext() {
+                return this.next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int result = this.next;
+                this.next = stepper.applyAsInt(this.next, root);
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns a stream over the positions of the nodes of the (sub-)tree having the given node as its root, applying the given traversal algorithm.
+     * <p/>
+     * The (sub-)tree occupies a contiguous range of positions, hence a depth-first left-to-right stream is a range of positions, which splits evenly in parallel.
+     *
+     * @param root               the position of the root node of the (sub-)tree to be traversed.
+     * @param traversalAlgorithm the traversal algorithm to be applied.
+     * @return a sequential stream over the positions of the nodes of the (sub-)tree having the given node as its root.
+     * @throws NullPointerException      if the given traversal algorithm is null.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    IntStream positions(int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        if (Objects.requireNonNull(traversalAlgorithm) == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT) {
+            this.validateRoot(root, root);
+            return IntStream.range(root, root + this.columns.get(root, SIZE));
+        }
+        return StreamSupport.intStream(Spliterators.spliterator(this.positionIterator(root, traversalAlgorithm), this.columns.get(root, SIZE), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * The int columns holding the structural properties of the nodes of a compact tree, indexed by position, and the positions of the nodes depth level by depth level.
+     * <p/>
+     * Reading a column of a node at a position out of range throws an {@link IndexOutOfBoundsException}.
+     */
+    abstract static class Columns {
+        /**
+         * Gets a structural property of the given node.
+         *
+         * @param node  the position of the node.
+         * @param field the position of the property among the columns, e.g. {@link #SIZE}.
+         * @return the value of the property.
+         * @throws IndexOutOfBoundsException if the given position is out of range.
+         */
+        abstract int get(int node, int field);
+
+        /**
+         * Sets a structural property of the given node.
+         *
+         * @param node  the position of the node.
+         * @param field the position of the property among the columns.
+         * @param value the value of the property.
+         */
+        abstract void set(int node, int field, int value);
+
+        /**
+         * Gets the position of the node at the given index in the positions of the nodes depth level by depth level.
+         *
+         * @param index the index.
+         * @return the position of the node.
+         */
+        abstract int level(int index);
+
+        /**
+         * Sets the position of the node at the given index in the positions of the nodes depth level by depth level.
+         *
+         * @param index the index.
+         * @param node  the position of the node.
+         */
+        abstract void setLevel(int index, int node);
+    }
+
+    /**
+     * The columns stored in int arrays on the heap, one array per column.
+     */
+    private static final class ArrayColumns extends Columns {
+        /**
+         * The arrays of the structural properties, indexed by the position of the property then by the position of the node.
+         */
+        private final int[][] fields;
+        /**
+         * The positions of the nodes depth level by depth level.
+         */
+        private final int[] levels;
+
+        /**
+         * Creates the columns of the given number of nodes.
+         *
+         * @param count the number of nodes.
+         */
+        private ArrayColumns(int count) {
+            this.fields = new int[FIELDS][count];
+            this.levels = new int[count];
+        }
+
+        @Override
+        int get(int node, int field) {
+            return this.fields[field][node];
+        }
+
+        @Override
+        void set(int node, int field, int value) {
+            this.fields[field][node] = value;
+        }
+
+        @Override
+        int level(int index) {
+            return this.levels[index];
+        }
+
+        @Override
+        void setLevel(int index, int node) {
+            this.levels[index] = node;
+        }
+    }
+}
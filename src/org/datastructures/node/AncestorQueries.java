@@ -0,0 +1,347 @@
+package org.datastructures.node;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/*
+ * Notes:
+ * . The nodes of the (sub-)tree are numbered in a depth-first left-to-right order of encounter. For two distinct nodes numbered i < j, the lowest common ancestor is the predecessor of a node having the smallest ordinate among the nodes numbered from i + 1 to j, which turns the query into a range minimum query over the ordinates, using an array of n positions instead of the 2n positions of an Euler tour.
+ * . Range minimum queries are answered in constant time by a sparse table over blocks of 16 consecutive nodes, the ends of a range being scanned within their blocks, so that the table takes n / 16 * log(n / 16) positions instead of n * log(n).
+ * . Node.addAll(int, Node[]) and Node.detach() count the structural modifications of a tree, and the tree records the node whose direct descendants were changed by each of its last modifications, see Node.getModified(int). The first query following modifications checks whether one of the recorded nodes belongs to the (sub-)tree as numbered, and the (sub-)tree is unchanged otherwise: the direct descendants of a node outside of it are never nodes of the (sub-)tree, but for the root node itself, whose ordinates may shift as a whole without changing any answer. Modifications elsewhere in the tree thus cost a constant-time check per modification. Changing the objects referenced by the nodes has no effect on the query structures.
+ * . A modification of the (sub-)tree shifts the positions of all the nodes following the modified node, hence the query structures are then rebuilt as a whole, as they are once the modifications since the last query are too many to be recorded, or once the root node is moved into another tree or detached. Rebuilding walks the (sub-)tree once and allocates arrays of n positions and the sparse table, and nothing per node.
+ * . The position of each node is held by an open-addressing hash table keyed by node identity, owned by the instance rather than stored by the nodes, so that any number of instances query the same tree without numbering the nodes of one another, and a node outside the (sub-)tree is rejected in constant time.
+ */
+/**
+ * The <code><b>AncestorQueries</b></code> class answers lowest common ancestor, distance and path queries on the (sub-)tree having a given node as its root.
+ * <p/>
+ * Building the query structures walks the (sub-)tree once, then lowest common ancestor and distance queries take constant time each, and path queries take time proportional to the length of the path. The structures are rebuilt as a whole by the first query following a structural modification of the (sub-)tree, which takes time proportional to its size: this class suits (sub-)trees queried many times between modifications. Structural modifications of the tree outside of the (sub-)tree are checked in constant time each. The batch functions answer many queries at once in parallel.
+ * <p/>
+ * This class is not thread safe, but the batch functions can be called while no other thread modifies the tree or queries it through another instance.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class AncestorQueries<N> {
+    /**
+     * The base-2 logarithm of the number of nodes in a block.
+     */
+    private static final int SHIFT = 4;
+    /**
+     * The number of queries below which the batch functions run sequentially.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+    /**
+     * The root node of the (sub-)tree.
+     */
+    private final Node<N> root;
+    /**
+     * The object shared by the nodes of the tree to which the root node belonged when the query structures were built, see {@link Node#getTree()}.
+     */
+    private Object tree;
+    /**
+     * The number of structural modifications of the tree to which the root node belonged when the query structures were built, see {@link Node#getModifications()}.
+     */
+    private int modifications;
+    /**
+     * The nodes of the (sub-)tree in a depth-first left-to-right order of encounter.
+     */
+    private Node<N>[] nodes;
+    /**
+     * The ordinate of each node in {@link #nodes}.
+     */
+    private int[] ordinates;
+    /**
+     * The position of the predecessor of each node in {@link #nodes} but the root node.
+     */
+    private int[] predecessors;
+    /**
+     * The open-addressing hash table of the nodes of the (sub-)tree keyed by identity, whose length is a power of 2, null marking an empty slot.
+     */
+    private Node<N>[] keys;
+    /**
+     * The position in {@link #nodes} of the node in each slot of {@link #keys}.
+     */
+    private int[] positions;
+    /**
+     * The sparse table of the positions of the nodes having the smallest ordinates: the i-th row holds, for each block, the position of the node having the smallest ordinate among the 2<sup>i</sup> blocks starting at that block.
+     */
+    private int[][] table;
+
+    /**
+     * Creates the query structures of the (sub-)tree having the given node as its root.
+     *
+     * @param root the root node of the (sub-)tree.
+     * @throws NullPointerException if the given node is null.
+     */
+    public AncestorQueries(Node<N> root) {
+        this.root = Objects.requireNonNull(root);
+        this.build();
+    }
+
+    /**
+     * Gets the root node of the (sub-)tree.
+     *
+     * @return the root node of the (sub-)tree.
+     */
+    public Node<N> getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Gets the lowest common ancestor of the given nodes, i.e. the deepest node having both nodes as descendants, where a node is a descendant of itself.
+     *
+     * @param node1 the first node.
+     * @param node2 the second node.
+     * @return the lowest common ancestor of the given nodes.
+     * @throws NullPointerException     if one of the given nodes is null.
+     * @throws IllegalArgumentException if one of the given nodes is not a descendant of the root node.
+     */
+    public Node<N> getLowestCommonAncestor(Node<N> node1, Node<N> node2) {
+        this.validate();
+        return this.nodes[this.lowestCommonAncestor(this.position(node1), this.position(node2))];
+    }
+
+    /**
+     * Gets the distance between the given nodes, i.e. the number of edges on the path between them.
+     *
+     * @param node1 the first node.
+     * @param node2 the second node.
+     * @return the distance between the given nodes.
+     * @throws NullPointerException     if one of the given nodes is null.
+     * @throws IllegalArgumentException if one of the given nodes is not a descendant of the root node.
+     */
+    public int getDistance(Node<N> node1, Node<N> node2) {
+        this.validate();
+        return this.distance(this.position(node1), this.position(node2));
+    }
+
+    /**
+     * Gets the path between the given nodes, i.e. the nodes from the first node up to the lowest common ancestor, then down to the second node.
+     *
+     * @param node1 the first node.
+     * @param node2 the second node.
+     * @return the nodes on the path from the first node to the second node, both included.
+     * @throws NullPointerException     if one of the given nodes is null.
+     * @throws IllegalArgumentException if one of the given nodes is not a descendant of the root node.
+     */
+    public List<Node<N>> getPath(Node<N> node1, Node<N> node2) {
+        Node<N> ancestor = this.getLowestCommonAncestor(node1, node2);
+        int distance1 = node1.getY() - ancestor.getY(), distance2 = node2.getY() - ancestor.getY();
+        List<Node<N>> result = new ArrayList<>(Collections.nCopies(distance1 + distance2 + 1, null));
+        Node<N> tmp = node1;
+        for (int i = 0; i <= distance1; result.set(i++, tmp), tmp = tmp.getPredecessor()) ;
+        tmp = node2;
+        for (int i = distance1 + distance2; i > distance1; result.set(i--, tmp), tmp = tmp.getPredecessor()) ;
+        return result;
+    }
+
+    /**
+     * Gets the lowest common ancestors of the given pairs of nodes, the i-th pair being made of the i-th node of each array.
+     *
+     * @param nodes1 the first nodes of the pairs.
+     * @param nodes2 the second nodes of the pairs.
+     * @return the lowest common ancestors of the given pairs of nodes.
+     * @throws NullPointerException     if one of the given arrays or nodes is null.
+     * @throws IllegalArgumentException if the given arrays have different lengths, or if one of the given nodes is not a descendant of the root node.
+     * @see #getLowestCommonAncestor(Node, Node)
+     */
+    @SuppressWarnings("unchecked")
+    public Node<N>[] getLowestCommonAncestors(Node<N>[] nodes1, Node<N>[] nodes2) {
+        if (nodes1.length != nodes2.length) {
+            throw new IllegalArgumentException();
+        }
+        this.validate();
+        Node<N>[] result = (Node<N>[]) new Node<?>[nodes1.length];
+        AncestorQueries.range(result.length).forEach(i -> result[i] = this.nodes[this.lowestCommonAncestor(this.position(nodes1[i]), this.position(nodes2[i]))]);
+        return result;
+    }
+
+    /**
+     * Gets the distances between the given pairs of nodes, the i-th pair being made of the i-th node of each array.
+     *
+     * @param nodes1 the first nodes of the pairs.
+     * @param nodes2 the second nodes of the pairs.
+     * @return the distances between the given pairs of nodes.
+     * @throws NullPointerException     if one of the given arrays or nodes is null.
+     * @throws IllegalArgumentException if the given arrays have different lengths, or if one of the given nodes is not a descendant of the root node.
+     * @see #getDistance(Node, Node)
+     */
+    public int[] getDistances(Node<N>[] nodes1, Node<N>[] nodes2) {
+        if (nodes1.length != nodes2.length) {
+            throw new IllegalArgumentException();
+        }
+        this.validate();
+        int[] result = new int[nodes1.length];
+        AncestorQueries.range(result.length).forEach(i -> result[i] = this.distance(this.position(nodes1[i]), this.position(nodes2[i])));
+        return result;
+    }
+
+    /**
+     * Returns a stream over the positions of a batch of queries, which is parallel unless the batch is small.
+     *
+     * @param count the number of queries.
+     * @return a stream over the positions of the queries.
+     */
+    private static IntStream range(int count) {
+        IntStream result = IntStream.range(0, count);
+        return count < PARALLEL_THRESHOLD ? result : result.parallel();
+    }
+
+    /**
+     * Rebuilds the query structures if the (sub-)tree has been structurally modified since they were built, skipping the modifications of the tree outside of the (sub-)tree.
+     */
+    private void validate() {
+        if (this.root.getTree() != this.tree) {
+            this.build();
+            return;
+        }
+        for (int modifications = this.root.getModifications(); this.modifications != modifications; this.modifications++) {
+            Node<N> node = this.root.getModified(this.modifications);
+            if (node == null || this.find(node) >= 0) {
+                this.build();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Builds the query structures, walking the (sub-)tree once.
+     */
+    @SuppressWarnings("unchecked")
+    private void build() {
+        int size = this.root.size();
+        this.tree = this.root.getTree();
+        this.modifications = this.root.getModifications();
+        this.nodes = (Node<N>[]) new Node<?>[size];
+        this.ordinates = new int[size];
+        this.predecessors = new int[size];
+        Deque<Node<N>> stack = new ArrayDeque<>();
+        int count = 0;
+        for (Node<N> tmp = this.root; tmp != null; tmp = stack.poll()) {
+            this.ordinates[count] = tmp.getY();
+            this.nodes[count++] = tmp;
+            for (int i = tmp.countDescendants() - 1; i >= 0; stack.push(tmp.getDescendant(i--))) ;
+        }
+        this.keys = (Node<N>[]) new Node<?>[Integer.highestOneBit(size) << 2];
+        this.positions = new int[this.keys.length];
+        for (int i = 0; i < size; i++) {
+            int slot = this.slot(this.nodes[i]);
+            this.keys[slot] = this.nodes[i];
+            this.positions[slot] = i;
+        }
+        for (int i = 1; i < size; i++) {
+            this.predecessors[i] = this.positions[this.slot(this.nodes[i].getPredecessor())];
+        }
+        int blocks = ((size - 1) >>> SHIFT) + 1, levels = 32 - Integer.numberOfLeadingZeros(blocks);
+        this.table = new int[levels][];
+        this.table[0] = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            this.table[0][i] = this.scan(i << SHIFT, Math.min(((i + 1) << SHIFT), size) - 1);
+        }
+        for (int k = 1; k < levels; k++) {
+            int[] previous = this.table[k - 1], current = this.table[k] = new int[blocks - (1 << k) + 1];
+            for (int i = 0; i < current.length; i++) {
+                current[i] = this.min(previous[i], previous[i + (1 << (k - 1))]);
+            }
+        }
+    }
+
+    /**
+     * Gets the position of the given node.
+     *
+     * @param node the node whose position is returned.
+     * @return the position of the given node in {@link #nodes}.
+     * @throws NullPointerException     if the given node is null.
+     * @throws IllegalArgumentException if the given node is not a descendant of the root node.
+     */
+    private int position(Node<N> node) {
+        int result = this.find(Objects.requireNonNull(node));
+        if (result < 0) {
+            throw new IllegalArgumentException();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the position of the given node in {@link #nodes}.
+     *
+     * @param node the node to be found.
+     * @return the position of the given node, or -1 if the given node is not a node of the (sub-)tree as numbered.
+     */
+    private int find(Node<?> node) {
+        int slot = this.slot(node);
+        return this.keys[slot] == node ? this.positions[slot] : -1;
+    }
+
+    /**
+     * Gets the slot of {@link #keys} holding the given node, or the empty slot where it would be held.
+     *
+     * @param node the node.
+     * @return the slot.
+     */
+    private int slot(Node<?> node) {
+        int mask = this.keys.length - 1, hash = System.identityHashCode(node) * 0x9E3779B9, result = (hash ^ hash >>> 16) & mask;
+        for (; this.keys[result] != null && this.keys[result] != node; result = (result + 1) & mask) ;
+        return result;
+    }
+
+    /**
+     * Gets the position of the lowest common ancestor of the nodes at the given positions.
+     *
+     * @param position1 the position of the first node.
+     * @param position2 the position of the second node.
+     * @return the position of the lowest common ancestor.
+     */
+    private int lowestCommonAncestor(int position1, int position2) {
+        if (position1 == position2) {
+            return position1;
+        }
+        int from = Math.min(position1, position2) + 1, to = Math.max(position1, position2), block1 = from >>> SHIFT, block2 = to >>> SHIFT, result;
+        if (block2 - block1 < 2) {
+            result = this.scan(from, to);
+        } else {
+            int k = 31 - Integer.numberOfLeadingZeros(block2 - block1 - 1);
+            result = this.min(this.scan(from, ((block1 + 1) << SHIFT) - 1), this.scan(block2 << SHIFT, to));
+            result = this.min(result, this.min(this.table[k][block1 + 1], this.table[k][block2 - (1 << k)]));
+        }
+        return this.predecessors[result];
+    }
+
+    /**
+     * Gets the distance between the nodes at the given positions.
+     *
+     * @param position1 the position of the first node.
+     * @param position2 the position of the second node.
+     * @return the distance between both nodes.
+     */
+    private int distance(int position1, int position2) {
+        return this.ordinates[position1] + this.ordinates[position2] - 2 * this.ordinates[this.lowestCommonAncestor(position1, position2)];
+    }
+
+    /**
+     * Gets the position of the node having the smallest ordinate among the nodes at the given range of positions.
+     *
+     * @param from the first position of the range.
+     * @param to   the last position of the range.
+     * @return the position of the node having the smallest ordinate.
+     */
+    private int scan(int from, int to) {
+        int result = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (this.ordinates[i] < this.ordinates[result]) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the position of the node having the smallest ordinate among the nodes at the given positions.
+     *
+     * @param position1 the first position.
+     * @param position2 the second position.
+     * @return the position of the node having the smallest ordinate.
+     */
+    private int min(int position1, int position2) {
+        return this.ordinates[position2] < this.ordinates[position1] ? position2 : position1;
+    }
+}
@@ -0,0 +1,319 @@
+package org.datastructures.node;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/*
+ * Notes:
+ * . The structure of the tree and its traversal orders are held by AbstractCompactTree, and the referenced objects are stored in a single array of objects indexed by position. OffHeapTree reuses this class over records stored off the heap, and MappedTree decodes the referenced objects from a file instead.
+ */
+/**
+ * The <code><b>CompactTree</b></code> class represents a read-only tree stored in a struct-of-arrays layout.
+ * <p/>
+ * A compact tree is created from a {@link Node} by {@link #CompactTree(Node)} or {@link Node#compact()}, and converted back to a {@link Node} by {@link #toNode()}. It offers the traversal orders and searches of {@link Node} on nodes identified by their positions, along with a read-only {@link Collection} view of the referenced objects. Functions returning a node return -1 where {@link Node} returns null.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class CompactTree<N> extends AbstractCompactTree<N> {
+    /**
+     * The objects referenced by the nodes, or null if they are held elsewhere by a subclass.
+     */
+    private final Object[] elements;
+
+    /**
+     * Creates a compact tree holding a copy of the (sub-)tree having the given node as its root.
+     * <p/>
+     * The (sub-)tree is walked once iteratively, and the depth levels are indexed in a second pass over the positions.
+     *
+     * @param root the root node of the (sub-)tree to be copied.
+     * @throws NullPointerException if the given node is null.
+     */
+    public CompactTree(Node<N> root) {
+        this(root, new Object[root.size()]);
+    }
+
+    /**
+     * Creates a compact tree holding a copy of the (sub-)tree having the given node as its root, given the array into which the referenced objects are copied.
+     *
+     * @param root     the root node of the (sub-)tree to be copied.
+     * @param elements the array of the objects referenced by the nodes.
+     */
+    private CompactTree(Node<N> root, Object[] elements) {
+        super(root, (e, i) -> elements[i] = e);
+        this.elements = elements;
+    }
+
+    /**
+     * Creates a compact tree holding a copy of the (sub-)tree having the given node as its root, given the columns into which the structure is written and the array into which the referenced objects are copied.
+     *
+     * @param root     the root node of the (sub-)tree to be copied.
+     * @param columns  the columns holding at least as many nodes as the (sub-)tree.
+     * @param elements the array of the objects referenced by the nodes.
+     */
+    CompactTree(Node<N> root, Columns columns, Object[] elements) {
+        super(root, columns, (N e, int i) -> elements[i] = e);
+        this.elements = elements;
+    }
+
+    /**
+     * Creates a compact tree over the given columns holding the structure laid out by {@link #layout(Node, Columns, java.util.function.ObjIntConsumer)}.
+     * <p/>
+     * A subclass giving no array of referenced objects must override {@link #getElement(int)}.
+     *
+     * @param columns            the columns holding the structure of the tree.
+     * @param levelStarts        the index of the first node at each depth level, followed by the number of nodes.
+     * @param traversalAlgorithm the preferred traversal algorithm for the tree.
+     * @param elements           the objects referenced by the nodes, or null.
+     */
+    CompactTree(Columns columns, int[] levelStarts, Node.TraversalAlgorithm traversalAlgorithm, Object[] elements) {
+        super(columns, levelStarts, traversalAlgorithm);
+        this.elements = elements;
+    }
+
+    /**
+     * Gets the object referenced by the given node.
+     *
+     * @param node the position of the node.
+     * @return the object referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public N getElement(int node) {
+        return (N) this.elements[node];
+    }
+
+    /*
+     * Search.
+     */
+    /**
+     * Returns the first encountered node that references the given object and follows the given node, the given node included, in a breadth-first left-to-right order of encounter in the tree.
+     *
+     * @param node    the position of the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the position of the node referencing the given object, or -1 if no such node is found.
+     */
+    public int findBreadthFirstLeftNext(int node, N element) {
+        return this.findBreadthFirstLeftNext(node, e -> Objects.equals(e, element));
+    }
+
+    /**
+     * Returns the first encountered node that references the given object and follows the given node, the given node included, in a breadth-first right-to-left order of encounter in the tree.
+     *
+     * @param node    the position of the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the position of the node referencing the given object, or -1 if no such node is found.
+     */
+    public int findBreadthFirstRightNext(int node, N element) {
+        return this.findBreadthFirstRightNext(node, e -> Objects.equals(e, element));
+    }
+
+    /**
+     * Returns the first encountered node that references the given object and follows the given node, the given node included, in a depth-first left-to-right order of encounter in the tree.
+     *
+     * @param node    the position of the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the position of the node referencing the given object, or -1 if no such node is found.
+     */
+    public int findDepthFirstLeftNext(int node, N element) {
+        return this.findDepthFirstLeftNext(node, e -> Objects.equals(e, element));
+    }
+
+    /**
+     * Returns the first encountered node that references the given object and follows the given node, the given node included, in a depth-first right-to-left order of encounter in the tree.
+     *
+     * @param node    the position of the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the position of the node referencing the given object, or -1 if no such node is found.
+     */
+    public int findDepthFirstRightNext(int node, N element) {
+        return this.findDepthFirstRightNext(node, e -> Objects.equals(e, element));
+    }
+
+    /**
+     * Returns the first encountered node that references an object that is equal to the given object, according to the given comparator function, and follows the given node, the given node included, in a breadth-first left-to-right order of encounter in the tree.
+     *
+     * @param node       the position of the node from which the search starts.
+     * @param element    the object to compare.
+     * @param comparator a comparator function applied to the given object and each object referenced by encountered nodes.
+     * @return the position of the node referencing an object that is equal to the given object, or -1 if no such node is found.
+     */
+    public int findBreadthFirstLeftNext(int node, N element, Comparator<N> comparator) {
+        return this.findBreadthFirstLeftNext(node, e -> comparator.compare(e, element) == 0);
+    }
+
+    /**
+     * Returns the first encountered node that references an object that is equal to the given object, according to the given comparator function, and follows the given node, the given node included, in a breadth-first right-to-left order of encounter in the tree.
+     *
+     * @param node       the position of the node from which the search starts.
+     * @param element    the object to compare.
+     * @param comparator a comparator function applied to the given object and each object referenced by encountered nodes.
+     * @return the position of the node referencing an object that is equal to the given object, or -1 if no such node is found.
+     */
+    public int findBreadthFirstRightNext(int node, N element, Comparator<N> comparator) {
+        return this.findBreadthFirstRightNext(node, e -> comparator.compare(e, element) == 0);
+    }
+
+    /**
+     * Returns the first encountered node that references an object that is equal to the given object, according to the given comparator function, and follows the given node, the given node included, in a depth-first left-to-right order of encounter in the tree.
+     *
+     * @param node       the position of the node from which the search starts.
+     * @param element    the object to compare.
+     * @param comparator a comparator function applied to the given object and each object referenced by encountered nodes.
+     * @return the position of the node referencing an object that is equal to the given object, or -1 if no such node is found.
+     */
+    public int findDepthFirstLeftNext(int node, N element, Comparator<N> comparator) {
+        return this.findDepthFirstLeftNext(node, e -> comparator.compare(e, element) == 0);
+    }
+
+    /**
+     * Returns the first encountered node that references an object that is equal to the given object, according to the given comparator function, and follows the given node, the given node included, in a depth-first right-to-left order of encounter in the tree.
+     *
+     * @param node       the position of the node from which the search starts.
+     * @param element    the object to compare.
+     * @param comparator a comparator function applied to the given object and each object referenced by encountered nodes.
+     * @return the position of the node referencing an object that is equal to the given object, or -1 if no such node is found.
+     */
+    public int findDepthFirstRightNext(int node, N element, Comparator<N> comparator) {
+        return this.findDepthFirstRightNext(node, e -> comparator.compare(e, element) == 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a breadth-first left-to-right order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findBreadthFirstLeftNext(int node, Predicate<N> predicate) {
+        return this.findBreadthFirstLeftNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a breadth-first right-to-left order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findBreadthFirstRightNext(int node, Predicate<N> predicate) {
+        return this.findBreadthFirstRightNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a depth-first left-to-right order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findDepthFirstLeftNext(int node, Predicate<N> predicate) {
+        return this.findDepthFirstLeftNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a depth-first right-to-left order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findDepthFirstRightNext(int node, Predicate<N> predicate) {
+        return this.findDepthFirstRightNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a breadth-first left-to-right order of encounter in the (sub-)tree having the given node as its root.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findBreadthFirstLeftNext(int node, Predicate<N> predicate, int root) {
+        return this.find(node, i -> predicate.test(this.getElement(i)), root, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a breadth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findBreadthFirstRightNext(int node, Predicate<N> predicate, int root) {
+        return this.find(node, i -> predicate.test(this.getElement(i)), root, Node.TraversalAlgorithm.BREADTH_FIRST_RIGHT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a depth-first left-to-right order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * The (sub-)tree occupies a contiguous range of positions, hence this search is a linear scan of the array of referenced objects.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findDepthFirstLeftNext(int node, Predicate<N> predicate, int root) {
+        return this.find(node, i -> predicate.test(this.getElement(i)), root, Node.TraversalAlgorithm.DEPTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node, the given node included, in a depth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing an object that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findDepthFirstRightNext(int node, Predicate<N> predicate, int root) {
+        return this.find(node, i -> predicate.test(this.getElement(i)), root, Node.TraversalAlgorithm.DEPTH_FIRST_RIGHT);
+    }
+
+    /*
+     * Collection.
+     */
+    /**
+     * Tells whether the given object is referenced by a node of the tree.
+     * <p/>
+     * This function scans the array of referenced objects, or the positions if the referenced objects are held elsewhere by a subclass.
+     *
+     * @param o object whose presence is to be tested in the tree.
+     * @return true if the given object is referenced by a node of the tree, false otherwise.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (this.elements == null) {
+            for (int i = 0, end = this.size(); i < end; i++) {
+                if (Objects.equals(this.getElement(i), o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (Object tmp : this.elements) {
+            if (Objects.equals(tmp, o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an array containing the objects referenced by the nodes of the tree sorted by the order of encounter of the preferred traversal algorithm for the tree.
+     * <p/>
+     * If the preferred traversal algorithm is {@link Node.TraversalAlgorithm#DEPTH_FIRST_LEFT}, this function copies the array of referenced objects.
+     *
+     * @return an array containing the objects referenced by the nodes of the tree.
+     */
+    @Override
+    public Object[] toArray() {
+        return this.elements != null && this.getTraversalAlgorithm() == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT ? this.elements.clone() : super.toArray();
+    }
+}
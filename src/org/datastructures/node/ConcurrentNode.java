@@ -0,0 +1,636 @@
+package org.datastructures.node;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/*
+ * Notes:
+ * . Mutating a tree of nodes updates state shared by many nodes: the sizes and breadths along the path to the root node, the relative abscissas of the siblings along that path, the sibling connections across predecessors at every depth level of the moved (sub-)tree, and the shared preferred traversal algorithm. None of these updates is atomic, hence a tree shared among threads has to be guarded as a whole.
+ * . A concurrent node guards a tree with a single StampedLock. Writers hold the write lock, and readers walking the tree hold the read lock.
+ * . Only reads of a fixed number of fields run optimistically without locking: such a read does not walk the tree, hence cannot loop or fail over a torn sibling or predecessor chain, and its stamp is validated before the value is returned. A read that overlapped a writer runs again holding the read lock.
+ * . Snapshots of the referenced objects, which back toArray(), iterator(), forEach(Consumer) and spliterator(), are the one traversal that runs optimistically: it walks the arrays of direct descendants downwards only, never the sibling or predecessor links, and visits at most as many nodes as the size read when it starts, so that a torn view makes it stop or fail instead of looping. A walk that fails, sees a number of nodes other than the size, or does not validate is made again, and after OPTIMISTIC_ATTEMPTS walks the snapshot is taken holding the read lock.
+ * . Readers never call back user code with the optimistic view of the tree: user code either runs holding the read lock, or runs on a copy of the referenced objects taken holding the read lock.
+ */
+/**
+ * The <code><b>ConcurrentNode</b></code> class is a thread-safe facade over a tree of {@link Node} objects guarded by a {@link StampedLock}.
+ * <p/>
+ * Once a tree is wrapped by a concurrent node, all the accesses to the nodes of the tree must go through the concurrent node. Functions taking a node as an argument expect a node of the wrapped tree. {@link #size()}, {@link #getElement(Node)}, {@link #getTraversalAlgorithm()} and the snapshots taken by {@link #toArray()} use optimistic reads, falling back to shared reads, searches, {@link #contains(Object)} and the other traversals use shared reads, whereas {@link #add(Node, Node)}, {@link #detach(Node)}, {@link #setElement(Node, Object)} and the other mutating functions use exclusive writes.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class ConcurrentNode<N> extends AbstractCollection<N> {
+    /**
+     * The number of optimistic walks made to take a snapshot of the referenced objects before holding the read lock.
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 2;
+    /**
+     * The root node of the tree.
+     */
+    private final Node<N> root;
+    /**
+     * The lock guarding the tree.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Creates a concurrent node wrapping a new tree having a single node referencing the given object.
+     *
+     * @param element the object referenced by the root node.
+     */
+    public ConcurrentNode(N element) {
+        this(new Node<>(element));
+    }
+
+    /**
+     * Creates a concurrent node wrapping the tree having the given node as its root.
+     *
+     * @param root the root node of the tree.
+     * @throws NullPointerException     if the given node is null.
+     * @throws IllegalArgumentException if the given node has a predecessor.
+     */
+    public ConcurrentNode(Node<N> root) {
+        if (Objects.requireNonNull(root).getPredecessor() != null) {
+            throw new IllegalArgumentException();
+        }
+        this.root = root;
+    }
+
+    /**
+     * Gets the root node of the tree.
+     *
+     * @return the root node of the tree.
+     */
+    public Node<N> getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Applies the given function to the root node of the tree holding the read lock.
+     * <p/>
+     * The given function runs once and observes a consistent tree, which it must not mutate. It must not access this concurrent node either, since the read lock is not reentrant with respect to a waiting writer.
+     *
+     * @param reader the function that reads the tree.
+     * @param <T>    type of the value read.
+     * @return the value returned by the given function.
+     * @throws NullPointerException if the given function is null.
+     */
+    public <T> T read(Function<? super Node<N>, ? extends T> reader) {
+        Objects.requireNonNull(reader);
+        long stamp = this.lock.readLock();
+        try {
+            return reader.apply(this.root);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Applies the given function to the root node of the tree, first optimistically, then holding the read lock if the optimistic read overlapped a write.
+     * <p/>
+     * The given function must read a fixed number of fields without walking the tree, so that it terminates without failing whatever the state of the tree, and must have no side effects.
+     *
+     * @param reader the function that reads the tree.
+     * @param <T>    type of the value read.
+     * @return the value returned by the given function.
+     */
+    private <T> T readOptimistically(Function<? super Node<N>, ? extends T> reader) {
+        long stamp = this.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result = reader.apply(this.root);
+            if (this.lock.validate(stamp)) {
+                return result;
+            }
+        }
+        return this.read(reader);
+    }
+
+    /**
+     * Takes a snapshot of the objects referenced by the nodes of the tree, first optimistically, then holding the read lock if {@link #OPTIMISTIC_ATTEMPTS} optimistic walks overlapped writes.
+     *
+     * @return an array containing the objects referenced by the nodes of the tree.
+     */
+    private Object[] snapshot() {
+        for (int i = 0; i < ConcurrentNode.OPTIMISTIC_ATTEMPTS; i++) {
+            long stamp = this.lock.tryOptimisticRead();
+            if (stamp == 0) {
+                break;
+            }
+            Object[] result;
+            try {
+                result = ConcurrentNode.walk(this.root);
+            } catch (RuntimeException e) {
+                result = null;
+            }
+            if (result != null && this.lock.validate(stamp)) {
+                return result;
+            }
+        }
+        return this.read(Node::toArray);
+    }
+
+    /**
+     * Collects the objects referenced by the nodes of the tree having the given node as its root in the order of encounter of the preferred traversal algorithm for the tree, walking the arrays of direct descendants only.
+     * <p/>
+     * The walk visits at most as many nodes as the size of the tree read when it starts, hence it terminates whatever the state of the tree, and it may fail with a runtime exception over a torn view.
+     *
+     * @param root the root node of the tree.
+     * @return an array containing the objects referenced by the nodes of the tree, or null if the number of nodes walked differs from the size of the tree.
+     */
+    private static Object[] walk(Node<?> root) {
+        Node.TraversalAlgorithm traversalAlgorithm = root.getTraversalAlgorithm();
+        boolean breadthFirst = traversalAlgorithm == Node.TraversalAlgorithm.BREADTH_FIRST_LEFT || traversalAlgorithm == Node.TraversalAlgorithm.BREADTH_FIRST_RIGHT;
+        boolean leftToRight = traversalAlgorithm == Node.TraversalAlgorithm.BREADTH_FIRST_LEFT || traversalAlgorithm == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT;
+        int size = root.size(), count = 0, head = 0, tail = 1;
+        Node<?>[] nodes = new Node<?>[size];
+        Object[] result = new Object[size];
+        nodes[0] = root;
+        while (head < tail) {
+            Node<?> node = breadthFirst ? nodes[head++] : nodes[--tail];
+            result[count++] = node.getElement();
+            int countDescendants = node.countDescendants();
+            if (breadthFirst == leftToRight) {
+                for (int j = 0; j < countDescendants; nodes[tail++] = node.getDescendant(j++)) ;
+            } else {
+                for (int j = countDescendants - 1; j >= 0; nodes[tail++] = node.getDescendant(j--)) ;
+            }
+        }
+        return count == size ? result : null;
+    }
+
+    /**
+     * Applies the given function to the root node of the tree holding the write lock.
+     *
+     * @param writer the function that mutates the tree.
+     * @param <T>    type of the value returned by the given function.
+     * @return the value returned by the given function.
+     * @throws NullPointerException if the given function is null.
+     */
+    public <T> T write(Function<? super Node<N>, ? extends T> writer) {
+        Objects.requireNonNull(writer);
+        long stamp = this.lock.writeLock();
+        try {
+            return writer.apply(this.root);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+     * Read operations.
+     */
+    /**
+     * Gets the object referenced by the given node.
+     *
+     * @param node a node of the tree.
+     * @return the object referenced by the given node.
+     * @throws NullPointerException if the given node is null.
+     */
+    public N getElement(Node<N> node) {
+        Objects.requireNonNull(node);
+        return this.readOptimistically(e -> node.getElement());
+    }
+
+    /**
+     * Gets the preferred traversal algorithm for the tree.
+     *
+     * @return the preferred traversal algorithm for the tree.
+     */
+    public Node.TraversalAlgorithm getTraversalAlgorithm() {
+        return this.readOptimistically(Node::getTraversalAlgorithm);
+    }
+
+    /**
+     * Gets the number of nodes in the tree.
+     *
+     * @return the size of the tree.
+     */
+    @Override
+    public int size() {
+        return this.readOptimistically(Node::size);
+    }
+
+    /**
+     * Tells whether the given object is referenced by a node of the tree.
+     *
+     * @param o object whose presence is to be tested in the tree.
+     * @return true if the given object is referenced by a node of the tree, false otherwise.
+     */
+    @Override
+    public boolean contains(Object o) {
+        return this.read(e -> e.contains(o));
+    }
+
+    /**
+     * Returns true if all the objects in the given collection are referenced by nodes of the tree.
+     *
+     * @param c collection of objects to be checked.
+     * @return true if all the objects in the given collection are referenced by nodes of the tree, false otherwise.
+     * @throws NullPointerException if the given collection is null.
+     */
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return this.read(e -> e.containsAll(c));
+    }
+
+    /**
+     * Returns an array containing the objects referenced by the nodes of the tree sorted by the order of encounter of the preferred traversal algorithm for the tree.
+     *
+     * @return an array containing the objects referenced by the nodes of the tree.
+     */
+    @Override
+    public Object[] toArray() {
+        return this.snapshot();
+    }
+
+    /**
+     * Returns an array containing the objects referenced by the nodes of the tree sorted by the order of encounter of the preferred traversal algorithm for the tree.
+     * <p/>
+     * The objects are copied into a new array first, then into the given array if it is big enough.
+     *
+     * @param a the array in which the objects are stored, if it is big enough, otherwise, a new array of the same runtime type is allocated for this purpose.
+     * @return an array containing the objects referenced by the nodes of the tree.
+     * @throws NullPointerException if the given array is null.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <M> M[] toArray(M[] a) {
+        Object[] tmp = this.toArray();
+        M[] result = Objects.requireNonNull(a).length < tmp.length ? Arrays.copyOf(a, tmp.length) : a;
+        System.arraycopy(tmp, 0, result, 0, tmp.length);
+        if (result.length > tmp.length) {
+            result[tmp.length] = null;
+        }
+        return result;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the objects referenced by the nodes of the tree sorted by the order of encounter of the preferred traversal algorithm for the tree.
+     * <p/>
+     * The returned iterator does not reflect later changes to the tree. Its {@link Iterator#remove()} function removes from the tree all the nodes referencing the last returned object, see {@link #remove(Object)}.
+     *
+     * @return an iterator over a snapshot of the objects referenced by the nodes of the tree.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<N> iterator() {
+        Object[] snapshot = this.toArray();
+        return new Iterator<N>() {
+            /**
+             * The index of the next object to be returned.
+             */
+            private int next = 0;
+            /**
+             * Whether the last returned object can be removed.
+             */
+            private boolean removable = false;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < snapshot.length;
+            }
+
+            @Override
+            public N next() {
+                if (this.next >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                this.removable = true;
+                return (N) snapshot[this.next++];
+            }
+
+            @Override
+            public void remove() {
+                if (!this.removable) {
+                    throw new IllegalStateException();
+                }
+                this.removable = false;
+                ConcurrentNode.this.remove(snapshot[this.next - 1]);
+            }
+        };
+    }
+
+    /**
+     * Performs the given action for each object referenced by the nodes of the tree, applying the preferred traversal algorithm for the tree.
+     * <p/>
+     * The action runs on a snapshot of the referenced objects, without holding the lock.
+     *
+     * @param action the action to be performed.
+     * @throws NullPointerException if the given action is null.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super N> action) {
+        Objects.requireNonNull(action);
+        for (Object tmp : this.toArray()) {
+            action.accept((N) tmp);
+        }
+    }
+
+    /**
+     * Returns a spliterator over a snapshot of the objects referenced by the nodes of the tree.
+     *
+     * @return a spliterator over a snapshot of the objects referenced by the nodes of the tree.
+     */
+    @Override
+    public Spliterator<N> spliterator() {
+        return Spliterators.spliterator(this.toArray(), Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node in a breadth-first left-to-right order of encounter in the tree.
+     * <p/>
+     * The given predicate is tested holding the read lock, hence it must not access this concurrent node.
+     *
+     * @param node      the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    public Node<N> findBreadthFirstLeftNext(Node<N> node, Predicate<N> predicate) {
+        Objects.requireNonNull(node);
+        Objects.requireNonNull(predicate);
+        return this.read(e -> node.findBreadthFirstLeftNext(predicate));
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node in a breadth-first right-to-left order of encounter in the tree.
+     * <p/>
+     * See {@link #findBreadthFirstLeftNext(Node, Predicate)}.
+     *
+     * @param node      the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    public Node<N> findBreadthFirstRightNext(Node<N> node, Predicate<N> predicate) {
+        Objects.requireNonNull(node);
+        Objects.requireNonNull(predicate);
+        return this.read(e -> node.findBreadthFirstRightNext(predicate));
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node in a depth-first left-to-right order of encounter in the tree.
+     * <p/>
+     * See {@link #findBreadthFirstLeftNext(Node, Predicate)}.
+     *
+     * @param node      the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    public Node<N> findDepthFirstLeftNext(Node<N> node, Predicate<N> predicate) {
+        Objects.requireNonNull(node);
+        Objects.requireNonNull(predicate);
+        return this.read(e -> node.findDepthFirstLeftNext(predicate));
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate and follows the given node in a depth-first right-to-left order of encounter in the tree.
+     * <p/>
+     * See {@link #findBreadthFirstLeftNext(Node, Predicate)}.
+     *
+     * @param node      the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    public Node<N> findDepthFirstRightNext(Node<N> node, Predicate<N> predicate) {
+        Objects.requireNonNull(node);
+        Objects.requireNonNull(predicate);
+        return this.read(e -> node.findDepthFirstRightNext(predicate));
+    }
+
+    /**
+     * Returns the first encountered node that references the given object and follows the given node in a breadth-first left-to-right order of encounter in the tree.
+     *
+     * @param node    the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     * @throws NullPointerException if the given node is null.
+     */
+    public Node<N> findBreadthFirstLeftNext(Node<N> node, N element) {
+        Objects.requireNonNull(node);
+        return this.read(e -> node.findBreadthFirstLeftNext(element));
+    }
+
+    /**
+     * Returns the first encountered node that references the given object and follows the given node in a breadth-first right-to-left order of encounter in the tree.
+     *
+     * @param node    the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     * @throws NullPointerException if the given node is null.
+     */
+    public Node<N> findBreadthFirstRightNext(Node<N> node, N element) {
+        Objects.requireNonNull(node);
+        return this.read(e -> node.findBreadthFirstRightNext(element));
+    }
+
+    /**
+     * Returns the first encountered node that references the given object and follows the given node in a depth-first left-to-right order of encounter in the tree.
+     *
+     * @param node    the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     * @throws NullPointerException if the given node is null.
+     */
+    public Node<N> findDepthFirstLeftNext(Node<N> node, N element) {
+        Objects.requireNonNull(node);
+        return this.read(e -> node.findDepthFirstLeftNext(element));
+    }
+
+    /**
+     * Returns the first encountered node that references the given object and follows the given node in a depth-first right-to-left order of encounter in the tree.
+     *
+     * @param node    the node from which the search starts.
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     * @throws NullPointerException if the given node is null.
+     */
+    public Node<N> findDepthFirstRightNext(Node<N> node, N element) {
+        Objects.requireNonNull(node);
+        return this.read(e -> node.findDepthFirstRightNext(element));
+    }
+
+    /*
+     * Write operations.
+     */
+    /**
+     * Appends a node referencing the given object to the array of direct descendants of the root node.
+     *
+     * @param element the object referenced by the appended node.
+     * @return true.
+     */
+    @Override
+    public boolean add(N element) {
+        return this.write(e -> e.add(element));
+    }
+
+    /**
+     * Appends the given node to the array of direct descendants of the given predecessor.
+     * <p/>
+     * The given node is detached from the tree to which it belongs, which must be either the tree wrapped by this concurrent node or a tree accessed by the current thread only.
+     *
+     * @param predecessor a node of the tree.
+     * @param descendant  the node to be appended.
+     * @return true.
+     * @throws NullPointerException     if one of the given nodes is null.
+     * @throws IllegalArgumentException if the given predecessor is the given node or one of its descendants.
+     */
+    public boolean add(Node<N> predecessor, Node<N> descendant) {
+        Objects.requireNonNull(predecessor);
+        Objects.requireNonNull(descendant);
+        return this.write(e -> {
+            if (predecessor.isDescendantOf(descendant)) {
+                throw new IllegalArgumentException();
+            }
+            return predecessor.add(descendant);
+        });
+    }
+
+    /**
+     * Appends a node referencing the given object to the array of direct descendants of the given predecessor.
+     *
+     * @param predecessor a node of the tree.
+     * @param element     the object referenced by the appended node.
+     * @return the appended node.
+     * @throws NullPointerException if the given predecessor is null.
+     */
+    public Node<N> add(Node<N> predecessor, N element) {
+        Objects.requireNonNull(predecessor);
+        Node<N> result = new Node<>(element);
+        this.write(e -> predecessor.add(result));
+        return result;
+    }
+
+    /**
+     * Inserts the given nodes into the array of direct descendants of the given predecessor starting at the specified position.
+     * <p/>
+     * See {@link #add(Node, Node)} and {@link Node#addAll(int, Node[])}.
+     *
+     * @param predecessor a node of the tree.
+     * @param index       the position in the array of direct descendants at which the first of the given nodes is inserted, once the given nodes are detached.
+     * @param descendants the nodes to be inserted.
+     * @return true.
+     * @throws NullPointerException      if the given predecessor, array or one of its nodes is null.
+     * @throws IllegalArgumentException  if the given predecessor is one of the given nodes or one of their descendants, or if a node is given more than once.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public final boolean addAll(Node<N> predecessor, int index, Node<N>... descendants) {
+        Objects.requireNonNull(predecessor);
+        Objects.requireNonNull(descendants);
+        return this.write(e -> {
+            for (Node<N> tmp : descendants) {
+                if (tmp != null && tmp != predecessor && predecessor.isDescendantOf(tmp)) {
+                    throw new IllegalArgumentException();
+                }
+            }
+            return predecessor.addAll(index, descendants);
+        });
+    }
+
+    /**
+     * Detaches the given node from the tree.
+     *
+     * @param node a node of the tree.
+     * @throws NullPointerException if the given node is null.
+     */
+    public void detach(Node<N> node) {
+        Objects.requireNonNull(node);
+        this.write(e -> {
+            node.detach();
+            return null;
+        });
+    }
+
+    /**
+     * Sets the object referenced by the given node.
+     *
+     * @param node    a node of the tree.
+     * @param element the object referenced by the given node.
+     * @throws NullPointerException if the given node is null.
+     */
+    public void setElement(Node<N> node, N element) {
+        Objects.requireNonNull(node);
+        this.write(e -> {
+            node.setElement(element);
+            return null;
+        });
+    }
+
+    /**
+     * Sets the preferred traversal algorithm for the tree.
+     *
+     * @param traversalAlgorithm the preferred traversal algorithm for the tree.
+     */
+    public void setTraversalAlgorithm(Node.TraversalAlgorithm traversalAlgorithm) {
+        this.write(e -> {
+            e.setTraversalAlgorithm(traversalAlgorithm);
+            return null;
+        });
+    }
+
+    /**
+     * Removes all the nodes referencing the given object from the tree, see {@link Node#remove(Object)}.
+     *
+     * @param o the referenced object.
+     * @return true if at least one node referencing the given object was found, false otherwise.
+     */
+    @Override
+    public boolean remove(Object o) {
+        return this.write(e -> e.remove(o));
+    }
+
+    /**
+     * Removes all descendant nodes referencing objects in the given collection from the tree, see {@link Node#removeAll(Collection)}.
+     *
+     * @param c collection of objects to be checked.
+     * @return true if the tree changed as a result of a call to this function, false otherwise.
+     * @throws NullPointerException if the given collection is null.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return this.write(e -> e.removeAll(c));
+    }
+
+    /**
+     * Removes all nodes from the tree not referencing any object from the given collection, see {@link Node#retainAll(Collection)}.
+     *
+     * @param c collection of objects to be checked.
+     * @return true if the tree changed as a result of a call to this function, false otherwise.
+     * @throws NullPointerException if the given collection is null.
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return this.write(e -> e.retainAll(c));
+    }
+
+    /**
+     * Removes all direct descendant nodes from the root node.
+     */
+    @Override
+    public void clear() {
+        this.write(e -> {
+            e.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Returns a string representation of the tree.
+     *
+     * @return a string representation of the tree.
+     */
+    @Override
+    public String toString() {
+        return this.read(Node::toString);
+    }
+}
@@ -0,0 +1,179 @@
+package org.datastructures.node;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.DoublePredicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.DoubleStream;
+
+/*
+ * Notes:
+ * . The structure of the tree and its traversal orders are held by AbstractCompactTree, its searches by PrimitiveCompactTree, and the referenced values are stored in a single array of primitive values indexed by position, so that no value is ever boxed by searches, streams and arrays.
+ * . The Collection view boxes the values, for compatibility with the code handling trees of objects.
+ */
+/**
+ * The <code><b>DoubleCompactTree</b></code> class represents a tree of <code>double</code> values stored in a struct-of-arrays layout, whose structure is read-only.
+ * <p/>
+ * A double compact tree is created from a {@link Node} by {@link #DoubleCompactTree(Node, ToDoubleFunction)} or {@link Node#compactToDouble(ToDoubleFunction)}, and converted back to a {@link Node} by {@link #toNode()}. It offers the traversal orders of {@link Node}, searches using a {@link DoublePredicate}, {@link DoubleStream} traversals and a <code>double</code> array copy of the values. Functions returning a node return -1 where {@link Node} returns null.
+ * <p/>
+ * The value referenced by a node is replaced in place by {@link #set(int, double)}. Replacing values is not synchronized, and must not happen while another thread reads the tree.
+ */
+public class DoubleCompactTree extends PrimitiveCompactTree<Double, DoublePredicate> {
+    /**
+     * The values referenced by the nodes.
+     */
+    private final double[] elements;
+
+    /**
+     * Creates a double compact tree holding a copy of the (sub-)tree having the given node as its root, the nodes referencing numbers.
+     *
+     * @param root the root node of the (sub-)tree to be copied.
+     * @throws NullPointerException if the given node is null or references null.
+     */
+    public DoubleCompactTree(Node<? extends Number> root) {
+        this(root, Number::doubleValue);
+    }
+
+    /**
+     * Creates a double compact tree holding a copy of the (sub-)tree having the given node as its root, given the function translating the objects referenced by the nodes to values.
+     *
+     * @param root   the root node of the (sub-)tree to be copied.
+     * @param mapper the function translating the objects referenced by the nodes to values.
+     * @param <E>    type of elements referenced by the nodes of the (sub-)tree.
+     * @throws NullPointerException if the given node or function is null.
+     */
+    public <E> DoubleCompactTree(Node<E> root, ToDoubleFunction<? super E> mapper) {
+        this(root, Objects.requireNonNull(mapper), new double[root.size()]);
+    }
+
+    /**
+     * Creates a double compact tree holding a copy of the (sub-)tree having the given node as its root, given the function translating the objects referenced by the nodes and the array into which the values are copied.
+     *
+     * @param root     the root node of the (sub-)tree to be copied.
+     * @param mapper   the function translating the objects referenced by the nodes to values.
+     * @param elements the array of the values referenced by the nodes.
+     * @param <E>      type of elements referenced by the nodes of the (sub-)tree.
+     */
+    private <E> DoubleCompactTree(Node<E> root, ToDoubleFunction<? super E> mapper, double[] elements) {
+        super(root, (e, i) -> elements[i] = mapper.applyAsDouble(e));
+        this.elements = elements;
+    }
+
+    /**
+     * Gets the value referenced by the given node, boxed.
+     *
+     * @param node the position of the node.
+     * @return the value referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    @Override
+    public Double getElement(int node) {
+        return this.elements[node];
+    }
+
+    /**
+     * Gets the value referenced by the given node.
+     *
+     * @param node the position of the node.
+     * @return the value referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public double getAsDouble(int node) {
+        return this.elements[node];
+    }
+
+    /**
+     * Replaces the value referenced by the given node.
+     * <p/>
+     * The structure of the tree is left untouched, hence this function takes constant time.
+     *
+     * @param node  the position of the node.
+     * @param value the value to be referenced by the given node.
+     * @return the value previously referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public double set(int node, double value) {
+        double result = this.elements[node];
+        this.elements[node] = value;
+        return result;
+    }
+
+    @Override
+    IntPredicate matcher(DoublePredicate predicate) {
+        return i -> predicate.test(this.elements[i]);
+    }
+
+    /*
+     * Streams.
+     */
+    /**
+     * Returns a sequential stream over the values referenced by the nodes of the tree, applying the preferred traversal algorithm for the tree.
+     *
+     * @return a stream over the values referenced by the nodes of the tree.
+     */
+    public DoubleStream doubleStream() {
+        return this.doubleStream(0, this.getTraversalAlgorithm());
+    }
+
+    /**
+     * Returns a sequential stream over the values referenced by the nodes of the (sub-)tree having the given node as its root, applying the given traversal algorithm.
+     * <p/>
+     * A depth-first left-to-right stream is backed by a range of the array of referenced values, and splits evenly in parallel.
+     *
+     * @param root               the position of the root node of the (sub-)tree to be traversed.
+     * @param traversalAlgorithm the traversal algorithm to be applied.
+     * @return a stream over the values referenced by the nodes of the (sub-)tree having the given node as its root.
+     * @throws NullPointerException      if the given traversal algorithm is null.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public DoubleStream doubleStream(int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        if (traversalAlgorithm == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT) {
+            this.validateRoot(root, root);
+            return Arrays.stream(this.elements, root, root + this.size(root));
+        }
+        return this.positions(root, traversalAlgorithm).mapToDouble(i -> this.elements[i]);
+    }
+
+    /*
+     * Collection.
+     */
+    /**
+     * Tells whether the given value is referenced by a node of the tree.
+     * <p/>
+     * This function scans the array of referenced values.
+     *
+     * @param element value whose presence is to be tested in the tree.
+     * @return true if the given value is referenced by a node of the tree, false otherwise.
+     */
+    public boolean contains(double element) {
+        for (double tmp : this.elements) {
+            if (Double.compare(tmp, element) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the given object is a boxed value referenced by a node of the tree.
+     *
+     * @param o object whose presence is to be tested in the tree.
+     * @return true if the given object is a {@link Double} whose value is referenced by a node of the tree, false otherwise.
+     */
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Double && this.contains(((Double) o).doubleValue());
+    }
+
+    /**
+     * Returns an array containing the values referenced by the nodes of the tree sorted by the order of encounter of the preferred traversal algorithm for the tree.
+     * <p/>
+     * If the preferred traversal algorithm is {@link Node.TraversalAlgorithm#DEPTH_FIRST_LEFT}, this function copies the array of referenced values.
+     *
+     * @return an array containing the values referenced by the nodes of the tree.
+     */
+    public double[] toDoubleArray() {
+        return this.getTraversalAlgorithm() == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT ? this.elements.clone() : this.doubleStream().toArray();
+    }
+}
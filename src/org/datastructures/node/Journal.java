@@ -0,0 +1,561 @@
+package org.datastructures.node;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/*
+ * Notes:
+ * . A journal is held by the state shared by the nodes of a tree, and records each call to Node.addAll(int, Node[]), Node.detach(), Node.setElement(Object) and Node.setTraversalAlgorithm(TraversalAlgorithm) before the tree is changed, so that a failure to record a mutation leaves the tree unchanged. Node.add(Node) and the functions of Collection changing the tree rely on these functions.
+ * . A node is recorded as its path from the root node of the tree, i.e. the position of each node of the path in the array of direct descendants of its predecessor. A node moved within the tree is recorded as its path, and a (sub-)tree inserted from another tree as its copy in the binary format of Node.write(Node, OutputStream, ElementCodec). The detachment of a node moved within the tree is part of the move, and is not recorded separately.
+ * . The directory of a journal holds two files:
+ *   snapshot : the generation of the snapshot (8 bytes), followed by the tree in the binary format of Node.write(Node, OutputStream, ElementCodec)
+ *   journal  : a magic number (4 bytes), the version of the format (1 byte) and the generation of the snapshot the records apply to (8 bytes), followed by batches of records, each written as its length (4 bytes), the CRC-32 of its records (4 bytes) and its records
+ * . Records are gathered into a batch in memory, and a batch is appended to the journal and forced to the storage device once it reaches the batch size, or by commit(). Mutations recorded after the last commit are lost on a crash.
+ * . A record is written apart and appended to the batch once complete, so that a failure while writing a record leaves the batch unchanged. A record whose append commits the batch is taken back out of the batch if the commit fails, since the tree then rejects the mutation.
+ * . A batch that fails to be appended may or may not be part of the journal, partly or in whole, hence neither it nor any later record is appended: the journal is failed, and refuses to record mutations, which leaves the tree unchanged, until a checkpoint replaces the journal by a snapshot of the tree.
+ * . A checkpoint writes a new snapshot to a temporary file, moves it over the previous snapshot, and restarts the journal with the generation of the new snapshot. A crash at any point leaves either the previous snapshot and its journal, or the new snapshot along with a journal of an older generation, which is ignored by replay.
+ * . Replay stops at the first incomplete or corrupted batch, which is the one being written by a crash.
+ * . The root node of the tree is the one at the time the journal is created. The journal stops recording the mutations of a tree whose root node is added to another tree.
+ */
+/**
+ * The <code><b>Journal</b></code> class represents a write-ahead journal of the mutations of a tree, which persists each mutation at a cost that depends on the mutation rather than on the size of the tree.
+ * <p/>
+ * A journal is created on a tree by {@link #create(Node, Path, Node.ElementCodec, int, int)}, which writes a first snapshot of the tree. The journal then records each mutation of the tree in batches, and replaces the journal by a new snapshot every given number of mutations. The tree is rebuilt from the last snapshot and the mutations recorded since by {@link #replay(Path, Node.ElementCodec)}.
+ * <p/>
+ * A journal is not thread-safe, as the tree it records.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class Journal<N> implements AutoCloseable {
+    /**
+     * The magic number at the start of a journal file.
+     */
+    private static final int MAGIC = 0x4A524E4C;
+    /**
+     * The version of the format of a journal file.
+     */
+    private static final byte VERSION = 1;
+    /**
+     * The size of the header of a journal file in bytes.
+     */
+    private static final int HEADER = 13;
+    /**
+     * The names of the snapshot and journal files.
+     */
+    private static final String SNAPSHOT = "snapshot", JOURNAL = "journal";
+    /**
+     * The kinds of records.
+     */
+    private static final byte ADD = 0, DETACH = 1, SET_ELEMENT = 2, SET_TRAVERSAL_ALGORITHM = 3;
+    /**
+     * The kinds of nodes given to {@link Node#addAll(int, Node[])}: a node moved within the tree, or the root node of a (sub-)tree inserted from another tree.
+     */
+    private static final byte MOVED = 0, INSERTED = 1;
+    /**
+     * The root node of the tree.
+     */
+    private final Node<N> root;
+    /**
+     * The directory holding the snapshot and journal files.
+     */
+    private final Path directory;
+    /**
+     * The element codec that writes and reads the referenced objects.
+     */
+    private final Node.ElementCodec<N> codec;
+    /**
+     * The size in bytes from which a batch is appended to the journal.
+     */
+    private final int batchSize;
+    /**
+     * The number of mutations after which a checkpoint is made.
+     */
+    private final int checkpointInterval;
+    /**
+     * The records of the current batch.
+     */
+    private final Batch batch = new Batch();
+    /**
+     * The record being written, which is appended to the current batch once complete.
+     */
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    /**
+     * The output writing the record being written.
+     */
+    private final DataOutputStream out = new DataOutputStream(this.record);
+    /**
+     * The journal file, or null once this journal is closed.
+     */
+    private FileChannel channel;
+    /**
+     * The generation of the last snapshot.
+     */
+    private long generation;
+    /**
+     * The number of mutations recorded since the last checkpoint.
+     */
+    private int mutations = 0;
+    /**
+     * Whether appending a batch to the journal has failed since the last snapshot.
+     */
+    private boolean failed = false;
+
+    /**
+     * Creates a journal given its settings.
+     */
+    private Journal(Node<N> root, Path directory, Node.ElementCodec<N> codec, int batchSize, int checkpointInterval, long generation) {
+        this.root = root;
+        this.directory = directory;
+        this.codec = codec;
+        this.batchSize = batchSize;
+        this.checkpointInterval = checkpointInterval;
+        this.generation = generation;
+    }
+
+    /**
+     * Creates a journal of the mutations of the tree to which the given node belongs in the given directory, and writes a first snapshot of the tree.
+     * <p/>
+     * The snapshot and journal files of the given directory are replaced.
+     *
+     * @param node               a node of the tree to be journaled.
+     * @param directory          the directory holding the snapshot and journal files, which must exist.
+     * @param codec              the element codec that writes and reads the referenced objects.
+     * @param batchSize          the size in bytes from which a batch of records is appended to the journal.
+     * @param checkpointInterval the number of mutations after which a checkpoint is made.
+     * @param <N>                type of elements referenced by the nodes of the tree.
+     * @return the journal.
+     * @throws NullPointerException     if one of the arguments is null.
+     * @throws IllegalArgumentException if the batch size or the checkpoint interval is not positive.
+     * @throws IllegalStateException    if the tree is already journaled.
+     * @throws IOException              if an I/O error occurs.
+     */
+    public static <N> Journal<N> create(Node<N> node, Path directory, Node.ElementCodec<N> codec, int batchSize, int checkpointInterval) throws IOException {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(codec);
+        if (batchSize < 1 || checkpointInterval < 1) {
+            throw new IllegalArgumentException();
+        }
+        if (node.getJournal() != null) {
+            throw new IllegalStateException();
+        }
+        long generation = Math.max(Journal.generation(directory.resolve(SNAPSHOT), 0), Journal.generation(directory.resolve(JOURNAL), 5));
+        Journal<N> result = new Journal<>(node.getRoot(), directory, codec, batchSize, checkpointInterval, generation);
+        result.snapshot();
+        node.setJournal(result);
+        return result;
+    }
+
+    /**
+     * Reads the generation held by the given file at the given position.
+     *
+     * @param file     the snapshot or journal file.
+     * @param position the position of the generation.
+     * @return the generation, or -1 if the file does not hold one.
+     */
+    private static long generation(Path file, int position) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8);
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) ;
+            return buffer.hasRemaining() ? -1 : buffer.getLong(0);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the root node of the journaled tree.
+     *
+     * @return the root node of the tree.
+     */
+    public Node<N> getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Tells whether appending a batch of records to the journal has failed since the last snapshot, in which case this journal refuses to record mutations until {@link #checkpoint()} succeeds.
+     *
+     * @return true if this journal is failed, false otherwise.
+     */
+    public boolean isFailed() {
+        return this.failed;
+    }
+
+    /**
+     * Appends the current batch of records to the journal and forces it to the storage device. This function has no effect if the current batch is empty.
+     * <p/>
+     * If an I/O error occurs, this journal is failed.
+     *
+     * @throws IllegalStateException if this journal is closed or failed.
+     * @throws IOException           if an I/O error occurs.
+     */
+    public void commit() throws IOException {
+        if (this.channel == null || this.failed) {
+            throw new IllegalStateException();
+        }
+        if (this.batch.size() == 0) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        byte[] records = this.batch.toByteArray();
+        crc.update(records, 0, records.length);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + records.length);
+        buffer.putInt(records.length).putInt((int) crc.getValue()).put(records).flip();
+        this.failed = true;
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        this.channel.force(false);
+        this.failed = false;
+        this.batch.reset();
+    }
+
+    /**
+     * Writes a snapshot of the tree and restarts the journal. The records of the current batch are part of the snapshot and are dropped.
+     * <p/>
+     * This function is called every given number of mutations, and may be called at any time. It is the way back from a failed journal.
+     *
+     * @throws IllegalStateException if this journal is closed.
+     * @throws IOException           if an I/O error occurs.
+     */
+    public void checkpoint() throws IOException {
+        if (this.channel == null) {
+            throw new IllegalStateException();
+        }
+        this.snapshot();
+    }
+
+    /**
+     * Writes a snapshot of the tree and restarts the journal.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    private void snapshot() throws IOException {
+        long generation = this.generation + 1;
+        Path snapshot = this.directory.resolve(SNAPSHOT), tmp = this.directory.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            new DataOutputStream(out).writeLong(generation);
+            Node.write(this.root, out, this.codec);
+            channel.force(true);
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (this.channel != null) {
+            this.channel.close();
+        }
+        this.channel = FileChannel.open(this.directory.resolve(JOURNAL), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).put(VERSION).putLong(generation).flip();
+        while (header.hasRemaining()) {
+            this.channel.write(header);
+        }
+        this.channel.force(true);
+        this.generation = generation;
+        this.mutations = 0;
+        this.failed = false;
+        this.batch.reset();
+    }
+
+    /**
+     * Commits the current batch of records and stops journaling the tree. The current batch of a failed journal is dropped. This function has no effect if this journal is already closed.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.channel == null) {
+            return;
+        }
+        try {
+            if (!this.failed) {
+                this.commit();
+            }
+        } finally {
+            if (this.root.getJournal() == this) {
+                this.root.setJournal(null);
+            }
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /*
+     * Recording.
+     */
+    /**
+     * Records a call to {@link Node#addAll(int, Node[])}, before the given nodes are detached.
+     *
+     * @param node        the node to which the given nodes are added.
+     * @param index       the position in the array of direct descendants at which the first of the given nodes is inserted.
+     * @param descendants the nodes to be inserted.
+     */
+    @SuppressWarnings("unchecked")
+    void add(Node<?> node, int index, Node<?>[] descendants) {
+        try {
+            this.begin();
+            this.out.writeByte(ADD);
+            this.writePath(node);
+            Node.writeVarInt(this.out, index);
+            Node.writeVarInt(this.out, descendants.length);
+            for (Node<?> tmp : descendants) {
+                if (tmp.getJournal() == this) {
+                    this.out.writeByte(MOVED);
+                    this.writePath(tmp);
+                } else {
+                    this.out.writeByte(INSERTED);
+                    Node.write((Node<N>) tmp, this.out, this.codec);
+                }
+            }
+            this.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records a call to {@link Node#detach()}.
+     *
+     * @param node the node to be detached.
+     */
+    void detach(Node<?> node) {
+        try {
+            this.begin();
+            this.out.writeByte(DETACH);
+            this.writePath(node);
+            this.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records a call to {@link Node#setElement(Object)}.
+     *
+     * @param node    the node whose referenced object is set.
+     * @param element the object to be referenced.
+     */
+    @SuppressWarnings("unchecked")
+    void setElement(Node<?> node, Object element) {
+        try {
+            this.begin();
+            this.out.writeByte(SET_ELEMENT);
+            this.writePath(node);
+            this.out.writeBoolean(element != null);
+            if (element != null) {
+                this.codec.write(this.out, (N) element);
+            }
+            this.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records a call to {@link Node#setTraversalAlgorithm(Node.TraversalAlgorithm)}.
+     *
+     * @param traversalAlgorithm the preferred traversal algorithm to be set.
+     */
+    void setTraversalAlgorithm(Node.TraversalAlgorithm traversalAlgorithm) {
+        try {
+            this.begin();
+            this.out.writeByte(SET_TRAVERSAL_ALGORITHM);
+            this.out.writeByte(traversalAlgorithm == null ? -1 : traversalAlgorithm.ordinal());
+            this.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes a checkpoint before recording a mutation if the checkpoint interval is reached. The tree does not hold any unrecorded mutation at that point.
+     *
+     * @throws IllegalStateException if this journal is failed.
+     * @throws IOException           if an I/O error occurs.
+     */
+    private void begin() throws IOException {
+        if (this.failed) {
+            throw new IllegalStateException();
+        }
+        this.record.reset();
+        if (this.mutations >= this.checkpointInterval) {
+            this.snapshot();
+        }
+    }
+
+    /**
+     * Appends the complete record to the current batch, commits the current batch once it reaches the batch size, and counts the recorded mutation. The record is taken back out of the current batch if the commit fails.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    private void end() throws IOException {
+        int size = this.batch.size();
+        this.record.writeTo(this.batch);
+        if (this.batch.size() >= this.batchSize) {
+            try {
+                this.commit();
+            } catch (IOException | RuntimeException e) {
+                this.batch.truncate(size);
+                throw e;
+            }
+        }
+        this.mutations++;
+    }
+
+    /**
+     * Writes the path from the root node of the tree to the given node.
+     */
+    private void writePath(Node<?> node) throws IOException {
+        int[] path = node.path();
+        Node.writeVarInt(this.out, path.length);
+        for (int tmp : path) {
+            Node.writeVarInt(this.out, tmp);
+        }
+    }
+
+    /*
+     * Replay.
+     */
+    /**
+     * Rebuilds a journaled tree from the last snapshot held by the given directory and the mutations recorded since.
+     * <p/>
+     * The returned tree is not journaled. The mutations recorded after the last commit before a crash are lost, and the batch being written by a crash is ignored.
+     *
+     * @param directory the directory holding the snapshot and journal files.
+     * @param codec     the element codec that reads the referenced objects.
+     * @param <N>       type of elements referenced by the nodes of the tree.
+     * @return the root node of the tree.
+     * @throws NullPointerException     if one of the arguments is null.
+     * @throws StreamCorruptedException if the snapshot or a complete batch of records is corrupted.
+     * @throws IOException              if an I/O error occurs.
+     */
+    public static <N> Node<N> replay(Path directory, Node.ElementCodec<N> codec) throws IOException {
+        Objects.requireNonNull(codec);
+        Node<N> result;
+        long generation;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(directory.resolve(SNAPSHOT))))) {
+            generation = in.readLong();
+            result = Node.read(in, codec);
+        }
+        Path journal = directory.resolve(JOURNAL);
+        if (!Files.exists(journal)) {
+            return result;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            long tmp;
+            try {
+                if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                    throw new StreamCorruptedException();
+                }
+                tmp = in.readLong();
+            } catch (EOFException e) {
+                return result;
+            }
+            if (tmp != generation) {
+                return result;
+            }
+            for (byte[] records = Journal.readBatch(in); records != null; records = Journal.readBatch(in)) {
+                DataInputStream batch = new DataInputStream(new ByteArrayInputStream(records));
+                while (batch.available() > 0) {
+                    Journal.apply(result, batch, codec);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads a batch of records.
+     *
+     * @param in the input from which the batch is read.
+     * @return the records of the batch, or null if the journal ends or the batch is incomplete or corrupted.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static byte[] readBatch(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt(), crc = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] result = Node.readBytes(in, length);
+            CRC32 tmp = new CRC32();
+            tmp.update(result, 0, length);
+            return (int) tmp.getValue() == crc ? result : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Applies a record to the tree having the given node as its root.
+     *
+     * @param root  the root node of the tree.
+     * @param in    the input from which the record is read.
+     * @param codec the element codec that reads the referenced objects.
+     * @param <N>   type of elements referenced by the nodes of the tree.
+     * @throws StreamCorruptedException if the record does not apply to the tree.
+     * @throws IOException              if an I/O error occurs.
+     */
+    @SuppressWarnings("unchecked")
+    private static <N> void apply(Node<N> root, DataInputStream in, Node.ElementCodec<N> codec) throws IOException {
+        try {
+            switch (in.readByte()) {
+                case ADD:
+                    Node<N> node = Journal.readPath(root, in);
+                    int index = Node.readVarInt(in);
+                    Node<N>[] descendants = (Node<N>[]) new Node<?>[Node.readVarInt(in)];
+                    for (int i = 0; i < descendants.length; i++) {
+                        descendants[i] = in.readByte() == MOVED ? Journal.readPath(root, in) : Node.read(in, codec);
+                    }
+                    node.addAll(index, descendants);
+                    break;
+                case DETACH:
+                    Journal.readPath(root, in).detach();
+                    break;
+                case SET_ELEMENT:
+                    Node<N> tmp = Journal.readPath(root, in);
+                    tmp.setElement(in.readBoolean() ? codec.read(in) : null);
+                    break;
+                case SET_TRAVERSAL_ALGORITHM:
+                    int traversalAlgorithm = in.readByte();
+                    root.setTraversalAlgorithm(traversalAlgorithm < 0 ? null : Node.TraversalAlgorithm.values()[traversalAlgorithm]);
+                    break;
+                default:
+                    throw new StreamCorruptedException();
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | EOFException e) {
+            throw new StreamCorruptedException();
+        }
+    }
+
+    /**
+     * Reads a path from the root node of the tree, and resolves it.
+     *
+     * @return the node at the end of the path.
+     */
+    private static <N> Node<N> readPath(Node<N> root, DataInput in) throws IOException {
+        Node<N> result = root;
+        for (int i = Node.readVarInt(in); i > 0; result = result.getDescendant(Node.readVarInt(in)), i--) ;
+        return result;
+    }
+
+    /**
+     * The records of a batch, which may be truncated.
+     */
+    private static final class Batch extends ByteArrayOutputStream {
+        /**
+         * Drops the records following the given size.
+         *
+         * @param size the size in bytes of the records to be kept.
+         */
+        private void truncate(int size) {
+            this.count = size;
+        }
+    }
+}
@@ -0,0 +1,526 @@
+package org.datastructures.node;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/*
+ * Notes:
+ * . A lazy node keeps the generated object from which it was created until it is expanded, i.e. until its direct descendants are first accessed. Expanding a node applies the generator to that object once, creates the direct descendants by applying the mapper to the generated objects, and memoizes them, the generated object being released afterwards.
+ * . Unlike Node, a lazy node does not reference its siblings and does not store the number of nodes or the breadth of the (sub-)tree having it as its root, since maintaining them would require expanding the whole tree. The size of a (sub-)tree is computed by expanding it entirely the first time it is requested, and memoized by every node of the (sub-)tree.
+ * . Iterators expand a node right before moving past it, hence a search that stops at a given node never applies the generator to that node, and a (sub-)tree that is never reached is never generated.
+ */
+/**
+ * The <code><b>LazyNode</b></code> class represents a node of a tree whose descendants are generated on demand, the same way trees are generated eagerly by the generator constructors of {@link Node}, e.g. {@link Node#Node(Function, Object, Function)}.
+ * <p/>
+ * The direct descendants of a node are generated the first time they are accessed through {@link #countDescendants()}, {@link #getDescendant(int)}, an iterator or a search, and memoized from then on. Huge or unbounded trees can thus be explored with memory proportional to the number of visited nodes, as long as functions expanding the whole (sub-)tree, e.g. {@link #size()}, {@link #toArray()} or {@link #toNode()}, are not called.
+ * <p/>
+ * This class is not thread safe: nodes are expanded by the threads accessing them, without any synchronization.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class LazyNode<N> extends AbstractCollection<N> {
+    /**
+     * The shared empty array of direct descendants referenced by expanded nodes having no descendants.
+     */
+    private static final LazyNode<?>[] EMPTY = new LazyNode<?>[0];
+    /**
+     * The functions expanding the nodes of the tree, shared by all of them.
+     */
+    private final Expander<?, N> expander;
+    /**
+     * The predecessor of this node.
+     */
+    private final LazyNode<N> predecessor;
+    /**
+     * The object referenced by this node.
+     */
+    private final N element;
+    /**
+     * The ordinate of this node, i.e. its depth in the tree.
+     */
+    private final int y;
+    /**
+     * Preferred traversal algorithm for the tree, shared by all the nodes.
+     */
+    private final Node.TraversalAlgorithm traversalAlgorithm;
+    /**
+     * The generated object from which this node was created and to which the generator is applied, null once this node is expanded.
+     */
+    private Object input;
+    /**
+     * The array of direct descendants, null until this node is expanded.
+     */
+    private LazyNode<N>[] descendants;
+    /**
+     * The number of nodes in the (sub-)tree having this node as its root, or 0 if it has not been computed yet.
+     */
+    private int size = 0;
+
+    /**
+     * Creates the root node of a lazy tree given an object and a generator function.
+     *
+     * @param element   the object referenced by this node.
+     * @param generator a function that generates elements to be referenced by descendant nodes.
+     * @throws NullPointerException if the given generator is null.
+     */
+    public LazyNode(N element, Function<N, N[]> generator) {
+        this(generator, element, e -> e, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Creates the root node of a lazy tree given an object, a generator function and the preferred traversal algorithm.
+     *
+     * @param element            the object referenced by this node.
+     * @param generator          a function that generates elements to be referenced by descendant nodes.
+     * @param traversalAlgorithm the preferred traversal algorithm.
+     * @throws NullPointerException if the given generator or traversal algorithm is null.
+     */
+    public LazyNode(N element, Function<N, N[]> generator, Node.TraversalAlgorithm traversalAlgorithm) {
+        this(generator, element, e -> e, traversalAlgorithm);
+    }
+
+    /**
+     * Creates the root node of a lazy tree given an object, a generator function and a mapper function.
+     * <p/>
+     * <code><b>mapper</b></code> is applied to <code><b>element</b></code>, and the resulting object is referenced by the constructed node. <code><b>generator</b></code> is applied to <code><b>element</b></code> once the direct descendants are first accessed, and <code><b>mapper</b></code> is applied to each generated object to get the objects referenced by the direct descendants, which are expanded the same way.
+     *
+     * @param generator a function that generates elements to be referenced by descendant nodes.
+     * @param element   the object referenced by this node, after applying the given mapper function.
+     * @param mapper    a function that translates elements generated using <code><b>generator</b></code> to type <code><b>N</b></code>.
+     * @param <I>       type of elements generated using <code><b>generator</b></code>.
+     * @throws NullPointerException if one of the given functions is null.
+     */
+    public <I> LazyNode(Function<I, I[]> generator, I element, Function<I, N> mapper) {
+        this(generator, element, mapper, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Creates the root node of a lazy tree given an object, a generator function, a mapper function and the preferred traversal algorithm.
+     *
+     * @param generator          a function that generates elements to be referenced by descendant nodes.
+     * @param element            the object referenced by this node, after applying the given mapper function.
+     * @param mapper             a function that translates elements generated using <code><b>generator</b></code> to type <code><b>N</b></code>.
+     * @param traversalAlgorithm the preferred traversal algorithm.
+     * @param <I>                type of elements generated using <code><b>generator</b></code>.
+     * @throws NullPointerException if one of the given functions or the given traversal algorithm is null.
+     */
+    public <I> LazyNode(Function<I, I[]> generator, I element, Function<I, N> mapper, Node.TraversalAlgorithm traversalAlgorithm) {
+        this(new Expander<>(Objects.requireNonNull(generator), Objects.requireNonNull(mapper)), null, element, mapper.apply(element), Objects.requireNonNull(traversalAlgorithm));
+    }
+
+    /**
+     * Creates a node given the shared functions, its predecessor, the generated object from which it is created and the object it references.
+     *
+     * @param expander           the functions expanding the nodes of the tree.
+     * @param predecessor        the predecessor of the node, or null if the node is the root node.
+     * @param input              the generated object from which the node is created.
+     * @param element            the object referenced by the node.
+     * @param traversalAlgorithm the preferred traversal algorithm.
+     */
+    private LazyNode(Expander<?, N> expander, LazyNode<N> predecessor, Object input, N element, Node.TraversalAlgorithm traversalAlgorithm) {
+        this.expander = expander;
+        this.predecessor = predecessor;
+        this.input = input;
+        this.element = element;
+        this.y = predecessor == null ? 0 : predecessor.y + 1;
+        this.traversalAlgorithm = traversalAlgorithm;
+    }
+
+    /**
+     * Gets the object referenced by this node.
+     *
+     * @return the object referenced by this node.
+     */
+    public N getElement() {
+        return this.element;
+    }
+
+    /**
+     * Gets the predecessor of this node.
+     *
+     * @return the predecessor of this node, or null if this node is the root node.
+     */
+    public LazyNode<N> getPredecessor() {
+        return this.predecessor;
+    }
+
+    /**
+     * Gets the ordinate of this node, i.e. its depth in the tree.
+     *
+     * @return the ordinate of this node.
+     */
+    public int getY() {
+        return this.y;
+    }
+
+    /**
+     * Gets the preferred traversal algorithm for the tree.
+     *
+     * @return the preferred traversal algorithm.
+     */
+    public Node.TraversalAlgorithm getTraversalAlgorithm() {
+        return this.traversalAlgorithm;
+    }
+
+    /**
+     * Tells whether the direct descendants of this node have been generated.
+     *
+     * @return true if this node is expanded, false otherwise.
+     */
+    public boolean isExpanded() {
+        return this.descendants != null;
+    }
+
+    /**
+     * Gets the number of direct descendants of this node, expanding this node if needed.
+     *
+     * @return the number of direct descendants of this node.
+     */
+    public int countDescendants() {
+        return this.expand().length;
+    }
+
+    /**
+     * Gets the direct descendant of this node at the specified position, expanding this node if needed.
+     *
+     * @param index the position of the direct descendant.
+     * @return the direct descendant at the specified position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public LazyNode<N> getDescendant(int index) {
+        LazyNode<N>[] descendants = this.expand();
+        if (index < 0 || index >= descendants.length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return descendants[index];
+    }
+
+    /**
+     * Gets the number of nodes in the (sub-)tree having this node as its root.
+     * <p/>
+     * The whole (sub-)tree is expanded the first time this function is called, and the size is memoized by every node of the (sub-)tree. This function does not return if the (sub-)tree is unbounded.
+     *
+     * @return the size of the (sub-)tree having this node as its root.
+     */
+    @Override
+    public int size() {
+        if (this.size == 0) {
+            List<LazyNode<N>> nodes = new ArrayList<>();
+            Deque<LazyNode<N>> stack = new ArrayDeque<>();
+            for (LazyNode<N> tmp = this; tmp != null; tmp = stack.poll()) {
+                nodes.add(tmp);
+                for (LazyNode<N> descendant : tmp.expand()) {
+                    if (descendant.size == 0) {
+                        stack.push(descendant);
+                    }
+                }
+            }
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                LazyNode<N> tmp = nodes.get(i);
+                tmp.size = 1;
+                for (LazyNode<N> descendant : tmp.descendants) {
+                    tmp.size += descendant.size;
+                }
+            }
+        }
+        return this.size;
+    }
+
+    /**
+     * Tells whether this node has no descendants, expanding this node if needed.
+     *
+     * @return true if this has no descendants, false otherwise.
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.expand().length == 0;
+    }
+
+    /**
+     * Creates a copy of the (sub-)tree having this node as its root made of {@link Node} objects, expanding the whole (sub-)tree.
+     * <p/>
+     * The nodes are appended in a single depth-first pass, see {@link Node.Builder}.
+     *
+     * @return the root node of the copy.
+     */
+    public Node<N> toNode() {
+        Node.Builder<N> builder = new Node.Builder<>(this.traversalAlgorithm);
+        Deque<LazyNode<N>> stack = new ArrayDeque<>();
+        for (LazyNode<N> tmp = this; tmp != null; tmp = stack.poll()) {
+            LazyNode<N>[] descendants = tmp.expand();
+            builder.append(tmp.element, descendants.length);
+            for (int i = descendants.length - 1; i >= 0; stack.push(descendants[i--])) ;
+        }
+        return builder.getRoot();
+    }
+
+    /**
+     * Expands this node if it has not been expanded yet.
+     *
+     * @return the array of direct descendants.
+     */
+    private LazyNode<N>[] expand() {
+        if (this.descendants == null) {
+            this.descendants = this.expander.expand(this);
+            this.input = null;
+        }
+        return this.descendants;
+    }
+
+    /*
+     * Search.
+     */
+    /**
+     * Returns the first encountered node that references the given object in a breadth-first left-to-right order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     */
+    public LazyNode<N> findBreadthFirstLeftNext(N element) {
+        return this.find(e -> Objects.equals(e, element), Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node that references the given object in a breadth-first right-to-left order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     */
+    public LazyNode<N> findBreadthFirstRightNext(N element) {
+        return this.find(e -> Objects.equals(e, element), Node.TraversalAlgorithm.BREADTH_FIRST_RIGHT);
+    }
+
+    /**
+     * Returns the first encountered node that references the given object in a depth-first left-to-right order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     */
+    public LazyNode<N> findDepthFirstLeftNext(N element) {
+        return this.find(e -> Objects.equals(e, element), Node.TraversalAlgorithm.DEPTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node that references the given object in a depth-first right-to-left order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param element the object to be searched.
+     * @return the node referencing the given object, or null if no such node is found.
+     */
+    public LazyNode<N> findDepthFirstRightNext(N element) {
+        return this.find(e -> Objects.equals(e, element), Node.TraversalAlgorithm.DEPTH_FIRST_RIGHT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate in a breadth-first left-to-right order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public LazyNode<N> findBreadthFirstLeftNext(Predicate<N> predicate) {
+        return this.find(predicate, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate in a breadth-first right-to-left order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public LazyNode<N> findBreadthFirstRightNext(Predicate<N> predicate) {
+        return this.find(predicate, Node.TraversalAlgorithm.BREADTH_FIRST_RIGHT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate in a depth-first left-to-right order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public LazyNode<N> findDepthFirstLeftNext(Predicate<N> predicate) {
+        return this.find(predicate, Node.TraversalAlgorithm.DEPTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate in a depth-first right-to-left order of encounter in the (sub-)tree having this node as its root, expanding the encountered nodes but the returned one.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public LazyNode<N> findDepthFirstRightNext(Predicate<N> predicate) {
+        return this.find(predicate, Node.TraversalAlgorithm.DEPTH_FIRST_RIGHT);
+    }
+
+    /**
+     * Returns the first encountered node referencing an object that matches the given predicate in the (sub-)tree having this node as its root, applying the given traversal algorithm.
+     *
+     * @param predicate          the predicate that is applied to each encountered node's referenced object.
+     * @param traversalAlgorithm the traversal algorithm to apply.
+     * @return the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    private LazyNode<N> find(Predicate<N> predicate, Node.TraversalAlgorithm traversalAlgorithm) {
+        for (LazyIterator<N> iterator = new LazyIterator<>(this, traversalAlgorithm); iterator.hasNext(); ) {
+            LazyNode<N> tmp = iterator.nextNode();
+            if (predicate.test(tmp.element)) {
+                return tmp;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Iteration.
+     */
+    /**
+     * Returns an iterator over the objects referenced by the nodes of the (sub-)tree having this node as its root, applying the preferred traversal algorithm, and expanding each node once the iterator moves past it.
+     *
+     * @return an iterator over the referenced objects.
+     */
+    @Override
+    public Iterator<N> iterator() {
+        return this.iterator(this.traversalAlgorithm);
+    }
+
+    /**
+     * Returns an iterator over the objects referenced by the nodes of the (sub-)tree having this node as its root, applying the given traversal algorithm, and expanding each node once the iterator moves past it.
+     *
+     * @param traversalAlgorithm the traversal algorithm to apply.
+     * @return an iterator over the referenced objects.
+     * @throws NullPointerException if the given traversal algorithm is null.
+     */
+    public Iterator<N> iterator(Node.TraversalAlgorithm traversalAlgorithm) {
+        return new LazyIterator<>(this, Objects.requireNonNull(traversalAlgorithm));
+    }
+
+    /**
+     * Returns a spliterator over the objects referenced by the nodes of the (sub-)tree having this node as its root, applying the preferred traversal algorithm.
+     * <p/>
+     * The size of the (sub-)tree is reported only if it has already been computed, so that creating a spliterator does not expand the whole (sub-)tree.
+     *
+     * @return a spliterator over the referenced objects.
+     */
+    @Override
+    public Spliterator<N> spliterator() {
+        return this.size == 0 ? Spliterators.spliteratorUnknownSize(this.iterator(), Spliterator.ORDERED) : Spliterators.spliterator(this.iterator(), this.size, Spliterator.ORDERED);
+    }
+
+    /**
+     * The <code><b>LazyIterator</b></code> class iterates over the nodes of a lazy (sub-)tree.
+     * <p/>
+     * The pending nodes are kept in a double-ended queue: breadth-first orders append the direct descendants of each encountered node, and depth-first orders prepend them. The direct descendants of a node are queued, and thus generated, only once the iterator moves past it.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static class LazyIterator<N> implements Iterator<N> {
+        /**
+         * The nodes pending to be encountered.
+         */
+        private final ArrayDeque<LazyNode<N>> pending = new ArrayDeque<>();
+        /**
+         * The traversal algorithm to apply.
+         */
+        private final Node.TraversalAlgorithm traversalAlgorithm;
+        /**
+         * The last encountered node whose direct descendants have not been queued yet, or null.
+         */
+        private LazyNode<N> last;
+
+        /**
+         * Creates an iterator over the (sub-)tree having the given node as its root.
+         *
+         * @param root               the root node of the (sub-)tree.
+         * @param traversalAlgorithm the traversal algorithm to apply.
+         */
+        private LazyIterator(LazyNode<N> root, Node.TraversalAlgorithm traversalAlgorithm) {
+            this.pending.add(root);
+            this.traversalAlgorithm = traversalAlgorithm;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.last != null) {
+                LazyNode<N>[] descendants = this.last.expand();
+                this.last = null;
+                switch (this.traversalAlgorithm) {
+                    case BREADTH_FIRST_LEFT:
+                        for (int i = 0; i < descendants.length; this.pending.addLast(descendants[i++])) ;
+                        break;
+                    case BREADTH_FIRST_RIGHT:
+                        for (int i = descendants.length - 1; i >= 0; this.pending.addLast(descendants[i--])) ;
+                        break;
+                    case DEPTH_FIRST_LEFT:
+                        for (int i = descendants.length - 1; i >= 0; this.pending.addFirst(descendants[i--])) ;
+                        break;
+                    default:
+                        for (int i = 0; i < descendants.length; this.pending.addFirst(descendants[i++])) ;
+                }
+            }
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public N next() {
+            return this.nextNode().element;
+        }
+
+        /**
+         * Moves to the next node.
+         *
+         * @return the next node.
+         * @throws NoSuchElementException if the iteration has no more nodes.
+         */
+        private LazyNode<N> nextNode() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.last = this.pending.pollFirst();
+        }
+    }
+
+    /**
+     * The <code><b>Expander</b></code> class holds the generator and mapper functions shared by the nodes of a lazy tree.
+     *
+     * @param <I> type of elements generated using the generator function.
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static final class Expander<I, N> {
+        /**
+         * The function generating the objects of the direct descendants of a node.
+         */
+        private final Function<I, I[]> generator;
+        /**
+         * The function translating generated objects to the objects referenced by the nodes.
+         */
+        private final Function<I, N> mapper;
+
+        /**
+         * Creates an expander given a generator function and a mapper function.
+         *
+         * @param generator a function that generates the objects of the direct descendants of a node.
+         * @param mapper    a function that translates generated objects to type <code><b>N</b></code>.
+         */
+        private Expander(Function<I, I[]> generator, Function<I, N> mapper) {
+            this.generator = generator;
+            this.mapper = mapper;
+        }
+
+        /**
+         * Creates the direct descendants of the given node.
+         *
+         * @param node the node to be expanded.
+         * @return the array of direct descendants of the given node.
+         */
+        @SuppressWarnings("unchecked")
+        private LazyNode<N>[] expand(LazyNode<N> node) {
+            I[] inputs = this.generator.apply((I) node.input);
+            if (inputs.length == 0) {
+                return (LazyNode<N>[]) EMPTY;
+            }
+            LazyNode<N>[] result = (LazyNode<N>[]) new LazyNode<?>[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                result[i] = new LazyNode<>(this, node, inputs[i], this.mapper.apply(inputs[i]), node.traversalAlgorithm);
+            }
+            return result;
+        }
+    }
+}
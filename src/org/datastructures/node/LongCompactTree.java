@@ -0,0 +1,179 @@
+package org.datastructures.node;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.LongStream;
+
+/*
+ * Notes:
+ * . The structure of the tree and its traversal orders are held by AbstractCompactTree, its searches by PrimitiveCompactTree, and the referenced values are stored in a single array of primitive values indexed by position, so that no value is ever boxed by searches, streams and arrays.
+ * . The Collection view boxes the values, for compatibility with the code handling trees of objects.
+ */
+/**
+ * The <code><b>LongCompactTree</b></code> class represents a tree of <code>long</code> values stored in a struct-of-arrays layout, whose structure is read-only.
+ * <p/>
+ * A long compact tree is created from a {@link Node} by {@link #LongCompactTree(Node, ToLongFunction)} or {@link Node#compactToLong(ToLongFunction)}, and converted back to a {@link Node} by {@link #toNode()}. It offers the traversal orders of {@link Node}, searches using a {@link LongPredicate}, {@link LongStream} traversals and a <code>long</code> array copy of the values. Functions returning a node return -1 where {@link Node} returns null.
+ * <p/>
+ * The value referenced by a node is replaced in place by {@link #set(int, long)}. Replacing values is not synchronized, and must not happen while another thread reads the tree.
+ */
+public class LongCompactTree extends PrimitiveCompactTree<Long, LongPredicate> {
+    /**
+     * The values referenced by the nodes.
+     */
+    private final long[] elements;
+
+    /**
+     * Creates a long compact tree holding a copy of the (sub-)tree having the given node as its root, the nodes referencing numbers.
+     *
+     * @param root the root node of the (sub-)tree to be copied.
+     * @throws NullPointerException if the given node is null or references null.
+     */
+    public LongCompactTree(Node<? extends Number> root) {
+        this(root, Number::longValue);
+    }
+
+    /**
+     * Creates a long compact tree holding a copy of the (sub-)tree having the given node as its root, given the function translating the objects referenced by the nodes to values.
+     *
+     * @param root   the root node of the (sub-)tree to be copied.
+     * @param mapper the function translating the objects referenced by the nodes to values.
+     * @param <E>    type of elements referenced by the nodes of the (sub-)tree.
+     * @throws NullPointerException if the given node or function is null.
+     */
+    public <E> LongCompactTree(Node<E> root, ToLongFunction<? super E> mapper) {
+        this(root, Objects.requireNonNull(mapper), new long[root.size()]);
+    }
+
+    /**
+     * Creates a long compact tree holding a copy of the (sub-)tree having the given node as its root, given the function translating the objects referenced by the nodes and the array into which the values are copied.
+     *
+     * @param root     the root node of the (sub-)tree to be copied.
+     * @param mapper   the function translating the objects referenced by the nodes to values.
+     * @param elements the array of the values referenced by the nodes.
+     * @param <E>      type of elements referenced by the nodes of the (sub-)tree.
+     */
+    private <E> LongCompactTree(Node<E> root, ToLongFunction<? super E> mapper, long[] elements) {
+        super(root, (e, i) -> elements[i] = mapper.applyAsLong(e));
+        this.elements = elements;
+    }
+
+    /**
+     * Gets the value referenced by the given node, boxed.
+     *
+     * @param node the position of the node.
+     * @return the value referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    @Override
+    public Long getElement(int node) {
+        return this.elements[node];
+    }
+
+    /**
+     * Gets the value referenced by the given node.
+     *
+     * @param node the position of the node.
+     * @return the value referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public long getAsLong(int node) {
+        return this.elements[node];
+    }
+
+    /**
+     * Replaces the value referenced by the given node.
+     * <p/>
+     * The structure of the tree is left untouched, hence this function takes constant time.
+     *
+     * @param node  the position of the node.
+     * @param value the value to be referenced by the given node.
+     * @return the value previously referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public long set(int node, long value) {
+        long result = this.elements[node];
+        this.elements[node] = value;
+        return result;
+    }
+
+    @Override
+    IntPredicate matcher(LongPredicate predicate) {
+        return i -> predicate.test(this.elements[i]);
+    }
+
+    /*
+     * Streams.
+     */
+    /**
+     * Returns a sequential stream over the values referenced by the nodes of the tree, applying the preferred traversal algorithm for the tree.
+     *
+     * @return a stream over the values referenced by the nodes of the tree.
+     */
+    public LongStream longStream() {
+        return this.longStream(0, this.getTraversalAlgorithm());
+    }
+
+    /**
+     * Returns a sequential stream over the values referenced by the nodes of the (sub-)tree having the given node as its root, applying the given traversal algorithm.
+     * <p/>
+     * A depth-first left-to-right stream is backed by a range of the array of referenced values, and splits evenly in parallel.
+     *
+     * @param root               the position of the root node of the (sub-)tree to be traversed.
+     * @param traversalAlgorithm the traversal algorithm to be applied.
+     * @return a stream over the values referenced by the nodes of the (sub-)tree having the given node as its root.
+     * @throws NullPointerException      if the given traversal algorithm is null.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     */
+    public LongStream longStream(int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        if (traversalAlgorithm == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT) {
+            this.validateRoot(root, root);
+            return Arrays.stream(this.elements, root, root + this.size(root));
+        }
+        return this.positions(root, traversalAlgorithm).mapToLong(i -> this.elements[i]);
+    }
+
+    /*
+     * Collection.
+     */
+    /**
+     * Tells whether the given value is referenced by a node of the tree.
+     * <p/>
+     * This function scans the array of referenced values.
+     *
+     * @param element value whose presence is to be tested in the tree.
+     * @return true if the given value is referenced by a node of the tree, false otherwise.
+     */
+    public boolean contains(long element) {
+        for (long tmp : this.elements) {
+            if (tmp == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the given object is a boxed value referenced by a node of the tree.
+     *
+     * @param o object whose presence is to be tested in the tree.
+     * @return true if the given object is a {@link Long} whose value is referenced by a node of the tree, false otherwise.
+     */
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && this.contains(((Long) o).longValue());
+    }
+
+    /**
+     * Returns an array containing the values referenced by the nodes of the tree sorted by the order of encounter of the preferred traversal algorithm for the tree.
+     * <p/>
+     * If the preferred traversal algorithm is {@link Node.TraversalAlgorithm#DEPTH_FIRST_LEFT}, this function copies the array of referenced values.
+     *
+     * @return an array containing the values referenced by the nodes of the tree.
+     */
+    public long[] toLongArray() {
+        return this.getTraversalAlgorithm() == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT ? this.elements.clone() : this.longStream().toArray();
+    }
+}
@@ -0,0 +1,303 @@
+package org.datastructures.node;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/*
+ * Notes:
+ * . A mapped tree is an off-heap tree whose chunks are read-only mappings of a file, so that opening a tree of any size reads its header and the index of its depth levels only, and each query faults in the pages of the records and objects it visits.
+ * . The file holds a header, the records of OffHeapTree in big-endian order, the offsets of the encoded objects, the objects encoded by an ElementCodec, and the index of the first node at each depth level:
+ *   header        : magic number (4 bytes), version (1 byte), preferred traversal algorithm (1 byte), padding (2 bytes), number of nodes (4 bytes), number of depth levels plus one (4 bytes), position of the blob region (8 bytes), position of the level index (8 bytes)
+ *   records       : one record of 9 int fields per node in a depth-first left-to-right order of encounter, holding the subtree sizes that allow skipping a subtree
+ *   levels        : the positions of the nodes depth level by depth level
+ *   offsets       : the offset of each encoded object in the blob region as a long, complemented if the node references null, followed by the length of the blob region
+ *   blob          : the encoded objects
+ *   level index   : the index of the first node at each depth level, followed by the number of nodes
+ * . The file is written in a single walk of the tree: the records and offsets are written through a writable mapping and the objects are streamed to the blob region, whose position only depends on the number of nodes.
+ * . Objects are decoded from the blob region each time they are read, and are not cached.
+ * . FileChannel.map maps at most 2 GiB at a time, hence the int fields are mapped in chunks of 2^28 fields, and the blob region in chunks of 2^30 bytes. Fields are 4-byte aligned, hence none of them straddles two chunks.
+ */
+/**
+ * The <code><b>MappedTree</b></code> class represents a read-only tree stored in a file, which is read lazily through memory mappings.
+ * <p/>
+ * A tree is written to a file by {@link #write(Node, Path, Node.ElementCodec)} and opened by {@link #open(Path, Node.ElementCodec)}. A mapped tree offers the traversal orders and searches of {@link OffHeapTree}, each of them touching only the pages holding the visited nodes, and any (sub-)tree is loaded as a tree of nodes on demand by {@link #toNode(int)}.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class MappedTree<N> extends OffHeapTree<N> {
+    /**
+     * The magic number at the start of a tree file.
+     */
+    private static final int MAGIC = 0x54524545;
+    /**
+     * The version of the format of a tree file.
+     */
+    private static final byte VERSION = 1;
+    /**
+     * The size of the header of a tree file in bytes.
+     */
+    private static final int HEADER = 32;
+    /**
+     * The element codec that reads the referenced objects.
+     */
+    private final Node.ElementCodec<? extends N> codec;
+    /**
+     * The position of the first int field of the offsets of the encoded objects.
+     */
+    private final long offsets;
+    /**
+     * The chunks of the blob region, or null once the tree is closed.
+     */
+    private volatile ByteBuffer[] blob;
+
+    /**
+     * Creates a mapped tree given its mappings.
+     */
+    private MappedTree(ByteBuffer[] chunks, int[] levelStarts, Node.TraversalAlgorithm traversalAlgorithm, ByteBuffer[] blob, Node.ElementCodec<? extends N> codec) {
+        super(new Records(chunks, levelStarts[levelStarts.length - 1]), levelStarts, traversalAlgorithm, null);
+        this.offsets = OffHeapTree.ints(this.size());
+        this.blob = blob;
+        this.codec = codec;
+    }
+
+    /**
+     * Writes the (sub-)tree having the given node as its root to the given file, which is created or truncated.
+     * <p/>
+     * The file is forced to the storage device before this function returns.
+     *
+     * @param node  the root node of the (sub-)tree to be written.
+     * @param path  the path of the file.
+     * @param codec the element codec that writes the referenced objects.
+     * @param <N>   type of elements referenced by the nodes of the tree.
+     * @throws NullPointerException if one of the arguments is null.
+     * @throws IOException          if an I/O error occurs.
+     */
+    public static <N> void write(Node<N> node, Path path, Node.ElementCodec<? super N> codec) throws IOException {
+        Objects.requireNonNull(node);
+        Objects.requireNonNull(codec);
+        int count = node.size();
+        long offsets = OffHeapTree.ints(count), blob = HEADER + ((offsets + 2L * (count + 1)) << 2);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer[] chunks = MappedTree.map(channel, FileChannel.MapMode.READ_WRITE, HEADER, blob - HEADER);
+            channel.position(blob);
+            CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            DataOutputStream out = new DataOutputStream(counter);
+            int[] levelStarts;
+            try {
+                levelStarts = AbstractCompactTree.layout(node, new Records(chunks, count), (N e, int i) -> {
+                    MappedTree.putLong(chunks, offsets + 2L * i, e == null ? ~counter.count : counter.count);
+                    if (e != null) {
+                        try {
+                            codec.write(out, e);
+                        } catch (IOException x) {
+                            throw new UncheckedIOException(x);
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            MappedTree.putLong(chunks, offsets + 2L * count, counter.count);
+            long index = blob + counter.count;
+            for (int tmp : levelStarts) {
+                out.writeInt(tmp);
+            }
+            out.flush();
+            for (ByteBuffer tmp : chunks) {
+                ((MappedByteBuffer) tmp).force();
+                OffHeapTree.release(tmp);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).put(VERSION).put((byte) node.getTraversalAlgorithm().ordinal()).putShort((short) 0);
+            header.putInt(count).putInt(levelStarts.length).putLong(blob).putLong(index).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Opens a tree written by {@link #write(Node, Path, Node.ElementCodec)}.
+     * <p/>
+     * Only the header and the index of the first node at each depth level are read, the rest of the file being mapped. The file is not locked, and must not be modified while the tree is open.
+     *
+     * @param path  the path of the file.
+     * @param codec the element codec that reads the referenced objects.
+     * @param <N>   type of elements referenced by the nodes of the tree.
+     * @return the mapped tree.
+     * @throws NullPointerException     if one of the arguments is null.
+     * @throws StreamCorruptedException if the file does not hold a tree in the expected format.
+     * @throws IOException              if an I/O error occurs.
+     */
+    public static <N> MappedTree<N> open(Path path, Node.ElementCodec<? extends N> codec) throws IOException {
+        Objects.requireNonNull(codec);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = MappedTree.read(channel, 0, HEADER);
+            if (header.getInt() != MAGIC || header.get() != VERSION) {
+                throw new StreamCorruptedException();
+            }
+            int traversalAlgorithm = header.get() & 0xFF;
+            header.getShort();
+            int count = header.getInt(), length = header.getInt();
+            long blob = header.getLong(), index = header.getLong();
+            if (traversalAlgorithm >= Node.TraversalAlgorithm.values().length || count < 1 || length < 2 || length > count + 1
+                || blob != HEADER + ((OffHeapTree.ints(count) + 2L * (count + 1)) << 2) || index < blob || channel.size() != index + 4L * length) {
+                throw new StreamCorruptedException();
+            }
+            ByteBuffer[] levels = MappedTree.map(channel, FileChannel.MapMode.READ_ONLY, index, 4L * length);
+            int[] levelStarts = new int[length];
+            for (int i = 0; i < length; levelStarts[i] = OffHeapTree.get(levels, i), i++) ;
+            for (ByteBuffer tmp : levels) {
+                OffHeapTree.release(tmp);
+            }
+            if (levelStarts[0] != 0 || levelStarts[length - 1] != count) {
+                throw new StreamCorruptedException();
+            }
+            return new MappedTree<>(MappedTree.map(channel, FileChannel.MapMode.READ_ONLY, HEADER, blob - HEADER), levelStarts, Node.TraversalAlgorithm.values()[traversalAlgorithm],
+                MappedTree.map(channel, FileChannel.MapMode.READ_ONLY, blob, index - blob), codec);
+        }
+    }
+
+    /**
+     * Maps the given region of the given file channel in chunks of 2^30 bytes.
+     *
+     * @param channel  the file channel.
+     * @param mode     the mapping mode.
+     * @param position the position of the region.
+     * @param size     the size of the region in bytes.
+     * @return the chunks.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static ByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        long chunk = (MASK + 1) << 2;
+        ByteBuffer[] result = new ByteBuffer[(int) ((size + chunk - 1) / chunk)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = channel.map(mode, position + i * chunk, Math.min(chunk, size - i * chunk));
+        }
+        return result;
+    }
+
+    /**
+     * Reads the given region of the given file channel.
+     *
+     * @param channel  the file channel.
+     * @param position the position of the region.
+     * @param size     the size of the region in bytes.
+     * @return a buffer holding the region.
+     * @throws EOFException if the file ends before the end of the region.
+     * @throws IOException  if an I/O error occurs.
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer result = ByteBuffer.allocate(size);
+        while (result.hasRemaining()) {
+            if (channel.read(result, position + result.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Sets the long value held by the two int fields at the given position in the given chunks.
+     */
+    private static void putLong(ByteBuffer[] chunks, long index, long value) {
+        OffHeapTree.put(chunks, index, (int) (value >>> 32));
+        OffHeapTree.put(chunks, index + 1, (int) value);
+    }
+
+    /**
+     * Gets the offset of the encoded object referenced by the given node in the blob region.
+     */
+    private long offset(int node) {
+        long index = this.offsets + 2L * node;
+        return (long) this.get(index) << 32 | this.get(index + 1) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Releases the mappings of the file. This function has no effect if the tree is already closed.
+     */
+    @Override
+    public void close() {
+        super.close();
+        ByteBuffer[] blob = this.blob;
+        this.blob = null;
+        for (int i = 0; blob != null && i < blob.length; OffHeapTree.release(blob[i++])) ;
+    }
+
+    /**
+     * Gets the object referenced by the given node, decoded from the blob region.
+     *
+     * @param node the position of the node.
+     * @return the object referenced by the given node.
+     * @throws IndexOutOfBoundsException if the given position is out of range.
+     * @throws IllegalStateException     if the tree is closed.
+     * @throws UncheckedIOException      if the element codec fails to decode the object.
+     */
+    @Override
+    public N getElement(int node) {
+        if (node < 0 || node >= this.size()) {
+            throw new IndexOutOfBoundsException(String.valueOf(node));
+        }
+        long from = this.offset(node), to = this.offset(node + 1);
+        ByteBuffer[] blob = this.blob;
+        if (blob == null) {
+            throw new IllegalStateException();
+        }
+        if (from < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) ((to < 0 ? ~to : to) - from)];
+        long chunk = (MASK + 1) << 2;
+        for (int i = 0; i < bytes.length; ) {
+            ByteBuffer tmp = blob[(int) ((from + i) / chunk)].duplicate();
+            tmp.position((int) ((from + i) % chunk));
+            int length = Math.min(bytes.length - i, tmp.remaining());
+            tmp.get(bytes, i, length);
+            i += length;
+        }
+        try {
+            return this.codec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Counts the bytes written to an output stream.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        /**
+         * The number of bytes written.
+         */
+        private long count = 0;
+
+        /**
+         * Creates a counting output stream given the underlying output stream.
+         *
+         * @param out the underlying output stream.
+         */
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.count += len;
+        }
+    }
+}
@@ -1,14 +1,34 @@
 package org.datastructures.node;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 
 /*
@@ -107,11 +127,21 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * The object referenced by this node.
      */
     transient private N element;
+    /**
+     * The shared empty array of direct descendants referenced by nodes that have never had any descendant.
+     */
+    private static final Node<?>[] EMPTY_DESCENDANTS = new Node<?>[0];
     /**
      * The array of direct descendants (at the next depth level.)
+     * <p/>
+     * The capacity of this array grows by doubling, only the first {@link #countDescendants} positions are occupied.
      */
     @SuppressWarnings("unchecked")
-    transient private Node<N>[] descendants = new Node[0];
+    transient private Node<N>[] descendants = (Node<N>[]) EMPTY_DESCENDANTS;
+    /**
+     * The number of direct descendants (at the next depth level.)
+     */
+    transient private int countDescendants = 0;
     /**
      * The adjacent node to the right of this node at the same depth level in the tree to which this node belongs.
      */
@@ -125,9 +155,11 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     transient private Node<N> predecessor;
     /**
-     * The abscissa of this node in the plane.
+     * The abscissa of this node in the plane relative to the abscissa of its predecessor.
+     * <p/>
+     * If this is the first node in the array of direct descendants, the abscissa of this node is equal to that of the predecessor's, i.e. this value is 0. Subsequent nodes in the array of direct descendants have an incremental abscissa with the predecessor's abscissa as the seed. The root node has an abscissa value of 0.
      * <p/>
-     * If this is the first node in the array of direct descendants, the abscissa of this node is equal to that of the predecessor's. Subsequent nodes in the array of direct descendants have an incremental abscissa with the predecessor's abscissa as the seed. The root node has an abscissa value of 0.
+     * Storing relative abscissas confines the changes caused by adding or detaching a node to the path to the root and the siblings to the right along that path having the same predecessor, instead of every node to the right in the tree. The absolute abscissa is resolved by {@link #getX()}.
      */
     transient private int x = 0;
     /**
@@ -143,11 +175,53 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     transient private int countAll = 1;
     /**
-     * Preferred traversal algorithm for the tree.
+     * The breadth of the (sub-)tree having this node as its root.
+     * <p/>
+     * This value represents the number of nodes having no descendants in the (sub-)tree having this node as its root, and is maintained along with {@link #countAll}.
+     */
+    transient private int breadth = 1;
+    /**
+     * The height of the (sub-)tree having this node as its root, that is the number of depth levels below this node.
+     * <p/>
+     * This value is maintained along with {@link #countAll}, and lets {@link #addAll(int, Node[])} find the nodes adjacent to the inserted nodes at each depth level by skipping the (sub-)trees that do not reach that depth level, instead of walking the depth level.
+     */
+    transient private int height = 0;
+    /**
+     * The number of direct descendants whose (sub-)trees reach the depth level of the lowest nodes in the (sub-)tree having this node as its root, so that {@link #height} is computed again only once the last of them is removed or lowered.
+     */
+    transient private int countHighest = 0;
+    /**
+     * The cached structural hash of the (sub-)tree having this node as its root, valid if {@link #hashed} is true.
+     * <p/>
+     * The hash depends on the referenced objects and the shape of the (sub-)tree only, not on its position in the tree to which this node belongs. It is computed lazily by {@link #hashCode()}, and invalidated along the path to the root node whenever the (sub-)tree changes. A valid hash implies valid hashes for all the descendants, hence invalidation stops at the first predecessor whose hash is already invalid.
+     */
+    transient private int hash;
+    /**
+     * Whether {@link #hash} is valid.
+     */
+    transient private boolean hashed = false;
+    /**
+     * The state of the tree to which this node belongs, e.g. its preferred traversal algorithm.
+     * <p/>
+     * This object is referenced by all the nodes in the tree to which this node belongs, and by these nodes only, which makes it possible to change the state of the tree from any node in the tree. See {@link Tree}.
+     */
+    transient private Tree<N> tree = new Tree<>(TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    /**
+     * The interval labeling this node, or null if the tree to which this node belongs is not labeled.
+     * <p/>
+     * Either every node of a tree is labeled or none is. See {@link #setLabeled(boolean)}.
+     */
+    transient private Label label;
+    /**
+     * The values of the aggregates registered on the tree over the (sub-)tree having this node as its root, in the order of registration, or null if no aggregate is registered on the tree.
      * <p/>
-     * This is a pointer to pointer that is referenced by all the nodes in the tree to which this node belongs. This property is shared among all nodes, which makes it possible to change the preferred traversal algorithm from any node in the tree.
+     * See {@link #addAggregate(Aggregate)}.
+     */
+    transient private Object[] aggregates;
+    /**
+     * The distance between consecutive labels when a whole tree is labeled.
      */
-    transient private ObjectReference<TraversalAlgorithm> traversalAlgorithm = new ObjectReference<>(TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    private static final long LABEL_GAP = 1L << 16;
 
     /**
      * Creates a node with no referenced object.
@@ -171,7 +245,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @param traversalAlgorithm the preferred traversal algorithm in the current tree.
      */
     public Node(N element, TraversalAlgorithm traversalAlgorithm) {
-        this.traversalAlgorithm = new ObjectReference<>(traversalAlgorithm);
+        this.tree = new Tree<>(traversalAlgorithm);
         this.element = element;
     }
 
@@ -229,9 +303,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
     @SafeVarargs
     public Node(N element, TraversalAlgorithm traversalAlgorithm, Node<N>... descendants) {
         this(element, traversalAlgorithm);
-        for (Node<N> tmp : descendants) {
-            this.add(tmp);
-        }
+        this.addAll(0, descendants);
     }
 
     /**
@@ -267,6 +339,10 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * Creates a node given an object, a generator function and a mapper function.
      * <p/>
      * <cpde><b>mapper</b></cpde> is applied to <code><b>element</b></code>, and the resulting object is referenced by the constructed node. <code><b>mapper</b></code> is applied to each object generated by applying <code><b>generator</b></code> to <code><b>element</b></code>, the resulting objects are referenced by nodes that are constructed and added to the array of direct descendants. This is a recursive operation that might result in a tree with a depth greater than 1.
+     * <p/>
+     * Large or deep trees are better built by a {@link ParallelNodeBuilder}, which applies the generator and the mapper in parallel, and whose depth is not limited by the size of the thread stack.
+     * <p/>
+     * Trees that are only partially visited are better generated on demand, see {@link LazyNode}.
      *
      * @param generator a function that generates elements to be referenced by descendant noes.
      * @param element   the object referenced by this node, after applying the given mapper function.
@@ -379,7 +455,20 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @param element the object referenced by this node.
      */
     public void setElement(N element) {
+        if (this.tree.journal != null) {
+            this.tree.journal.setElement(this, element);
+        }
+        ElementIndex<N> index = this.tree.elementIndex;
+        if (index != null) {
+            index.remove(this);
+        }
         this.element = element;
+        if (index != null) {
+            index.add(this);
+        }
+        this.invalidateHash();
+        Aggregate<?, ?>[] aggregates = this.tree.aggregates;
+        for (Node<N> tmp = aggregates == null ? null : this; tmp != null; tmp.aggregate(aggregates, 0), tmp = tmp.predecessor) ;
     }
 
     /**
@@ -417,7 +506,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IndexOutOfBoundsException if the index is out of range.
      */
     public Node<N> getDescendant(int i) {
-        if (i < 0 || i > this.descendants.length - 1) {
+        if (i < 0 || i > this.countDescendants - 1) {
             throw new IndexOutOfBoundsException(String.valueOf(i));
         }
         return this.descendants[i];
@@ -429,7 +518,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @return the number of direct descendants (at the next depth level.)
      */
     public int countDescendants() {
-        return this.descendants.length;
+        return this.countDescendants;
     }
 
     /**
@@ -446,11 +535,15 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
 
     /**
      * Gets the abscissa of this node in the plane.
+     * <p/>
+     * The abscissa is resolved by summing up the relative abscissas of this node and its predecessors.
      *
      * @return the abscissa of this node in the plane.
      */
     public int getX() {
-        return this.x;
+        int result = 0;
+        for (Node<N> tmp = this; tmp != null; result += tmp.x, tmp = tmp.predecessor) ;
+        return result;
     }
 
     /**
@@ -468,7 +561,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @return the preferred traversal algorithm for the tree to which this node belongs.
      */
     public TraversalAlgorithm getTraversalAlgorithm() {
-        return this.traversalAlgorithm.object;
+        return this.tree.traversalAlgorithm;
     }
 
     /**
@@ -477,7 +570,380 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @param traversalAlgorithm the preferred traversal algorithm for the tree to which this node belongs.
      */
     public void setTraversalAlgorithm(TraversalAlgorithm traversalAlgorithm) {
-        this.traversalAlgorithm.object = traversalAlgorithm;
+        if (this.tree.journal != null) {
+            this.tree.journal.setTraversalAlgorithm(traversalAlgorithm);
+        }
+        this.tree.traversalAlgorithm = traversalAlgorithm;
+    }
+
+    /**
+     * Tells whether the tree to which this node belongs is indexed.
+     *
+     * @return true if the tree to which this node belongs is indexed, false otherwise.
+     * @see #setIndexed(boolean)
+     */
+    public boolean isIndexed() {
+        return this.tree.elementIndex != null;
+    }
+
+    /**
+     * Builds or drops the index of the objects referenced by the nodes of the tree to which this node belongs.
+     * <p/>
+     * The index maps each referenced object to the nodes referencing it, and is shared by the nodes of the tree. It is kept up to date by {@link #addAll(int, Node[])}, {@link #detach()} and {@link #setElement(Object)}, and turns {@link #contains(Object)}, {@link #containsAll(Collection)}, {@link #remove(Object)} and the <code>find*Next(N element)</code> functions into hash lookups. Nodes added to an indexed tree are indexed, whereas a detached (sub-)tree keeps an index of its own if the tree it is detached from is indexed.
+     * <p/>
+     * Referenced objects must not change in a way that affects their hash codes or equality while the tree is indexed.
+     *
+     * @param indexed true to build the index, false to drop it.
+     */
+    public void setIndexed(boolean indexed) {
+        if (!indexed) {
+            this.tree.elementIndex = null;
+        } else if (this.tree.elementIndex == null) {
+            Node<N> root = this.getRoot();
+            ElementIndex<N> index = new ElementIndex<>();
+            for (Node<N> tmp = root; tmp != null; index.add(tmp), tmp = tmp.nextDepthFirstLeft(root)) ;
+            this.tree.elementIndex = index;
+        }
+    }
+
+    /**
+     * Tells whether the tree to which this node belongs is labeled.
+     *
+     * @return true if the tree to which this node belongs is labeled, false otherwise.
+     * @see #setLabeled(boolean)
+     */
+    public boolean isLabeled() {
+        return this.label != null;
+    }
+
+    /**
+     * Builds or drops the interval labeling of the nodes of the tree to which this node belongs.
+     * <p/>
+     * Each node of a labeled tree is labeled with the positions at which a depth-first left-to-right walk of the tree enters and leaves it, so that a node is a descendant of another node if and only if its interval is nested in the interval of the other node. This turns {@link #isDescendantOf(Node)}, {@link #isPredecessorOf(Node)}, {@link #containsNode(Node)} and {@link #validateRoot(Node)} into a couple of comparisons, instead of walking up the predecessors, and with them the root-bounded traversal and search functions, e.g. {@link #getBreadthFirstLeftNext(Node)} or {@link #findDepthFirstLeftNext(Predicate, Node)}.
+     * <p/>
+     * Labels are spaced out, and {@link #addAll(int, Node[])} labels the inserted nodes within the gap left at the insertion point. Once a gap is exhausted, the smallest (sub-)tree enclosing the insertion point that leaves enough room between its labels is relabeled, or the whole tree if no such (sub-)tree exists. {@link #detach()} leaves the labels untouched, and a detached (sub-)tree remains labeled if the tree it is detached from is labeled.
+     *
+     * @param labeled true to build the labeling, false to drop it.
+     */
+    public void setLabeled(boolean labeled) {
+        Node<N> root = this.getRoot();
+        if (!labeled) {
+            for (Node<N> tmp = root; tmp != null; tmp.label = null, tmp = tmp.nextDepthFirstLeft(root)) ;
+        } else if (root.label == null) {
+            root.label(0, LABEL_GAP);
+        }
+    }
+
+    /**
+     * Registers the given aggregate on the tree to which this node belongs, and computes its value over the (sub-)tree having each node as its root.
+     * <p/>
+     * The value of an aggregate over a (sub-)tree is the combination of the values mapped from the objects referenced by its nodes, in a depth-first left-to-right order of encounter. It is kept by each node, and is kept up to date by {@link #addAll(int, Node[])}, {@link #detach()} and {@link #setElement(Object)}, which recompute the values of the predecessors of the modified nodes, each from the object it references and the values of its direct descendants. Nodes added to a tree take the aggregates registered on that tree, whereas a detached (sub-)tree keeps the aggregates registered on the tree it is detached from.
+     * <p/>
+     * Registering an aggregate walks the tree once.
+     *
+     * @param aggregate the aggregate to be registered.
+     * @return true if the aggregate has been registered, false if it was already registered on the tree.
+     * @throws NullPointerException if the given aggregate is null.
+     */
+    public boolean addAggregate(Aggregate<? super N, ?> aggregate) {
+        Aggregate<?, ?>[] aggregates = this.tree.aggregates;
+        if (Node.indexOf(aggregates, Objects.requireNonNull(aggregate)) >= 0) {
+            return false;
+        }
+        aggregates = aggregates == null ? new Aggregate<?, ?>[1] : Arrays.copyOf(aggregates, aggregates.length + 1);
+        aggregates[aggregates.length - 1] = aggregate;
+        this.tree.aggregates = aggregates;
+        this.getRoot().aggregateAll(aggregates, aggregates.length - 1);
+        return true;
+    }
+
+    /**
+     * Unregisters the given aggregate from the tree to which this node belongs, and drops its values.
+     *
+     * @param aggregate the aggregate to be unregistered.
+     * @return true if the aggregate has been unregistered, false if it was not registered on the tree.
+     */
+    public boolean removeAggregate(Aggregate<? super N, ?> aggregate) {
+        Aggregate<?, ?>[] aggregates = this.tree.aggregates;
+        int index = Node.indexOf(aggregates, aggregate);
+        if (index < 0) {
+            return false;
+        }
+        Node<N> root = this.getRoot();
+        for (Node<N> tmp = root; tmp != null; tmp = tmp.nextDepthFirstLeft(root)) {
+            if (aggregates.length == 1) {
+                tmp.aggregates = null;
+            } else {
+                Object[] values = new Object[aggregates.length - 1];
+                System.arraycopy(tmp.aggregates, 0, values, 0, index);
+                System.arraycopy(tmp.aggregates, index + 1, values, index, values.length - index);
+                tmp.aggregates = values;
+            }
+        }
+        if (aggregates.length == 1) {
+            this.tree.aggregates = null;
+        } else {
+            Aggregate<?, ?>[] tmp = new Aggregate<?, ?>[aggregates.length - 1];
+            System.arraycopy(aggregates, 0, tmp, 0, index);
+            System.arraycopy(aggregates, index + 1, tmp, index, tmp.length - index);
+            this.tree.aggregates = tmp;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the value of the given aggregate over the (sub-)tree having this node as its root.
+     * <p/>
+     * The value is kept by this node, hence this function takes time proportional to the number of aggregates registered on the tree only.
+     *
+     * @param aggregate the aggregate whose value is returned.
+     * @param <A>       type of the values of the aggregate.
+     * @return the value of the given aggregate over the (sub-)tree having this node as its root.
+     * @throws IllegalArgumentException if the given aggregate is not registered on the tree to which this node belongs.
+     * @see #addAggregate(Aggregate)
+     */
+    @SuppressWarnings("unchecked")
+    public <A> A getAggregate(Aggregate<? super N, A> aggregate) {
+        int index = Node.indexOf(this.tree.aggregates, aggregate);
+        if (index < 0) {
+            throw new IllegalArgumentException();
+        }
+        return (A) this.aggregates[index];
+    }
+
+    /**
+     * Gets the position of the given aggregate in the given aggregates.
+     *
+     * @param aggregates the registered aggregates, or null.
+     * @param aggregate  the aggregate to be found.
+     * @return the position of the given aggregate, or -1 if it is not found.
+     */
+    private static int indexOf(Aggregate<?, ?>[] aggregates, Aggregate<?, ?> aggregate) {
+        for (int i = 0; aggregates != null && i < aggregates.length; i++) {
+            if (aggregates[i] == aggregate) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the journal recording the mutations of the tree to which this node belongs.
+     *
+     * @return the journal of the tree, or null if the tree is not journaled.
+     * @see Journal
+     */
+    Journal<?> getJournal() {
+        return this.tree.journal;
+    }
+
+    /**
+     * Sets the journal recording the mutations of the tree to which this node belongs.
+     *
+     * @param journal the journal of the tree, or null to stop journaling the tree.
+     */
+    void setJournal(Journal<?> journal) {
+        this.tree.journal = journal;
+    }
+
+    /**
+     * Gets the path from the root node of the tree to which this node belongs to this node.
+     *
+     * @return the position of each node of the path, the root node excluded, in the array of direct descendants of its predecessor.
+     */
+    int[] path() {
+        int[] result = new int[this.y];
+        for (Node<N> tmp = this; tmp.predecessor != null; tmp = tmp.predecessor) {
+            int i = tmp.predecessor.countDescendants - 1;
+            for (; tmp.predecessor.descendants[i] != tmp; i--) ;
+            result[tmp.y - 1] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the values of the given aggregates from the given position over the (sub-)tree having this node as its root, walking it once and computing the values of each node once those of its descendants are computed.
+     *
+     * @param aggregates the aggregates registered on the tree.
+     * @param from       the position of the first aggregate whose values are computed.
+     */
+    private void aggregateAll(Aggregate<?, ?>[] aggregates, int from) {
+        for (Node<N> tmp = this; ; ) {
+            if (tmp.countDescendants > 0) {
+                tmp = tmp.descendants[0];
+                continue;
+            }
+            for (; ; tmp = tmp.predecessor) {
+                tmp.aggregate(aggregates, from);
+                if (tmp == this) {
+                    return;
+                }
+                if (tmp.nextSibling != null && tmp.nextSibling.predecessor == tmp.predecessor) {
+                    break;
+                }
+            }
+            tmp = tmp.nextSibling;
+        }
+    }
+
+    /**
+     * Computes the values of the given aggregates from the given position over the (sub-)tree having this node as its root, from the object referenced by this node and the values of its direct descendants.
+     *
+     * @param aggregates the aggregates registered on the tree.
+     * @param from       the position of the first aggregate whose value is computed.
+     */
+    @SuppressWarnings("unchecked")
+    private void aggregate(Aggregate<?, ?>[] aggregates, int from) {
+        if (this.aggregates == null || this.aggregates.length != aggregates.length) {
+            this.aggregates = this.aggregates == null ? new Object[aggregates.length] : Arrays.copyOf(this.aggregates, aggregates.length);
+        }
+        for (int i = from; i < aggregates.length; i++) {
+            Aggregate<? super N, Object> aggregate = (Aggregate<? super N, Object>) aggregates[i];
+            Object value = aggregate.mapper.apply(this.element);
+            for (int j = 0; j < this.countDescendants; value = aggregate.combiner.apply(value, this.descendants[j++].aggregates[i])) ;
+            this.aggregates[i] = value;
+        }
+    }
+
+    /**
+     * Updates the values of the given aggregates over this node and its predecessors once direct descendants have been inserted in the given range.
+     * <p/>
+     * While the inserted nodes are the last nodes of a (sub-)tree in a depth-first left-to-right order of encounter, the combination of their values is combined to the value of the root node of that (sub-)tree, otherwise the values are recomputed from the direct descendants.
+     *
+     * @param from       the position of the first inserted direct descendant.
+     * @param to         the position following the last inserted direct descendant.
+     * @param aggregates the aggregates registered on the tree.
+     */
+    @SuppressWarnings("unchecked")
+    private void aggregateInserted(int from, int to, Aggregate<?, ?>[] aggregates) {
+        Node<N> tmp = this;
+        if (to == this.countDescendants) {
+            Object[] values = new Object[aggregates.length];
+            for (int i = 0; i < aggregates.length; i++) {
+                BinaryOperator<Object> combiner = ((Aggregate<?, Object>) aggregates[i]).combiner;
+                Object value = this.descendants[from].aggregates[i];
+                for (int j = from + 1; j < to; value = combiner.apply(value, this.descendants[j++].aggregates[i])) ;
+                values[i] = value;
+            }
+            for (boolean last = true; tmp != null && last; last = tmp.predecessor != null && tmp.predecessor.descendants[tmp.predecessor.countDescendants - 1] == tmp, tmp = tmp.predecessor) {
+                for (int i = 0; i < aggregates.length; i++) {
+                    tmp.aggregates[i] = ((Aggregate<?, Object>) aggregates[i]).combiner.apply(tmp.aggregates[i], values[i]);
+                }
+            }
+        }
+        for (; tmp != null; tmp.aggregate(aggregates, 0), tmp = tmp.predecessor) ;
+    }
+
+    /**
+     * Gets the object shared by all the nodes of the tree to which this node belongs, and by these nodes only.
+     * <p/>
+     * The shared object is replaced for the nodes of a detached (sub-)tree, and replaced by the one of the tree to which nodes are added. Along with {@link #getModifications()}, it tells whether a tree has been structurally modified since a given point in time.
+     *
+     * @return the object shared by the nodes of the tree.
+     */
+    Object getTree() {
+        return this.tree;
+    }
+
+    /**
+     * Gets the number of structural modifications of the tree to which this node belongs, i.e. the number of calls to {@link #addAll(int, Node[])} and {@link #detach()} that changed it.
+     *
+     * @return the number of structural modifications of the tree.
+     * @see #getTree()
+     */
+    int getModifications() {
+        return this.tree.modifications;
+    }
+
+    /**
+     * Gets the node whose direct descendants were changed by the given structural modification of the tree to which this node belongs, provided it is one of the last {@link Tree#MODIFIED} modifications.
+     *
+     * @param modification the number of structural modifications of the tree before the given one, see {@link #getModifications()}.
+     * @return the node whose direct descendants were changed, or null if the given modification is not recorded any more or has not happened yet.
+     */
+    Node<N> getModified(int modification) {
+        Tree<N> tree = this.tree;
+        int age = tree.modifications - modification;
+        return age <= 0 || age > Tree.MODIFIED ? null : tree.modified[modification & (Tree.MODIFIED - 1)];
+    }
+
+    /**
+     * Counts a structural modification of the tree to which this node belongs, changing the direct descendants of this node.
+     */
+    @SuppressWarnings("unchecked")
+    private void modify() {
+        Tree<N> tree = this.tree;
+        if (tree.modified == null) {
+            tree.modified = (Node<N>[]) new Node<?>[Tree.MODIFIED];
+        }
+        tree.modified[tree.modifications++ & (Tree.MODIFIED - 1)] = this;
+    }
+
+    /**
+     * Gets the directory of the depth levels of the tree to which this node belongs.
+     *
+     * @return the directory of the depth levels of the tree, or null if the tree is made of this node only.
+     */
+    private Levels<N> levels() {
+        return this.tree.levels;
+    }
+
+    /**
+     * Labels the nodes of the (sub-)tree having this node as its root in a depth-first left-to-right walk, spacing the labels evenly starting from the given label.
+     *
+     * @param next the first label.
+     * @param step the distance between consecutive labels.
+     * @return the label following the last label.
+     */
+    private long label(long next, long step) {
+        for (Node<N> tmp = this; ; ) {
+            (tmp.label == null ? tmp.label = new Label() : tmp.label).pre = next;
+            next += step;
+            if (tmp.countDescendants > 0) {
+                tmp = tmp.descendants[0];
+                continue;
+            }
+            for (; ; tmp = tmp.predecessor) {
+                tmp.label.post = next;
+                next += step;
+                if (tmp == this) {
+                    return next;
+                }
+                if (tmp.nextSibling != null && tmp.nextSibling.predecessor == tmp.predecessor) {
+                    break;
+                }
+            }
+            tmp = tmp.nextSibling;
+        }
+    }
+
+    /**
+     * Labels the direct descendants in the given range and their descendants, provided that this node is labeled.
+     * <p/>
+     * The nodes are labeled within the gap between the labels of the surrounding nodes if it is wide enough. Otherwise, the (sub-)tree having this node or the closest of its predecessors as its root is relabeled, provided that it leaves a distance between consecutive labels of at least {@link #LABEL_GAP} halved once per depth level climbed, and at least 2. The whole tree is relabeled if no such predecessor exists.
+     *
+     * @param from the position of the first direct descendant to be labeled.
+     * @param to   the position following the last direct descendant to be labeled.
+     */
+    private void labelDescendants(int from, int to) {
+        long count = 1;
+        for (int i = from; i < to; count += 2L * this.descendants[i++].countAll) ;
+        long low = from > 0 ? this.descendants[from - 1].label.post : this.label.pre, high = to < this.countDescendants ? this.descendants[to].label.pre : this.label.post, step = (high - low) / count;
+        if (step > 0) {
+            for (int i = from; i < to; low = this.descendants[i++].label(low + step, step) - step) ;
+            return;
+        }
+        for (Node<N> tmp = this; ; tmp = tmp.predecessor) {
+            step = (tmp.label.post - tmp.label.pre) / (2L * tmp.countAll - 1);
+            if (step >= LABEL_GAP >> Math.min(this.y - tmp.y, 15)) {
+                tmp.label(tmp.label.pre, step);
+                return;
+            }
+            if (tmp.predecessor == null) {
+                tmp.label(0, LABEL_GAP);
+                return;
+            }
+        }
     }
 
     /**
@@ -486,7 +952,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @return the descendant node at position 0 in the array of direct descendants, or null if this node has no descendants.
      */
     public Node<N> getFirstDescendant() {
-        return this.descendants.length == 0 ? null : this.descendants[0];
+        return this.countDescendants == 0 ? null : this.descendants[0];
     }
 
     /**
@@ -495,35 +961,47 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @return the descendant node at the last position in the array of direct descendants, or null if this node has no descendants.
      */
     public Node<N> getLastDescendant() {
-        return this.descendants.length == 0 ? null : this.descendants[this.descendants.length - 1];
+        return this.countDescendants == 0 ? null : this.descendants[this.countDescendants - 1];
     }
 
     /**
      * Gets the first sibling in the tree (at the current depth level.)
+     * <p/>
+     * The left-most node at each depth level is kept by the tree, hence this function runs in constant time.
      *
      * @return the left-most node in the tree at the current depth level.
      */
     public Node<N> getFirstSibling() {
-        for (Node<N> tmp = this.previousSibling; tmp != null; tmp = tmp.previousSibling) {
-            if (tmp.previousSibling == null) {
-                return tmp;
-            }
-        }
-        return this;
+        Levels<N> levels = this.levels();
+        return levels == null ? this : levels.heads[this.y];
     }
 
     /**
      * Gets the last sibling in the tree (at the current depth level.)
+     * <p/>
+     * The right-most node at each depth level is kept by the tree, hence this function runs in constant time.
      *
      * @return the right-most node in the tree at the current depth level.
      */
     public Node<N> getLastSibling() {
-        for (Node<N> tmp = this.nextSibling; tmp != null; tmp = tmp.nextSibling) {
-            if (tmp.nextSibling == null) {
-                return tmp;
-            }
+        Levels<N> levels = this.levels();
+        return levels == null ? this : levels.tails[this.y];
+    }
+
+    /**
+     * Gets the nodes of the tree to which this node belongs at the given depth level, from left to right.
+     * <p/>
+     * The returned collection is a view that reflects the later changes to the tree to which this node belongs, and cannot be modified. Its size is kept by the tree, hence {@link Collection#size()} runs in constant time.
+     *
+     * @param y the depth level, 0 being the depth level of the root node.
+     * @return the nodes of the tree at the given depth level.
+     * @throws IndexOutOfBoundsException if the given depth level is negative.
+     */
+    public Collection<Node<N>> getLevel(int y) {
+        if (y < 0) {
+            throw new IndexOutOfBoundsException(String.valueOf(y));
         }
-        return this;
+        return new LevelView<>(this, y);
     }
 
     /**
@@ -533,7 +1011,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getFirstNextDescendant() {
         for (Node<N> tmp = this.nextSibling; tmp != null; tmp = tmp.nextSibling) {
-            if (tmp.descendants.length > 0) {
+            if (tmp.countDescendants > 0) {
                 return tmp.descendants[0];
             }
         }
@@ -547,8 +1025,8 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getLastPreviousDescendant() {
         for (Node<N> tmp = this.previousSibling; tmp != null; tmp = tmp.previousSibling) {
-            if (tmp.descendants.length > 0) {
-                return tmp.descendants[tmp.descendants.length - 1];
+            if (tmp.countDescendants > 0) {
+                return tmp.descendants[tmp.countDescendants - 1];
             }
         }
         return null;
@@ -591,7 +1069,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getInmostLeft() {
         Node<N> tmp = this;
-        for (; tmp.descendants.length > 0; tmp = tmp.descendants[0]) ;
+        for (; tmp.countDescendants > 0; tmp = tmp.descendants[0]) ;
         return tmp;
     }
 
@@ -604,7 +1082,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getInmostRight() {
         Node<N> tmp = this;
-        for (; tmp.descendants.length > 0; tmp = tmp.descendants[tmp.descendants.length - 1]) ;
+        for (; tmp.countDescendants > 0; tmp = tmp.descendants[tmp.countDescendants - 1]) ;
         return tmp;
     }
 
@@ -622,12 +1100,21 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
     /**
      * Gets the breadth of the (sub-)tree having this node as its root.
      * <p/>
-     * This function returns the difference between the right-most node's abscissa and this node's abscissa plus one.
+     * This function returns the difference between the right-most node's abscissa and this node's abscissa plus one, which is the number of nodes having no descendants in the (sub-)tree having this node as its root.
      *
      * @return the breadth of the (sub-)tree having this node as its root.
      */
     public int getBreadth() {
-        return this.getInmostRight().x - x + 1;
+        return this.breadth;
+    }
+
+    /**
+     * Gets the height of the (sub-)tree having this node as its root.
+     *
+     * @return the number of depth levels below this node, 0 if this node has no descendants.
+     */
+    public int getHeight() {
+        return this.height;
     }
 
     /**
@@ -649,19 +1136,18 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * This function performs the given operations:
      * <ul>
      *     <li>Detach the given node before appending the node to the array of direct descendants.</li>
-     *     <li>Update the sizes of this node and its predecessors.</li>
-     *     <li>Update the abscissas of:
+     *     <li>Update the sizes and breadths of this node and its predecessors.</li>
+     *     <li>Update the relative abscissas of:
      *     <ol>
      *         <li>The given node.</li>
-     *         <li>Descendant nodes of the given node.</li>
-     *         <li>The siblings to right of this node.</li>
-     *         <li>Descendants of the siblings to the right of this node.</li>
+     *         <li>The siblings to the right of this node and its predecessors having the same predecessor.</li>
      *     </ol>
      *     </li>
      *     <li>Update the ordinates of the given node and its descendants.</li>
      *     <li>Update the preferred traversal algorithm of the given node and its descendants.</li>
      *     <li>Update next/previous sibling and predecessor connections.</li>
      * </ul>
+     * This function calls {@link #addAll(int, Node[])}, which detaches the given node.
      *
      * @param descendant the node to be appended to the list of direct descendants.
      * @return true.
@@ -675,34 +1161,163 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
         if (descendant == this) {
             throw new IllegalArgumentException();
         }
-        descendant.detach();
-        int breadth = this.descendants.length > 0 ? descendant.getBreadth() : (breadth = descendant.getBreadth()) > 1 ? breadth - 1 : 0, dx = this.descendants.length == 0 ? this.x : getBreadth() + this.x;
-        {
-            Node[] tmp = new Node[this.descendants.length + 1];
-            int i = 0;
-            for (; i < this.descendants.length; tmp[i] = this.descendants[i++]) ;
-            ((tmp[i] = descendant).predecessor = this).descendants = tmp;
+        return this.addAll(this.countDescendants - (descendant.predecessor == this ? 1 : 0), descendant);
+    }
+
+    /**
+     * Inserts the given nodes into the array of direct descendants starting at the specified position.
+     * <p/>
+     * This function calls {@link #addAll(int, Node[])}.
+     *
+     * @param index       the position in the array of direct descendants at which the first of the given nodes is inserted, once the given nodes are detached.
+     * @param descendants the nodes to be inserted into the array of direct descendants.
+     * @return true.
+     * @throws NullPointerException      if the given collection or one of its nodes is null.
+     * @throws IllegalArgumentException  if one of the given nodes is the same as this node, or if a node is given more than once.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean addAll(int index, Collection<? extends Node<N>> descendants) {
+        return this.addAll(index, (Node<N>[]) Objects.requireNonNull(descendants).toArray(new Node<?>[0]));
+    }
+
+    /**
+     * Inserts the given nodes into the array of direct descendants starting at the specified position.
+     * <p/>
+     * This function performs the same operations as {@link #add(Node)}, but it updates the sizes, breadths and relative abscissas of this node, its predecessors and their siblings once for all the given nodes, and walks each depth level of the inserted (sub-)trees once to update their ordinates and preferred traversal algorithm and to connect them to each other and to the tree to which this node belongs:
+     * <ul>
+     *     <li>Detach the given nodes.</li>
+     *     <li>Insert the given nodes into the array of direct descendants.</li>
+     *     <li>Update the sizes, breadths and heights of this node and its predecessors.</li>
+     *     <li>Update the relative abscissas of:
+     *     <ol>
+     *         <li>The given nodes.</li>
+     *         <li>The direct descendants following the given nodes.</li>
+     *         <li>The siblings to the right of this node and its predecessors having the same predecessor.</li>
+     *     </ol>
+     *     </li>
+     *     <li>Update the ordinates of the given nodes and their descendants.</li>
+     *     <li>Update the preferred traversal algorithm of the given nodes and their descendants.</li>
+     *     <li>Update next/previous sibling and predecessor connections. The nodes of the tree adjacent to the inserted nodes at each depth level are found by {@link #lastLeft(Node, int, Node, int, int, Levels)}, which only explores the direct descendants of the nodes on the paths from the adjacent nodes at the previous depth level to the root node and of the (sub-)trees reaching the depth level, rather than the whole depth level.</li>
+     *     <li>Index the given nodes and their descendants if the tree to which this node belongs is indexed.</li>
+     *     <li>Label the given nodes and their descendants if the tree to which this node belongs is labeled, or drop their labels otherwise.</li>
+     * </ul>
+     *
+     * @param index       the position in the array of direct descendants at which the first of the given nodes is inserted, once the given nodes are detached.
+     * @param descendants the nodes to be inserted into the array of direct descendants.
+     * @return true.
+     * @throws NullPointerException      if the given array or one of its nodes is null.
+     * @throws IllegalArgumentException  if one of the given nodes is the same as this node, or if a node is given more than once.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    @SafeVarargs
+    @SuppressWarnings({"unchecked", "varargs"})
+    public final boolean addAll(int index, Node<N>... descendants) {
+        int count = this.countDescendants, countAll = 0, breadth = 0;
+        Set<Node<N>> distinct = Objects.requireNonNull(descendants).length > 1 ? Collections.newSetFromMap(new IdentityHashMap<>(descendants.length)) : null;
+        for (Node<N> tmp : descendants) {
+            if (tmp == null) {
+                throw new NullPointerException();
+            }
+            if (tmp == this || (distinct != null && !distinct.add(tmp))) {
+                throw new IllegalArgumentException();
+            }
+            if (tmp.predecessor == this) {
+                count--;
+            }
+        }
+        if (index < 0 || index > count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        if (descendants.length == 0) {
+            return true;
         }
-        for (Node<N> next = breadth > 0 ? descendant.nextSibling : null; next != null; next.x += breadth, next = next.nextSibling) ;
-        for (Node<N> tmp = descendant.predecessor; tmp != null; tmp.countAll += descendant.countAll, tmp = tmp.predecessor) {
-            for (Node<N> next = breadth > 0 ? tmp.nextSibling : null; next != null; next.x += breadth, next = next.nextSibling) ;
+        if (this.tree.journal != null) {
+            this.tree.journal.add(this, index, descendants);
         }
-        for (Node<N> leftMost = descendant, rightMost = leftMost, nextLeftMost = leftMost.descendants.length == 0 ? null : leftMost.descendants[0], nextRightMost = rightMost.descendants.length == 0 ? null : rightMost.descendants[rightMost.descendants.length - 1], lastLeft = this.descendants.length > 1 ? this.descendants[this.descendants.length - 2] : this.getLastPreviousDescendant(), firstRight = this.getFirstNextDescendant(); leftMost != null || firstRight != null || lastLeft != null; lastLeft = lastLeft == null ? null : lastLeft.descendants.length > 0 ? lastLeft.descendants[lastLeft.descendants.length - 1] : lastLeft.getLastPreviousDescendant(), firstRight = firstRight == null ? null : firstRight.descendants.length > 0 ? firstRight.descendants[0] : firstRight.getFirstNextDescendant()) {
-            for (Node<N> tmp = leftMost; tmp != null && tmp.previousSibling != rightMost; tmp.x += dx, tmp.y = tmp.predecessor.y + 1, tmp.traversalAlgorithm = tmp.predecessor.traversalAlgorithm, tmp = tmp.nextSibling) ;
-            for (Node<N> tmp = breadth > 0 ? firstRight : null; tmp != null; tmp.x += breadth, tmp = tmp.nextSibling) ;
-            if (leftMost != null && lastLeft != null) {
-                (leftMost.previousSibling = lastLeft).nextSibling = leftMost;
+        for (Node<N> tmp : descendants) {
+            tmp.detach(tmp.tree != this.tree);
+        }
+        this.invalidateHash();
+        this.modify();
+        Aggregate<?, ?>[] aggregates = this.tree.aggregates;
+        for (Node<N> tmp : descendants) {
+            if (aggregates != null && tmp.tree.aggregates != aggregates) {
+                tmp.aggregateAll(aggregates, 0);
             }
-            if (rightMost != null && firstRight != null) {
-                (rightMost.nextSibling = firstRight).previousSibling = rightMost;
+            tmp.predecessor = this;
+            countAll += tmp.countAll;
+            breadth += tmp.breadth;
+        }
+        {
+            int k = descendants.length, x = index == 0 ? 0 : this.descendants[index - 1].x + this.descendants[index - 1].breadth;
+            this.ensureCapacity(this.countDescendants + k);
+            System.arraycopy(this.descendants, index, this.descendants, index + k, this.countDescendants - index);
+            for (int i = 0; i < k; (this.descendants[index + i] = descendants[i]).x = x, x += descendants[i++].breadth) ;
+            for (int i = index + k; i < this.countDescendants + k; this.descendants[i++].x += breadth) ;
+            breadth -= this.countDescendants == 0 ? 1 : 0;
+            this.countDescendants += k;
+        }
+        for (Node<N> tmp = this; tmp != null; tmp.countAll += countAll, tmp.breadth += breadth, tmp = tmp.predecessor) {
+            tmp.shiftNextSiblings(breadth);
+        }
+        for (Node<N> tmp : descendants) {
+            this.updateHeight(-1, tmp.height + 1);
+        }
+        ElementIndex<N> elements = this.tree.elementIndex;
+        Levels<N> levels = this.levels();
+        if (levels == null) {
+            this.tree.levels = levels = new Levels<>();
+            levels.add(0, this, this, 1);
+        }
+        Node<N>[] leftMost = descendants.clone(), rightMost = descendants.clone();
+        int y = this.y + 1, count1 = descendants.length;
+        for (Node<N> lastLeft = lastLeft(this, index - 1, this, index + descendants.length, y, levels), firstRight; count1 > 0; y++) {
+            firstRight = lastLeft != null ? lastLeft.nextSibling : y < levels.height ? levels.heads[y] : null;
+            Node<N> previous = lastLeft, first = leftMost[0];
+            int count2 = 0, width = 0;
+            for (int i = 0; i < count1; i++) {
+                Node<N> left = leftMost[i], right = rightMost[i], nextLeft = left.countDescendants > 0 ? left.descendants[0] : left.getFirstNextDescendant();
+                if (nextLeft != null) {
+                    leftMost[count2] = nextLeft;
+                    rightMost[count2++] = right.countDescendants > 0 ? right.descendants[right.countDescendants - 1] : right.getLastPreviousDescendant();
+                }
+                for (Node<N> tmp = left; ; tmp = tmp.nextSibling) {
+                    width++;
+                    tmp.y = y;
+                    tmp.tree = this.tree;
+                    if (this.label == null) {
+                        tmp.label = null;
+                    }
+                    if (aggregates == null) {
+                        tmp.aggregates = null;
+                    }
+                    if (elements != null) {
+                        elements.add(tmp);
+                    }
+                    if (tmp == right) {
+                        break;
+                    }
+                }
+                if ((left.previousSibling = previous) != null) {
+                    previous.nextSibling = left;
+                }
+                previous = right;
             }
-            if ((leftMost = nextLeftMost) != null) {
-                nextLeftMost = leftMost.descendants.length == 0 ? leftMost.getFirstNextDescendant() : leftMost.descendants[0];
+            if ((previous.nextSibling = firstRight) != null) {
+                firstRight.previousSibling = previous;
             }
-            if ((rightMost = nextRightMost) != null) {
-                nextRightMost = rightMost.descendants.length == 0 ? rightMost.getLastPreviousDescendant() : rightMost.descendants[rightMost.descendants.length - 1];
+            levels.add(y, first, previous, width);
+            if ((count1 = count2) > 0) {
+                lastLeft = lastLeft(lastLeft, lastLeft == null ? -1 : lastLeft.countDescendants - 1, firstRight, 0, y + 1, levels);
             }
         }
+        if (this.label != null) {
+            this.labelDescendants(index, index + descendants.length);
+        }
+        if (aggregates != null) {
+            this.aggregateInserted(index, index + descendants.length, aggregates);
+        }
         return true;
     }
 
@@ -711,52 +1326,260 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * <p/>
      * This function performs the given operations:
      * <ul>
-     *     <li>Update the sizes of this node's predecessors.</li>
+     *     <li>Update the sizes, breadths and heights of this node's predecessors.</li>
      *     <li>Remove this node from the array of direct descendants of this node's predecessor.</li>
      *     <li>Reset the predecessor of this node.</li>
-     *     <li>Update the abscissas of:
+     *     <li>Update the relative abscissas of:
      *     <ol>
      *         <li>This node.</li>
-     *         <li>Descendant nodes of this node.</li>
-     *         <li>The siblings to the right of this node.</li>
-     *         <li>Descendants of the siblings to the right of this node.</li>
+     *         <li>The siblings to the right of this node and its predecessors having the same predecessor.</li>
      *     </ol>
      *     </li>
      *     <li>Update the ordinates of this node and its descendants.</li>
-     *     <li>Update next/previous sibling connections.</li>
+     *     <li>Update next/previous sibling connections. The nodes of the tree adjacent to this node and its descendants at each depth level are still connected to them, hence are found in constant time.</li>
+     *     <li>Move this node and its descendants to an index of their own if the tree is indexed.</li>
      * </ul>
      */
-    @SuppressWarnings("unchecked")
     public void detach() {
+        this.detach(true);
+    }
+
+    /**
+     * Detaches this node from the tree to which this node belongs. See {@link #detach()}.
+     *
+     * @param journal true to record the detachment in the journal of the tree if any, false if it is recorded as part of a move by {@link #addAll(int, Node[])}.
+     */
+    private void detach(boolean journal) {
         if (this.predecessor == null) {
             return;
         }
-        int breadth = this.predecessor.descendants.length > 1 ? this.getBreadth() : (breadth = this.getBreadth()) > 1 ? breadth - 1 : 0, dx = this.x, dy = this.y;
+        if (journal && this.tree.journal != null) {
+            this.tree.journal.detach(this);
+        }
+        this.predecessor.invalidateHash();
+        Node<N> predecessor = this.predecessor;
+        int breadth = this.predecessor.countDescendants > 1 ? this.breadth : this.breadth - 1, dy = this.y;
         {
-            Node[] tmp = new Node[this.predecessor.descendants.length - 1];
-            for (int i = 0, j = 0; i < this.predecessor.descendants.length && i + 1 < this.predecessor.descendants.length; tmp[j++] = this.predecessor.descendants[i] == this ? this.predecessor.descendants[++i] : this.predecessor.descendants[i++]) ;
-            this.predecessor.descendants = tmp;
+            Node<N>[] tmp = this.predecessor.descendants;
+            int i = this.predecessor.countDescendants - 1;
+            for (; tmp[i] != this; tmp[i--].x -= this.breadth) ;
+            System.arraycopy(tmp, i + 1, tmp, i, this.predecessor.countDescendants - i - 1);
+            tmp[--this.predecessor.countDescendants] = null;
         }
-        for (Node<N> tmp = this.predecessor; tmp != null; tmp.countAll -= this.countAll, tmp = tmp.predecessor) {
-            for (Node<N> next = breadth > 0 ? tmp.nextSibling : null; next != null; next.x -= breadth, next = next.nextSibling) ;
+        for (Node<N> tmp = this.predecessor; tmp != null; tmp.countAll -= this.countAll, tmp.breadth -= breadth, tmp = tmp.predecessor) {
+            tmp.shiftNextSiblings(-breadth);
         }
-        ObjectReference<TraversalAlgorithm> newTraversalAlgorithm = new ObjectReference<>(this.traversalAlgorithm.getObject());
+        predecessor.updateHeight(this.height + 1, -1);
+        predecessor.modify();
+        Levels<N> levels = this.levels(), newLevels = this.countAll > 1 ? new Levels<>() : null;
+        Tree<N> newTree = new Tree<>(this.tree.traversalAlgorithm);
+        newTree.levels = newLevels;
+        newTree.aggregates = this.tree.aggregates;
+        ElementIndex<N> index = this.tree.elementIndex, newIndex = newTree.elementIndex = index == null ? null : new ElementIndex<>();
         this.predecessor = null;
-        for (Node<N> leftMost = this, rightMost = this, lastLeft = this.previousSibling, firstRight = this.nextSibling; lastLeft != null || firstRight != null || leftMost != null; leftMost = leftMost == null ? null : leftMost.descendants.length > 0 ? leftMost.descendants[0] : leftMost.getFirstNextDescendant(), rightMost = rightMost == null ? null : rightMost.descendants.length > 0 ? rightMost.descendants[rightMost.descendants.length - 1] : rightMost.getLastPreviousDescendant(), firstRight = firstRight == null ? null : firstRight.descendants.length > 0 ? firstRight.descendants[0] : firstRight.getFirstNextDescendant(), lastLeft = lastLeft == null ? null : lastLeft.descendants.length > 0 ? lastLeft.descendants[lastLeft.descendants.length - 1] : lastLeft.getLastPreviousDescendant()) {
-            if (rightMost != null) {
-                rightMost.nextSibling = null;
-            }
-            if (leftMost != null) {
-                leftMost.previousSibling = null;
-            }
+        this.x = 0;
+        for (Node<N> leftMost = this, rightMost = this; leftMost != null; leftMost = leftMost.countDescendants > 0 ? leftMost.descendants[0] : leftMost.getFirstNextDescendant(), rightMost = rightMost.countDescendants > 0 ? rightMost.descendants[rightMost.countDescendants - 1] : rightMost.getLastPreviousDescendant()) {
+            Node<N> lastLeft = leftMost.previousSibling, firstRight = rightMost.nextSibling;
+            rightMost.nextSibling = null;
+            leftMost.previousSibling = null;
             if (firstRight != null) {
                 firstRight.previousSibling = lastLeft;
             }
             if (lastLeft != null) {
                 lastLeft.nextSibling = firstRight;
             }
-            for (Node<N> tmp = leftMost; tmp != null; tmp.x -= dx, tmp.traversalAlgorithm = newTraversalAlgorithm, tmp.y -= dy, tmp = tmp.nextSibling) ;
-            for (Node<N> tmp = breadth > 0 ? firstRight : null; tmp != null; tmp.x -= breadth, tmp = tmp.nextSibling) ;
+            int y = leftMost.y, width = 0;
+            for (Node<N> tmp = leftMost; tmp != null; tmp.tree = newTree, tmp.y -= dy, width++, tmp = tmp.nextSibling) {
+                if (index != null) {
+                    index.remove(tmp);
+                    newIndex.add(tmp);
+                }
+            }
+            levels.remove(y, lastLeft, firstRight, width);
+            if (newLevels != null) {
+                newLevels.add(y - dy, leftMost, rightMost, width);
+            }
+        }
+        Aggregate<?, ?>[] aggregates = newTree.aggregates;
+        for (Node<N> tmp = aggregates == null ? null : predecessor; tmp != null; tmp.aggregate(aggregates, 0), tmp = tmp.predecessor) ;
+    }
+
+    /**
+     * Invalidates the cached hashes of this node and its predecessors, stopping at the first node whose cached hash is already invalid.
+     */
+    private void invalidateHash() {
+        for (Node<N> tmp = this; tmp != null && tmp.hashed; tmp.hashed = false, tmp = tmp.predecessor) ;
+    }
+
+    /**
+     * Shifts the relative abscissas of the siblings to the right of this node having the same predecessor as this node.
+     *
+     * @param dx the difference to be added to the relative abscissas.
+     */
+    private void shiftNextSiblings(int dx) {
+        for (Node<N> next = dx != 0 && this.predecessor != null ? this.nextSibling : null; next != null && next.predecessor == this.predecessor; next.x += dx, next = next.nextSibling) ;
+    }
+
+    /**
+     * Updates the heights of this node and its predecessors once a direct descendant of this node is inserted, removed, or has its height changed.
+     *
+     * @param from the height of the direct descendant plus one before the change, or -1 if the direct descendant is inserted.
+     * @param to   the height of the direct descendant plus one after the change, or -1 if the direct descendant is removed.
+     */
+    private void updateHeight(int from, int to) {
+        for (Node<N> tmp = this; tmp != null; tmp = tmp.predecessor) {
+            int height = tmp.height;
+            if (to > height) {
+                tmp.height = to;
+                tmp.countHighest = 1;
+            } else {
+                if (to == height) {
+                    tmp.countHighest++;
+                }
+                if (from == height && --tmp.countHighest == 0) {
+                    tmp.height = 0;
+                    for (int i = 0; i < tmp.countDescendants; tmp.addHeight(tmp.descendants[i++].height + 1)) ;
+                }
+            }
+            if (tmp.height == height) {
+                return;
+            }
+            from = height + 1;
+            to = tmp.height + 1;
+        }
+    }
+
+    /**
+     * Accounts for a direct descendant in the height of this node, without updating the predecessors.
+     *
+     * @param height the height of the direct descendant plus one.
+     */
+    private void addHeight(int height) {
+        if (height > this.height) {
+            this.height = height;
+            this.countHighest = 1;
+        } else if (height == this.height) {
+            this.countHighest++;
+        }
+    }
+
+    /**
+     * Gets the position of this node in the array of direct descendants of its predecessor, using a binary search over the relative abscissas, which increase along the array.
+     *
+     * @return the position of this node in the array of direct descendants of its predecessor.
+     */
+    private int indexInPredecessor() {
+        Node<N>[] tmp = this.predecessor.descendants;
+        int low = 0, high = this.predecessor.countDescendants - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tmp[mid].x < this.x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the right-most node at the given depth level to the left of a gap in that depth level, the left-most node to the right of the gap being the next sibling of the returned node.
+     * <p/>
+     * The gap is given by a search to the left, which starts at a direct descendant of a node to the left of the gap and then climbs its predecessors, and a search to the right defined alike. Both searches only descend into the (sub-)trees reaching the given depth level according to their heights, and are run one step at a time in turn until either of them ends, as the adjacent node on the other side of the gap follows from the connections of the depth level or, if the search ends without finding a node, from the directory of the depth levels.
+     *
+     * @param left   the node whose direct descendants are searched to the left of the gap, or null if no node is to the left of the gap.
+     * @param i      the position in the array of direct descendants of the left node at which the search to the left starts.
+     * @param right  the node whose direct descendants are searched to the right of the gap, or null if no node is to the right of the gap.
+     * @param j      the position in the array of direct descendants of the right node at which the search to the right starts.
+     * @param y      the depth level.
+     * @param levels the directory of the depth levels of the tree.
+     * @param <N>    type of elements referenced by the nodes of the tree.
+     * @return the right-most node at the given depth level to the left of the gap, or null if there is none.
+     */
+    private static <N> Node<N> lastLeft(Node<N> left, int i, Node<N> right, int j, int y, Levels<N> levels) {
+        Neighbor<N> toLeft = new Neighbor<>(left, i, -1, y), toRight = new Neighbor<>(right, j, 1, y);
+        for (; ; ) {
+            if (toLeft.step()) {
+                return toLeft.found;
+            }
+            if (toRight.step()) {
+                return toRight.found != null ? toRight.found.previousSibling : y < levels.height ? levels.tails[y] : null;
+            }
+        }
+    }
+
+    /**
+     * A search for the node closest to a gap at a given depth level on one side of the gap, run one step at a time by {@link #lastLeft(Node, int, Node, int, int, Levels)}.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static final class Neighbor<N> {
+        /**
+         * The depth level of the searched node.
+         */
+        private final int y;
+        /**
+         * The direction of the search, -1 to the left, 1 to the right.
+         */
+        private final int direction;
+        /**
+         * The node whose direct descendants are being searched, or null once the search is over.
+         */
+        private Node<N> node;
+        /**
+         * The position of the next direct descendant to be checked.
+         */
+        private int i;
+        /**
+         * The node found by the search, or null.
+         */
+        private Node<N> found;
+
+        /**
+         * Creates a search given the node whose direct descendants are searched first.
+         *
+         * @param node the node whose direct descendants are searched first, or null if there is no node to be found.
+         * @param i    the position of the first direct descendant to be checked.
+         * @param step the direction of the search, -1 to the left, 1 to the right.
+         * @param y    the depth level of the searched node.
+         */
+        private Neighbor(Node<N> node, int i, int step, int y) {
+            this.node = node;
+            this.i = i;
+            this.direction = step;
+            this.y = y;
+        }
+
+        /**
+         * Checks the next direct descendant, descending into it if its (sub-)tree reaches the searched depth level, or climbs to the predecessor once the direct descendants are exhausted.
+         *
+         * @return true if the search is over, false otherwise.
+         */
+        private boolean step() {
+            if (this.node == null) {
+                return true;
+            }
+            if (this.i >= 0 && this.i < this.node.countDescendants) {
+                Node<N> tmp = this.node.descendants[this.i];
+                if (tmp.y + tmp.height < this.y) {
+                    this.i += this.direction;
+                } else if (tmp.y == this.y) {
+                    this.found = tmp;
+                    this.node = null;
+                    return true;
+                } else {
+                    this.node = tmp;
+                    this.i = this.direction > 0 ? 0 : tmp.countDescendants - 1;
+                }
+                return false;
+            }
+            if (this.node.predecessor == null) {
+                this.node = null;
+                return true;
+            }
+            this.i = this.node.indexInPredecessor() + this.direction;
+            this.node = this.node.predecessor;
+            return false;
         }
     }
 
@@ -773,13 +1596,22 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
     /**
      * Tells whether the given object is referenced by this node or one of its descendants.
      * <p/>
-     * This function iterates over the nodes of the (sub-)tree having this node as its root using the preferred traversal algorithm for the tree to which this node belongs.
+     * This function looks the given object up in the index if the tree to which this node belongs is indexed, otherwise, it iterates over the nodes of the (sub-)tree having this node as its root using the preferred traversal algorithm for the tree to which this node belongs.
      *
      * @param o object whose presence is to be tested in the (sub-)tree having this node as its root.
      * @return true if the given object is referenced by this node or one of its descendants, false otherwise.
      */
     @Override
     public boolean contains(Object o) {
+        ElementIndex<N> index = this.tree.elementIndex;
+        if (index != null) {
+            for (Node<N> tmp : index.get(o)) {
+                if (tmp.isDescendantOf(this)) {
+                    return true;
+                }
+            }
+            return false;
+        }
         Iterator<N> it = iterator();
         if (o == null) {
             while (it.hasNext())
@@ -802,7 +1634,19 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     @Override
     public Iterator<N> iterator() {
-        return new NodeIterator<>(this, this.traversalAlgorithm.object);
+        return this.tree.traversalAlgorithm.iterator(this);
+    }
+
+    /**
+     * Returns a spliterator over the objects referenced by the nodes of the (sub-)tree having this node as its root.
+     * <p/>
+     * This function returns a spliterator dedicated to the preferred traversal algorithm for the tree to which this node belongs. The returned spliterator reports {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}, and splits the (sub-)tree into parts of about the same size, which makes {@link #parallelStream()} effective.
+     *
+     * @return a spliterator over the objects referenced by the nodes of the (sub-)tree having this node as its root.
+     */
+    @Override
+    public Spliterator<N> spliterator() {
+        return this.tree.traversalAlgorithm.spliterator(this);
     }
 
     /**
@@ -836,24 +1680,38 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * Removes all nodes referencing the given object from (sub-)tree having this node as its root.
      * <p/>
      * This function traverses the nodes of the (sub-)tree having this node as its root using an object of type {@link NodeIterator} which applies the preferred traversal algorithm. Nodes referencing objects in the given collection will be removed by calling {@link Node#detach()}.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index instead, and detached in order of depth, which gives the same result as the traversal. This node itself is never detached.
      *
      * @param o the referenced object.
-     * @return if at least one node was removed as a result of a call to this function.
+     * @return if at least one node was removed as a result of a call to this function, which is not the case if this node is the only one referencing the given object.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean remove(Object o) {
-        boolean flag = false;
+        ElementIndex<N> index = this.tree.elementIndex;
+        int count = this.countAll;
+        if (index != null) {
+            Node<N>[] nodes = index.get(o).stream().filter(e -> e != this && e.isDescendantOf(this)).sorted(Comparator.comparingInt(e -> e.y)).toArray(Node[]::new);
+            for (Node<N> tmp : nodes) {
+                if (tmp.isDescendantOf(this)) {
+                    tmp.detach();
+                }
+            }
+            return this.countAll != count;
+        }
         for (Iterator<N> iterator = iterator(); iterator.hasNext(); ) {
             if (Objects.equals(iterator.next(), o)) {
                 iterator.remove();
-                flag = true;
             }
         }
-        return flag;
+        return this.countAll != count;
     }
 
     /**
      * Returns true if all the objects in the given collection are referenced by nodes in the (sub-)tree having this node as its root.
+     * <p/>
+     * This function calls {@link #contains(Object)} for each object in the given collection, which is a hash lookup if the tree to which this node belongs is indexed.
      *
      * @param c collection of objects to be checked.
      * @return if all the objects in the given collection are referenced by nodes in the (sub-)tree having this node as its root.
@@ -872,16 +1730,16 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
     /**
      * Appends nodes referencing the objects in the given collection to the array of direct descendants.
      * <p/>
-     * This function calls {@link Node#add(Node)} for each object in the given collection.
+     * This function creates a node for each object in the given collection and calls {@link Node#addAll(int, Node[])} once for all the created nodes.
      *
      * @param c collection of objects to be referenced by direct descendant nodes.
      * @return true.
      * @throws NullPointerException if the given collection is null.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean addAll(Collection<? extends N> c) {
-        Objects.requireNonNull(c).forEach(e -> this.add(e));
-        return true;
+        return this.addAll(this.countDescendants, Objects.requireNonNull(c).stream().map(e -> new Node<N>(e)).<Node<N>>toArray(e -> (Node<N>[]) new Node<?>[e]));
     }
 
     /**
@@ -931,11 +1789,101 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     @Override
     public void clear() {
-        for (Node<N> descendant : this.descendants) {
-            descendant.detach();
+        while (this.countDescendants > 0) {
+            this.descendants[this.countDescendants - 1].detach();
         }
     }
 
+    /**
+     * Increases the capacity of the array of direct descendants, if necessary, to hold at least the given number of direct descendants without reallocating.
+     * <p/>
+     * The capacity grows by doubling, which makes appending direct descendants one by one an amortized constant time operation.
+     *
+     * @param minCapacity the desired minimum capacity.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > this.descendants.length) {
+            this.descendants = Arrays.copyOf(this.descendants, Math.max(minCapacity, this.descendants.length < 2 ? 2 : this.descendants.length << 1));
+        }
+    }
+
+    /**
+     * Trims the capacity of the arrays of direct descendants of this node and its descendants to the number of direct descendants.
+     * <p/>
+     * This function can be used to minimize the memory footprint of a tree once it is no longer expected to grow.
+     */
+    @SuppressWarnings("unchecked")
+    public void trimToSize() {
+        for (Deque<Node<N>> stack = new ArrayDeque<>(Collections.singleton(this)); !stack.isEmpty(); ) {
+            Node<N> tmp = stack.pop();
+            if (tmp.countDescendants < tmp.descendants.length) {
+                tmp.descendants = tmp.countDescendants == 0 ? (Node<N>[]) EMPTY_DESCENDANTS : Arrays.copyOf(tmp.descendants, tmp.countDescendants);
+            }
+            for (int i = 0; i < tmp.countDescendants; stack.push(tmp.descendants[i++])) ;
+        }
+    }
+
+    /**
+     * Creates a frozen, read-only copy of the (sub-)tree having this node as its root.
+     * <p/>
+     * This function calls {@link CompactTree#CompactTree(Node)}.
+     *
+     * @return a compact tree holding a copy of the (sub-)tree having this node as its root.
+     */
+    public CompactTree<N> compact() {
+        return new CompactTree<>(this);
+    }
+
+    /**
+     * Creates a frozen, read-only copy of the (sub-)tree having this node as its root, holding <code>int</code> values translated from the objects referenced by the nodes by the given function.
+     * <p/>
+     * This function calls {@link IntCompactTree#IntCompactTree(Node, ToIntFunction)}.
+     *
+     * @param mapper the function translating the objects referenced by the nodes to values.
+     * @return a compact tree holding a copy of the (sub-)tree having this node as its root.
+     * @throws NullPointerException if the given function is null.
+     */
+    public IntCompactTree compactToInt(ToIntFunction<? super N> mapper) {
+        return new IntCompactTree(this, mapper);
+    }
+
+    /**
+     * Creates a frozen, read-only copy of the (sub-)tree having this node as its root, holding <code>long</code> values translated from the objects referenced by the nodes by the given function.
+     * <p/>
+     * This function calls {@link LongCompactTree#LongCompactTree(Node, ToLongFunction)}.
+     *
+     * @param mapper the function translating the objects referenced by the nodes to values.
+     * @return a compact tree holding a copy of the (sub-)tree having this node as its root.
+     * @throws NullPointerException if the given function is null.
+     */
+    public LongCompactTree compactToLong(ToLongFunction<? super N> mapper) {
+        return new LongCompactTree(this, mapper);
+    }
+
+    /**
+     * Creates a frozen, read-only copy of the (sub-)tree having this node as its root, holding <code>double</code> values translated from the objects referenced by the nodes by the given function.
+     * <p/>
+     * This function calls {@link DoubleCompactTree#DoubleCompactTree(Node, ToDoubleFunction)}.
+     *
+     * @param mapper the function translating the objects referenced by the nodes to values.
+     * @return a compact tree holding a copy of the (sub-)tree having this node as its root.
+     * @throws NullPointerException if the given function is null.
+     */
+    public DoubleCompactTree compactToDouble(ToDoubleFunction<? super N> mapper) {
+        return new DoubleCompactTree(this, mapper);
+    }
+
+    /**
+     * Creates an immutable, persistent copy of the (sub-)tree having this node as its root.
+     * <p/>
+     * The copy costs a single walk over the (sub-)tree, after which readers traverse the copy without synchronization while new versions are derived from it by path copying, see {@link PersistentNode}.
+     *
+     * @return the root node of the persistent copy of the (sub-)tree having this node as its root.
+     */
+    public PersistentNode<N> snapshot() {
+        return PersistentNode.copyOf(this);
+    }
+
     /*
      * Traversal.
      */
@@ -948,8 +1896,8 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
         if (this.nextSibling != null) {
             return this.nextSibling;
         }
-        Node<N> tmp = this.getFirstSibling();
-        return tmp.descendants.length == 0 ? tmp.getFirstNextDescendant() : tmp.descendants[0];
+        Levels<N> levels = this.levels();
+        return levels == null || this.y + 1 >= levels.height ? null : levels.heads[this.y + 1];
     }
 
     /**
@@ -961,8 +1909,8 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
         if (this.previousSibling != null) {
             return this.previousSibling;
         }
-        Node<N> tmp = this.getLastSibling();
-        return tmp.descendants.length == 0 ? tmp.getLastPreviousDescendant() : tmp.descendants[tmp.descendants.length - 1];
+        Levels<N> levels = this.levels();
+        return levels == null || this.y + 1 >= levels.height ? null : levels.tails[this.y + 1];
     }
 
     /**
@@ -971,7 +1919,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @return the next node in the tree in a depth-first left-to-right order of encounter, or null if this node is the last node in that order.
      */
     public Node<N> getDepthFirstLeftNext() {
-        return this.descendants.length == 0 ? this.nextSibling == null ? this.getFirstNextPredecessor() : this.nextSibling.predecessor == this.predecessor ? this.nextSibling : this.getFirstNextPredecessor() : this.descendants[0];
+        return this.countDescendants == 0 ? this.nextSibling == null ? this.getFirstNextPredecessor() : this.nextSibling.predecessor == this.predecessor ? this.nextSibling : this.getFirstNextPredecessor() : this.descendants[0];
     }
 
     /**
@@ -980,7 +1928,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @return the next node in the tree in a depth-first right-to-left order of encounter, or null if this node is the last node in that order.
      */
     public Node<N> getDepthFirstRightNext() {
-        return this.descendants.length == 0 ? this.previousSibling == null ? this.getLastPreviousPredecessor() : this.previousSibling.predecessor == this.predecessor ? this.previousSibling : this.getLastPreviousPredecessor() : this.descendants[this.descendants.length - 1];
+        return this.countDescendants == 0 ? this.previousSibling == null ? this.getLastPreviousPredecessor() : this.previousSibling.predecessor == this.predecessor ? this.previousSibling : this.getLastPreviousPredecessor() : this.descendants[this.countDescendants - 1];
     }
 
     /*
@@ -988,12 +1936,17 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     /**
      * Tells whether the given node belongs to the tree to which this node belongs.
+     * <p/>
+     * If the tree to which this node belongs is labeled, both nodes belong to the same tree if they share the same preferred traversal algorithm reference, which is shared by all the nodes of a tree and by these nodes only.
      *
      * @param element the node to be checked.
      * @return true if both nodes belong to same tree, false otherwise.
      * @throws NullPointerException if the given node is null.
      */
     public boolean containsNode(Node<N> element) {
+        if (this.label != null && Objects.requireNonNull(element).label != null) {
+            return this.tree == element.tree;
+        }
         Node<N> tmp1, tmp2;
         if (Objects.requireNonNull(element).y > y) {
             tmp1 = element;
@@ -1053,42 +2006,54 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
 
     /**
      * Returns the first encountered node that references the given object and follows this node in a breadth-first left-to-right order of encounter in the tree to which this node belongs.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @return the node referencing the given object following this node in a breadth-first left-to-right order of encounter in the tree.
      */
     public Node<N> findBreadthFirstLeftNext(N element) {
-        return this.findBreadthFirstLeftNext(e -> e.equals(element));
+        ElementIndex<N> index = this.tree.elementIndex;
+        return index == null ? this.findBreadthFirstLeftNext(e -> Objects.equals(e, element)) : index.findNext(element, this, null, TraversalAlgorithm.BREADTH_FIRST_LEFT);
     }
 
     /**
      * Returns the first encountered node that references the given object and follows this node in a breadth-first right-to-left order of encounter in the tree to which this node belongs.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @return the node referencing the given object following this node in a breadth-first right-to-left order of encounter in the tree.
      */
     public Node<N> findBreadthFirstRightNext(N element) {
-        return this.findBreadthFirstRightNext(e -> e.equals(element));
+        ElementIndex<N> index = this.tree.elementIndex;
+        return index == null ? this.findBreadthFirstRightNext(e -> Objects.equals(e, element)) : index.findNext(element, this, null, TraversalAlgorithm.BREADTH_FIRST_RIGHT);
     }
 
     /**
      * Returns the first encountered node that references the given object and follows this node in a depth-first left-to-right order of encounter in the tree to which this node belongs.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @return the node referencing the given object following this node in a depth-first left-to-right order of encounter in the tree.
      */
     public Node<N> findDepthFirstLeftNext(N element) {
-        return this.findDepthFirstLeftNext(e -> e.equals(element));
+        ElementIndex<N> index = this.tree.elementIndex;
+        return index == null ? this.findDepthFirstLeftNext(e -> Objects.equals(e, element)) : index.findNext(element, this, null, TraversalAlgorithm.DEPTH_FIRST_LEFT);
     }
 
     /**
      * Returns the first encountered node that references the given object and follows this node in a depth-first right-to-left order of encounter in the tree to which this node belongs.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @return the node referencing the given object following this node in a depth-first right-to-left order of encounter in the tree.
      */
     public Node<N> findDepthFirstRightNext(N element) {
-        return this.findDepthFirstRightNext(e -> e.equals(element));
+        ElementIndex<N> index = this.tree.elementIndex;
+        return index == null ? this.findDepthFirstRightNext(e -> Objects.equals(e, element)) : index.findNext(element, this, null, TraversalAlgorithm.DEPTH_FIRST_RIGHT);
     }
 
     /**
@@ -1206,11 +2171,15 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      *
      * @param root the node to be checked.
      * @return true if this node is a descendant of the given node or if the given node is null, false otherwise.
+     * @see #setLabeled(boolean)
      */
     public boolean isDescendantOf(Node<N> root) {
         if (root == null) {
             return true;
         }
+        if (this.label != null && root.label != null) {
+            return this.tree == root.tree && root.label.pre <= this.label.pre && this.label.post <= root.label.post;
+        }
         for (Node<N> tmp = this; tmp != null && tmp.y >= root.y; tmp = tmp.predecessor) {
             if (tmp == root) {
                 return true;
@@ -1240,12 +2209,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getFirstSibling(Node<N> root) {
         this.validateRoot(root);
-        for (Node<N> tmp = this; root.previousSibling == null || tmp.x > root.previousSibling.x; tmp = tmp.previousSibling) {
-            if ((root.previousSibling != null && tmp.previousSibling != null && tmp.previousSibling.x < root.x) || tmp.previousSibling == null) {
-                return tmp;
-            }
-        }
-        return this;
+        return this.firstSibling(root);
     }
 
     /**
@@ -1258,12 +2222,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getLastSibling(Node<N> root) {
         this.validateRoot(root);
-        for (Node<N> tmp = this; root.nextSibling == null || tmp.x < root.nextSibling.x; tmp = tmp.nextSibling) {
-            if ((root.nextSibling != null && tmp.nextSibling != null && tmp.nextSibling.x >= root.nextSibling.x) || tmp.nextSibling == null) {
-                return tmp;
-            }
-        }
-        return this;
+        return this.lastSibling(root);
     }
 
     /**
@@ -1276,9 +2235,9 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getFirstNextDescendant(Node<N> root) {
         this.validateRoot(root);
-        for (Node<N> tmp = this.nextSibling; tmp != null && (root.nextSibling == null || tmp.x < root.nextSibling.x); tmp = tmp.nextSibling) {
-            if (tmp.descendants.length > 0) {
-                return tmp.descendants[0];
+        for (Node<N> tmp = this; tmp.nextSibling != null && tmp.isSiblingDescendantOf(tmp.nextSibling, root); tmp = tmp.nextSibling) {
+            if (tmp.nextSibling.countDescendants > 0) {
+                return tmp.nextSibling.descendants[0];
             }
         }
         return null;
@@ -1294,9 +2253,9 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getLastPreviousDescendant(Node<N> root) {
         this.validateRoot(root);
-        for (Node<N> tmp = this.previousSibling; tmp != null && tmp.x >= root.x; tmp = tmp.previousSibling) {
-            if (tmp.descendants.length > 0) {
-                return tmp.descendants[tmp.descendants.length - 1];
+        for (Node<N> tmp = this; tmp.previousSibling != null && tmp.isSiblingDescendantOf(tmp.previousSibling, root); tmp = tmp.previousSibling) {
+            if (tmp.previousSibling.countDescendants > 0) {
+                return tmp.previousSibling.descendants[tmp.previousSibling.countDescendants - 1];
             }
         }
         return null;
@@ -1348,11 +2307,11 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getBreadthFirstLeftNext(Node<N> root) {
         this.validateRoot(root);
-        if (this.nextSibling != null && this.nextSibling.isDescendantOf(root)) {
+        if (this.nextSibling != null && this.isSiblingDescendantOf(this.nextSibling, root)) {
             return this.nextSibling;
         }
-        Node<N> tmp = this.getFirstSibling(root);
-        return tmp.descendants.length == 0 ? tmp.getFirstNextDescendant(root) : tmp.descendants[0];
+        Node<N> tmp = this.firstSibling(root);
+        return tmp.countDescendants == 0 ? tmp.getFirstNextDescendant(root) : tmp.descendants[0];
     }
 
     /**
@@ -1365,11 +2324,11 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getBreadthFirstRightNext(Node<N> root) {
         this.validateRoot(root);
-        if (this.previousSibling != null && this.previousSibling.isDescendantOf(root)) {
+        if (this.previousSibling != null && this.isSiblingDescendantOf(this.previousSibling, root)) {
             return this.previousSibling;
         }
-        Node<N> tmp = this.getLastSibling(root);
-        return tmp.descendants.length == 0 ? tmp.getLastPreviousDescendant(root) : tmp.descendants[tmp.descendants.length - 1];
+        Node<N> tmp = this.lastSibling(root);
+        return tmp.countDescendants == 0 ? tmp.getLastPreviousDescendant(root) : tmp.descendants[tmp.countDescendants - 1];
     }
 
     /**
@@ -1382,7 +2341,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getDepthFirstLeftNext(Node<N> root) {
         this.validateRoot(root);
-        return this.descendants.length == 0 ? this.nextSibling == null ? this.getFirstNextPredecessor(root) : this.nextSibling.predecessor == this.predecessor ? this.nextSibling : this.getFirstNextPredecessor(root) : this.descendants[0];
+        return this.nextDepthFirstLeft(root);
     }
 
     /**
@@ -1395,7 +2354,92 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     public Node<N> getDepthFirstRightNext(Node<N> root) {
         this.validateRoot(root);
-        return this.descendants.length == 0 ? this.previousSibling == null ? this.getLastPreviousPredecessor(root) : this.previousSibling.predecessor == this.predecessor ? this.previousSibling : this.getLastPreviousPredecessor(root) : this.descendants[this.descendants.length - 1];
+        return this.nextDepthFirstRight(root);
+    }
+
+    /**
+     * Traverses to the next node in a depth-first left-to-right order of encounter in the (sub-)tree having the given node as its root, provided that this node is a descendant of the given node.
+     * <p/>
+     * Unlike {@link #getDepthFirstLeftNext(Node)}, this function does not validate the given root, and returns null if this node is the given root and has no descendants.
+     *
+     * @param root the root node of the (sub-)tree to be traversed.
+     * @return the next node in a depth-first left-to-right order of encounter in the (sub-)tree having the given node as its root, or null if this node is the last node.
+     */
+    private Node<N> nextDepthFirstLeft(Node<N> root) {
+        if (this.countDescendants > 0) {
+            return this.descendants[0];
+        }
+        for (Node<N> tmp = this; tmp != root; tmp = tmp.predecessor) {
+            if (tmp.nextSibling != null && tmp.nextSibling.predecessor == tmp.predecessor) {
+                return tmp.nextSibling;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Traverses to the next node in a depth-first right-to-left order of encounter in the (sub-)tree having the given node as its root, provided that this node is a descendant of the given node.
+     * <p/>
+     * Unlike {@link #getDepthFirstRightNext(Node)}, this function does not validate the given root, and returns null if this node is the given root and has no descendants.
+     *
+     * @param root the root node of the (sub-)tree to be traversed.
+     * @return the next node in a depth-first right-to-left order of encounter in the (sub-)tree having the given node as its root, or null if this node is the last node.
+     */
+    private Node<N> nextDepthFirstRight(Node<N> root) {
+        if (this.countDescendants > 0) {
+            return this.descendants[this.countDescendants - 1];
+        }
+        for (Node<N> tmp = this; tmp != root; tmp = tmp.predecessor) {
+            if (tmp.previousSibling != null && tmp.previousSibling.predecessor == tmp.predecessor) {
+                return tmp.previousSibling;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the first sibling at the current depth level in the (sub-)tree having the given node as its root, provided that this node is a descendant of the given node.
+     *
+     * @param root the root node of the (sub-)tree to be traversed.
+     * @return the left-most node at the current depth level in the (sub-)tree having the given node as its root.
+     */
+    private Node<N> firstSibling(Node<N> root) {
+        Node<N> tmp = this;
+        for (; tmp.previousSibling != null && tmp.isSiblingDescendantOf(tmp.previousSibling, root); tmp = tmp.previousSibling) ;
+        return tmp;
+    }
+
+    /**
+     * Gets the last sibling at the current depth level in the (sub-)tree having the given node as its root, provided that this node is a descendant of the given node.
+     *
+     * @param root the root node of the (sub-)tree to be traversed.
+     * @return the right-most node at the current depth level in the (sub-)tree having the given node as its root.
+     */
+    private Node<N> lastSibling(Node<N> root) {
+        Node<N> tmp = this;
+        for (; tmp.nextSibling != null && tmp.isSiblingDescendantOf(tmp.nextSibling, root); tmp = tmp.nextSibling) ;
+        return tmp;
+    }
+
+    /**
+     * Tells whether the given node at the current depth level is a descendant of the given node, provided that this node is a descendant of the given node.
+     * <p/>
+     * Both nodes are walked up simultaneously until a common predecessor is found, which costs a single step for nodes having the same predecessor. The labels are compared instead if the tree is labeled.
+     *
+     * @param sibling a node at the current depth level in the tree to which this node belongs.
+     * @param root    the node to be checked.
+     * @return true if the given sibling is a descendant of the given node, false otherwise.
+     */
+    private boolean isSiblingDescendantOf(Node<N> sibling, Node<N> root) {
+        if (root.label != null) {
+            return root.label.pre <= sibling.label.pre && sibling.label.post <= root.label.post;
+        }
+        for (Node<N> tmp1 = this, tmp2 = sibling; tmp1 != tmp2; tmp1 = tmp1.predecessor, tmp2 = tmp2.predecessor) {
+            if (tmp1.y <= root.y) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -1411,11 +2455,30 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
         }
     }
 
+    /**
+     * Creates a cursor positioned at this node that walks the (sub-)tree having the given node as its root in the given order of encounter.
+     * <p/>
+     * The given root is validated once, here, rather than at every step as the root-bounded stepper functions such as {@link #getBreadthFirstLeftNext(Node)} do.
+     *
+     * @param root               the root node of the (sub-)tree to be traversed.
+     * @param traversalAlgorithm the order of encounter.
+     * @return a cursor positioned at this node.
+     * @throws NullPointerException     if the given node or traversal algorithm is null.
+     * @throws IllegalArgumentException if this node is not a descendant of the given node.
+     * @see Cursor
+     */
+    public Cursor<N> cursor(Node<N> root, TraversalAlgorithm traversalAlgorithm) {
+        this.validateRoot(root);
+        return new Cursor<>(this, root, Objects.requireNonNull(traversalAlgorithm));
+    }
+
     /*
      * Search.
      */
     /**
      * Returns the first encountered node that references the given object and follows this node in a breadth-first left-to-right order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @param root    the root node of the (sub-)tree to be traversed.
@@ -1424,11 +2487,18 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findBreadthFirstLeftNext(N element, Node<N> root) {
-        return this.findBreadthFirstLeftNext(e -> e.equals(element), root);
+        ElementIndex<N> index = this.tree.elementIndex;
+        if (index == null) {
+            return this.findBreadthFirstLeftNext(e -> Objects.equals(e, element), root);
+        }
+        this.validateRoot(root);
+        return index.findNext(element, this, root, TraversalAlgorithm.BREADTH_FIRST_LEFT);
     }
 
     /**
      * Returns the first encountered node that references the given object and follows this node in a breadth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @param root    the root node of the (sub-)tree to be traversed.
@@ -1437,11 +2507,18 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findBreadthFirstRightNext(N element, Node<N> root) {
-        return this.findBreadthFirstRightNext(e -> e.equals(element), root);
+        ElementIndex<N> index = this.tree.elementIndex;
+        if (index == null) {
+            return this.findBreadthFirstRightNext(e -> Objects.equals(e, element), root);
+        }
+        this.validateRoot(root);
+        return index.findNext(element, this, root, TraversalAlgorithm.BREADTH_FIRST_RIGHT);
     }
 
     /**
      * Returns the first encountered node that references the given object and follows this node in a depth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @param root    the root node of the (sub-)tree to be traversed.
@@ -1450,11 +2527,18 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findDepthFirstLeftNext(N element, Node<N> root) {
-        return this.findDepthFirstLeftNext(e -> e.equals(element), root);
+        ElementIndex<N> index = this.tree.elementIndex;
+        if (index == null) {
+            return this.findDepthFirstLeftNext(e -> Objects.equals(e, element), root);
+        }
+        this.validateRoot(root);
+        return index.findNext(element, this, root, TraversalAlgorithm.DEPTH_FIRST_LEFT);
     }
 
     /**
      * Returns the first encountered node that references the given object and follows this node in a depth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * If the tree to which this node belongs is indexed, the nodes referencing the given object are looked up in the index, and the one that comes first in the order of encounter is returned.
      *
      * @param element the object to be searched.
      * @param root    the root node of the (sub-)tree to be traversed.
@@ -1463,7 +2547,12 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findDepthFirstRightNext(N element, Node<N> root) {
-        return this.findDepthFirstRightNext(e -> e.equals(element), root);
+        ElementIndex<N> index = this.tree.elementIndex;
+        if (index == null) {
+            return this.findDepthFirstRightNext(e -> Objects.equals(e, element), root);
+        }
+        this.validateRoot(root);
+        return index.findNext(element, this, root, TraversalAlgorithm.DEPTH_FIRST_RIGHT);
     }
 
     /**
@@ -1532,12 +2621,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findBreadthFirstLeftNext(Predicate<N> predicate, Node<N> root) {
-        for (Node<N> tmp = this; tmp != null; tmp = tmp.getBreadthFirstLeftNext(root)) {
-            if (predicate.test(tmp.element)) {
-                return tmp;
-            }
-        }
-        return null;
+        return this.cursor(root, TraversalAlgorithm.BREADTH_FIRST_LEFT).find(predicate);
     }
 
     /**
@@ -1550,12 +2634,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findBreadthFirstRightNext(Predicate<N> predicate, Node<N> root) {
-        for (Node<N> tmp = this; tmp != null; tmp = tmp.getBreadthFirstRightNext(root)) {
-            if (predicate.test(tmp.element)) {
-                return tmp;
-            }
-        }
-        return null;
+        return this.cursor(root, TraversalAlgorithm.BREADTH_FIRST_RIGHT).find(predicate);
     }
 
     /**
@@ -1568,12 +2647,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findDepthFirstLeftNext(Predicate<N> predicate, Node<N> root) {
-        for (Node<N> tmp = this; tmp != null; tmp = tmp.getDepthFirstLeftNext(root)) {
-            if (predicate.test(tmp.element)) {
-                return tmp;
-            }
-        }
-        return null;
+        return this.cursor(root, TraversalAlgorithm.DEPTH_FIRST_LEFT).find(predicate);
     }
 
     /**
@@ -1586,12 +2660,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * @throws IllegalArgumentException if this node is not a descendant of the given node.
      */
     public Node<N> findDepthFirstRightNext(Predicate<N> predicate, Node<N> root) {
-        for (Node<N> tmp = this; tmp != null; tmp = tmp.getDepthFirstRightNext(root)) {
-            if (predicate.test(tmp.element)) {
-                return tmp;
-            }
-        }
-        return null;
+        return this.cursor(root, TraversalAlgorithm.DEPTH_FIRST_RIGHT).find(predicate);
     }
 
     /**
@@ -1601,8 +2670,9 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      * <ul>
      *     <li>Check whether the given object is an instance of class {@link Node}.</li>
      *     <li>Check whether this node is the same as the given object.</li>
-     *     <li>Check whether the size of this node is equal to the size of the given node.</li>
-     *     <li>Traverses both nodes simultaneously applying the preferred traversal algorithm for this node, and compare objects referenced by encountered nodes for equality.</li>
+     *     <li>Check whether the cached hashes of both nodes, if valid, are equal.</li>
+     *     <li>Check whether the size and breadth of this node are equal to the size and breadth of the given node.</li>
+     *     <li>Traverse both nodes simultaneously in a depth-first left-to-right order of encounter, and compare the numbers of direct descendants and the objects referenced by encountered nodes for equality.</li>
      * </ul>
      *
      * @param obj the node to be checked.
@@ -1619,32 +2689,75 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the structural hash of the (sub-)tree having this node as its root.
+     * <p/>
+     * The hash of a node combines the hash of its referenced object, its number of direct descendants, and the hashes of its direct descendants, hence equal (sub-)trees have equal hashes wherever they are located. Hashes are cached: the (sub-)tree is walked iteratively in post-order, skipping the (sub-)trees whose cached hash is still valid, so that a call following a change only recomputes the hashes along the paths to the changed nodes.
+     *
+     * @return the hash of the (sub-)tree having this node as its root.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public int hashCode() {
-        int hash = Objects.hash(this.x, this.y, this.countAll, this.element);
-        for (int i = 0; i < this.descendants.length; hash += 31 * hash + this.descendants[i++].hashCode()) ;
-        return hash;
-    }
+        if (this.hashed) {
+            return this.hash;
+        }
+        Node<N>[] nodes = (Node<N>[]) new Node<?>[16];
+        int[] cursors = new int[16];
+        nodes[0] = this;
+        for (int top = 0; top >= 0; ) {
+            Node<N> node = nodes[top];
+            if (cursors[top] < node.countDescendants) {
+                Node<N> tmp = node.descendants[cursors[top]++];
+                if (!tmp.hashed) {
+                    if (++top == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, top << 1);
+                        cursors = Arrays.copyOf(cursors, top << 1);
+                    }
+                    nodes[top] = tmp;
+                    cursors[top] = 0;
+                }
+            } else {
+                int hash = 31 * Objects.hashCode(node.element) + node.countDescendants;
+                for (int i = 0; i < node.countDescendants; hash = 31 * hash + node.descendants[i++].hash) ;
+                node.hash = hash;
+                node.hashed = true;
+                nodes[top--] = null;
+            }
+        }
+        return this.hash;
+    }
 
     /**
-     * Returns a shallow copy of this node.
+     * Returns a copy of the (sub-)tree having this node as its root.
+     * <p/>
+     * The (sub-)tree is walked once iteratively in a depth-first left-to-right order of encounter, and each node is copied by {@link Object#clone()} then appended to the copy by a {@link Builder}, which allocates the arrays of direct descendants with their final sizes and connects predecessors, siblings, sizes, breadths and coordinates on the fly. The copy is indexed if the tree to which this node belongs is indexed, and labeled if it is labeled.
      *
-     * @return a shallow copy of this node
+     * @return a copy of the (sub-)tree having this node as its root.
      */
     @Override
-    @SuppressWarnings("unchecked")
     public Object clone() {
+        Node<N> result = this.copy();
+        Builder<N> builder = new Builder<>(result, new Tree<>(this.tree.traversalAlgorithm));
+        for (Node<N> tmp = this; tmp != null; tmp = tmp.nextDepthFirstLeft(this)) {
+            builder.append(tmp == this ? result : tmp.copy(), tmp.element, tmp.countDescendants);
+        }
+        result.setIndexed(this.tree.elementIndex != null);
+        result.setLabeled(this.label != null);
+        if ((result.tree.aggregates = this.tree.aggregates) != null) {
+            result.aggregateAll(result.tree.aggregates, 0);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a shallow copy of this node, not connected to any other node.
+     *
+     * @return a shallow copy of this node.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<N> copy() {
         try {
-            Node<N> result = (Node<N>) super.clone();
-            result.traversalAlgorithm = new ObjectReference<>(this.traversalAlgorithm.object);
-            result.nextSibling = result.previousSibling = result.predecessor = null;
-            result.descendants = new Node[0];
-            result.x = result.y = 0;
-            result.countAll = 1;
-            for (int i = 0; i < this.descendants.length; result.add((Node<N>) this.descendants[i++].clone())) ;
-            return result;
+            return (Node<N>) super.clone();
         } catch (CloneNotSupportedException e) {
             throw new InternalError();
         }
@@ -1657,27 +2770,38 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     @Override
     public String toString() {
-        StringBuilder result = new StringBuilder();
+        return this.toString(new StringBuilder(), this.getX()).toString();
+    }
+
+    /**
+     * Appends a string representation of the (sub-)tree having this node as its root to the given string builder.
+     *
+     * @param result the string builder to which the string representation is appended.
+     * @param x      the abscissa of this node in the plane.
+     * @return the given string builder.
+     */
+    private StringBuilder toString(StringBuilder result, int x) {
         result.append("{ ");
-        result.append("x: ").append(this.x).append(", ");
+        result.append("x: ").append(x).append(", ");
         result.append("y: ").append(this.y).append(", ");
         result.append("size: ").append(this.countAll).append(", ");
         result.append("element: ").append(this.element.toString().replaceAll("\\\\", "\\\\").replaceAll("\"", "\\\"")).append(", ");
-        result.append("descendants: { ").append("size: ").append(this.descendants.length).append(", items: [ ");
-        for (int i = 0; i < this.descendants.length; result.append(this.descendants[i].toString()).append(i == this.descendants.length - 1 ? " " : ", "), i++) ;
+        result.append("descendants: { ").append("size: ").append(this.countDescendants).append(", items: [ ");
+        for (int i = 0; i < this.countDescendants; this.descendants[i].toString(result, x + this.descendants[i].x).append(i == this.countDescendants - 1 ? " " : ", "), i++) ;
         result.append("] } }");
-        return result.toString();
+        return result;
     }
 
     /**
      * See {@link Serializable}.
+     * <p/>
+     * The (sub-)tree having this node as its root is written in the format of {@link #write(Node, OutputStream, ElementCodec)} without the header, following the preferred traversal algorithm and the size of the (sub-)tree, and each referenced object is written using {@link ObjectOutputStream#writeObject(Object)}.
      */
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.defaultWriteObject();
-        out.writeObject(this.element);
-        out.writeObject(this.traversalAlgorithm.object);
-        out.writeInt(this.descendants.length);
-        for (int i = 0; i < this.descendants.length; out.writeObject(this.descendants[i++])) ;
+        out.writeObject(this.tree.traversalAlgorithm);
+        out.writeInt(this.countAll);
+        Node.encode(this, out, ObjectCodec.INSTANCE);
     }
 
     /**
@@ -1686,15 +2810,12 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
     @SuppressWarnings("unchecked")
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        this.element = (N) in.readObject();
-        this.countAll = 1;
-        this.descendants = new Node[0];
-        Object next = in.readObject();
-        if (next instanceof TraversalAlgorithm) {
-            this.traversalAlgorithm = new ObjectReference<>((TraversalAlgorithm) next);
-            next = in.readInt();
+        TraversalAlgorithm traversalAlgorithm = (TraversalAlgorithm) in.readObject();
+        try {
+            Node.decode(this, in.readInt(), in, (ElementCodec<N>) ObjectCodec.INSTANCE, new Tree<>(traversalAlgorithm));
+        } catch (ObjectCodec.ClassNotFoundIOException e) {
+            throw (ClassNotFoundException) e.getCause();
         }
-        for (int count = (int) next, i = 0; i < count; add((Node<N>) in.readObject()), i++) ;
     }
 
     /*
@@ -1702,6 +2823,8 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
      */
     /**
      * An iterator that traverses a tree applying one of the algorithms supported by {@link Node}.
+     * <p/>
+     * An instance of this class created directly steps through the tree using the root-bounded stepper function of its traversal algorithm, which validates the root of the (sub-)tree at every step. The subclasses dedicated to each traversal algorithm, returned by {@link TraversalAlgorithm#iterator(Node)}, step through the tree by moving pointers only.
      * @see TraversalAlgorithm
      */
     public static class NodeIterator<N> implements Iterator<N> {
@@ -1716,7 +2839,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
         /**
          * Temporary placeholders for traversal, removal and verification.
          */
-        private Node<?> next, previous;
+        private Node<N> next, previous;
         /**
          * A flag holding a boolean value indicating whether the node to be returned by {@link NodeIterator#next()} has been fetched from the tree.
          */
@@ -1748,7 +2871,6 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
         }
 
         @Override
-        @SuppressWarnings("unchecked")
         public N next() {
             this.removed = false;
             if (!this.isNext) {
@@ -1758,7 +2880,7 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
             if (this.next == null) {
                 throw new NoSuchElementException();
             }
-            return (N) this.next.getElement();
+            return this.next.getElement();
         }
 
         @Override
@@ -1766,198 +2888,1790 @@ public class Node<N> implements Collection<N>, Serializable, Cloneable {
             if (this.removed) {
                 throw new IllegalStateException();
             }
-            if (this.next == this.node) {
-                this.advance();
-            } else {
-                this.removed = true;
-                this.next.detach();
+            this.removed = true;
+            if (this.next != this.node) {
+                this.detach(this.next);
                 this.next = this.previous;
                 this.isNext = false;
             }
         }
 
+        /**
+         * Gets the root node of the tree traversed by this iterator.
+         *
+         * @return the root node of the tree to be traversed.
+         */
+        protected Node<N> getNode() {
+            return this.node;
+        }
+
+        /**
+         * Returns the node following the given node in the order of encounter of this iterator's traversal algorithm.
+         *
+         * @param node the current node, which is never the last node returned by this function before the iterator restarts from the root node.
+         * @return the next node in the (sub-)tree being traversed, or null if the given node is the last node.
+         */
+        @SuppressWarnings("unchecked")
+        protected Node<N> step(Node<N> node) {
+            return (Node<N>) this.ita.getIterator().apply(node, this.node);
+        }
+
+        /**
+         * Detaches the given node, which is being removed by {@link #remove()}, from the tree being traversed.
+         *
+         * @param node the node to be detached.
+         */
+        protected void detach(Node<N> node) {
+            node.detach();
+        }
+
         /**
          * Advances the current position of the iterator in the tree to the next node using the preferred traversal algorithm for the tree.
          */
         private void advance() {
             this.previous = this.next;
-            this.next = (this.next == null) ? this.node : this.ita.getIterator().apply(this.next, this.node);
+            this.next = (this.next == null) ? this.node : this.step(this.next);
         }
     }
 
     /**
-     * Enumerates the traversal algorithms supported by {@link Node}.
+     * An iterator that traverses a (sub-)tree in a breadth-first left-to-right order of encounter.
+     * <p/>
+     * The nodes of a (sub-)tree at a given depth level are adjacent in the tree. This iterator keeps the left-most and right-most nodes of the (sub-)tree at the current depth level, and computes those of the next depth level once the right-most node is reached, which visits each node at most three times. When the root node of the traversed (sub-)tree is the root node of the tree, those nodes are taken from the tree instead, which visits each node once.
      */
-    public enum TraversalAlgorithm {
+    public static class BreadthFirstLeftIterator<N> extends NodeIterator<N> {
         /**
-         * Breadth-first left-to-right tree traversal algorithm constant value associated with the corresponding stepper function.
-         */
-        @SuppressWarnings("unchecked")
-        BREADTH_FIRST_LEFT((e, f) -> e.getBreadthFirstLeftNext(f)),
-        /**
-         * Breadth-first right-to-left tree traversal algorithm constant value associated with the corresponding stepper function.
+         * The left-most and right-most nodes in the (sub-)tree at the current and previous depth levels.
          */
-        @SuppressWarnings("unchecked")
-        BREADTH_FIRST_RIGHT((e, f) -> e.getBreadthFirstRightNext(f)),
+        private Node<N> first, last, previousFirst, previousLast;
+
         /**
-         * Depth-first left-to-right tree traversal algorithm constant value associated with the corresponding stepper function.
+         * Creates a breadth-first left-to-right node iterator given the root node.
+         *
+         * @param node the root node of the tree to be traversed.
          */
-        @SuppressWarnings("unchecked")
-        DEPTH_FIRST_LEFT((e, f) -> e.getDepthFirstLeftNext(f)),
+        public BreadthFirstLeftIterator(Node<N> node) {
+            super(node, TraversalAlgorithm.BREADTH_FIRST_LEFT);
+            this.first = this.last = node;
+        }
+
+        @Override
+        protected Node<N> step(Node<N> node) {
+            if (node != this.last) {
+                return node.y != this.first.y ? this.first : node.nextSibling;
+            }
+            Levels<N> levels = this.getNode().predecessor == null ? this.getNode().levels() : null;
+            if (levels != null) {
+                if (this.last.y + 1 >= levels.height) {
+                    this.first = this.last = this.getNode();
+                    return null;
+                }
+                this.previousFirst = this.first;
+                this.previousLast = this.last;
+                this.first = levels.heads[this.previousLast.y + 1];
+                this.last = levels.tails[this.previousLast.y + 1];
+                return this.first;
+            }
+            Node<N> tmp = this.first;
+            for (; tmp != this.last && tmp.countDescendants == 0; tmp = tmp.nextSibling) ;
+            if (tmp.countDescendants == 0) {
+                this.first = this.last = this.getNode();
+                return null;
+            }
+            this.previousFirst = this.first;
+            this.previousLast = this.last;
+            this.first = tmp.descendants[0];
+            for (tmp = this.previousLast; tmp.countDescendants == 0; tmp = tmp.previousSibling) ;
+            this.last = tmp.descendants[tmp.countDescendants - 1];
+            return this.first;
+        }
+
+        @Override
+        protected void detach(Node<N> node) {
+            if (node == this.first && node == this.last) {
+                this.first = this.previousFirst;
+                this.last = this.previousLast;
+            } else if (node == this.first) {
+                this.first = node.nextSibling;
+            } else if (node == this.last) {
+                this.last = node.previousSibling;
+            }
+            super.detach(node);
+        }
+    }
+
+    /**
+     * An iterator that traverses a (sub-)tree in a breadth-first right-to-left order of encounter.
+     * <p/>
+     * See {@link BreadthFirstLeftIterator}.
+     */
+    public static class BreadthFirstRightIterator<N> extends NodeIterator<N> {
         /**
-         * Depth-first right-to-left tree traversal algorithm constant value associated with the corresponding stepper function.
+         * The left-most and right-most nodes in the (sub-)tree at the current and previous depth levels.
          */
-        @SuppressWarnings("unchecked")
-        DEPTH_FIRST_RIGHT((e, f) -> e.getDepthFirstRightNext(f));
+        private Node<N> first, last, previousFirst, previousLast;
+
         /**
-         * Stepper function placeholder.
+         * Creates a breadth-first right-to-left node iterator given the root node.
+         *
+         * @param node the root node of the tree to be traversed.
          */
-        @SuppressWarnings("rawtypes")
-        private BiFunction<Node, Node, Node> iterate;
+        public BreadthFirstRightIterator(Node<N> node) {
+            super(node, TraversalAlgorithm.BREADTH_FIRST_RIGHT);
+            this.first = this.last = node;
+        }
+
+        @Override
+        protected Node<N> step(Node<N> node) {
+            if (node != this.first) {
+                return node.y != this.last.y ? this.last : node.previousSibling;
+            }
+            Levels<N> levels = this.getNode().predecessor == null ? this.getNode().levels() : null;
+            if (levels != null) {
+                if (this.first.y + 1 >= levels.height) {
+                    this.first = this.last = this.getNode();
+                    return null;
+                }
+                this.previousFirst = this.first;
+                this.previousLast = this.last;
+                this.first = levels.heads[this.previousFirst.y + 1];
+                this.last = levels.tails[this.previousFirst.y + 1];
+                return this.last;
+            }
+            Node<N> tmp = this.last;
+            for (; tmp != this.first && tmp.countDescendants == 0; tmp = tmp.previousSibling) ;
+            if (tmp.countDescendants == 0) {
+                this.first = this.last = this.getNode();
+                return null;
+            }
+            this.previousFirst = this.first;
+            this.previousLast = this.last;
+            this.last = tmp.descendants[tmp.countDescendants - 1];
+            for (tmp = this.previousFirst; tmp.countDescendants == 0; tmp = tmp.nextSibling) ;
+            this.first = tmp.descendants[0];
+            return this.last;
+        }
 
+        @Override
+        protected void detach(Node<N> node) {
+            if (node == this.first && node == this.last) {
+                this.first = this.previousFirst;
+                this.last = this.previousLast;
+            } else if (node == this.last) {
+                this.last = node.previousSibling;
+            } else if (node == this.first) {
+                this.first = node.nextSibling;
+            }
+            super.detach(node);
+        }
+    }
+
+    /**
+     * An iterator that traverses a (sub-)tree in a depth-first left-to-right order of encounter.
+     * <p/>
+     * Once a node having no descendants is reached, this iterator walks up to the closest predecessor having a next sibling with the same predecessor, stopping at the root node, which visits each node at most twice.
+     */
+    public static class DepthFirstLeftIterator<N> extends NodeIterator<N> {
         /**
-         * Creates a new {@link TraversalAlgorithm} constant value.
+         * Creates a depth-first left-to-right node iterator given the root node.
          *
-         * @param iterate the stepper function.
+         * @param node the root node of the tree to be traversed.
          */
-        @SuppressWarnings("rawtypes")
-        TraversalAlgorithm(BiFunction<Node, Node, Node> iterate) {
-            this.iterate = iterate;
+        public DepthFirstLeftIterator(Node<N> node) {
+            super(node, TraversalAlgorithm.DEPTH_FIRST_LEFT);
+        }
+
+        @Override
+        protected Node<N> step(Node<N> node) {
+            return node.nextDepthFirstLeft(this.getNode());
         }
+    }
 
+    /**
+     * An iterator that traverses a (sub-)tree in a depth-first right-to-left order of encounter.
+     * <p/>
+     * See {@link DepthFirstLeftIterator}.
+     */
+    public static class DepthFirstRightIterator<N> extends NodeIterator<N> {
         /**
-         * Gets the stepper function.
+         * Creates a depth-first right-to-left node iterator given the root node.
          *
-         * @return the stepper function.
+         * @param node the root node of the tree to be traversed.
          */
-        @SuppressWarnings("rawtypes")
-        public BiFunction<Node, Node, Node> getIterator() {
-            return this.iterate;
+        public DepthFirstRightIterator(Node<N> node) {
+            super(node, TraversalAlgorithm.DEPTH_FIRST_RIGHT);
+        }
+
+        @Override
+        protected Node<N> step(Node<N> node) {
+            return node.nextDepthFirstRight(this.getNode());
         }
     }
 
     /**
-     * A helper class that serves as a pointer-to-pointer. An instance of this class will be shared among tree nodes, which makes it possible to change the preferred traversal algorithm for a tree from any node.
+     * A cursor that walks a (sub-)tree from a given node in a given order of encounter.
+     * <p/>
+     * The root node of the (sub-)tree is validated once, when the cursor is created by {@link Node#cursor(Node, TraversalAlgorithm)}, after which each step is bounded without validating the root again nor walking up to it: a depth-first walk stops once it walks back up to the root node, and a breadth-first walk keeps the left-most and right-most nodes of the (sub-)tree at the current depth level as sentinels, and computes those of the next depth level once a sentinel is reached, as {@link BreadthFirstLeftIterator} does. Searching or walking the nodes following a given node is thus linear in the number of nodes encountered, rather than in that number times the depth of the tree.
+     * <p/>
+     * A cursor must not be used once the tree is structurally modified.
      *
-     * @param <T> the type of the objects referenced by an instance of this class.
+     * @param <N> type of elements referenced by the nodes of the tree.
      */
-    private static class ObjectReference<T> {
+    public static final class Cursor<N> {
+        /**
+         * The root node of the (sub-)tree being walked.
+         */
+        private final Node<N> root;
+        /**
+         * The order of encounter.
+         */
+        private final TraversalAlgorithm traversalAlgorithm;
+        /**
+         * The directory of the depth levels of the tree, if the root node of the (sub-)tree is the root node of the tree, null otherwise.
+         */
+        private final Levels<N> levels;
+        /**
+         * The current node, or null once the walk is over.
+         */
+        private Node<N> node;
+        /**
+         * The left-most and right-most nodes in the (sub-)tree at the current depth level, in a breadth-first walk.
+         */
+        private Node<N> first, last;
+
         /**
-         * Referenced object
+         * Creates a cursor positioned at the given node, which is a descendant of the given root node.
+         *
+         * @param node               the node at which the cursor is positioned.
+         * @param root               the root node of the (sub-)tree to be walked.
+         * @param traversalAlgorithm the order of encounter.
          */
-        private T object;
+        private Cursor(Node<N> node, Node<N> root, TraversalAlgorithm traversalAlgorithm) {
+            this.root = root;
+            this.traversalAlgorithm = traversalAlgorithm;
+            this.levels = root.predecessor == null ? root.levels() : null;
+            this.node = node;
+            if (traversalAlgorithm == TraversalAlgorithm.BREADTH_FIRST_LEFT || traversalAlgorithm == TraversalAlgorithm.BREADTH_FIRST_RIGHT) {
+                this.first = this.levels == null ? node.firstSibling(root) : this.levels.heads[node.y];
+                this.last = this.levels == null ? node.lastSibling(root) : this.levels.tails[node.y];
+            }
+        }
 
         /**
-         * Creates a new {@link ObjectReference} instance given an object to referenced.
+         * Gets the root node of the (sub-)tree walked by this cursor.
          *
-         * @param object the object referenced by this instance of {@link ObjectReference}.
+         * @return the root node of the (sub-)tree.
          */
-        public ObjectReference(T object) {
-            this.object = object;
+        public Node<N> getRoot() {
+            return this.root;
         }
 
         /**
-         * Gets the referenced object.
+         * Gets the order of encounter of this cursor.
          *
-         * @return the object referenced by this instance of {@link ObjectReference}.
+         * @return the traversal algorithm.
          */
-        public T getObject() {
-            return this.object;
+        public TraversalAlgorithm getTraversalAlgorithm() {
+            return this.traversalAlgorithm;
         }
 
         /**
-         * Sets the referenced object.
+         * Gets the node at which this cursor is positioned.
          *
-         * @param object the object referenced by this instance of {@link ObjectReference}.
+         * @return the current node, or null if the walk is over.
          */
-        public void setObject(T object) {
-            this.object = object;
+        public Node<N> getNode() {
+            return this.node;
         }
-    }
 
-    /*
-     * Node logic.
-     */
-    /**
-     * Translates a tree given its root node, a mapper function and the preferred traversal algorithm.
-     *
-     * @param node   root node of the tree to be translated.
-     * @param mapper a function that translates elements from type <code><b>N</b></code> to type <code><b>M</b></code>.
-     * @param <N>    type of elements of the source tree.
-     * @param <M>    type of elements of the generated tree.
-     * @return a tree that has the same structure as the tree having the given node as its root, referencing elements of type <code><b>M</b></code>.
-     */
-    public static <N, M> Node<M> translate(Node<N> node, Function<N, M> mapper) {
-        return new Node<>(e -> e.descendants, node, e -> mapper.apply(e.element), node.traversalAlgorithm.object);
-    }
+        /**
+         * Moves this cursor to the next node in its order of encounter.
+         *
+         * @return the next node, or null if the current node was the last node of the (sub-)tree or the walk is over.
+         */
+        public Node<N> next() {
+            if (this.node != null) {
+                this.node = this.step(this.node);
+            }
+            return this.node;
+        }
 
-    /**
-     * A function that compares two trees given two root nodes for equality.
-     *
-     * @param node1      left-hand operand.
-     * @param node2      right-hand operand.
-     * @param comparator a function that compares two elements, one from each tree, for equality.
-     * @param <N>        type of objects referenced by nodes of both trees.
-     * @return true if both trees are equal, false otherwise.
-     */
-    public static <N> boolean equals(Node<N> node1, Node<N> node2, Comparator<N> comparator) {
-        return Node.equals(node1, node2, (BiPredicate<N, N>) (e, f) -> comparator.compare(e, f) == 0);
+        /**
+         * Moves this cursor to the first node, starting with the current node, referencing an object that matches the given predicate.
+         * <p/>
+         * The cursor stays at the found node; call {@link #next()} before searching again to find the following one.
+         *
+         * @param predicate the predicate that is applied to each encountered node.
+         * @return the found node, or null if no remaining node matches, in which case the walk is over.
+         * @throws NullPointerException if the given predicate is null and the walk is not over.
+         */
+        public Node<N> find(Predicate<N> predicate) {
+            for (; this.node != null && !predicate.test(this.node.element); this.node = this.step(this.node)) ;
+            return this.node;
+        }
+
+        /**
+         * Returns the node following the given node in the order of encounter of this cursor.
+         *
+         * @param node the current node.
+         * @return the next node in the (sub-)tree being walked, or null if the given node is the last node.
+         */
+        private Node<N> step(Node<N> node) {
+            switch (this.traversalAlgorithm) {
+                case BREADTH_FIRST_LEFT:
+                    return node != this.last ? node.nextSibling : this.descend(true);
+                case BREADTH_FIRST_RIGHT:
+                    return node != this.first ? node.previousSibling : this.descend(false);
+                case DEPTH_FIRST_LEFT:
+                    return node.nextDepthFirstLeft(this.root);
+                default:
+                    return node.nextDepthFirstRight(this.root);
+            }
+        }
+
+        /**
+         * Moves the sentinels to the next depth level of the (sub-)tree, once the last node at the current depth level is reached.
+         *
+         * @param left true if the walk is left-to-right, false otherwise.
+         * @return the first node at the next depth level in the order of encounter, or null if the current depth level is the last one.
+         */
+        private Node<N> descend(boolean left) {
+            if (this.levels != null) {
+                int y = this.first.y + 1;
+                if (y >= this.levels.height) {
+                    return null;
+                }
+                this.first = this.levels.heads[y];
+                this.last = this.levels.tails[y];
+                return left ? this.first : this.last;
+            }
+            Node<N> tmp = left ? this.first : this.last;
+            Node<N> end = left ? this.last : this.first;
+            for (; tmp != end && tmp.countDescendants == 0; tmp = left ? tmp.nextSibling : tmp.previousSibling) ;
+            if (tmp.countDescendants == 0) {
+                return null;
+            }
+            Node<N> other;
+            for (other = end; other.countDescendants == 0; other = left ? other.previousSibling : other.nextSibling) ;
+            this.first = left ? tmp.descendants[0] : other.descendants[0];
+            this.last = left ? other.descendants[other.countDescendants - 1] : tmp.descendants[tmp.countDescendants - 1];
+            return left ? this.first : this.last;
+        }
     }
 
     /**
-     * A function that compares two trees given two root nodes for equality.
+     * A spliterator over a (sub-)tree in a depth-first order of encounter.
      * <p/>
-     * Equality of two elements is evaluated using {@link Objects#equals(Object, Object)}.
-     *
-     * @param node1 left-hand operand.
-     * @param node2 right-hand operand.
-     * @param <N>   type of objects referenced by nodes of both trees.
-     * @return true if both trees are equal, false otherwise.
+     * This spliterator covers an optional head node followed by the (sub-)trees having a range of direct descendants of a node as their roots. It splits on (sub-)tree boundaries: the range is divided into two halves of about the same size using the sizes of the (sub-)trees, and a single (sub-)tree is split by making its root the head node and the range of its direct descendants the new range. The sizes of both halves are known exactly.
      */
-    public static <N> boolean equals(Node<N> node1, Node<N> node2) {
-        return Node.equals(node1, node2, (BiPredicate<N, N>) (e, f) -> Objects.equals(e, f));
-    }
+    public static class DepthFirstSpliterator<N> implements Spliterator<N> {
+        /**
+         * Whether this spliterator traverses the tree from left to right.
+         */
+        private final boolean left;
+        /**
+         * The node returned before the nodes in the range of (sub-)trees, or null if there is no such node.
+         */
+        private Node<N> head;
+        /**
+         * The node whose direct descendants at positions from {@link #from} (inclusive) to {@link #to} (exclusive) are the roots of the (sub-)trees covered by this spliterator.
+         */
+        private Node<N> node;
+        /**
+         * The range of direct descendants covered by this spliterator.
+         */
+        private int from, to;
+        /**
+         * The root of the (sub-)tree being traversed and the next node to be returned in that (sub-)tree, or null if no (sub-)tree is being traversed.
+         */
+        private Node<N> root, next;
+        /**
+         * The number of nodes not traversed yet.
+         */
+        private long size;
 
-    /**
-     * A function that compares two trees given two root nodes for equality.
-     *
-     * @param node1     left-hand operand.
-     * @param node2     right-hand operand.
-     * @param predicate a function that evaluates the equality of two nodes one from each tree.
-     * @param <N>       type of objects referenced by nodes of both trees.
-     * @return true if both trees are equal, false otherwise.
-     */
-    public static <N> boolean equals(Node<N> node1, Node<N> node2, BiPredicate<N, N> predicate) {
-        return Node.equals(node1, predicate, node2);
-    }
+        /**
+         * Creates a depth-first spliterator over the (sub-)tree having the given node as its root.
+         *
+         * @param node the root node of the tree to be traversed.
+         * @param left true for a left-to-right order of encounter, false for a right-to-left order of encounter.
+         */
+        public DepthFirstSpliterator(Node<N> node, boolean left) {
+            this(left, node, node, 0, node.countDescendants, null, null, node.countAll);
+        }
 
-    /**
-     * A function that compares two trees given two root nodes for equality.
-     *
-     * @param node1     left-hand operand.
-     * @param predicate a function that evaluates equality of two nodes one from each tree.
-     * @param node2     right-hand operand.
-     * @param <N>       type of objects referenced by nodes of the first tree.
-     * @param <M>       type of objects referenced by nodes of the second tree.
-     * @return true if both trees are equal, false otherwise.
-     */
-    @SuppressWarnings("unchecked")
-    public static <N, M> boolean equals(Node<N> node1, BiPredicate<N, M> predicate, Node<M> node2) {
-        if (node1 == node2) {
+        /**
+         * Creates a depth-first spliterator given its state.
+         */
+        private DepthFirstSpliterator(boolean left, Node<N> head, Node<N> node, int from, int to, Node<N> root, Node<N> next, long size) {
+            this.left = left;
+            this.head = head;
+            this.node = node;
+            this.from = from;
+            this.to = to;
+            this.root = root;
+            this.next = next;
+            this.size = size;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super N> action) {
+            Objects.requireNonNull(action);
+            Node<N> tmp;
+            if (this.head != null) {
+                tmp = this.head;
+                this.head = null;
+            } else {
+                if (this.next == null) {
+                    if (this.from >= this.to) {
+                        return false;
+                    }
+                    this.root = this.next = this.left ? this.node.descendants[this.from++] : this.node.descendants[--this.to];
+                }
+                tmp = this.next;
+                this.next = this.left ? tmp.nextDepthFirstLeft(this.root) : tmp.nextDepthFirstRight(this.root);
+            }
+            this.size--;
+            action.accept(tmp.element);
             return true;
         }
-        if (node1 == null ^ node2 == null) {
-            return false;
+
+        @Override
+        public Spliterator<N> trySplit() {
+            if (this.head == null && this.next == null && this.to - this.from == 1) {
+                this.head = this.node = this.node.descendants[this.from];
+                this.from = 0;
+                this.to = this.node.countDescendants;
+            }
+            if (this.from >= this.to || (this.to - this.from == 1 && this.head == null && this.next == null)) {
+                return null;
+            }
+            long total = 0, half = 0;
+            for (int i = this.from; i < this.to; total += this.node.descendants[i++].countAll) ;
+            int mid = this.left ? this.from : this.to;
+            if (this.to - this.from > 1) {
+                if (this.left) {
+                    for (; half + this.node.descendants[mid].countAll <= total / 2 || mid == this.from; half += this.node.descendants[mid++].countAll) ;
+                } else {
+                    for (; half + this.node.descendants[mid - 1].countAll <= total / 2 || mid == this.to; half += this.node.descendants[--mid].countAll) ;
+                }
+            }
+            DepthFirstSpliterator<N> result = new DepthFirstSpliterator<>(this.left, this.head, this.node, this.left ? this.from : mid, this.left ? mid : this.to, this.root, this.next, this.size - total + half);
+            this.head = this.root = this.next = null;
+            if (this.left) {
+                this.from = mid;
+            } else {
+                this.to = mid;
+            }
+            this.size = total - half;
+            return result;
         }
-        if (node1.countAll != node2.countAll) {
-            return false;
+
+        @Override
+        public long estimateSize() {
+            return this.size;
         }
-        TraversalAlgorithm preferredTraversalAlgorithm = node1.traversalAlgorithm.object == TraversalAlgorithm.DEPTH_FIRST_LEFT || node1.traversalAlgorithm.object == TraversalAlgorithm.BREADTH_FIRST_LEFT ? TraversalAlgorithm.DEPTH_FIRST_LEFT : TraversalAlgorithm.DEPTH_FIRST_RIGHT;
-        Node<N> tmp1;
-        Node<M> tmp2;
-        for (tmp1 = node1, tmp2 = node2; tmp1 != null || tmp2 != null;
-             tmp1 = (Node<N>) preferredTraversalAlgorithm.iterate.apply(tmp1, tmp1), tmp2 = (Node<M>) preferredTraversalAlgorithm.iterate.apply(tmp2, tmp2)) {
-            if ((tmp1 == null ^ tmp2 == null) || !predicate.test(tmp1.element, tmp2.element)) {
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    /**
+     * A spliterator over a (sub-)tree in a breadth-first order of encounter.
+     * <p/>
+     * Until it is split, this spliterator traverses the (sub-)tree using a dedicated breadth-first iterator. The first split walks each depth level of the (sub-)tree once to build an index of the first node and the number of preceding nodes of each depth level, which is shared by all the spliterators resulting from further splits. A split then divides the remaining positions in the order of encounter into two halves, locating the first node of the second half using the index.
+     */
+    public static class BreadthFirstSpliterator<N> implements Spliterator<N> {
+        /**
+         * Whether this spliterator traverses the tree from left to right.
+         */
+        private final boolean left;
+        /**
+         * The root node of the tree to be traversed.
+         */
+        private final Node<N> node;
+        /**
+         * The iterator used before the index is built, or null once the index is built.
+         */
+        private NodeIterator<N> iterator;
+        /**
+         * The first node in the order of encounter at each depth level of the (sub-)tree.
+         */
+        private Node<N>[] levels;
+        /**
+         * The number of nodes preceding each depth level of the (sub-)tree in the order of encounter, followed by the size of the (sub-)tree.
+         */
+        private long[] offsets;
+        /**
+         * The position of the next node to be returned, and the position following the last node covered by this spliterator.
+         */
+        private long origin, fence;
+        /**
+         * The next node to be returned once the index is built.
+         */
+        private Node<N> next;
+        /**
+         * The depth level of the next node relative to the root node.
+         */
+        private int level;
+
+        /**
+         * Creates a breadth-first spliterator over the (sub-)tree having the given node as its root.
+         *
+         * @param node the root node of the tree to be traversed.
+         * @param left true for a left-to-right order of encounter, false for a right-to-left order of encounter.
+         */
+        public BreadthFirstSpliterator(Node<N> node, boolean left) {
+            this.left = left;
+            this.node = node;
+            this.iterator = left ? new BreadthFirstLeftIterator<>(node) : new BreadthFirstRightIterator<>(node);
+            this.fence = node.countAll;
+        }
+
+        /**
+         * Creates a breadth-first spliterator sharing the index of the given spliterator.
+         */
+        private BreadthFirstSpliterator(BreadthFirstSpliterator<N> spliterator, long fence) {
+            this.left = spliterator.left;
+            this.node = spliterator.node;
+            this.levels = spliterator.levels;
+            this.offsets = spliterator.offsets;
+            this.origin = spliterator.origin;
+            this.fence = fence;
+            this.next = spliterator.next;
+            this.level = spliterator.level;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super N> action) {
+            Objects.requireNonNull(action);
+            if (this.origin >= this.fence) {
+                return false;
+            }
+            if (this.iterator != null) {
+                this.origin++;
+                action.accept(this.iterator.next());
+                return true;
+            }
+            Node<N> tmp = this.next;
+            if (this.origin + 1 < this.fence) {
+                this.next = this.origin + 1 == this.offsets[this.level + 1] ? this.levels[++this.level] : this.left ? tmp.nextSibling : tmp.previousSibling;
+            }
+            this.origin++;
+            action.accept(tmp.element);
+            return true;
+        }
+
+        @Override
+        public Spliterator<N> trySplit() {
+            long mid = (this.origin + this.fence) >>> 1;
+            if (mid <= this.origin) {
+                return null;
+            }
+            if (this.iterator != null) {
+                this.index();
+            }
+            BreadthFirstSpliterator<N> result = new BreadthFirstSpliterator<>(this, mid);
+            this.origin = mid;
+            int low = this.level, high = this.levels.length - 1;
+            while (low < high) {
+                int tmp = (low + high + 1) >>> 1;
+                if (this.offsets[tmp] <= mid) {
+                    low = tmp;
+                } else {
+                    high = tmp - 1;
+                }
+            }
+            this.level = low;
+            this.next = this.levels[low];
+            for (long i = this.offsets[low]; i < mid; this.next = this.left ? this.next.nextSibling : this.next.previousSibling, i++) ;
+            return result;
+        }
+
+        /**
+         * Builds the index of depth levels and positions this spliterator on the next node to be returned.
+         */
+        @SuppressWarnings("unchecked")
+        private void index() {
+            Node<N>[] levels = (Node<N>[]) new Node<?>[16];
+            long[] offsets = new long[17];
+            int count = 0;
+            for (Node<N> first = this.node, last = this.node; first != null; count++) {
+                if (count == levels.length) {
+                    levels = Arrays.copyOf(levels, count << 1);
+                    offsets = Arrays.copyOf(offsets, (count << 1) + 1);
+                }
+                levels[count] = this.left ? first : last;
+                long width = 0;
+                Node<N> nextFirst = null, nextLast = null;
+                for (Node<N> tmp = first; ; tmp = tmp.nextSibling) {
+                    width++;
+                    if (tmp.countDescendants > 0) {
+                        nextFirst = nextFirst == null ? tmp.descendants[0] : nextFirst;
+                        nextLast = tmp.descendants[tmp.countDescendants - 1];
+                    }
+                    if (tmp == last) {
+                        break;
+                    }
+                }
+                offsets[count + 1] = offsets[count] + width;
+                first = nextFirst;
+                last = nextLast;
+            }
+            this.levels = Arrays.copyOf(levels, count);
+            this.offsets = Arrays.copyOf(offsets, count + 1);
+            this.iterator = null;
+            int low = 0;
+            for (; low < count - 1 && this.offsets[low + 1] <= this.origin; low++) ;
+            this.level = low;
+            this.next = this.levels[low];
+            for (long i = this.offsets[low]; i < this.origin; this.next = this.left ? this.next.nextSibling : this.next.previousSibling, i++) ;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.fence - this.origin;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    /**
+     * Enumerates the traversal algorithms supported by {@link Node}.
+     */
+    public enum TraversalAlgorithm {
+        /**
+         * Breadth-first left-to-right tree traversal algorithm constant value associated with the corresponding stepper function.
+         */
+        @SuppressWarnings("unchecked")
+        BREADTH_FIRST_LEFT((e, f) -> e.getBreadthFirstLeftNext(f)) {
+            @Override
+            public <N> NodeIterator<N> iterator(Node<N> node) {
+                return new BreadthFirstLeftIterator<>(node);
+            }
+
+            @Override
+            public <N> Spliterator<N> spliterator(Node<N> node) {
+                return new BreadthFirstSpliterator<>(node, true);
+            }
+        },
+        /**
+         * Breadth-first right-to-left tree traversal algorithm constant value associated with the corresponding stepper function.
+         */
+        @SuppressWarnings("unchecked")
+        BREADTH_FIRST_RIGHT((e, f) -> e.getBreadthFirstRightNext(f)) {
+            @Override
+            public <N> NodeIterator<N> iterator(Node<N> node) {
+                return new BreadthFirstRightIterator<>(node);
+            }
+
+            @Override
+            public <N> Spliterator<N> spliterator(Node<N> node) {
+                return new BreadthFirstSpliterator<>(node, false);
+            }
+        },
+        /**
+         * Depth-first left-to-right tree traversal algorithm constant value associated with the corresponding stepper function.
+         */
+        @SuppressWarnings("unchecked")
+        DEPTH_FIRST_LEFT((e, f) -> e.getDepthFirstLeftNext(f)) {
+            @Override
+            public <N> NodeIterator<N> iterator(Node<N> node) {
+                return new DepthFirstLeftIterator<>(node);
+            }
+
+            @Override
+            public <N> Spliterator<N> spliterator(Node<N> node) {
+                return new DepthFirstSpliterator<>(node, true);
+            }
+        },
+        /**
+         * Depth-first right-to-left tree traversal algorithm constant value associated with the corresponding stepper function.
+         */
+        @SuppressWarnings("unchecked")
+        DEPTH_FIRST_RIGHT((e, f) -> e.getDepthFirstRightNext(f)) {
+            @Override
+            public <N> NodeIterator<N> iterator(Node<N> node) {
+                return new DepthFirstRightIterator<>(node);
+            }
+
+            @Override
+            public <N> Spliterator<N> spliterator(Node<N> node) {
+                return new DepthFirstSpliterator<>(node, false);
+            }
+        };
+        /**
+         * Stepper function placeholder.
+         */
+        @SuppressWarnings("rawtypes")
+        private BiFunction<Node, Node, Node> iterate;
+
+        /**
+         * Creates a new {@link TraversalAlgorithm} constant value.
+         *
+         * @param iterate the stepper function.
+         */
+        @SuppressWarnings("rawtypes")
+        TraversalAlgorithm(BiFunction<Node, Node, Node> iterate) {
+            this.iterate = iterate;
+        }
+
+        /**
+         * Gets the stepper function.
+         *
+         * @return the stepper function.
+         */
+        @SuppressWarnings("rawtypes")
+        public BiFunction<Node, Node, Node> getIterator() {
+            return this.iterate;
+        }
+
+        /**
+         * Creates an iterator dedicated to this traversal algorithm over the (sub-)tree having the given node as its root.
+         *
+         * @param node the root node of the tree to be traversed.
+         * @param <N>  type of elements referenced by the nodes of the tree.
+         * @return an iterator over the (sub-)tree having the given node as its root.
+         */
+        public abstract <N> NodeIterator<N> iterator(Node<N> node);
+
+        /**
+         * Creates a spliterator dedicated to this traversal algorithm over the (sub-)tree having the given node as its root.
+         *
+         * @param node the root node of the tree to be traversed.
+         * @param <N>  type of elements referenced by the nodes of the tree.
+         * @return a spliterator over the (sub-)tree having the given node as its root.
+         */
+        public abstract <N> Spliterator<N> spliterator(Node<N> node);
+    }
+
+    /**
+     * An aggregate over the (sub-)trees of a tree, made of a function mapping the object referenced by each node to a value and an associative function combining two values, e.g. the sum, minimum or maximum of a property of the referenced objects.
+     * <p/>
+     * The value of an aggregate over a (sub-)tree is the value mapped from the object referenced by its root node, combined with the values over the (sub-)trees having its direct descendants as their roots, from left to right. Aggregates are registered on a tree by {@link #addAggregate(Aggregate)}, and are compared by identity.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     * @param <A> type of the values of the aggregate.
+     */
+    public static final class Aggregate<N, A> {
+        /**
+         * The function mapping the object referenced by a node to a value.
+         */
+        private final Function<? super N, ? extends A> mapper;
+        /**
+         * The associative function combining two values.
+         */
+        private final BinaryOperator<A> combiner;
+
+        /**
+         * Creates an aggregate given the function mapping the objects referenced by the nodes to values and the function combining two values.
+         *
+         * @param mapper   the function mapping the object referenced by a node to a value.
+         * @param combiner the associative function combining two values, the first value being the one to the left in a depth-first left-to-right order of encounter.
+         * @throws NullPointerException if one of the given functions is null.
+         */
+        public Aggregate(Function<? super N, ? extends A> mapper, BinaryOperator<A> combiner) {
+            this.mapper = Objects.requireNonNull(mapper);
+            this.combiner = Objects.requireNonNull(combiner);
+        }
+    }
+
+    /**
+     * Writes and reads the objects referenced by the nodes of a tree in the binary format of {@link #write(Node, OutputStream, ElementCodec)}.
+     * <p/>
+     * Null objects are handled by the format itself, hence an element codec never writes or reads a null object.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    public interface ElementCodec<N> {
+        /**
+         * An element codec for objects of type {@link Integer}, written in 4 bytes.
+         */
+        ElementCodec<Integer> INTEGER = new ElementCodec<Integer>() {
+            @Override
+            public void write(DataOutput out, Integer element) throws IOException {
+                out.writeInt(element);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+        /**
+         * An element codec for objects of type {@link Long}, written in 8 bytes.
+         */
+        ElementCodec<Long> LONG = new ElementCodec<Long>() {
+            @Override
+            public void write(DataOutput out, Long element) throws IOException {
+                out.writeLong(element);
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+        /**
+         * An element codec for objects of type {@link Double}, written in 8 bytes.
+         */
+        ElementCodec<Double> DOUBLE = new ElementCodec<Double>() {
+            @Override
+            public void write(DataOutput out, Double element) throws IOException {
+                out.writeDouble(element);
+            }
+
+            @Override
+            public Double read(DataInput in) throws IOException {
+                return in.readDouble();
+            }
+        };
+        /**
+         * An element codec for objects of type {@link String}, written as the length of their UTF-8 encoding followed by the encoded bytes.
+         */
+        ElementCodec<String> STRING = new ElementCodec<String>() {
+            @Override
+            public void write(DataOutput out, String element) throws IOException {
+                byte[] bytes = element.getBytes(StandardCharsets.UTF_8);
+                Node.writeVarInt(out, bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                return new String(Node.readBytes(in, Node.readVarInt(in)), StandardCharsets.UTF_8);
+            }
+        };
+
+        /**
+         * Writes the given object.
+         *
+         * @param out     the output to which the object is written.
+         * @param element the object to be written, which is never null.
+         * @throws IOException if an I/O error occurs.
+         */
+        void write(DataOutput out, N element) throws IOException;
+
+        /**
+         * Reads an object.
+         *
+         * @param in the input from which the object is read.
+         * @return the object read.
+         * @throws IOException if an I/O error occurs.
+         */
+        N read(DataInput in) throws IOException;
+    }
+
+    /**
+     * The element codec used by Java serialization, which writes and reads objects using {@link ObjectOutput#writeObject(Object)} and {@link ObjectInput#readObject()}.
+     */
+    private static class ObjectCodec implements ElementCodec<Object> {
+        /**
+         * The only instance of this class.
+         */
+        private static final ObjectCodec INSTANCE = new ObjectCodec();
+
+        @Override
+        public void write(DataOutput out, Object element) throws IOException {
+            ((ObjectOutput) out).writeObject(element);
+        }
+
+        @Override
+        public Object read(DataInput in) throws IOException {
+            try {
+                return ((ObjectInput) in).readObject();
+            } catch (ClassNotFoundException e) {
+                throw new ClassNotFoundIOException(e);
+            }
+        }
+
+        /**
+         * Carries a {@link ClassNotFoundException} through {@link #read(DataInput)}.
+         */
+        private static class ClassNotFoundIOException extends IOException {
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * Creates an exception given the exception to be carried.
+             *
+             * @param cause the exception to be carried.
+             */
+            private ClassNotFoundIOException(ClassNotFoundException cause) {
+                super(cause);
+            }
+        }
+    }
+
+    /**
+     * An input stream that counts the bytes read from the underlying input stream.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        /**
+         * The number of bytes read.
+         */
+        private long count = 0;
+
+        /**
+         * Creates a counting input stream given the underlying input stream.
+         *
+         * @param in the underlying input stream.
+         */
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            this.count += result < 0 ? 0 : 1;
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            this.count += result < 0 ? 0 : result;
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(n);
+            this.count += result;
+            return result;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Builds a tree from its nodes given in a depth-first left-to-right order of encounter along with their numbers of direct descendants.
+     * <p/>
+     * In that order, the nodes at each depth level are encountered from left to right, hence each node is connected to the last node encountered at its depth level. The array of direct descendants of each node is allocated once with its final size, the abscissa of a node relative to its predecessor's is known once its previous direct sibling is complete, and the size and breadth of a node are added to its predecessor's once the node is complete. This builds the tree in linear time, without calling {@link #add(Node)}.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    static class Builder<N> {
+        /**
+         * The largest array of direct descendants allocated upfront. Larger arrays grow as the direct descendants are appended, so that a count read from an untrusted input cannot request a huge allocation by itself.
+         */
+        private static final int CAPACITY = 1 << 10;
+        /**
+         * The root node of the tree being built.
+         */
+        private final Node<N> root;
+        /**
+         * The state shared by the nodes of the tree.
+         */
+        private final Tree<N> tree;
+        /**
+         * The last node encountered at each depth level.
+         */
+        @SuppressWarnings("unchecked")
+        private Node<N>[] last = (Node<N>[]) new Node<?>[16];
+        /**
+         * The number of direct descendants of the last node encountered at each depth level.
+         */
+        private int[] counts = new int[16];
+        /**
+         * The directory of the depth levels of the tree.
+         */
+        private final Levels<N> levels;
+        /**
+         * The node whose direct descendants are being appended, or null if the root node has not been appended yet or the tree is complete.
+         */
+        private Node<N> predecessor;
+        /**
+         * Whether the tree is complete.
+         */
+        private boolean complete = false;
+
+        /**
+         * Creates a builder of a tree given its preferred traversal algorithm.
+         *
+         * @param traversalAlgorithm the preferred traversal algorithm for the tree.
+         */
+        Builder(TraversalAlgorithm traversalAlgorithm) {
+            this(new Node<>(), new Tree<>(traversalAlgorithm));
+        }
+
+        /**
+         * Creates a builder of a tree given the node into which the root node is built and the state shared by the nodes of the tree.
+         *
+         * @param root the node into which the root node is built.
+         * @param tree the state shared by the nodes of the tree.
+         */
+        private Builder(Node<N> root, Tree<N> tree) {
+            this.root = root;
+            this.tree = tree;
+            this.tree.levels = this.levels = new Levels<>();
+        }
+
+        /**
+         * Appends the next node in a depth-first left-to-right order of encounter.
+         *
+         * @param element the object referenced by the node.
+         * @param count   the number of direct descendants of the node.
+         * @return true if the tree is complete, false otherwise.
+         * @throws IllegalStateException if the tree is already complete.
+         */
+        boolean append(N element, int count) {
+            return this.append(this.predecessor == null ? this.root : new Node<>(), element, count);
+        }
+
+        /**
+         * Appends the given node as the next node in a depth-first left-to-right order of encounter.
+         * <p/>
+         * Every field of the given node is overwritten, its cached hash is invalidated and its label and the values of its aggregates are dropped. The given node must be the root node of the tree being built if no node has been appended yet.
+         *
+         * @param node    the node to be appended.
+         * @param element the object referenced by the node.
+         * @param count   the number of direct descendants of the node.
+         * @return true if the tree is complete, false otherwise.
+         * @throws IllegalStateException if the tree is already complete.
+         */
+        @SuppressWarnings("unchecked")
+        boolean append(Node<N> node, N element, int count) {
+            if (this.complete) {
+                throw new IllegalStateException();
+            }
+            node.element = element;
+            node.tree = this.tree;
+            node.descendants = (Node<N>[]) (count == 0 ? EMPTY_DESCENDANTS : new Node<?>[Math.min(count, CAPACITY)]);
+            node.countDescendants = 0;
+            node.countAll = 1;
+            node.breadth = count == 0 ? 1 : 0;
+            node.height = 0;
+            node.countHighest = 0;
+            node.x = 0;
+            node.nextSibling = null;
+            node.hashed = false;
+            node.label = null;
+            node.aggregates = null;
+            if ((node.predecessor = this.predecessor) != null) {
+                node.y = this.predecessor.y + 1;
+                if (this.predecessor.countDescendants > 0) {
+                    Node<N> previous = this.predecessor.descendants[this.predecessor.countDescendants - 1];
+                    node.x = previous.x + previous.breadth;
+                }
+                if (this.predecessor.countDescendants == this.predecessor.descendants.length) {
+                    this.predecessor.descendants = Arrays.copyOf(this.predecessor.descendants, (int) Math.min(this.counts[this.predecessor.y], 2L * this.predecessor.descendants.length));
+                }
+                this.predecessor.descendants[this.predecessor.countDescendants++] = node;
+            } else {
+                node.y = 0;
+            }
+            if (node.y == this.last.length) {
+                this.last = Arrays.copyOf(this.last, this.last.length << 1);
+                this.counts = Arrays.copyOf(this.counts, this.counts.length << 1);
+            }
+            this.counts[node.y] = count;
+            if ((node.previousSibling = this.last[node.y]) != null) {
+                node.previousSibling.nextSibling = node;
+            }
+            this.last[node.y] = node;
+            this.levels.add(node.y, node, node, 1);
+            if (count > 0) {
+                this.predecessor = node;
+                return false;
+            }
+            for (; node != this.root && node.predecessor.countDescendants == this.counts[node.predecessor.y]; node = node.predecessor) {
+                node.predecessor.countAll += node.countAll;
+                node.predecessor.breadth += node.breadth;
+                node.predecessor.addHeight(node.height + 1);
+            }
+            if (node == this.root) {
+                this.predecessor = null;
+                this.last = null;
+                this.counts = null;
+                return this.complete = true;
+            }
+            node.predecessor.countAll += node.countAll;
+            node.predecessor.breadth += node.breadth;
+            node.predecessor.addHeight(node.height + 1);
+            this.predecessor = node.predecessor;
+            return false;
+        }
+
+        /**
+         * Gets the root node of the tree being built.
+         *
+         * @return the root node of the tree.
+         */
+        Node<N> getRoot() {
+            return this.root;
+        }
+    }
+
+    /**
+     * The state of a tree as a whole, shared by all the nodes of that tree, and by these nodes only.
+     * <p/>
+     * Sharing a single instance makes it possible to read and change the state of a tree from any node in constant time, e.g. the preferred traversal algorithm, without walking up to the root node. The nodes of a detached (sub-)tree are given a new instance, and the nodes added to a tree are given the instance of that tree.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static class Tree<N> {
+        /**
+         * The number of the last structural modifications whose modified node is recorded, a power of 2.
+         */
+        private static final int MODIFIED = 16;
+        /**
+         * The preferred traversal algorithm for the tree.
+         */
+        private TraversalAlgorithm traversalAlgorithm;
+        /**
+         * The number of structural modifications of the tree, i.e. the number of calls to {@link Node#addAll(int, Node[])} and {@link Node#detach()} that changed it.
+         */
+        private int modifications = 0;
+        /**
+         * The nodes whose direct descendants were changed by the last {@link #MODIFIED} structural modifications, indexed by the number of modifications before each of them modulo {@link #MODIFIED}, or null if the tree has not been modified. A recorded node is retained until overwritten, even once detached.
+         */
+        private Node<N>[] modified;
+        /**
+         * The directory of the depth levels of the tree, which may be null if the tree is made of a single node.
+         */
+        private Levels<N> levels;
+        /**
+         * The aggregates registered on the tree, in the order of registration, or null if no aggregate is registered. The array is replaced rather than modified.
+         */
+        private Aggregate<?, ?>[] aggregates;
+        /**
+         * The index of the objects referenced by the nodes of the tree, or null if the tree is not indexed. See {@link Node#setIndexed(boolean)}.
+         */
+        private ElementIndex<N> elementIndex;
+        /**
+         * The journal recording the mutations of the tree, or null if the tree is not journaled. A detached (sub-)tree is not journaled.
+         */
+        private Journal<?> journal;
+
+        /**
+         * Creates the state of a tree given its preferred traversal algorithm.
+         *
+         * @param traversalAlgorithm the preferred traversal algorithm for the tree.
+         */
+        private Tree(TraversalAlgorithm traversalAlgorithm) {
+            this.traversalAlgorithm = traversalAlgorithm;
+        }
+    }
+
+    /**
+     * A view of the nodes of a tree at a depth level. See {@link #getLevel(int)}.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static class LevelView<N> extends AbstractCollection<Node<N>> {
+        /**
+         * A node of the tree, whose directory of the depth levels is used.
+         */
+        private final Node<N> node;
+        /**
+         * The depth level.
+         */
+        private final int y;
+
+        /**
+         * Creates a view of the nodes at a depth level given a node of the tree and the depth level.
+         *
+         * @param node a node of the tree.
+         * @param y    the depth level.
+         */
+        private LevelView(Node<N> node, int y) {
+            this.node = node;
+            this.y = y;
+        }
+
+        @Override
+        public Iterator<Node<N>> iterator() {
+            Levels<N> levels = this.node.levels();
+            Node<N> head = levels == null ? this.y == 0 ? this.node : null : this.y < levels.height ? levels.heads[this.y] : null;
+            return new Iterator<Node<N>>() {
+                private Node<N> next = head;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != null;
+                }
+
+                @Override
+                public Node<N> next() {
+                    if (this.next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Node<N> result = this.next;
+                    this.next = result.nextSibling;
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            Levels<N> levels = this.node.levels();
+            return levels == null ? this.y == 0 ? 1 : 0 : this.y < levels.height ? levels.counts[this.y] : 0;
+        }
+    }
+
+    /**
+     * The directory of the depth levels of a tree, holding the left-most node, the right-most node and the number of nodes at each depth level.
+     * <p/>
+     * A directory is shared by the nodes of a tree through their {@link Tree}, and is maintained by {@link Node#addAll(int, Node[])}, {@link Node#detach()} and {@link Builder} as the nodes are connected to and disconnected from their siblings.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static class Levels<N> {
+        /**
+         * The left-most node at each depth level.
+         */
+        @SuppressWarnings("unchecked")
+        private Node<N>[] heads = (Node<N>[]) new Node<?>[16];
+        /**
+         * The right-most node at each depth level.
+         */
+        @SuppressWarnings("unchecked")
+        private Node<N>[] tails = (Node<N>[]) new Node<?>[16];
+        /**
+         * The number of nodes at each depth level.
+         */
+        private int[] counts = new int[16];
+        /**
+         * The number of depth levels holding at least one node.
+         */
+        private int height = 0;
+
+        /**
+         * Records adjacent nodes at a depth level, once they are connected to their siblings.
+         *
+         * @param y     the depth level of the nodes.
+         * @param first the left-most of the nodes.
+         * @param last  the right-most of the nodes.
+         * @param count the number of nodes.
+         */
+        private void add(int y, Node<N> first, Node<N> last, int count) {
+            if (y == this.counts.length) {
+                this.heads = Arrays.copyOf(this.heads, y << 1);
+                this.tails = Arrays.copyOf(this.tails, y << 1);
+                this.counts = Arrays.copyOf(this.counts, y << 1);
+            }
+            if (first.previousSibling == null) {
+                this.heads[y] = first;
+            }
+            if (last.nextSibling == null) {
+                this.tails[y] = last;
+            }
+            this.counts[y] += count;
+            this.height = Math.max(this.height, y + 1);
+        }
+
+        /**
+         * Forgets adjacent nodes at a depth level, once they are disconnected from their siblings.
+         *
+         * @param y        the depth level of the nodes.
+         * @param previous the node that was connected to the left-most of the nodes, or null if there was none.
+         * @param next     the node that was connected to the right-most of the nodes, or null if there was none.
+         * @param count    the number of nodes.
+         */
+        private void remove(int y, Node<N> previous, Node<N> next, int count) {
+            if (previous == null) {
+                this.heads[y] = next;
+            }
+            if (next == null) {
+                this.tails[y] = previous;
+            }
+            if ((this.counts[y] -= count) == 0) {
+                this.height = Math.min(this.height, y);
+            }
+        }
+    }
+
+    /**
+     * The positions at which a depth-first left-to-right walk of a labeled tree enters and leaves a node. See {@link #setLabeled(boolean)}.
+     */
+    private static class Label {
+        /**
+         * The position at which the walk enters the node.
+         */
+        private long pre;
+        /**
+         * The position at which the walk leaves the node.
+         */
+        private long post;
+    }
+
+    /**
+     * An index of the objects referenced by the nodes of a tree.
+     * <p/>
+     * This is a multimap from each referenced object to the nodes referencing it: an object referenced by a single node is mapped to that node, and an object referenced by more than one node is mapped to an identity-based set of those nodes.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static class ElementIndex<N> {
+        /**
+         * The nodes referencing each object, either a single node or a set of nodes.
+         */
+        private final HashMap<Object, Object> nodes = new HashMap<>();
+
+        /**
+         * Adds the given node to the nodes referencing its object.
+         *
+         * @param node the node to be indexed.
+         */
+        @SuppressWarnings("unchecked")
+        private void add(Node<N> node) {
+            Object tmp = this.nodes.putIfAbsent(node.element, node);
+            if (tmp instanceof Node) {
+                Set<Node<N>> set = Collections.newSetFromMap(new IdentityHashMap<>());
+                set.add((Node<N>) tmp);
+                set.add(node);
+                this.nodes.put(node.element, set);
+            } else if (tmp != null) {
+                ((Set<Node<N>>) tmp).add(node);
+            }
+        }
+
+        /**
+         * Removes the given node from the nodes referencing its object.
+         *
+         * @param node the node to be removed from the index.
+         */
+        @SuppressWarnings("unchecked")
+        private void remove(Node<N> node) {
+            Object tmp = this.nodes.get(node.element);
+            if (tmp == node) {
+                this.nodes.remove(node.element);
+            } else if (tmp instanceof Set) {
+                Set<Node<N>> set = (Set<Node<N>>) tmp;
+                set.remove(node);
+                if (set.size() == 1) {
+                    this.nodes.put(node.element, set.iterator().next());
+                }
+            }
+        }
+
+        /**
+         * Gets the nodes referencing the given object.
+         *
+         * @param element the referenced object.
+         * @return the nodes referencing the given object.
+         */
+        @SuppressWarnings("unchecked")
+        private Collection<Node<N>> get(Object element) {
+            Object tmp = this.nodes.get(element);
+            return tmp == null ? Collections.emptySet() : tmp instanceof Set ? (Set<Node<N>>) tmp : Collections.singleton((Node<N>) tmp);
+        }
+
+        /**
+         * Returns the first node referencing the given object that follows the given node in the order of encounter of the given traversal algorithm.
+         * <p/>
+         * The abscissas of the nodes involved are resolved along their paths to the root node once, sharing the parts of the paths that the nodes have in common, and a node descends from the given root node if it lies below it within its breadth.
+         *
+         * @param element            the referenced object.
+         * @param node               the node from which the order of encounter starts.
+         * @param root               the root node of the (sub-)tree to be searched, or null to search the whole tree.
+         * @param traversalAlgorithm the traversal algorithm whose order of encounter is applied.
+         * @return the first node referencing the given object following the given node, the given node included, or null if no such node is found.
+         */
+        private Node<N> findNext(Object element, Node<N> node, Node<N> root, TraversalAlgorithm traversalAlgorithm) {
+            Collection<Node<N>> nodes = this.get(element);
+            if (nodes.isEmpty()) {
+                return null;
+            }
+            Map<Node<?>, Integer> abscissas = new IdentityHashMap<>();
+            Node<N> result = null;
+            long from = ElementIndex.position(node, ElementIndex.getX(node, abscissas), traversalAlgorithm), min = Long.MAX_VALUE;
+            int left = root == null ? 0 : ElementIndex.getX(root, abscissas), right = root == null ? 0 : left + root.breadth;
+            for (Node<N> tmp : nodes) {
+                if (root != null && tmp.y < root.y) {
+                    continue;
+                }
+                int x = ElementIndex.getX(tmp, abscissas);
+                long position = ElementIndex.position(tmp, x, traversalAlgorithm);
+                if (position >= from && position < min && (root == null || left <= x && x < right)) {
+                    result = tmp;
+                    min = position;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Gets the abscissa of the given node, as {@link Node#getX()} does, reusing and recording the abscissas of the nodes along its path to the root node.
+         *
+         * @param node      the node whose abscissa is resolved.
+         * @param abscissas the abscissas resolved so far.
+         * @return the abscissa of the given node.
+         */
+        private static int getX(Node<?> node, Map<Node<?>, Integer> abscissas) {
+            int result = 0;
+            Integer base = null;
+            Node<?> stop = node;
+            for (; stop != null && (base = abscissas.get(stop)) == null; result += stop.x, stop = stop.predecessor) ;
+            result += base == null ? 0 : base;
+            int x = result;
+            for (Node<?> tmp = node; tmp != stop; abscissas.put(tmp, x), x -= tmp.x, tmp = tmp.predecessor) ;
+            return result;
+        }
+
+        /**
+         * Computes the position of the given node in the order of encounter of the given traversal algorithm.
+         * <p/>
+         * Positions are derived from the node coordinates: breadth-first orders are sorted by ordinate first and then by abscissa, whereas depth-first orders are sorted by abscissa, or by the abscissa of the right-most leaf for the right-to-left order, first and then by ordinate.
+         *
+         * @param node               the node whose position is computed.
+         * @param x                  the abscissa of the given node.
+         * @param traversalAlgorithm the traversal algorithm whose order of encounter is applied.
+         * @return a value that is less than the position of every node following the given node in the order of encounter.
+         */
+        private static long position(Node<?> node, int x, TraversalAlgorithm traversalAlgorithm) {
+            switch (traversalAlgorithm) {
+                case BREADTH_FIRST_LEFT:
+                    return ((long) node.y << 32) + x;
+                case BREADTH_FIRST_RIGHT:
+                    return ((long) node.y << 32) - x + Integer.MAX_VALUE;
+                case DEPTH_FIRST_LEFT:
+                    return ((long) x << 32) + node.y;
+                default:
+                    return ((long) (Integer.MAX_VALUE - x - node.breadth) << 32) + node.y;
+            }
+        }
+    }
+
+    /*
+     * Node logic.
+     */
+    /**
+     * Translates a tree given its root node, a mapper function and the preferred traversal algorithm.
+     *
+     * @param node   root node of the tree to be translated.
+     * @param mapper a function that translates elements from type <code><b>N</b></code> to type <code><b>M</b></code>.
+     * @param <N>    type of elements of the source tree.
+     * @param <M>    type of elements of the generated tree.
+     * @return a tree that has the same structure as the tree having the given node as its root, referencing elements of type <code><b>M</b></code>.
+     */
+    public static <N, M> Node<M> translate(Node<N> node, Function<N, M> mapper) {
+        return new Node<>(e -> Arrays.copyOf(e.descendants, e.countDescendants), node, e -> mapper.apply(e.element), node.tree.traversalAlgorithm);
+    }
+
+    /**
+     * The magic number at the start of the binary format of a tree.
+     */
+    private static final int MAGIC = 0x4E4F4445;
+    /**
+     * The version of the binary format of a tree.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Writes the (sub-)tree having the given node as its root to the given output stream in a compact binary format.
+     * <p/>
+     * The format consists of a header holding a magic number, the version of the format, the preferred traversal algorithm and the size of the (sub-)tree, followed by one record per node in a depth-first left-to-right order of encounter. Each record holds the number of direct descendants of the node, along with a flag telling whether the node references null, as a variable-length integer, followed by the referenced object written by the given element codec unless it is null.
+     * <p/>
+     * The (sub-)tree is walked iteratively, which makes this function suitable for trees of any depth. The given output stream is flushed but not closed.
+     *
+     * @param node  the root node of the (sub-)tree to be written.
+     * @param out   the output stream to which the (sub-)tree is written.
+     * @param codec the element codec that writes the referenced objects.
+     * @param <N>   type of elements referenced by the nodes of the tree.
+     * @throws NullPointerException if one of the arguments is null.
+     * @throws IOException          if an I/O error occurs.
+     */
+    public static <N> void write(Node<N> node, OutputStream out, ElementCodec<? super N> codec) throws IOException {
+        Objects.requireNonNull(node);
+        Objects.requireNonNull(codec);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Objects.requireNonNull(out)));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(node.tree.traversalAlgorithm.ordinal());
+        data.writeInt(node.countAll);
+        Node.encode(node, data, codec);
+        data.flush();
+    }
+
+    /**
+     * Writes the (sub-)tree having the given node as its root to the given file channel at its current position.
+     * <p/>
+     * See {@link #write(Node, OutputStream, ElementCodec)}. The position of the given file channel is advanced past the written tree.
+     *
+     * @param node    the root node of the (sub-)tree to be written.
+     * @param channel the file channel to which the (sub-)tree is written.
+     * @param codec   the element codec that writes the referenced objects.
+     * @param <N>     type of elements referenced by the nodes of the tree.
+     * @throws NullPointerException if one of the arguments is null.
+     * @throws IOException          if an I/O error occurs.
+     */
+    public static <N> void write(Node<N> node, FileChannel channel, ElementCodec<? super N> codec) throws IOException {
+        Node.write(node, Channels.newOutputStream(Objects.requireNonNull(channel)), codec);
+    }
+
+    /**
+     * Reads a tree written by {@link #write(Node, OutputStream, ElementCodec)} from the given input stream.
+     * <p/>
+     * The tree is rebuilt in a single pass over the records: the array of direct descendants of each node is allocated once with its final size, and the sibling connections, ordinates, relative abscissas, sizes and breadths are set as the records are read, without calling {@link #add(Node)}.
+     * <p/>
+     * The given input stream is read exactly up to the end of the tree, and is not closed. It should be buffered.
+     *
+     * @param in    the input stream from which the tree is read.
+     * @param codec the element codec that reads the referenced objects.
+     * @param <N>   type of elements referenced by the nodes of the tree.
+     * @return the root node of the tree read.
+     * @throws NullPointerException       if one of the arguments is null.
+     * @throws StreamCorruptedException   if the given input stream does not hold a tree in the expected format.
+     * @throws IOException                if an I/O error occurs.
+     */
+    public static <N> Node<N> read(InputStream in, ElementCodec<? extends N> codec) throws IOException {
+        Objects.requireNonNull(codec);
+        DataInputStream data = new DataInputStream(Objects.requireNonNull(in));
+        if (data.readInt() != MAGIC || data.readByte() != VERSION) {
+            throw new StreamCorruptedException();
+        }
+        int traversalAlgorithm = data.readUnsignedByte();
+        if (traversalAlgorithm >= TraversalAlgorithm.values().length) {
+            throw new StreamCorruptedException();
+        }
+        Node<N> result = new Node<>();
+        Node.decode(result, data.readInt(), data, codec, new Tree<>(TraversalAlgorithm.values()[traversalAlgorithm]));
+        return result;
+    }
+
+    /**
+     * Reads a tree written by {@link #write(Node, FileChannel, ElementCodec)} from the given file channel at its current position.
+     * <p/>
+     * See {@link #read(InputStream, ElementCodec)}. The file channel is read through a buffer, and its position is set right after the tree read.
+     *
+     * @param channel the file channel from which the tree is read.
+     * @param codec   the element codec that reads the referenced objects.
+     * @param <N>     type of elements referenced by the nodes of the tree.
+     * @return the root node of the tree read.
+     * @throws NullPointerException       if one of the arguments is null.
+     * @throws StreamCorruptedException   if the given file channel does not hold a tree in the expected format at its current position.
+     * @throws IOException                if an I/O error occurs.
+     */
+    public static <N> Node<N> read(FileChannel channel, ElementCodec<? extends N> codec) throws IOException {
+        long position = Objects.requireNonNull(channel).position();
+        CountingInputStream in = new CountingInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        Node<N> result = Node.read(in, codec);
+        channel.position(position + in.count);
+        return result;
+    }
+
+    /**
+     * Writes the records of the nodes of the (sub-)tree having the given node as its root in a depth-first left-to-right order of encounter.
+     *
+     * @param node  the root node of the (sub-)tree to be written.
+     * @param out   the output to which the records are written.
+     * @param codec the element codec that writes the referenced objects.
+     * @param <N>   type of elements referenced by the nodes of the tree.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static <N> void encode(Node<N> node, DataOutput out, ElementCodec<? super N> codec) throws IOException {
+        for (Node<N> tmp = node; tmp != null; tmp = tmp.nextDepthFirstLeft(node)) {
+            Node.writeVarInt(out, tmp.countDescendants << 1 | (tmp.element == null ? 1 : 0));
+            if (tmp.element != null) {
+                codec.write(out, tmp.element);
+            }
+        }
+    }
+
+    /**
+     * Reads the records written by {@link #encode(Node, DataOutput, ElementCodec)} into the given root node using a {@link Builder}.
+     *
+     * @param root  the node into which the root record is read.
+     * @param size  the number of records.
+     * @param in    the input from which the records are read.
+     * @param codec the element codec that reads the referenced objects.
+     * @param tree  the state shared by the nodes of the tree.
+     * @param <N>   type of elements referenced by the nodes of the tree.
+     * @throws StreamCorruptedException if the records do not describe a tree of the given size.
+     * @throws IOException              if an I/O error occurs.
+     */
+    private static <N> void decode(Node<N> root, int size, DataInput in, ElementCodec<? extends N> codec, Tree<N> tree) throws IOException {
+        if (size < 1) {
+            throw new StreamCorruptedException();
+        }
+        Builder<N> builder = new Builder<>(root, tree);
+        for (int i = 0; i < size; i++) {
+            int header = Node.readVarInt(in), count = header >>> 1;
+            if (count > size - i - 1 || builder.append((header & 1) == 0 ? codec.read(in) : null, count) != (i == size - 1)) {
+                throw new StreamCorruptedException();
+            }
+        }
+    }
+
+    /**
+     * Reads the given number of bytes, growing the returned array as the bytes are read rather than allocating it upfront, so that a length read from an untrusted input cannot request a huge allocation by itself.
+     *
+     * @param in     the input from which the bytes are read.
+     * @param length the number of bytes to be read.
+     * @return the bytes read.
+     * @throws StreamCorruptedException if the given length is negative.
+     * @throws IOException              if an I/O error occurs.
+     */
+    static byte[] readBytes(DataInput in, int length) throws IOException {
+        if (length < 0) {
+            throw new StreamCorruptedException();
+        }
+        byte[] result = new byte[Math.min(length, 1 << 16)];
+        for (int offset = 0; ; ) {
+            in.readFully(result, offset, result.length - offset);
+            if ((offset = result.length) == length) {
+                return result;
+            }
+            result = Arrays.copyOf(result, (int) Math.min(length, 2L * offset));
+        }
+    }
+
+    /**
+     * Writes the given non-negative integer using 7 bits per byte, the most significant bit of each byte telling whether more bytes follow.
+     *
+     * @param out   the output to which the integer is written.
+     * @param value the integer to be written.
+     * @throws IOException if an I/O error occurs.
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        for (; (value & ~0x7F) != 0; out.writeByte((value & 0x7F) | 0x80), value >>>= 7) ;
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an integer written by {@link #writeVarInt(DataOutput, int)}.
+     *
+     * @param in the input from which the integer is read.
+     * @return the integer read.
+     * @throws StreamCorruptedException if the integer takes more than 5 bytes.
+     * @throws IOException              if an I/O error occurs.
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte tmp = in.readByte();
+            result |= (tmp & 0x7F) << shift;
+            if (tmp >= 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException();
+    }
+
+    /**
+     * Computes the edit script transforming the given source tree into the given target tree, matching nodes referencing equal objects.
+     * <p/>
+     * This function calls {@link TreeDiff#TreeDiff(Node, Node)}.
+     *
+     * @param source the root node of the source tree.
+     * @param target the root node of the target tree.
+     * @param <N>    type of objects referenced by nodes of both trees.
+     * @return the edit script.
+     */
+    public static <N> TreeDiff<N> diff(Node<N> source, Node<N> target) {
+        return new TreeDiff<>(source, target);
+    }
+
+    /**
+     * Computes the edit script transforming the given source tree into the given target tree, matching nodes referencing objects having equal keys.
+     * <p/>
+     * This function calls {@link TreeDiff#TreeDiff(Node, Node, Function)}.
+     *
+     * @param source the root node of the source tree.
+     * @param target the root node of the target tree.
+     * @param key    the function computing the key of a referenced object.
+     * @param <N>    type of objects referenced by nodes of both trees.
+     * @return the edit script.
+     */
+    public static <N> TreeDiff<N> diff(Node<N> source, Node<N> target, Function<? super N, ?> key) {
+        return new TreeDiff<>(source, target, key);
+    }
+
+    /**
+     * A function that compares two trees given two root nodes for equality.
+     *
+     * @param node1      left-hand operand.
+     * @param node2      right-hand operand.
+     * @param comparator a function that compares two elements, one from each tree, for equality.
+     * @param <N>        type of objects referenced by nodes of both trees.
+     * @return true if both trees are equal, false otherwise.
+     */
+    public static <N> boolean equals(Node<N> node1, Node<N> node2, Comparator<N> comparator) {
+        return Node.equals(node1, node2, (BiPredicate<N, N>) (e, f) -> comparator.compare(e, f) == 0);
+    }
+
+    /**
+     * A function that compares two trees given two root nodes for equality.
+     * <p/>
+     * Equality of two elements is evaluated using {@link Objects#equals(Object, Object)}, which is consistent with {@link #hashCode()}: the comparison returns false as soon as two nodes having valid cached hashes are found to have different hashes.
+     *
+     * @param node1 left-hand operand.
+     * @param node2 right-hand operand.
+     * @param <N>   type of objects referenced by nodes of both trees.
+     * @return true if both trees are equal, false otherwise.
+     */
+    public static <N> boolean equals(Node<N> node1, Node<N> node2) {
+        return Node.equals(node1, (BiPredicate<N, N>) (e, f) -> Objects.equals(e, f), node2, true);
+    }
+
+    /**
+     * A function that compares two trees given two root nodes for equality.
+     *
+     * @param node1     left-hand operand.
+     * @param node2     right-hand operand.
+     * @param predicate a function that evaluates the equality of two nodes one from each tree.
+     * @param <N>       type of objects referenced by nodes of both trees.
+     * @return true if both trees are equal, false otherwise.
+     */
+    public static <N> boolean equals(Node<N> node1, Node<N> node2, BiPredicate<N, N> predicate) {
+        return Node.equals(node1, predicate, node2);
+    }
+
+    /**
+     * A function that compares two trees given two root nodes for equality.
+     *
+     * @param node1     left-hand operand.
+     * @param predicate a function that evaluates equality of two nodes one from each tree.
+     * @param node2     right-hand operand.
+     * @param <N>       type of objects referenced by nodes of the first tree.
+     * @param <M>       type of objects referenced by nodes of the second tree.
+     * @return true if both trees are equal, false otherwise.
+     */
+    public static <N, M> boolean equals(Node<N> node1, BiPredicate<N, M> predicate, Node<M> node2) {
+        return Node.equals(node1, predicate, node2, false);
+    }
+
+    /**
+     * A function that compares two trees given two root nodes for equality.
+     * <p/>
+     * Both trees are walked simultaneously in a depth-first left-to-right order of encounter, comparing the numbers of direct descendants and the referenced objects of the encountered nodes. Since a tree is fully described by that order along with the numbers of direct descendants, no other property has to be compared.
+     *
+     * @param node1     left-hand operand.
+     * @param predicate a function that evaluates equality of two nodes one from each tree.
+     * @param node2     right-hand operand.
+     * @param hashed    whether the given predicate is consistent with the hashes of the referenced objects, in which case nodes having valid cached hashes are compared by hash first.
+     * @param <N>       type of objects referenced by nodes of the first tree.
+     * @param <M>       type of objects referenced by nodes of the second tree.
+     * @return true if both trees are equal, false otherwise.
+     */
+    private static <N, M> boolean equals(Node<N> node1, BiPredicate<N, M> predicate, Node<M> node2, boolean hashed) {
+        if (node1 == node2) {
+            return true;
+        }
+        if (node1 == null ^ node2 == null) {
+            return false;
+        }
+        if (node1.countAll != node2.countAll || node1.breadth != node2.breadth) {
+            return false;
+        }
+        Node<N> tmp1;
+        Node<M> tmp2;
+        for (tmp1 = node1, tmp2 = node2; tmp1 != null; tmp1 = tmp1.nextDepthFirstLeft(node1), tmp2 = tmp2.nextDepthFirstLeft(node2)) {
+            if (hashed && tmp1.hashed && tmp2.hashed && tmp1.hash != tmp2.hash) {
+                return false;
+            }
+            if (tmp1.countDescendants != tmp2.countDescendants || !predicate.test(tmp1.element, tmp2.element)) {
                 return false;
             }
         }
@@ -0,0 +1,290 @@
+package org.datastructures.node;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.function.ObjIntConsumer;
+
+/*
+ * Notes:
+ * . An off-heap tree is a frozen, read-only copy of a tree of nodes whose structure is stored outside of the Java heap, in direct byte buffers, so that the structure of very large trees neither counts against the maximum heap size nor is copied around by the garbage collector, and is released as soon as the tree is closed.
+ * . The traversals and searches are those of CompactTree, which reads the structure through the Columns accessor of AbstractCompactTree. Here, the structural properties of each node are stored in a fixed-width record of int fields, the records being laid out by position, followed by the positions of the nodes depth level by depth level. The index of the first node at each depth level is kept on the heap, its length growing with the height of the tree only.
+ * . A direct byte buffer holds at most 2 GiB, hence the fields are spread over chunks of 2^28 int fields each.
+ * . The referenced objects are Java objects, and are kept on the heap in the array of objects of CompactTree.
+ * . The memory held by a direct byte buffer is released by the garbage collector once the buffer is unreachable. Closing the tree releases it immediately through sun.misc.Unsafe.invokeCleaner(ByteBuffer) where available (Java 9 and later), and leaves it to the garbage collector otherwise. The Foreign Function & Memory API is not available before Java 22.
+ */
+/**
+ * The <code><b>OffHeapTree</b></code> class represents a read-only tree whose structure is stored off the Java heap.
+ * <p/>
+ * An off-heap tree is created from a {@link Node} by {@link #OffHeapTree(Node)}, converted back to a {@link Node} by {@link #toNode()}, and released by {@link #close()}. It offers the traversal orders and searches of {@link Node} on nodes identified by their positions, along with a read-only {@link Collection} view of the referenced objects. Functions returning a node return -1 where {@link Node} returns null.
+ * <p/>
+ * Any function called once the tree is closed throws an {@link IllegalStateException}. The tree must not be closed while another thread uses it.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class OffHeapTree<N> extends CompactTree<N> implements AutoCloseable {
+    /**
+     * The base-2 logarithm of the number of int fields in a chunk.
+     */
+    static final int SHIFT = 28;
+    /**
+     * The mask giving the position of an int field in its chunk.
+     */
+    static final long MASK = (1L << SHIFT) - 1;
+    /**
+     * The handle of sun.misc.Unsafe.invokeCleaner(ByteBuffer) bound to the instance of sun.misc.Unsafe, or null if not available.
+     */
+    private static final MethodHandle CLEANER = OffHeapTree.cleaner();
+    /**
+     * The records of the nodes and the positions of the nodes depth level by depth level.
+     */
+    private final Records records;
+
+    /**
+     * Creates an off-heap tree holding a copy of the (sub-)tree having the given node as its root.
+     * <p/>
+     * The (sub-)tree is walked once iteratively, and the depth levels are indexed in a second pass over the positions.
+     *
+     * @param root the root node of the (sub-)tree to be copied.
+     * @throws NullPointerException if the given node is null.
+     * @throws OutOfMemoryError     if the direct memory is exhausted.
+     */
+    public OffHeapTree(Node<N> root) {
+        this(root, root.size());
+    }
+
+    /**
+     * Creates an off-heap tree holding a copy of the (sub-)tree having the given node as its root, given its number of nodes.
+     */
+    private OffHeapTree(Node<N> root, int count) {
+        this(root, new Records(OffHeapTree.allocate(OffHeapTree.ints(count)), count), new Object[count]);
+    }
+
+    /**
+     * Creates an off-heap tree holding a copy of the (sub-)tree having the given node as its root, given the records into which the structure is written and the array into which the referenced objects are copied.
+     */
+    private OffHeapTree(Node<N> root, Records records, Object[] elements) {
+        super(root, records, elements);
+        this.records = records;
+    }
+
+    /**
+     * Creates an off-heap tree over the given records laid out by {@link #layout(Node, Columns, ObjIntConsumer)}.
+     * <p/>
+     * A subclass giving no array of referenced objects must override {@link #getElement(int)}.
+     *
+     * @param records            the records of the nodes.
+     * @param levelStarts        the index of the first node at each depth level, followed by the number of nodes.
+     * @param traversalAlgorithm the preferred traversal algorithm for the tree.
+     * @param elements           the objects referenced by the nodes, or null.
+     */
+    OffHeapTree(Records records, int[] levelStarts, Node.TraversalAlgorithm traversalAlgorithm, Object[] elements) {
+        super(records, levelStarts, traversalAlgorithm, elements);
+        this.records = records;
+    }
+
+    /**
+     * Gets the number of int fields holding the records and the depth levels of a tree of the given size.
+     *
+     * @param count the number of nodes in the tree.
+     * @return the number of int fields.
+     */
+    static long ints(int count) {
+        return (long) count * (FIELDS + 1);
+    }
+
+    /**
+     * Allocates the chunks holding the given number of int fields.
+     *
+     * @param count the number of int fields.
+     * @return the chunks.
+     */
+    private static ByteBuffer[] allocate(long count) {
+        ByteBuffer[] result = new ByteBuffer[(int) ((count + MASK) >>> SHIFT)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ByteBuffer.allocateDirect((int) Math.min(MASK + 1, count - ((long) i << SHIFT)) << 2).order(ByteOrder.nativeOrder());
+        }
+        return result;
+    }
+
+    /**
+     * Releases the memory held by the given direct byte buffer if possible, which also unmaps a mapped byte buffer.
+     *
+     * @param buffer the buffer to be released.
+     */
+    static void release(ByteBuffer buffer) {
+        if (CLEANER != null) {
+            try {
+                CLEANER.invokeExact(buffer);
+            } catch (Throwable e) {
+                // left to the garbage collector
+            }
+        }
+    }
+
+    /**
+     * Looks up sun.misc.Unsafe.invokeCleaner(ByteBuffer).
+     *
+     * @return the handle of the function bound to the instance of sun.misc.Unsafe, or null if not available.
+     */
+    private static MethodHandle cleaner() {
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflect(type.getMethod("invokeCleaner", ByteBuffer.class)).bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the int field at the given position in the given chunks.
+     *
+     * @param chunks the chunks of int fields.
+     * @param index  the position of the field.
+     * @return the value of the field.
+     */
+    static int get(ByteBuffer[] chunks, long index) {
+        return chunks[(int) (index >>> SHIFT)].getInt((int) (index & MASK) << 2);
+    }
+
+    /**
+     * Sets the int field at the given position in the given chunks.
+     *
+     * @param chunks the chunks of int fields.
+     * @param index  the position of the field.
+     * @param value  the value of the field.
+     */
+    static void put(ByteBuffer[] chunks, long index, int value) {
+        chunks[(int) (index >>> SHIFT)].putInt((int) (index & MASK) << 2, value);
+    }
+
+    /**
+     * Gets the int field at the given position.
+     *
+     * @param index the position of the field.
+     * @return the value of the field.
+     * @throws IllegalStateException if the tree is closed.
+     */
+    int get(long index) {
+        return this.records.get(index);
+    }
+
+    /**
+     * Releases the memory holding the structure of the tree. This function has no effect if the tree is already closed.
+     */
+    @Override
+    public void close() {
+        this.records.close();
+    }
+
+    /**
+     * Tells whether the tree is closed.
+     *
+     * @return true if the tree is closed, false otherwise.
+     */
+    public boolean isClosed() {
+        return this.records.chunks == null;
+    }
+
+    /**
+     * The records of int fields stored in chunks of direct or mapped byte buffers, the record of each node being followed by the positions of the nodes depth level by depth level.
+     */
+    static final class Records extends Columns {
+        /**
+         * The number of nodes.
+         */
+        private final int count;
+        /**
+         * The position of the first int field of the positions of the nodes depth level by depth level.
+         */
+        private final long levels;
+        /**
+         * The chunks of int fields, or null once they are released.
+         */
+        private volatile ByteBuffer[] chunks;
+
+        /**
+         * Creates the records of the given number of nodes stored in the given chunks.
+         *
+         * @param chunks the chunks holding at least {@link OffHeapTree#ints(int)} int fields.
+         * @param count  the number of nodes.
+         */
+        Records(ByteBuffer[] chunks, int count) {
+            this.chunks = chunks;
+            this.count = count;
+            this.levels = (long) count * FIELDS;
+        }
+
+        /**
+         * Gets the int field at the given position.
+         *
+         * @param index the position of the field.
+         * @return the value of the field.
+         * @throws IllegalStateException if the chunks are released.
+         */
+        int get(long index) {
+            ByteBuffer[] chunks = this.chunks;
+            if (chunks == null) {
+                throw new IllegalStateException();
+            }
+            return OffHeapTree.get(chunks, index);
+        }
+
+        /**
+         * Sets the int field at the given position.
+         *
+         * @param index the position of the field.
+         * @param value the value of the field.
+         * @throws IllegalStateException if the chunks are released.
+         */
+        void put(long index, int value) {
+            ByteBuffer[] chunks = this.chunks;
+            if (chunks == null) {
+                throw new IllegalStateException();
+            }
+            OffHeapTree.put(chunks, index, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws IllegalStateException if the chunks are released.
+         */
+        @Override
+        int get(int node, int field) {
+            if (node < 0 || node >= this.count) {
+                throw new IndexOutOfBoundsException(String.valueOf(node));
+            }
+            return this.get((long) node * FIELDS + field);
+        }
+
+        @Override
+        void set(int node, int field, int value) {
+            this.put((long) node * FIELDS + field, value);
+        }
+
+        @Override
+        int level(int index) {
+            return this.get(this.levels + index);
+        }
+
+        @Override
+        void setLevel(int index, int node) {
+            this.put(this.levels + index, node);
+        }
+
+        /**
+         * Releases the chunks. This function has no effect if they are already released.
+         */
+        private void close() {
+            ByteBuffer[] chunks = this.chunks;
+            this.chunks = null;
+            for (int i = 0; chunks != null && i < chunks.length; OffHeapTree.release(chunks[i++])) ;
+        }
+    }
+}
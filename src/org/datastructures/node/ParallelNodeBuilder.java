@@ -0,0 +1,199 @@
+package org.datastructures.node;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/*
+ * Notes:
+ * . Expansion runs in two phases. In the first phase, the generator and the mapper are applied to each element by a ForkJoin task, producing a lightweight tree of tasks holding the mapped objects and the tasks of the direct descendants. In the second phase, the tree of tasks is walked once in a depth-first left-to-right order of encounter, and the nodes are linked and given their coordinates by Node.Builder as they are appended, so that no node is ever added to a tree by Node.add(Node), and no coordinate is ever shifted.
+ * . Tasks are CountedCompleter objects that fork the tasks of their direct descendants and return without joining them, the root task being completed once every task has been completed. Neither phase is recursive, hence the depth of the generated tree is not limited by the size of the thread stack.
+ * . Forking a task per node is wasteful when the generator is cheap, hence a task expands the tasks of its direct descendants itself, depth first, as long as its worker thread has enough queued tasks to be stolen by idle worker threads, and forks them otherwise.
+ * . Virtual threads are not available before Java 21. Generators performing blocking I/O should be given a parallelism greater than the number of available processors instead, so that blocked worker threads do not starve the pool.
+ */
+/**
+ * The <code><b>ParallelNodeBuilder</b></code> class builds trees by applying a generator function and a mapper function to objects in parallel, the same way trees are built by the generator constructors of {@link Node}, e.g. {@link Node#Node(Function, Object, Function)}.
+ * <p/>
+ * The generator is applied to an object to generate the objects of the direct descendants of the node built from it, and the mapper is applied to an object to get the object referenced by the node built from it. Both functions are applied concurrently by the worker threads of a {@link ForkJoinPool} having the configured parallelism, and must therefore be thread safe. The order in which objects are generated has no effect on the resulting tree.
+ *
+ * @param <I> type of objects generated using the generator function.
+ * @param <N> type of elements referenced by the nodes of the built trees.
+ */
+public class ParallelNodeBuilder<I, N> {
+    /**
+     * The number of tasks queued by a worker thread below which a task forks the tasks of its direct descendants instead of expanding them itself.
+     */
+    private static final int SURPLUS = 3;
+    /**
+     * The function generating the objects of the direct descendants of a node.
+     */
+    private final Function<? super I, ? extends I[]> generator;
+    /**
+     * The function translating generated objects to the objects referenced by the nodes.
+     */
+    private final Function<? super I, ? extends N> mapper;
+    /**
+     * The maximum depth of the built trees, the generator is never applied to the objects of nodes at this depth level.
+     */
+    private final int maxDepth;
+    /**
+     * The number of worker threads applying the generator and the mapper.
+     */
+    private final int parallelism;
+
+    /**
+     * Creates a builder given a generator function and a mapper function, with no maximum depth and a parallelism equal to the number of available processors.
+     *
+     * @param generator a function that generates the objects of the direct descendants of a node.
+     * @param mapper    a function that translates generated objects to type <code><b>N</b></code>.
+     * @throws NullPointerException if one of the given functions is null.
+     */
+    public ParallelNodeBuilder(Function<? super I, ? extends I[]> generator, Function<? super I, ? extends N> mapper) {
+        this(generator, mapper, Integer.MAX_VALUE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a builder given a generator function, a mapper function, the maximum depth of the built trees and the parallelism.
+     *
+     * @param generator   a function that generates the objects of the direct descendants of a node.
+     * @param mapper      a function that translates generated objects to type <code><b>N</b></code>.
+     * @param maxDepth    the maximum depth of the built trees, 0 meaning that the built trees are made of a root node only.
+     * @param parallelism the number of worker threads applying the generator and the mapper.
+     * @throws NullPointerException     if one of the given functions is null.
+     * @throws IllegalArgumentException if the given maximum depth is negative, or if the given parallelism is less than 1 or greater than the limit supported by {@link ForkJoinPool}.
+     */
+    public ParallelNodeBuilder(Function<? super I, ? extends I[]> generator, Function<? super I, ? extends N> mapper, int maxDepth, int parallelism) {
+        if (maxDepth < 0 || parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.generator = Objects.requireNonNull(generator);
+        this.mapper = Objects.requireNonNull(mapper);
+        this.maxDepth = maxDepth;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Builds a tree given the object from which its root node is built, with breadth first (left-to-right) as the preferred traversal algorithm.
+     *
+     * @param element the object from which the root node is built.
+     * @return the root node of the built tree.
+     */
+    public Node<N> build(I element) {
+        return this.build(element, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Builds a tree given the object from which its root node is built and the preferred traversal algorithm.
+     * <p/>
+     * Any exception thrown by the generator or the mapper is rethrown by this method once the expansion is stopped.
+     *
+     * @param element            the object from which the root node is built.
+     * @param traversalAlgorithm the preferred traversal algorithm for the built tree.
+     * @return the root node of the built tree.
+     */
+    public Node<N> build(I element, Node.TraversalAlgorithm traversalAlgorithm) {
+        Expansion<I, N> root = new Expansion<>(this, null, element, 0);
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            pool.invoke(root);
+        } finally {
+            pool.shutdownNow();
+        }
+        Node.Builder<N> builder = new Node.Builder<>(traversalAlgorithm);
+        ArrayDeque<Expansion<I, N>> stack = new ArrayDeque<>();
+        for (Expansion<I, N> tmp = root; tmp != null; tmp = stack.poll()) {
+            builder.append(tmp.element, tmp.descendants.length);
+            for (int i = tmp.descendants.length - 1; i >= 0; stack.push(tmp.descendants[i--])) ;
+            tmp.descendants = null;
+        }
+        return builder.getRoot();
+    }
+
+    /**
+     * The task applying the generator and the mapper to an object, and holding the results until the tree is built.
+     *
+     * @param <I> type of objects generated using the generator function.
+     * @param <N> type of elements referenced by the nodes of the built trees.
+     */
+    private static final class Expansion<I, N> extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * The shared empty array of tasks of direct descendants.
+         */
+        private static final Expansion<?, ?>[] EMPTY = new Expansion<?, ?>[0];
+        /**
+         * The builder to which this task belongs.
+         */
+        private final ParallelNodeBuilder<I, N> builder;
+        /**
+         * The depth level of the node built from this task.
+         */
+        private final int depth;
+        /**
+         * The object to which the generator and the mapper are applied, set to null once they have been applied.
+         */
+        private I input;
+        /**
+         * The object referenced by the node built from this task.
+         */
+        private N element;
+        /**
+         * The tasks of the direct descendants of the node built from this task.
+         */
+        private Expansion<I, N>[] descendants;
+
+        /**
+         * Creates a task given the builder to which it belongs, the task of the predecessor, the object to be expanded and its depth level.
+         *
+         * @param builder     the builder to which the task belongs.
+         * @param predecessor the task of the predecessor, or null if the task is the root task.
+         * @param input       the object to which the generator and the mapper are applied.
+         * @param depth       the depth level of the node built from the task.
+         */
+        private Expansion(ParallelNodeBuilder<I, N> builder, Expansion<I, N> predecessor, I input, int depth) {
+            super(predecessor);
+            this.builder = builder;
+            this.input = input;
+            this.depth = depth;
+        }
+
+        /**
+         * Expands this task and the tasks of the descendants, forking the latter whenever the current worker thread runs out of queued tasks.
+         */
+        @Override
+        public void compute() {
+            ArrayDeque<Expansion<I, N>> stack = null;
+            Expansion<I, N> task = this;
+            do {
+                task.expand();
+                if (task.descendants.length > 0 && stack == null) {
+                    stack = new ArrayDeque<>();
+                }
+                for (int i = task.descendants.length - 1; i >= 0; stack.push(task.descendants[i--])) ;
+                task.tryComplete();
+                for (task = null; stack != null && (task = stack.poll()) != null && CountedCompleter.getSurplusQueuedTaskCount() <= SURPLUS; task.fork(), task = null) ;
+            } while (task != null);
+        }
+
+        /**
+         * Applies the mapper and the generator to the object of this task, and creates the tasks of the direct descendants.
+         */
+        @SuppressWarnings("unchecked")
+        private void expand() {
+            this.element = this.builder.mapper.apply(this.input);
+            if (this.depth == this.builder.maxDepth) {
+                this.descendants = (Expansion<I, N>[]) EMPTY;
+            } else {
+                I[] inputs = this.builder.generator.apply(this.input);
+                this.descendants = (Expansion<I, N>[]) (inputs.length == 0 ? EMPTY : new Expansion<?, ?>[inputs.length]);
+                for (int i = 0; i < inputs.length; i++) {
+                    this.descendants[i] = new Expansion<>(this.builder, this, inputs[i], this.depth + 1);
+                }
+                this.setPendingCount(inputs.length);
+            }
+            this.input = null;
+        }
+    }
+}
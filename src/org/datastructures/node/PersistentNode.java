@@ -0,0 +1,1022 @@
+package org.datastructures.node;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/*
+ * Notes:
+ * . A persistent node is immutable, and a (sub-)tree of persistent nodes may be shared by many versions of a tree, at different depths and positions. Hence, unlike Node, a persistent node does not reference its predecessor or its siblings, and does not store its coordinates.
+ * . A node of a given version of a tree is located by a path, i.e. the chain of nodes leading from the root node to it along with their positions among the direct descendants of their predecessors. Paths provide the information Node stores in each node: predecessor, siblings, ordinates and abscissas, and implement the traversals and searches of Node.
+ * . Updating a node given its path copies the nodes along the path up to the root node, each copy sharing the direct descendants of the node it replaces but one. Every other (sub-)tree is shared by the former and the new version of the tree.
+ * . Each node stores the height of the (sub-)tree having it as its root, so that the first node at a given depth level of a (sub-)tree is reached without exploring (sub-)trees that do not reach that depth level.
+ */
+/**
+ * The <code><b>PersistentNode</b></code> class represents an immutable node of a persistent tree.
+ * <p/>
+ * Functions named <code>with*</code> return a new version of the tree, sharing every (sub-)tree that is left untouched by the update, while the former version remains valid. A persistent node is created from scratch by its constructors, or as a snapshot of a tree of {@link Node} objects by {@link Node#snapshot()}, and converted back to a tree of {@link Node} objects by {@link #toNode()}.
+ * <p/>
+ * Nodes are located by {@link Path} objects, which offer the traversal and search functions of {@link Node}, and the updates of the nodes of the tree.
+ *
+ * @param <N> type of elements referenced by the nodes of the tree.
+ */
+public class PersistentNode<N> extends AbstractCollection<N> {
+    /**
+     * The array of direct descendants shared by all the nodes having no descendants.
+     */
+    private static final PersistentNode<?>[] EMPTY = new PersistentNode<?>[0];
+    /**
+     * Object referenced by this node.
+     */
+    private final N element;
+    /**
+     * The direct descendants of this node.
+     */
+    private final PersistentNode<N>[] descendants;
+    /**
+     * The number of nodes in the (sub-)tree having this node as its root.
+     */
+    private final int size;
+    /**
+     * The number of nodes having no descendants in the (sub-)tree having this node as its root.
+     */
+    private final int breadth;
+    /**
+     * The depth of the deepest node in the (sub-)tree having this node as its root, relative to this node.
+     */
+    private final int height;
+    /**
+     * Preferred traversal algorithm for the (sub-)tree having this node as its root.
+     */
+    private final Node.TraversalAlgorithm traversalAlgorithm;
+
+    /**
+     * Creates a node with a reference to the given object.
+     *
+     * @param element the object referenced by this node.
+     */
+    public PersistentNode(N element) {
+        this(element, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Creates a node given an object and the preferred traversal algorithm.
+     *
+     * @param element            the object referenced by this node.
+     * @param traversalAlgorithm the preferred traversal algorithm for the (sub-)tree having this node as its root.
+     * @throws NullPointerException if the given traversal algorithm is null.
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentNode(N element, Node.TraversalAlgorithm traversalAlgorithm) {
+        this(element, (PersistentNode<N>[]) EMPTY, Objects.requireNonNull(traversalAlgorithm));
+    }
+
+    /**
+     * Creates a node with a reference to the given object, and having the given nodes as its direct descendants.
+     * <p/>
+     * The given nodes are shared, not copied.
+     *
+     * @param element     the object referenced by this node.
+     * @param descendants the direct descendants of this node.
+     * @throws NullPointerException if the given array or one of its nodes is null.
+     */
+    @SafeVarargs
+    public PersistentNode(N element, PersistentNode<N>... descendants) {
+        this(element, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT, descendants);
+    }
+
+    /**
+     * Creates a node given an object and the preferred traversal algorithm, and having the given nodes as its direct descendants.
+     * <p/>
+     * The given nodes are shared, not copied.
+     *
+     * @param element            the object referenced by this node.
+     * @param traversalAlgorithm the preferred traversal algorithm for the (sub-)tree having this node as its root.
+     * @param descendants        the direct descendants of this node.
+     * @throws NullPointerException if the given traversal algorithm, array or one of its nodes is null.
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    public PersistentNode(N element, Node.TraversalAlgorithm traversalAlgorithm, PersistentNode<N>... descendants) {
+        this(element, Objects.requireNonNull(descendants).length == 0 ? (PersistentNode<N>[]) EMPTY : descendants.clone(), Objects.requireNonNull(traversalAlgorithm));
+    }
+
+    /**
+     * Creates a node given an object, the preferred traversal algorithm, and the array of its direct descendants, which is not copied.
+     *
+     * @param element            the object referenced by this node.
+     * @param descendants        the direct descendants of this node.
+     * @param traversalAlgorithm the preferred traversal algorithm for the (sub-)tree having this node as its root.
+     */
+    private PersistentNode(N element, PersistentNode<N>[] descendants, Node.TraversalAlgorithm traversalAlgorithm) {
+        int size = 1, breadth = 0, height = 0;
+        for (PersistentNode<N> tmp : descendants) {
+            size += tmp.size;
+            breadth += tmp.breadth;
+            height = Math.max(height, tmp.height + 1);
+        }
+        this.element = element;
+        this.descendants = descendants;
+        this.traversalAlgorithm = traversalAlgorithm;
+        this.size = size;
+        this.breadth = Math.max(breadth, 1);
+        this.height = height;
+    }
+
+    /**
+     * Creates a copy of the given node referencing the given object and having the given preferred traversal algorithm.
+     *
+     * @param node               the node to be copied.
+     * @param element            the object referenced by this node.
+     * @param traversalAlgorithm the preferred traversal algorithm for the (sub-)tree having this node as its root.
+     */
+    private PersistentNode(PersistentNode<N> node, N element, Node.TraversalAlgorithm traversalAlgorithm) {
+        this.element = element;
+        this.descendants = node.descendants;
+        this.traversalAlgorithm = traversalAlgorithm;
+        this.size = node.size;
+        this.breadth = node.breadth;
+        this.height = node.height;
+    }
+
+    /**
+     * Creates a persistent copy of the (sub-)tree having the given node as its root.
+     * <p/>
+     * The (sub-)tree is walked once iteratively, and each persistent node is created once all its direct descendants are.
+     *
+     * @param root the root node of the (sub-)tree to be copied.
+     * @param <N>  type of elements referenced by the nodes of the tree.
+     * @return the root node of the persistent copy.
+     * @throws NullPointerException if the given node is null.
+     */
+    @SuppressWarnings("unchecked")
+    static <N> PersistentNode<N> copyOf(Node<N> root) {
+        Node.TraversalAlgorithm traversalAlgorithm = root.getTraversalAlgorithm();
+        Node<N>[] nodes = (Node<N>[]) new Node<?>[16];
+        PersistentNode<N>[][] descendants = (PersistentNode<N>[][]) new PersistentNode<?>[16][];
+        int[] cursors = new int[16];
+        nodes[0] = root;
+        descendants[0] = (PersistentNode<N>[]) (root.countDescendants() == 0 ? EMPTY : new PersistentNode<?>[root.countDescendants()]);
+        for (int top = 0; ; ) {
+            Node<N> node = nodes[top];
+            if (cursors[top] < node.countDescendants()) {
+                Node<N> descendant = node.getDescendant(cursors[top]);
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top << 1);
+                    descendants = Arrays.copyOf(descendants, top << 1);
+                    cursors = Arrays.copyOf(cursors, top << 1);
+                }
+                nodes[top] = descendant;
+                descendants[top] = (PersistentNode<N>[]) (descendant.countDescendants() == 0 ? EMPTY : new PersistentNode<?>[descendant.countDescendants()]);
+                cursors[top] = 0;
+            } else {
+                PersistentNode<N> result = new PersistentNode<>(node.getElement(), descendants[top], traversalAlgorithm);
+                nodes[top] = null;
+                descendants[top] = null;
+                if (top-- == 0) {
+                    return result;
+                }
+                descendants[top][cursors[top]++] = result;
+            }
+        }
+    }
+
+    /**
+     * Creates a tree of {@link Node} objects holding a copy of the (sub-)tree having this node as its root.
+     * <p/>
+     * The nodes are appended in a single depth-first pass, see {@link Node.Builder}.
+     *
+     * @return the root node of the copy.
+     */
+    public Node<N> toNode() {
+        Node.Builder<N> builder = new Node.Builder<>(this.traversalAlgorithm);
+        Deque<PersistentNode<N>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            PersistentNode<N> tmp = stack.pop();
+            builder.append(tmp.element, tmp.descendants.length);
+            for (int i = tmp.descendants.length - 1; i >= 0; stack.push(tmp.descendants[i--])) ;
+        }
+        return builder.getRoot();
+    }
+
+    /**
+     * Gets the object referenced by this node.
+     *
+     * @return the object referenced by this node.
+     */
+    public N getElement() {
+        return this.element;
+    }
+
+    /**
+     * Gets the number of direct descendants of this node.
+     *
+     * @return the number of direct descendants of this node.
+     */
+    public int countDescendants() {
+        return this.descendants.length;
+    }
+
+    /**
+     * Gets the direct descendant of this node at the specified position.
+     *
+     * @param index the position of the direct descendant.
+     * @return the direct descendant at the specified position.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public PersistentNode<N> getDescendant(int index) {
+        if (index < 0 || index >= this.descendants.length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return this.descendants[index];
+    }
+
+    /**
+     * Gets the number of nodes in the (sub-)tree having this node as its root.
+     *
+     * @return the size of the (sub-)tree having this node as its root.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Tells whether this node has no descendants.
+     *
+     * @return true if this has no descendants, false otherwise.
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.size <= 1;
+    }
+
+    /**
+     * Gets the number of nodes having no descendants in the (sub-)tree having this node as its root.
+     *
+     * @return the breadth of the (sub-)tree having this node as its root.
+     */
+    public int getBreadth() {
+        return this.breadth;
+    }
+
+    /**
+     * Gets the depth of the deepest node in the (sub-)tree having this node as its root, relative to this node.
+     *
+     * @return the height of the (sub-)tree having this node as its root.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the preferred traversal algorithm for the (sub-)tree having this node as its root.
+     *
+     * @return the preferred traversal algorithm.
+     */
+    public Node.TraversalAlgorithm getTraversalAlgorithm() {
+        return this.traversalAlgorithm;
+    }
+
+    /**
+     * Gets the path to this node, this node being the root node of the tree.
+     *
+     * @return the path to this node.
+     */
+    public Path<N> getPath() {
+        return new Path<>(null, this, 0);
+    }
+
+    /**
+     * Gets the path to the node reached from this node by following the direct descendants at the given positions.
+     *
+     * @param indexes the positions of the direct descendants to be followed.
+     * @return the path to the reached node.
+     * @throws NullPointerException      if the given array is null.
+     * @throws IndexOutOfBoundsException if one of the positions is out of range.
+     */
+    public Path<N> getPath(int... indexes) {
+        Path<N> result = this.getPath();
+        for (int tmp : indexes) {
+            result = result.getDescendant(tmp);
+        }
+        return result;
+    }
+
+    /*
+     * Updates.
+     */
+    /**
+     * Returns a copy of this node referencing the given object.
+     *
+     * @param element the object referenced by the copy.
+     * @return the copy of this node.
+     */
+    public PersistentNode<N> withElement(N element) {
+        return new PersistentNode<>(this, element, this.traversalAlgorithm);
+    }
+
+    /**
+     * Returns a copy of this node having the given preferred traversal algorithm.
+     *
+     * @param traversalAlgorithm the preferred traversal algorithm for the (sub-)tree having the copy as its root.
+     * @return the copy of this node.
+     * @throws NullPointerException if the given traversal algorithm is null.
+     */
+    public PersistentNode<N> withTraversalAlgorithm(Node.TraversalAlgorithm traversalAlgorithm) {
+        return new PersistentNode<>(this, this.element, Objects.requireNonNull(traversalAlgorithm));
+    }
+
+    /**
+     * Returns a copy of this node having a node referencing the given object appended to its direct descendants.
+     *
+     * @param element the object referenced by the appended node.
+     * @return the copy of this node.
+     */
+    public PersistentNode<N> withChild(N element) {
+        return this.withChild(this.descendants.length, new PersistentNode<>(element, this.traversalAlgorithm));
+    }
+
+    /**
+     * Returns a copy of this node having the given node appended to its direct descendants.
+     *
+     * @param descendant the appended node.
+     * @return the copy of this node.
+     * @throws NullPointerException if the given node is null.
+     */
+    public PersistentNode<N> withChild(PersistentNode<N> descendant) {
+        return this.withChild(this.descendants.length, descendant);
+    }
+
+    /**
+     * Returns a copy of this node having the given node inserted into its direct descendants at the specified position.
+     *
+     * @param index      the position at which the given node is inserted.
+     * @param descendant the inserted node.
+     * @return the copy of this node.
+     * @throws NullPointerException      if the given node is null.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public PersistentNode<N> withChild(int index, PersistentNode<N> descendant) {
+        Objects.requireNonNull(descendant);
+        if (index < 0 || index > this.descendants.length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        PersistentNode<N>[] tmp = Arrays.copyOf(this.descendants, this.descendants.length + 1);
+        System.arraycopy(this.descendants, index, tmp, index + 1, this.descendants.length - index);
+        tmp[index] = descendant;
+        return new PersistentNode<>(this.element, tmp, this.traversalAlgorithm);
+    }
+
+    /**
+     * Returns a copy of this node without the direct descendant at the specified position.
+     *
+     * @param index the position of the removed direct descendant.
+     * @return the copy of this node.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentNode<N> withoutChild(int index) {
+        if (index < 0 || index >= this.descendants.length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        PersistentNode<N>[] tmp = (PersistentNode<N>[]) (this.descendants.length == 1 ? EMPTY : new PersistentNode<?>[this.descendants.length - 1]);
+        System.arraycopy(this.descendants, 0, tmp, 0, index);
+        System.arraycopy(this.descendants, index + 1, tmp, index, tmp.length - index);
+        return new PersistentNode<>(this.element, tmp, this.traversalAlgorithm);
+    }
+
+    /**
+     * Returns a copy of this node having the given node in place of the direct descendant at the specified position, or this node if that direct descendant is the given node.
+     *
+     * @param index      the position of the replaced direct descendant.
+     * @param descendant the replacing node.
+     * @return the copy of this node.
+     */
+    private PersistentNode<N> withDescendant(int index, PersistentNode<N> descendant) {
+        if (this.descendants[index] == descendant) {
+            return this;
+        }
+        PersistentNode<N>[] tmp = this.descendants.clone();
+        tmp[index] = descendant;
+        return new PersistentNode<>(this.element, tmp, this.traversalAlgorithm);
+    }
+
+    /*
+     * Search.
+     */
+    /**
+     * Returns the path to the first encountered node that references the given object in a breadth-first left-to-right order of encounter in the tree having this node as its root.
+     *
+     * @param element the object to be searched.
+     * @return the path to the node referencing the given object, or null if no such node is found.
+     */
+    public Path<N> findBreadthFirstLeftNext(N element) {
+        return this.getPath().findBreadthFirstLeftNext(element);
+    }
+
+    /**
+     * Returns the path to the first encountered node that references the given object in a breadth-first right-to-left order of encounter in the tree having this node as its root.
+     *
+     * @param element the object to be searched.
+     * @return the path to the node referencing the given object, or null if no such node is found.
+     */
+    public Path<N> findBreadthFirstRightNext(N element) {
+        return this.getPath().findBreadthFirstRightNext(element);
+    }
+
+    /**
+     * Returns the path to the first encountered node that references the given object in a depth-first left-to-right order of encounter in the tree having this node as its root.
+     *
+     * @param element the object to be searched.
+     * @return the path to the node referencing the given object, or null if no such node is found.
+     */
+    public Path<N> findDepthFirstLeftNext(N element) {
+        return this.getPath().findDepthFirstLeftNext(element);
+    }
+
+    /**
+     * Returns the path to the first encountered node that references the given object in a depth-first right-to-left order of encounter in the tree having this node as its root.
+     *
+     * @param element the object to be searched.
+     * @return the path to the node referencing the given object, or null if no such node is found.
+     */
+    public Path<N> findDepthFirstRightNext(N element) {
+        return this.getPath().findDepthFirstRightNext(element);
+    }
+
+    /**
+     * Returns the path to the first encountered node referencing an object that matches the given predicate in a breadth-first left-to-right order of encounter in the tree having this node as its root.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public Path<N> findBreadthFirstLeftNext(Predicate<N> predicate) {
+        return this.getPath().findBreadthFirstLeftNext(predicate);
+    }
+
+    /**
+     * Returns the path to the first encountered node referencing an object that matches the given predicate in a breadth-first right-to-left order of encounter in the tree having this node as its root.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public Path<N> findBreadthFirstRightNext(Predicate<N> predicate) {
+        return this.getPath().findBreadthFirstRightNext(predicate);
+    }
+
+    /**
+     * Returns the path to the first encountered node referencing an object that matches the given predicate in a depth-first left-to-right order of encounter in the tree having this node as its root.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public Path<N> findDepthFirstLeftNext(Predicate<N> predicate) {
+        return this.getPath().findDepthFirstLeftNext(predicate);
+    }
+
+    /**
+     * Returns the path to the first encountered node referencing an object that matches the given predicate in a depth-first right-to-left order of encounter in the tree having this node as its root.
+     *
+     * @param predicate the predicate that is applied to each encountered node's referenced object.
+     * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+     */
+    public Path<N> findDepthFirstRightNext(Predicate<N> predicate) {
+        return this.getPath().findDepthFirstRightNext(predicate);
+    }
+
+    /*
+     * Iteration.
+     */
+    /**
+     * Returns an iterator over the objects referenced by the nodes of the (sub-)tree having this node as its root, applying the preferred traversal algorithm.
+     *
+     * @return an iterator over the referenced objects.
+     */
+    @Override
+    public Iterator<N> iterator() {
+        return this.iterator(this.traversalAlgorithm);
+    }
+
+    /**
+     * Returns an iterator over the objects referenced by the nodes of the (sub-)tree having this node as its root, applying the given traversal algorithm.
+     *
+     * @param traversalAlgorithm the traversal algorithm to apply.
+     * @return an iterator over the referenced objects.
+     * @throws NullPointerException if the given traversal algorithm is null.
+     */
+    public Iterator<N> iterator(Node.TraversalAlgorithm traversalAlgorithm) {
+        return new PersistentIterator<>(this, Objects.requireNonNull(traversalAlgorithm));
+    }
+
+    /**
+     * Returns a spliterator over the objects referenced by the nodes of the (sub-)tree having this node as its root, applying the preferred traversal algorithm.
+     *
+     * @return a spliterator over the referenced objects.
+     */
+    @Override
+    public Spliterator<N> spliterator() {
+        return Spliterators.spliterator(this.iterator(), this.size, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * The <code><b>PersistentIterator</b></code> class iterates over the objects referenced by the nodes of a persistent (sub-)tree.
+     * <p/>
+     * The pending nodes are kept in a double-ended queue: breadth-first orders append the direct descendants of each encountered node, and depth-first orders prepend them.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    private static class PersistentIterator<N> implements Iterator<N> {
+        /**
+         * The nodes pending to be encountered.
+         */
+        private final ArrayDeque<PersistentNode<N>> pending = new ArrayDeque<>();
+        /**
+         * The traversal algorithm to apply.
+         */
+        private final Node.TraversalAlgorithm traversalAlgorithm;
+
+        /**
+         * Creates an iterator over the (sub-)tree having the given node as its root.
+         *
+         * @param root               the root node of the (sub-)tree.
+         * @param traversalAlgorithm the traversal algorithm to apply.
+         */
+        private PersistentIterator(PersistentNode<N> root, Node.TraversalAlgorithm traversalAlgorithm) {
+            this.pending.add(root);
+            this.traversalAlgorithm = traversalAlgorithm;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public N next() {
+            PersistentNode<N> tmp = this.pending.pollFirst();
+            if (tmp == null) {
+                throw new NoSuchElementException();
+            }
+            PersistentNode<N>[] descendants = tmp.descendants;
+            switch (this.traversalAlgorithm) {
+                case BREADTH_FIRST_LEFT:
+                    for (int i = 0; i < descendants.length; this.pending.addLast(descendants[i++])) ;
+                    break;
+                case BREADTH_FIRST_RIGHT:
+                    for (int i = descendants.length - 1; i >= 0; this.pending.addLast(descendants[i--])) ;
+                    break;
+                case DEPTH_FIRST_LEFT:
+                    for (int i = descendants.length - 1; i >= 0; this.pending.addFirst(descendants[i--])) ;
+                    break;
+                default:
+                    for (int i = 0; i < descendants.length; this.pending.addFirst(descendants[i++])) ;
+            }
+            return tmp.element;
+        }
+    }
+
+    /**
+     * The <code><b>Path</b></code> class locates a node in a given version of a persistent tree.
+     * <p/>
+     * A path is immutable: it references the path to the predecessor of the located node and the position of the located node among the direct descendants of its predecessor. It offers the traversal and search functions of {@link Node}, and updates of the located node returning the root node of a new version of the tree. Paths to the nodes of a version of a tree remain valid once new versions are created.
+     *
+     * @param <N> type of elements referenced by the nodes of the tree.
+     */
+    public static final class Path<N> {
+        /**
+         * The path to the predecessor of the located node, or null if the located node is the root node.
+         */
+        private final Path<N> predecessor;
+        /**
+         * The located node.
+         */
+        private final PersistentNode<N> node;
+        /**
+         * The position of the located node among the direct descendants of its predecessor.
+         */
+        private final int index;
+        /**
+         * The ordinate of the located node in the plane, i.e. its depth in the tree.
+         */
+        private final int y;
+
+        /**
+         * Creates a path given the path to the predecessor, the located node and its position.
+         *
+         * @param predecessor the path to the predecessor of the located node.
+         * @param node        the located node.
+         * @param index       the position of the located node among the direct descendants of its predecessor.
+         */
+        private Path(Path<N> predecessor, PersistentNode<N> node, int index) {
+            this.predecessor = predecessor;
+            this.node = node;
+            this.index = index;
+            this.y = predecessor == null ? 0 : predecessor.y + 1;
+        }
+
+        /**
+         * Gets the located node.
+         *
+         * @return the located node.
+         */
+        public PersistentNode<N> getNode() {
+            return this.node;
+        }
+
+        /**
+         * Gets the object referenced by the located node.
+         *
+         * @return the object referenced by the located node.
+         */
+        public N getElement() {
+            return this.node.element;
+        }
+
+        /**
+         * Gets the path to the predecessor of the located node.
+         *
+         * @return the path to the predecessor, or null if the located node is the root node.
+         */
+        public Path<N> getPredecessor() {
+            return this.predecessor;
+        }
+
+        /**
+         * Gets the path to the root node of the tree.
+         *
+         * @return the path to the root node.
+         */
+        public Path<N> getRoot() {
+            Path<N> tmp = this;
+            for (; tmp.predecessor != null; tmp = tmp.predecessor) ;
+            return tmp;
+        }
+
+        /**
+         * Gets the position of the located node among the direct descendants of its predecessor.
+         *
+         * @return the position of the located node, or 0 if the located node is the root node.
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Gets the ordinate of the located node in the plane, i.e. its depth in the tree.
+         *
+         * @return the ordinate of the located node.
+         */
+        public int getY() {
+            return this.y;
+        }
+
+        /**
+         * Gets the abscissa of the located node in the plane, i.e. the number of nodes having no descendants to the left of the (sub-)tree having the located node as its root.
+         * <p/>
+         * The abscissa is computed by summing up the breadths of the siblings to the left of each node along the path.
+         *
+         * @return the abscissa of the located node.
+         */
+        public int getX() {
+            int x = 0;
+            for (Path<N> tmp = this; tmp.predecessor != null; tmp = tmp.predecessor) {
+                for (int i = 0; i < tmp.index; x += tmp.predecessor.node.descendants[i++].breadth) ;
+            }
+            return x;
+        }
+
+        /**
+         * Gets the number of direct descendants of the located node.
+         *
+         * @return the number of direct descendants of the located node.
+         */
+        public int countDescendants() {
+            return this.node.descendants.length;
+        }
+
+        /**
+         * Gets the path to the direct descendant of the located node at the specified position.
+         *
+         * @param index the position of the direct descendant.
+         * @return the path to the direct descendant.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public Path<N> getDescendant(int index) {
+            return new Path<>(this, this.node.getDescendant(index), index);
+        }
+
+        /**
+         * Tells whether the located node is a descendant of the node located by the given path, i.e. whether the given path is a prefix of this path.
+         *
+         * @param root the path to be checked.
+         * @return true if the located node is a descendant of the node located by the given path, or if the given path is null, false otherwise.
+         */
+        public boolean isDescendantOf(Path<N> root) {
+            if (root == null) {
+                return true;
+            }
+            Path<N> tmp = this;
+            for (; tmp.y > root.y; tmp = tmp.predecessor) ;
+            for (Path<N> tmp2 = root; tmp != null; tmp = tmp.predecessor, tmp2 = tmp2.predecessor) {
+                if (tmp.node != tmp2.node || tmp.index != tmp2.index) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the path to the adjacent node to the right of the located node at the same depth level, which may have another predecessor.
+         *
+         * @return the path to the next sibling, or null if the located node is the rightmost node at its depth level.
+         */
+        public Path<N> getNextSibling() {
+            return this.getSibling(1);
+        }
+
+        /**
+         * Gets the path to the adjacent node to the left of the located node at the same depth level, which may have another predecessor.
+         *
+         * @return the path to the previous sibling, or null if the located node is the leftmost node at its depth level.
+         */
+        public Path<N> getPreviousSibling() {
+            return this.getSibling(-1);
+        }
+
+        /**
+         * Gets the path to the adjacent node at the same depth level in the given direction.
+         * <p/>
+         * The path is walked up until a sibling of a node along the path reaches the depth level of the located node, then that sibling is walked down.
+         *
+         * @param step 1 to go right, -1 to go left.
+         * @return the path to the adjacent node, or null if there is no such node.
+         */
+        private Path<N> getSibling(int step) {
+            for (Path<N> tmp = this; tmp.predecessor != null; tmp = tmp.predecessor) {
+                PersistentNode<N>[] descendants = tmp.predecessor.node.descendants;
+                for (int i = tmp.index + step; i >= 0 && i < descendants.length; i += step) {
+                    if (tmp.y + descendants[i].height >= this.y) {
+                        return new Path<>(tmp.predecessor, descendants[i], i).getFirst(this.y, step);
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets the path to the first node at the given depth level in the (sub-)tree having the located node as its root, from the given direction.
+         * <p/>
+         * Only (sub-)trees reaching the given depth level are walked down, hence no backtracking is needed.
+         *
+         * @param y    the depth level.
+         * @param step 1 for the leftmost node, -1 for the rightmost node.
+         * @return the path to the first node at the given depth level, or null if there is no such node.
+         */
+        private Path<N> getFirst(int y, int step) {
+            if (this.y + this.node.height < y) {
+                return null;
+            }
+            Path<N> tmp = this;
+            while (tmp.y < y) {
+                PersistentNode<N>[] descendants = tmp.node.descendants;
+                int i = step > 0 ? 0 : descendants.length - 1;
+                for (; tmp.y + 1 + descendants[i].height < y; i += step) ;
+                tmp = new Path<>(tmp, descendants[i], i);
+            }
+            return tmp;
+        }
+
+        /*
+         * Traversal.
+         */
+        /**
+         * This function traverses to the next node in the tree in a breadth-first left-to-right order of encounter and returns the path to the encountered node.
+         *
+         * @return the path to the next node in a breadth-first left-to-right order of encounter, or null if the located node is the last node in that order.
+         */
+        public Path<N> getBreadthFirstLeftNext() {
+            Path<N> result = this.getSibling(1);
+            return result != null ? result : this.getRoot().getFirst(this.y + 1, 1);
+        }
+
+        /**
+         * This function traverses to the next node in the tree in a breadth-first right-to-left order of encounter and returns the path to the encountered node.
+         *
+         * @return the path to the next node in a breadth-first right-to-left order of encounter, or null if the located node is the last node in that order.
+         */
+        public Path<N> getBreadthFirstRightNext() {
+            Path<N> result = this.getSibling(-1);
+            return result != null ? result : this.getRoot().getFirst(this.y + 1, -1);
+        }
+
+        /**
+         * This function traverses to the next node in the tree in a depth-first left-to-right order of encounter and returns the path to the encountered node.
+         *
+         * @return the path to the next node in a depth-first left-to-right order of encounter, or null if the located node is the last node in that order.
+         */
+        public Path<N> getDepthFirstLeftNext() {
+            if (this.node.descendants.length > 0) {
+                return new Path<>(this, this.node.descendants[0], 0);
+            }
+            for (Path<N> tmp = this; tmp.predecessor != null; tmp = tmp.predecessor) {
+                if (tmp.index + 1 < tmp.predecessor.node.descendants.length) {
+                    return new Path<>(tmp.predecessor, tmp.predecessor.node.descendants[tmp.index + 1], tmp.index + 1);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * This function traverses to the next node in the tree in a depth-first right-to-left order of encounter and returns the path to the encountered node.
+         *
+         * @return the path to the next node in a depth-first right-to-left order of encounter, or null if the located node is the last node in that order.
+         */
+        public Path<N> getDepthFirstRightNext() {
+            if (this.node.descendants.length > 0) {
+                return new Path<>(this, this.node.descendants[this.node.descendants.length - 1], this.node.descendants.length - 1);
+            }
+            for (Path<N> tmp = this; tmp.predecessor != null; tmp = tmp.predecessor) {
+                if (tmp.index > 0) {
+                    return new Path<>(tmp.predecessor, tmp.predecessor.node.descendants[tmp.index - 1], tmp.index - 1);
+                }
+            }
+            return null;
+        }
+
+        /*
+         * Search.
+         */
+        /**
+         * Returns the path to the first encountered node that references the given object and follows the located node in a breadth-first left-to-right order of encounter in the tree.
+         *
+         * @param element the object to be searched.
+         * @return the path to the node referencing the given object, or null if no such node is found.
+         */
+        public Path<N> findBreadthFirstLeftNext(N element) {
+            return this.findBreadthFirstLeftNext(e -> Objects.equals(e, element));
+        }
+
+        /**
+         * Returns the path to the first encountered node that references the given object and follows the located node in a breadth-first right-to-left order of encounter in the tree.
+         *
+         * @param element the object to be searched.
+         * @return the path to the node referencing the given object, or null if no such node is found.
+         */
+        public Path<N> findBreadthFirstRightNext(N element) {
+            return this.findBreadthFirstRightNext(e -> Objects.equals(e, element));
+        }
+
+        /**
+         * Returns the path to the first encountered node that references the given object and follows the located node in a depth-first left-to-right order of encounter in the tree.
+         *
+         * @param element the object to be searched.
+         * @return the path to the node referencing the given object, or null if no such node is found.
+         */
+        public Path<N> findDepthFirstLeftNext(N element) {
+            return this.findDepthFirstLeftNext(e -> Objects.equals(e, element));
+        }
+
+        /**
+         * Returns the path to the first encountered node that references the given object and follows the located node in a depth-first right-to-left order of encounter in the tree.
+         *
+         * @param element the object to be searched.
+         * @return the path to the node referencing the given object, or null if no such node is found.
+         */
+        public Path<N> findDepthFirstRightNext(N element) {
+            return this.findDepthFirstRightNext(e -> Objects.equals(e, element));
+        }
+
+        /**
+         * Returns the path to the first encountered node referencing an object that matches the given predicate and follows the located node in a breadth-first left-to-right order of encounter in the tree.
+         *
+         * @param predicate the predicate that is applied to each encountered node's referenced object.
+         * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+         */
+        public Path<N> findBreadthFirstLeftNext(Predicate<N> predicate) {
+            for (Path<N> tmp = this; tmp != null; tmp = tmp.getBreadthFirstLeftNext()) {
+                if (predicate.test(tmp.node.element)) {
+                    return tmp;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the path to the first encountered node referencing an object that matches the given predicate and follows the located node in a breadth-first right-to-left order of encounter in the tree.
+         *
+         * @param predicate the predicate that is applied to each encountered node's referenced object.
+         * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+         */
+        public Path<N> findBreadthFirstRightNext(Predicate<N> predicate) {
+            for (Path<N> tmp = this; tmp != null; tmp = tmp.getBreadthFirstRightNext()) {
+                if (predicate.test(tmp.node.element)) {
+                    return tmp;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the path to the first encountered node referencing an object that matches the given predicate and follows the located node in a depth-first left-to-right order of encounter in the tree.
+         *
+         * @param predicate the predicate that is applied to each encountered node's referenced object.
+         * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+         */
+        public Path<N> findDepthFirstLeftNext(Predicate<N> predicate) {
+            for (Path<N> tmp = this; tmp != null; tmp = tmp.getDepthFirstLeftNext()) {
+                if (predicate.test(tmp.node.element)) {
+                    return tmp;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the path to the first encountered node referencing an object that matches the given predicate and follows the located node in a depth-first right-to-left order of encounter in the tree.
+         *
+         * @param predicate the predicate that is applied to each encountered node's referenced object.
+         * @return the path to the node referencing an object that satisfies the given predicate, or null if no such node is found.
+         */
+        public Path<N> findDepthFirstRightNext(Predicate<N> predicate) {
+            for (Path<N> tmp = this; tmp != null; tmp = tmp.getDepthFirstRightNext()) {
+                if (predicate.test(tmp.node.element)) {
+                    return tmp;
+                }
+            }
+            return null;
+        }
+
+        /*
+         * Updates.
+         */
+        /**
+         * Returns the root node of a new version of the tree in which the located node references the given object.
+         *
+         * @param element the object referenced by the located node in the new version.
+         * @return the root node of the new version of the tree.
+         */
+        public PersistentNode<N> withElement(N element) {
+            return this.replace(this.node.withElement(element));
+        }
+
+        /**
+         * Returns the root node of a new version of the tree in which a node referencing the given object is appended to the direct descendants of the located node.
+         *
+         * @param element the object referenced by the appended node.
+         * @return the root node of the new version of the tree.
+         */
+        public PersistentNode<N> withChild(N element) {
+            return this.replace(this.node.withChild(element));
+        }
+
+        /**
+         * Returns the root node of a new version of the tree in which the given node is appended to the direct descendants of the located node.
+         *
+         * @param descendant the appended node.
+         * @return the root node of the new version of the tree.
+         * @throws NullPointerException if the given node is null.
+         */
+        public PersistentNode<N> withChild(PersistentNode<N> descendant) {
+            return this.replace(this.node.withChild(descendant));
+        }
+
+        /**
+         * Returns the root node of a new version of the tree in which the given node is inserted into the direct descendants of the located node at the specified position.
+         *
+         * @param index      the position at which the given node is inserted.
+         * @param descendant the inserted node.
+         * @return the root node of the new version of the tree.
+         * @throws NullPointerException      if the given node is null.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public PersistentNode<N> withChild(int index, PersistentNode<N> descendant) {
+            return this.replace(this.node.withChild(index, descendant));
+        }
+
+        /**
+         * Returns the root node of a new version of the tree in which the direct descendant of the located node at the specified position is removed.
+         *
+         * @param index the position of the removed direct descendant.
+         * @return the root node of the new version of the tree.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public PersistentNode<N> withoutChild(int index) {
+            return this.replace(this.node.withoutChild(index));
+        }
+
+        /**
+         * Copies the nodes along this path, replacing the located node with the given node, and returns the copy of the root node.
+         *
+         * @param node the replacing node.
+         * @return the root node of the new version of the tree.
+         */
+        private PersistentNode<N> replace(PersistentNode<N> node) {
+            PersistentNode<N> result = node;
+            for (Path<N> tmp = this; tmp.predecessor != null; tmp = tmp.predecessor) {
+                result = tmp.predecessor.node.withDescendant(tmp.index, result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.datastructures.node;
+
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+
+/*
+ * Notes:
+ * . The compact trees of primitive values only differ by the type of their values, hence their searches are declared once here, generic in the type of the predicate applied to the values, and each subclass turns a predicate into a predicate of positions reading its own array of values.
+ * . The searches take a primitive predicate rather than a Predicate of boxed values: overloading the inherited functions with both would make implicitly typed lambda expressions ambiguous, hence this class declares none of the searches of CompactTree. The type of the predicate being fixed by the subclass, implicitly typed lambda expressions are typed as primitive predicates.
+ * . The structure of a compact tree is frozen, whereas its values are not: each subclass replaces the value referenced by a node in place.
+ */
+/**
+ * The <code><b>PrimitiveCompactTree</b></code> class is the base class of the trees of primitive values stored in a struct-of-arrays layout, holding their searches.
+ *
+ * @param <N> type of the boxed values referenced by the nodes of the tree.
+ * @param <P> type of the predicates applied to the values referenced by the nodes, e.g. {@link IntPredicate}.
+ * @see IntCompactTree
+ * @see LongCompactTree
+ * @see DoubleCompactTree
+ */
+public abstract class PrimitiveCompactTree<N, P> extends AbstractCompactTree<N> {
+    /**
+     * Creates the structure of a compact tree holding a copy of the (sub-)tree having the given node as its root, handing the object referenced by each node along with its position to the given consumer.
+     *
+     * @param root     the root node of the (sub-)tree to be copied.
+     * @param elements the consumer storing the value of the object referenced by each node at its position.
+     * @param <E>      type of elements referenced by the nodes of the (sub-)tree.
+     * @throws NullPointerException if the given node is null.
+     */
+    <E> PrimitiveCompactTree(Node<E> root, ObjIntConsumer<? super E> elements) {
+        super(root, elements);
+    }
+
+    /**
+     * Turns the given predicate applied to values into a predicate applied to positions, testing the value referenced by the node at each position.
+     *
+     * @param predicate the predicate applied to values.
+     * @return the predicate applied to positions.
+     */
+    abstract IntPredicate matcher(P predicate);
+
+    /*
+     * Search.
+     */
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a breadth-first left-to-right order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findBreadthFirstLeftNext(int node, P predicate) {
+        return this.findBreadthFirstLeftNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a breadth-first right-to-left order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findBreadthFirstRightNext(int node, P predicate) {
+        return this.findBreadthFirstRightNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a depth-first left-to-right order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findDepthFirstLeftNext(int node, P predicate) {
+        return this.findDepthFirstLeftNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a depth-first right-to-left order of encounter in the tree.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     */
+    public int findDepthFirstRightNext(int node, P predicate) {
+        return this.findDepthFirstRightNext(node, predicate, 0);
+    }
+
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a breadth-first left-to-right order of encounter in the (sub-)tree having the given node as its root.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findBreadthFirstLeftNext(int node, P predicate, int root) {
+        return this.find(node, this.matcher(predicate), root, Node.TraversalAlgorithm.BREADTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a breadth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findBreadthFirstRightNext(int node, P predicate, int root) {
+        return this.find(node, this.matcher(predicate), root, Node.TraversalAlgorithm.BREADTH_FIRST_RIGHT);
+    }
+
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a depth-first left-to-right order of encounter in the (sub-)tree having the given node as its root.
+     * <p/>
+     * The (sub-)tree occupies a contiguous range of positions, hence this search is a linear scan of the array of referenced values.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findDepthFirstLeftNext(int node, P predicate, int root) {
+        return this.find(node, this.matcher(predicate), root, Node.TraversalAlgorithm.DEPTH_FIRST_LEFT);
+    }
+
+    /**
+     * Returns the first encountered node referencing a value that matches the given predicate and follows the given node, the given node included, in a depth-first right-to-left order of encounter in the (sub-)tree having the given node as its root.
+     *
+     * @param node      the position of the node from which the search starts.
+     * @param predicate the predicate that is applied to each encountered node's referenced value.
+     * @param root      the position of the root node of the (sub-)tree to be searched.
+     * @return the position of the node referencing a value that satisfies the given predicate, or -1 if no such node is found.
+     * @throws IllegalArgumentException if the given node is not a descendant of the given root node.
+     */
+    public int findDepthFirstRightNext(int node, P predicate, int root) {
+        return this.find(node, this.matcher(predicate), root, Node.TraversalAlgorithm.DEPTH_FIRST_RIGHT);
+    }
+}
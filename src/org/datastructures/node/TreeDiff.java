@@ -0,0 +1,578 @@
+package org.datastructures.node;
+
+import java.util.*;
+import java.util.function.Function;
+
+/*
+ * Notes:
+ * . Both root nodes are always matched to each other. Matched nodes are first compared by their cached structural hashes, see Node.hashCode(): a pair of equal (sub-)trees is matched node by node without descending into it, and its nodes take no part in the rest of the computation but for being in place. The direct descendants of a pair of different (sub-)trees are matched by hash, then in order by key, and the pairs are compared in turn, so that the unchanged parts of trees sharing most of their structure are matched by walking the changed paths only. Equal hashes are confirmed by Node.equals(Object), a plain simultaneous traversal, since distinct trees may have equal hashes.
+ * . The nodes left unmatched are matched by key, the key of a node being computed from its referenced object. Keys are looked up in a hash map, and nodes having the same key are matched in their depth-first left-to-right order of encounter.
+ * . Nodes are identified by integers, so that a script can be applied to any tree equal to the source tree, e.g. a replica: a node of the source tree is identified by its position in a depth-first left-to-right order of encounter in the source tree, and a node inserted by the script is identified by the number of nodes in the source tree plus its position in a depth-first left-to-right order of encounter in the target tree.
+ * . The script lists the updates first, then the moves and insertions in a depth-first left-to-right order of encounter in the target tree, then the deletions. Each moved or inserted node is placed right after its previous direct sibling in the target tree, which is already in place at that time, hence the direct descendants of each node end up in target order, interleaved with nodes that are moved elsewhere or deleted later on. A node is moved or inserted once its predecessor in the target tree is in place, hence a node is never moved under one of its own descendants.
+ * . Among the direct descendants of a node that are matched to direct descendants of the same node in the target tree, the longest subsequence keeping their relative order stays in place, and the others are moved. An unmatched node of the target tree is inserted along with its unmatched descendants as a single (sub-)tree.
+ * . Applying a script appends adjacent nodes moved or inserted under the same predecessor with a single call to Node.addAll(int, Node[]).
+ */
+/**
+ * The <code><b>TreeDiff</b></code> class represents an edit script transforming a source tree into a target tree.
+ * <p/>
+ * The script is made of {@link Operation} objects that update the objects referenced by nodes, move nodes, insert (sub-)trees, and delete (sub-)trees. Its size is proportional to the differences between both trees, and it is computed in time linear in the size of both trees, plus the time needed to keep the longest ordered subsequence of the direct descendants of each node in place. Equal (sub-)trees found by their cached hashes are neither keyed nor compared element by element once confirmed equal. A script is applied by {@link #apply(Node)} to the source tree or to any tree equal to it.
+ *
+ * @param <N> type of elements referenced by the nodes of the trees.
+ */
+public class TreeDiff<N> {
+    /**
+     * The number of nodes in the source tree.
+     */
+    private final int size;
+    /**
+     * The operations of the script.
+     */
+    private final List<Operation<N>> operations = new ArrayList<>();
+
+    /**
+     * Creates the edit script transforming the given source tree into the given target tree, matching nodes referencing equal objects.
+     *
+     * @param source the root node of the source tree.
+     * @param target the root node of the target tree.
+     * @throws NullPointerException if one of the given nodes is null.
+     */
+    public TreeDiff(Node<N> source, Node<N> target) {
+        this(source, target, e -> e);
+    }
+
+    /**
+     * Creates the edit script transforming the given source tree into the given target tree, matching nodes referencing objects having equal keys.
+     *
+     * @param source the root node of the source tree.
+     * @param target the root node of the target tree.
+     * @param key    the function computing the key of a referenced object.
+     * @throws NullPointerException if one of the arguments is null.
+     */
+    @SuppressWarnings("unchecked")
+    public TreeDiff(Node<N> source, Node<N> target, Function<? super N, ?> key) {
+        Objects.requireNonNull(key);
+        Node<N>[] sources = TreeDiff.preorder(source), targets = TreeDiff.preorder(target);
+        this.size = sources.length;
+        int[] sourcePredecessors = new int[sources.length], sourceIndexes = new int[sources.length], sourceMatches = new int[sources.length];
+        int[] targetMatches = new int[targets.length];
+        boolean[] identical = new boolean[targets.length];
+        TreeDiff.link(sources, sourcePredecessors, sourceIndexes);
+        Arrays.fill(sourceMatches, -1);
+        Arrays.fill(targetMatches, -1);
+        TreeDiff.match(sources, targets, sourceMatches, targetMatches, identical, key);
+        HashMap<Object, Object> keys = new HashMap<>();
+        for (int i = sources.length - 1; i > 0; i--) {
+            if (sourceMatches[i] >= 0) {
+                continue;
+            }
+            Object k = key.apply(sources[i].getElement()), tmp = keys.putIfAbsent(k, i);
+            if (tmp instanceof Integer) {
+                ArrayDeque<Integer> queue = new ArrayDeque<>();
+                queue.push((Integer) tmp);
+                queue.push(i);
+                keys.put(k, queue);
+            } else if (tmp != null) {
+                ((ArrayDeque<Integer>) tmp).push(i);
+            }
+        }
+        for (int i = 1; i < targets.length && !keys.isEmpty(); i++) {
+            if (targetMatches[i] >= 0) {
+                continue;
+            }
+            Object k = key.apply(targets[i].getElement()), tmp = keys.get(k);
+            if (tmp instanceof Integer) {
+                keys.remove(k);
+                targetMatches[i] = (Integer) tmp;
+            } else if (tmp != null) {
+                ArrayDeque<Integer> queue = (ArrayDeque<Integer>) tmp;
+                targetMatches[i] = queue.pop();
+                if (queue.isEmpty()) {
+                    keys.remove(k);
+                }
+            } else {
+                continue;
+            }
+            sourceMatches[targetMatches[i]] = i;
+        }
+        for (int i = 0; i < targets.length; i++) {
+            if (identical[i]) {
+                i += targets[i].size() - 1;
+            } else if (targetMatches[i] >= 0 && !Objects.equals(sources[targetMatches[i]].getElement(), targets[i].getElement())) {
+                this.operations.add(new Operation<>(Operation.Type.UPDATE, targetMatches[i], -1, -1, targets[i].getElement(), null, null));
+            }
+        }
+        boolean[] kept = new boolean[16];
+        int[] positions = new int[16], candidates = new int[16];
+        for (int i = 0; i < targets.length; i++) {
+            Node<N> node = targets[i];
+            int count = node.countDescendants();
+            if (identical[i]) {
+                i += node.size() - 1;
+                continue;
+            }
+            if (count == 0) {
+                continue;
+            }
+            if (count > kept.length) {
+                kept = new boolean[count];
+                positions = new int[count];
+                candidates = new int[count];
+            }
+            Arrays.fill(kept, 0, count, false);
+            int countCandidates = 0;
+            for (int j = 0, k = i + 1; j < count; k += node.getDescendant(j++).size()) {
+                if (targetMatches[i] < 0 ? targetMatches[k] < 0 : targetMatches[k] >= 0 && sourcePredecessors[targetMatches[k]] == targetMatches[i]) {
+                    positions[countCandidates] = targetMatches[i] < 0 ? countCandidates : sourceIndexes[targetMatches[k]];
+                    candidates[countCandidates++] = j;
+                }
+            }
+            for (int tmp : TreeDiff.longestIncreasingSubsequence(positions, countCandidates)) {
+                kept[candidates[tmp]] = true;
+            }
+            int predecessor = this.id(i, targetMatches);
+            for (int j = 0, k = i + 1, previous = -1; j < count; previous = this.id(k, targetMatches), k += node.getDescendant(j++).size()) {
+                if (kept[j]) {
+                    continue;
+                }
+                if (targetMatches[k] >= 0) {
+                    this.operations.add(new Operation<>(Operation.Type.MOVE, targetMatches[k], predecessor, previous, null, null, null));
+                } else {
+                    this.operations.add(this.insert(targets, k, targetMatches, predecessor, previous));
+                }
+            }
+        }
+        for (int i = 1; i < sources.length; i++) {
+            if (sourceMatches[i] < 0 && sourceMatches[sourcePredecessors[i]] >= 0) {
+                this.operations.add(new Operation<>(Operation.Type.DELETE, i, sourcePredecessors[i], -1, null, null, null));
+            }
+        }
+    }
+
+    /**
+     * Matches the nodes of equal (sub-)trees from the root nodes down, comparing the cached hashes of matched nodes before descending into them.
+     * <p/>
+     * A matched pair of equal (sub-)trees has its nodes matched in order, and is marked as identical. The direct descendants of any other matched pair are matched when their hashes are equal, then the remaining ones in order when their keys are equal, and are compared in turn.
+     *
+     * @param sources       the nodes of the source tree in a depth-first left-to-right order of encounter.
+     * @param targets       the nodes of the target tree in a depth-first left-to-right order of encounter.
+     * @param sourceMatches the positions of the matching nodes in the target tree, or -1 for unmatched nodes.
+     * @param targetMatches the positions of the matching nodes in the source tree, or -1 for unmatched nodes.
+     * @param identical     whether the (sub-)tree having each node of the target tree as its root is matched to an equal (sub-)tree, set for the root nodes of such (sub-)trees only.
+     * @param key           the function computing the key of a referenced object.
+     * @param <N>           type of elements referenced by the nodes of the trees.
+     */
+    private static <N> void match(Node<N>[] sources, Node<N>[] targets, int[] sourceMatches, int[] targetMatches, boolean[] identical, Function<? super N, ?> key) {
+        Map<Integer, Deque<Integer>> hashes = new HashMap<>();
+        int[] stack = new int[16], rest = new int[16];
+        int top = 0;
+        sourceMatches[0] = targetMatches[0] = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int t = stack[--top], s = targetMatches[t];
+            Node<N> source = sources[s], target = targets[t];
+            if (source.hashCode() == target.hashCode() && source.equals(target)) {
+                for (int i = 1, size = target.size(); i < size; sourceMatches[s + i] = t + i, targetMatches[t + i] = s + i, i++) ;
+                identical[t] = true;
+                continue;
+            }
+            hashes.clear();
+            for (int i = 0, k = s + 1; i < source.countDescendants(); k += source.getDescendant(i++).size()) {
+                hashes.computeIfAbsent(source.getDescendant(i).hashCode(), e -> new ArrayDeque<>()).add(k);
+            }
+            int count = target.countDescendants(), countRest = 0;
+            if (top + count > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(top + count, stack.length << 1));
+            }
+            if (count > rest.length) {
+                rest = new int[count];
+            }
+            for (int i = 0, k = t + 1; i < count; k += target.getDescendant(i++).size()) {
+                Deque<Integer> candidates = hashes.get(target.getDescendant(i).hashCode());
+                Integer match = candidates == null ? null : candidates.poll();
+                if (match == null) {
+                    rest[countRest++] = k;
+                } else {
+                    sourceMatches[match] = k;
+                    targetMatches[k] = match;
+                    stack[top++] = k;
+                }
+            }
+            for (int i = 0, j = 0, k = s + 1; i < source.countDescendants() && j < countRest; k += source.getDescendant(i++).size()) {
+                if (sourceMatches[k] >= 0) {
+                    continue;
+                }
+                int tmp = rest[j++];
+                if (Objects.equals(key.apply(sources[k].getElement()), key.apply(targets[tmp].getElement()))) {
+                    sourceMatches[k] = tmp;
+                    targetMatches[tmp] = k;
+                    stack[top++] = tmp;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the identifier of the given node of the target tree.
+     *
+     * @param position the position of the node in a depth-first left-to-right order of encounter in the target tree.
+     * @param matches  the positions of the matching nodes in the source tree, or -1 for unmatched nodes.
+     * @return the identifier of the node.
+     */
+    private int id(int position, int[] matches) {
+        return matches[position] >= 0 ? matches[position] : this.size + position;
+    }
+
+    /**
+     * Creates the operation inserting a copy of the given unmatched node of the target tree along with its unmatched descendants, excluding the descendants of matched nodes.
+     *
+     * @param targets     the nodes of the target tree in a depth-first left-to-right order of encounter.
+     * @param position    the position of the inserted node.
+     * @param matches     the positions of the matching nodes in the source tree, or -1 for unmatched nodes.
+     * @param predecessor the identifier of the predecessor of the inserted node.
+     * @param previous    the identifier of the previous direct sibling of the inserted node, or -1 if the inserted node is the first direct descendant.
+     * @return the insertion.
+     */
+    private Operation<N> insert(Node<N>[] targets, int position, int[] matches, int predecessor, int previous) {
+        Node.Builder<N> builder = new Node.Builder<>(targets[position].getTraversalAlgorithm());
+        int[] ids = new int[16];
+        int count = 0;
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(position);
+        while (!stack.isEmpty()) {
+            int tmp = stack.pop(), countDescendants = 0;
+            Node<N> node = targets[tmp];
+            int[] descendants = new int[node.countDescendants()];
+            for (int j = 0, k = tmp + 1; j < descendants.length; k += node.getDescendant(j++).size()) {
+                if (matches[k] < 0) {
+                    descendants[countDescendants++] = k;
+                }
+            }
+            for (int j = countDescendants - 1; j >= 0; stack.push(descendants[j--])) ;
+            builder.append(node.getElement(), countDescendants);
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count << 1);
+            }
+            ids[count++] = this.size + tmp;
+        }
+        return new Operation<>(Operation.Type.INSERT, this.size + position, predecessor, previous, targets[position].getElement(), builder.getRoot(), Arrays.copyOf(ids, count));
+    }
+
+    /**
+     * Lists the nodes of the (sub-)tree having the given node as its root in a depth-first left-to-right order of encounter.
+     *
+     * @param root the root node of the (sub-)tree.
+     * @param <N>  type of elements referenced by the nodes of the tree.
+     * @return the nodes of the (sub-)tree.
+     */
+    @SuppressWarnings("unchecked")
+    private static <N> Node<N>[] preorder(Node<N> root) {
+        Node<N>[] result = (Node<N>[]) new Node<?>[root.size()];
+        Deque<Node<N>> stack = new ArrayDeque<>();
+        stack.push(root);
+        for (int i = 0; !stack.isEmpty(); i++) {
+            Node<N> tmp = result[i] = stack.pop();
+            for (int j = tmp.countDescendants() - 1; j >= 0; stack.push(tmp.getDescendant(j--))) ;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the position of the predecessor of each node, and the position of each node among the direct descendants of its predecessor.
+     *
+     * @param nodes        the nodes of a tree in a depth-first left-to-right order of encounter.
+     * @param predecessors the positions of the predecessors, -1 for the root node.
+     * @param indexes      the positions among the direct descendants of the predecessors.
+     */
+    private static <N> void link(Node<N>[] nodes, int[] predecessors, int[] indexes) {
+        predecessors[0] = -1;
+        for (int i = 0; i < nodes.length; i++) {
+            for (int j = 0, k = i + 1; j < nodes[i].countDescendants(); k += nodes[i].getDescendant(j++).size()) {
+                predecessors[k] = i;
+                indexes[k] = j;
+            }
+        }
+    }
+
+    /**
+     * Computes a longest strictly increasing subsequence of the given values, in O(n log n) time.
+     *
+     * @param values the values.
+     * @param count  the number of values.
+     * @return the positions of the values of the subsequence in increasing order.
+     */
+    private static int[] longestIncreasingSubsequence(int[] values, int count) {
+        int[] tails = new int[count], previous = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0, high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            length = Math.max(length, low + 1);
+        }
+        int[] result = new int[length];
+        for (int i = length - 1, tmp = length > 0 ? tails[length - 1] : -1; i >= 0; result[i--] = tmp, tmp = previous[tmp]) ;
+        return result;
+    }
+
+    /**
+     * Gets the operations of the script.
+     *
+     * @return an unmodifiable list of the operations of the script.
+     */
+    public List<Operation<N>> getOperations() {
+        return Collections.unmodifiableList(this.operations);
+    }
+
+    /**
+     * Tells whether the source and target trees are equal, i.e. whether the script is empty.
+     *
+     * @return true if the script is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return this.operations.isEmpty();
+    }
+
+    /**
+     * Applies the script to the (sub-)tree having the given node as its root, which must be equal to the source tree.
+     * <p/>
+     * The nodes of the given (sub-)tree are listed once to resolve identifiers, then the operations are applied in order. Adjacent moves and insertions under the same predecessor are applied by a single call to {@link Node#addAll(int, Node[])}.
+     *
+     * @param root the root node of a (sub-)tree equal to the source tree.
+     * @throws NullPointerException     if the given node is null.
+     * @throws IllegalArgumentException if the size of the given (sub-)tree differs from the size of the source tree.
+     */
+    @SuppressWarnings("unchecked")
+    public void apply(Node<N> root) {
+        if (root.size() != this.size) {
+            throw new IllegalArgumentException();
+        }
+        Map<Integer, Node<N>> inserted = new HashMap<>();
+        Node<N>[] nodes = TreeDiff.preorder(root);
+        Function<Integer, Node<N>> resolve = e -> e < this.size ? nodes[e] : inserted.get(e);
+        List<Node<N>> run = new ArrayList<>();
+        for (int i = 0; i < this.operations.size(); ) {
+            Operation<N> operation = this.operations.get(i);
+            switch (operation.type) {
+                case UPDATE:
+                    resolve.apply(operation.id).setElement(operation.element);
+                    i++;
+                    break;
+                case DELETE:
+                    resolve.apply(operation.id).detach();
+                    i++;
+                    break;
+                default:
+                    run.clear();
+                    int last = operation.previous;
+                    for (; i < this.operations.size(); i++) {
+                        Operation<N> tmp = this.operations.get(i);
+                        if (tmp.type != Operation.Type.MOVE && tmp.type != Operation.Type.INSERT || tmp.predecessor != operation.predecessor || tmp.previous != last) {
+                            break;
+                        }
+                        if (tmp.type == Operation.Type.MOVE) {
+                            run.add(resolve.apply(tmp.id));
+                        } else {
+                            Node<N> subtree = (Node<N>) tmp.subtree.clone();
+                            int j = 0;
+                            for (Node<N> node : TreeDiff.preorder(subtree)) {
+                                inserted.put(tmp.ids[j++], node);
+                            }
+                            run.add(subtree);
+                        }
+                        last = tmp.id;
+                    }
+                    Node<N> predecessor = resolve.apply(operation.predecessor), previous = operation.previous < 0 ? null : resolve.apply(operation.previous);
+                    int index = 0;
+                    if (previous != null) {
+                        Set<Node<N>> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+                        moved.addAll(run);
+                        for (int j = 0; ; j++) {
+                            Node<N> tmp = predecessor.getDescendant(j);
+                            if (!moved.contains(tmp)) {
+                                index++;
+                            }
+                            if (tmp == previous) {
+                                break;
+                            }
+                        }
+                    }
+                    predecessor.addAll(index, (Node<N>[]) run.toArray(new Node<?>[0]));
+            }
+        }
+    }
+
+    /**
+     * Returns a string representation of the script, one operation per line.
+     *
+     * @return a string representation of the script.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (Operation<N> tmp : this.operations) {
+            result.append(tmp).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * The <code><b>Operation</b></code> class represents an operation of an edit script.
+     * <p/>
+     * Nodes are designated by identifiers: a node of the source tree is identified by its position in a depth-first left-to-right order of encounter in the source tree, and a node inserted by the script is identified by the number of nodes in the source tree plus its position in a depth-first left-to-right order of encounter in the target tree.
+     *
+     * @param <N> type of elements referenced by the nodes of the trees.
+     */
+    public static final class Operation<N> {
+        /**
+         * Enumerates the types of operations.
+         */
+        public enum Type {
+            /**
+             * Sets the object referenced by a node.
+             */
+            UPDATE,
+            /**
+             * Moves a node along with its descendants right after a given node among the direct descendants of a given predecessor.
+             */
+            MOVE,
+            /**
+             * Inserts a (sub-)tree right after a given node among the direct descendants of a given predecessor.
+             */
+            INSERT,
+            /**
+             * Detaches a node along with its descendants.
+             */
+            DELETE
+        }
+
+        /**
+         * The type of this operation.
+         */
+        private final Type type;
+        /**
+         * The identifier of the updated, moved, deleted node, or of the root node of the inserted (sub-)tree.
+         */
+        private final int id;
+        /**
+         * The identifier of the predecessor of the moved node or the inserted (sub-)tree, or of the deleted node, -1 for updates.
+         */
+        private final int predecessor;
+        /**
+         * The identifier of the node after which the node is moved or the (sub-)tree is inserted, or -1 if it becomes the first direct descendant or for other operations.
+         */
+        private final int previous;
+        /**
+         * The object referenced by the updated node or by the root node of the inserted (sub-)tree, null for other operations.
+         */
+        private final N element;
+        /**
+         * The inserted (sub-)tree, copied at each application, null for other operations.
+         */
+        private final Node<N> subtree;
+        /**
+         * The identifiers of the nodes of the inserted (sub-)tree in a depth-first left-to-right order of encounter, null for other operations.
+         */
+        private final int[] ids;
+
+        /**
+         * Creates an operation.
+         *
+         * @param type        the type of the operation.
+         * @param id          the identifier of the node.
+         * @param predecessor the identifier of the predecessor.
+         * @param previous    the identifier of the previous direct sibling.
+         * @param element     the referenced object.
+         * @param subtree     the inserted (sub-)tree.
+         * @param ids         the identifiers of the nodes of the inserted (sub-)tree.
+         */
+        private Operation(Type type, int id, int predecessor, int previous, N element, Node<N> subtree, int[] ids) {
+            this.type = type;
+            this.id = id;
+            this.predecessor = predecessor;
+            this.previous = previous;
+            this.element = element;
+            this.subtree = subtree;
+            this.ids = ids;
+        }
+
+        /**
+         * Gets the type of this operation.
+         *
+         * @return the type of this operation.
+         */
+        public Type getType() {
+            return this.type;
+        }
+
+        /**
+         * Gets the identifier of the updated, moved or deleted node, or of the root node of the inserted (sub-)tree.
+         *
+         * @return the identifier of the node.
+         */
+        public int getId() {
+            return this.id;
+        }
+
+        /**
+         * Gets the identifier of the predecessor of the moved node or the inserted (sub-)tree, or of the deleted node.
+         *
+         * @return the identifier of the predecessor, or -1 for updates.
+         */
+        public int getPredecessor() {
+            return this.predecessor;
+        }
+
+        /**
+         * Gets the identifier of the node after which the node is moved or the (sub-)tree is inserted.
+         *
+         * @return the identifier of the previous direct sibling, or -1 if the node becomes the first direct descendant or for other operations.
+         */
+        public int getPrevious() {
+            return this.previous;
+        }
+
+        /**
+         * Gets the object referenced by the updated node or by the root node of the inserted (sub-)tree.
+         *
+         * @return the referenced object, or null for other operations.
+         */
+        public N getElement() {
+            return this.element;
+        }
+
+        /**
+         * Gets a copy of the inserted (sub-)tree.
+         *
+         * @return a copy of the inserted (sub-)tree, or null for other operations.
+         */
+        @SuppressWarnings("unchecked")
+        public Node<N> getSubtree() {
+            return this.subtree == null ? null : (Node<N>) this.subtree.clone();
+        }
+
+        /**
+         * Returns a string representation of this operation.
+         *
+         * @return a string representation of this operation.
+         */
+        @Override
+        public String toString() {
+            switch (this.type) {
+                case UPDATE:
+                    return "UPDATE " + this.id + " " + this.element;
+                case DELETE:
+                    return "DELETE " + this.id;
+                default:
+                    return this.type + " " + this.id + " " + this.predecessor + " " + this.previous + (this.type == Type.INSERT ? " " + this.subtree.size() : "");
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddAllTest {
+    @Test
+    void bulkInsertionsMatchTheModel() {
+        Random random = new Random(21);
+        Node<Integer> root = Trees.random(random, 80);
+        Trees.Model model = Trees.Model.of(root);
+        for (int i = 0; i < 500; i++) {
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            List<Trees.Model> models = model.preorder();
+            int position = random.nextInt(nodes.size());
+            Node<Integer> target = nodes.get(position);
+            Trees.Model reference = models.get(position);
+            List<Node<Integer>> descendants = new ArrayList<>();
+            List<Trees.Model> references = new ArrayList<>();
+            for (int j = random.nextInt(5); j >= 0; j--) {
+                int moved = random.nextInt(nodes.size() + 2);
+                if (moved >= nodes.size()) {
+                    Node<Integer> node = new Node<>(10000 + 10 * i + j, new Node<>(-1));
+                    descendants.add(node);
+                    references.add(Trees.Model.of(node));
+                } else if (moved > 0 && !models.get(position).isDescendantOf(models.get(moved)) && !references.contains(models.get(moved))) {
+                    boolean nested = false;
+                    for (Trees.Model tmp : references) {
+                        nested |= tmp.isDescendantOf(models.get(moved)) || models.get(moved).isDescendantOf(tmp);
+                    }
+                    if (!nested) {
+                        descendants.add(nodes.get(moved));
+                        references.add(models.get(moved));
+                    }
+                }
+            }
+            int count = reference.descendants.size();
+            for (Trees.Model tmp : references) {
+                count -= tmp.predecessor == reference ? 1 : 0;
+            }
+            int index = random.nextInt(count + 1);
+            if (random.nextBoolean()) {
+                target.addAll(index, descendants);
+            } else {
+                @SuppressWarnings("unchecked")
+                Node<Integer>[] array = (Node<Integer>[]) descendants.toArray(new Node<?>[0]);
+                target.addAll(index, array);
+            }
+            for (Trees.Model tmp : references) {
+                tmp.detach();
+            }
+            for (int j = 0; j < references.size(); j++) {
+                reference.add(index + j, references.get(j));
+            }
+            assertEquals(model.shape(), Trees.shape(root));
+            Trees.assertConsistent(root);
+        }
+    }
+
+    @Test
+    void rejectedInsertionsLeaveTheTreeUnchanged() {
+        Random random = new Random(22);
+        Node<Integer> root = Trees.random(random, 50);
+        Node<Integer> node = root.getDescendant(0), other = new Node<>(-1);
+        String shape = Trees.shape(root);
+        assertThrows(IllegalArgumentException.class, () -> root.addAll(0, other, other));
+        assertThrows(IllegalArgumentException.class, () -> node.addAll(0, other, node));
+        assertThrows(NullPointerException.class, () -> root.addAll(0, other, null));
+        assertThrows(NullPointerException.class, () -> root.addAll(0, (Node<Integer>[]) null));
+        assertThrows(IndexOutOfBoundsException.class, () -> root.addAll(root.countDescendants() + 1, other));
+        assertThrows(IndexOutOfBoundsException.class, () -> root.addAll(root.countDescendants(), node));
+        assertThrows(IndexOutOfBoundsException.class, () -> root.addAll(-1, other));
+        assertEquals(shape, Trees.shape(root));
+        assertNull(other.getPredecessor());
+        Trees.assertConsistent(root);
+        assertTrue(root.addAll(0, Arrays.asList(other)));
+        assertSame(other, root.getDescendant(0));
+        assertTrue(root.addAll(root.countDescendants(), new ArrayList<>()));
+    }
+
+    @Test
+    void reordersDirectDescendants() {
+        Node<Integer> root = new Node<>(0, 1, 2, 3, 4, 5);
+        root.addAll(0, root.getDescendant(4), root.getDescendant(1));
+        assertEquals("0(5 2 1 3 4)", Trees.shape(root));
+        root.addAll(3, root.getDescendant(0), root.getDescendant(1));
+        assertEquals("0(1 3 4 5 2)", Trees.shape(root));
+        Trees.assertConsistent(root);
+    }
+}
@@ -0,0 +1,91 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregatesTest {
+    private static final Node.Aggregate<Integer, Long> SUM = new Node.Aggregate<>(e -> (long) e, Long::sum);
+    private static final Node.Aggregate<Integer, Integer> MAX = new Node.Aggregate<>(e -> e, Math::max);
+    private static final Node.Aggregate<Object, String> PREORDER = new Node.Aggregate<>(e -> e + ",", String::concat);
+
+    private static void assertAggregates(Node<Integer> root) {
+        for (Node<Integer> node : Trees.preorder(root)) {
+            List<Integer> elements = Trees.elements(Trees.preorder(node));
+            long sum = 0;
+            int max = Integer.MIN_VALUE;
+            StringBuilder preorder = new StringBuilder();
+            for (int tmp : elements) {
+                sum += tmp;
+                max = Math.max(max, tmp);
+                preorder.append(tmp).append(',');
+            }
+            assertEquals(sum, (long) node.getAggregate(AggregatesTest.SUM));
+            assertEquals(max, (int) node.getAggregate(AggregatesTest.MAX));
+            assertEquals(preorder.toString(), node.getAggregate(AggregatesTest.PREORDER));
+        }
+    }
+
+    @Test
+    void valuesFollowModifications() {
+        Random random = new Random(54);
+        Node<Integer> root = Trees.random(random, 100);
+        assertTrue(root.addAggregate(AggregatesTest.SUM));
+        assertTrue(root.getDescendant(0).addAggregate(AggregatesTest.MAX));
+        assertTrue(root.addAggregate(AggregatesTest.PREORDER));
+        assertFalse(root.addAggregate(AggregatesTest.SUM));
+        AggregatesTest.assertAggregates(root);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        for (int i = 0; i < 400; i++) {
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    Node<Integer> descendant = Trees.random(random, 1 + random.nextInt(5));
+                    node.addAll(random.nextInt(node.countDescendants() + 1), Collections.singletonList(descendant));
+                    nodes.addAll(Trees.preorder(descendant));
+                    break;
+                case 1:
+                    node.detach();
+                    AggregatesTest.assertAggregates(node);
+                    break;
+                case 2:
+                    node.setElement(random.nextInt(2000) - 1000);
+                    break;
+                default:
+                    Node<Integer> target = nodes.get(random.nextInt(nodes.size()));
+                    if (!target.isDescendantOf(node)) {
+                        target.addAll(random.nextInt(target.countDescendants() + (node.getPredecessor() == target ? 0 : 1)), node);
+                    }
+            }
+            AggregatesTest.assertAggregates(node.getRoot());
+        }
+    }
+
+    @Test
+    void removedAggregatesAreDropped() {
+        Random random = new Random(55);
+        Node<Integer> root = Trees.random(random, 50);
+        root.addAggregate(AggregatesTest.SUM);
+        root.addAggregate(AggregatesTest.MAX);
+        root.addAggregate(AggregatesTest.PREORDER);
+        assertTrue(root.removeAggregate(AggregatesTest.MAX));
+        assertFalse(root.removeAggregate(AggregatesTest.MAX));
+        assertThrows(IllegalArgumentException.class, () -> root.getDescendant(0).getAggregate(AggregatesTest.MAX));
+        root.getDescendant(0).add(new Node<>(7));
+        for (Node<Integer> node : Trees.preorder(root)) {
+            long sum = 0;
+            for (Node<Integer> tmp : Trees.preorder(node)) {
+                sum += tmp.getElement();
+            }
+            assertEquals(sum, (long) node.getAggregate(AggregatesTest.SUM));
+        }
+        root.addAggregate(AggregatesTest.MAX);
+        AggregatesTest.assertAggregates(root);
+        assertThrows(IllegalArgumentException.class, () -> new Node<>(0).getAggregate(AggregatesTest.SUM));
+        assertThrows(NullPointerException.class, () -> root.addAggregate(null));
+    }
+}
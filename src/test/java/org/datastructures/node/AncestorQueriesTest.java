@@ -0,0 +1,114 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AncestorQueriesTest {
+    private static <N> Node<N> lowestCommonAncestor(Node<N> node1, Node<N> node2) {
+        List<Node<N>> ancestors = new ArrayList<>();
+        for (Node<N> tmp = node1; tmp != null; ancestors.add(tmp), tmp = tmp.getPredecessor()) ;
+        Node<N> result = node2;
+        for (; !ancestors.contains(result); result = result.getPredecessor()) ;
+        return result;
+    }
+
+    private static <N> void assertQueries(AncestorQueries<N> queries, Random random) {
+        List<Node<N>> nodes = Trees.preorder(queries.getRoot());
+        for (int i = 0; i < 200; i++) {
+            Node<N> node1 = nodes.get(random.nextInt(nodes.size())), node2 = nodes.get(random.nextInt(nodes.size())), ancestor = lowestCommonAncestor(node1, node2);
+            assertSame(ancestor, queries.getLowestCommonAncestor(node1, node2));
+            int distance = node1.getY() + node2.getY() - 2 * ancestor.getY();
+            assertEquals(distance, queries.getDistance(node1, node2));
+            List<Node<N>> path = queries.getPath(node1, node2);
+            assertEquals(distance + 1, path.size());
+            assertSame(node1, path.get(0));
+            assertSame(node2, path.get(distance));
+            for (int j = 1; j < path.size(); j++) {
+                assertTrue(path.get(j).getPredecessor() == path.get(j - 1) || path.get(j - 1).getPredecessor() == path.get(j));
+            }
+        }
+    }
+
+    @Test
+    void answersMatchAncestorWalks() {
+        Random random = new Random(2);
+        for (int size : new int[]{1, 2, 17, 300, 2000}) {
+            assertQueries(new AncestorQueries<>(Trees.random(random, size)), random);
+        }
+    }
+
+    @Test
+    void batchesMatchSingleQueries() {
+        Random random = new Random(3);
+        Node<Integer> root = Trees.random(random, 3000);
+        AncestorQueries<Integer> queries = new AncestorQueries<>(root);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        @SuppressWarnings("unchecked")
+        Node<Integer>[] nodes1 = (Node<Integer>[]) new Node<?>[5000], nodes2 = (Node<Integer>[]) new Node<?>[5000];
+        for (int i = 0; i < nodes1.length; nodes1[i] = nodes.get(random.nextInt(nodes.size())), nodes2[i] = nodes.get(random.nextInt(nodes.size())), i++) ;
+        Node<Integer>[] ancestors = queries.getLowestCommonAncestors(nodes1, nodes2);
+        int[] distances = queries.getDistances(nodes1, nodes2);
+        for (int i = 0; i < nodes1.length; i++) {
+            assertSame(lowestCommonAncestor(nodes1[i], nodes2[i]), ancestors[i]);
+            assertEquals(queries.getDistance(nodes1[i], nodes2[i]), distances[i]);
+        }
+    }
+
+    @Test
+    void followsModificationsOfTheTree() {
+        Random random = new Random(4);
+        Node<Integer> root = Trees.random(random, 400);
+        Node<Integer> subtree = root.getDescendant(0);
+        AncestorQueries<Integer> whole = new AncestorQueries<>(root), part = new AncestorQueries<>(subtree);
+        for (int i = 0; i < 100; i++) {
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            Node<Integer> node = nodes.get(1 + random.nextInt(nodes.size() - 1));
+            if (random.nextBoolean() && node != subtree) {
+                node.detach();
+            } else {
+                node.add(new Node<>(-i));
+            }
+            assertQueries(whole, random);
+            assertQueries(part, random);
+        }
+    }
+
+    @Test
+    void keepsStructuresAcrossModificationsOutsideTheSubtree() throws ReflectiveOperationException {
+        Random random = new Random(5);
+        Node<Integer> root = new Node<>(0, Trees.random(random, 100), Trees.random(random, 100));
+        Node<Integer> left = root.getDescendant(0), right = root.getDescendant(1);
+        AncestorQueries<Integer> queries = new AncestorQueries<>(left), other = new AncestorQueries<>(right);
+        Field field = AncestorQueries.class.getDeclaredField("nodes");
+        field.setAccessible(true);
+        Object nodes = field.get(queries);
+        for (int i = 0; i < 10; i++) {
+            right.add(new Node<>(-i));
+            right.getDescendant(0).detach();
+            root.add(new Node<>(-i));
+            assertQueries(queries, random);
+            assertQueries(other, random);
+        }
+        assertSame(nodes, field.get(queries));
+        left.getDescendant(0).add(new Node<>(-1));
+        assertQueries(queries, random);
+        assertNotSame(nodes, field.get(queries));
+    }
+
+    @Test
+    void rejectsNodesOutsideTheSubtree() {
+        Random random = new Random(6);
+        Node<Integer> root = Trees.random(random, 50), outside = new Node<>(-1);
+        root.add(outside);
+        AncestorQueries<Integer> queries = new AncestorQueries<>(root.getDescendant(0));
+        assertThrows(IllegalArgumentException.class, () -> queries.getDistance(root, root.getDescendant(0)));
+        assertThrows(IllegalArgumentException.class, () -> queries.getLowestCommonAncestor(outside, outside));
+        assertThrows(NullPointerException.class, () -> queries.getDistance(null, root));
+    }
+}
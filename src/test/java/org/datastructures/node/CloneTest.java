@@ -0,0 +1,91 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloneTest {
+    @Test
+    @SuppressWarnings("unchecked")
+    void copiesMatchTheSourceTree() {
+        Random random = new Random(40);
+        for (int size : new int[]{1, 2, 11, 300}) {
+            Node<Integer> root = Trees.random(random, size);
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            for (Node<Integer> node : Arrays.asList(root, nodes.get(random.nextInt(size)))) {
+                String shape = Trees.shape(root);
+                Node<Integer> copy = (Node<Integer>) node.clone();
+                assertNull(copy.getPredecessor());
+                assertSame(node.getTraversalAlgorithm(), copy.getTraversalAlgorithm());
+                assertEquals(Trees.shape(node), Trees.shape(copy));
+                for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                    assertEquals(Trees.elements(Trees.order(node, traversalAlgorithm)), Trees.elements(Trees.order(copy, traversalAlgorithm)));
+                }
+                Trees.assertConsistent(copy);
+                Set<Node<Integer>> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+                identities.addAll(nodes);
+                for (Node<Integer> tmp : Trees.preorder(copy)) {
+                    assertFalse(identities.contains(tmp));
+                }
+                List<Node<Integer>> copies = Trees.preorder(copy);
+                copies.get(random.nextInt(copies.size())).add(new Node<>(-1));
+                copies.get(random.nextInt(copies.size())).setElement(-2);
+                assertEquals(shape, Trees.shape(root));
+                Trees.assertConsistent(root);
+                Trees.assertConsistent(copy);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void copiesKeepIndexesLabelsAndAggregates() {
+        Random random = new Random(41);
+        Node<Integer> root = Trees.random(random, 200);
+        Node.Aggregate<Integer, Integer> sum = new Node.Aggregate<>(e -> e, Integer::sum);
+        root.setIndexed(true);
+        root.setLabeled(true);
+        root.addAggregate(sum);
+        Node<Integer> copy = (Node<Integer>) root.clone();
+        assertTrue(copy.isIndexed());
+        assertTrue(copy.isLabeled());
+        for (Node<Integer> tmp : Trees.preorder(copy)) {
+            int expected = 0;
+            for (Node<Integer> tmp2 : Trees.preorder(tmp)) {
+                expected += tmp2.getElement();
+            }
+            assertEquals(expected, (int) tmp.getAggregate(sum));
+        }
+        List<Node<Integer>> copies = Trees.preorder(copy);
+        assertTrue(copies.get(copies.size() - 1).isDescendantOf(copy));
+        assertFalse(copies.get(copies.size() - 1).isDescendantOf(root));
+        assertSame(copies.get(17), copy.findDepthFirstLeftNext(copies.get(17).getElement()));
+        Node<Integer> plain = (Node<Integer>) new Node<>(0, new Node<>(1)).clone();
+        assertFalse(plain.isIndexed());
+        assertFalse(plain.isLabeled());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void copiesDeepTreesWithoutRecursion() {
+        Node.Builder<Integer> builder = new Node.Builder<>(Node.TraversalAlgorithm.DEPTH_FIRST_LEFT);
+        int height = 200000;
+        for (int i = 0; i < height; builder.append(i, i == height - 1 ? 0 : 1), i++) ;
+        Node<Integer> root = builder.getRoot();
+        Node<Integer> copy = (Node<Integer>) root.clone();
+        assertEquals(height, copy.size());
+        int i = 0;
+        for (Node<Integer> tmp = copy; tmp != null; tmp = tmp.countDescendants() == 0 ? null : tmp.getDescendant(0), i++) {
+            assertEquals(i, (int) tmp.getElement());
+            assertEquals(i, tmp.getY());
+        }
+        assertEquals(height, i);
+    }
+}
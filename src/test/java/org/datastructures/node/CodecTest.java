@@ -0,0 +1,159 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecTest {
+    @TempDir
+    Path directory;
+
+    private static <N> byte[] write(Node<N> root, Node.ElementCodec<? super N> codec) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Node.write(root, out, codec);
+        return out.toByteArray();
+    }
+
+    private static <N> Node<N> read(byte[] bytes, Node.ElementCodec<? extends N> codec) throws IOException {
+        return Node.read(new ByteArrayInputStream(bytes), codec);
+    }
+
+    private static Node<Integer> withNulls(Random random, int size) {
+        Node<Integer> root = Trees.random(random, size);
+        for (Node<Integer> tmp : Trees.preorder(root)) {
+            tmp.setElement(random.nextInt(5) == 0 ? null : tmp.getElement());
+        }
+        return root;
+    }
+
+    @Test
+    void roundTripsRandomTrees() throws IOException {
+        Random random = new Random(29);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            for (int size : new int[]{1, 2, 50, 2000}) {
+                Node<Integer> root = withNulls(random, size);
+                root.setTraversalAlgorithm(traversalAlgorithm);
+                Node<Integer> result = read(write(root, Node.ElementCodec.INTEGER), Node.ElementCodec.INTEGER);
+                assertEquals(Trees.shape(root), Trees.shape(result));
+                assertEquals(traversalAlgorithm, result.getTraversalAlgorithm());
+                Trees.assertConsistent(result);
+                Node<Integer> subtree = Trees.preorder(root).get(random.nextInt(size));
+                assertEquals(Trees.shape(subtree), Trees.shape(read(write(subtree, Node.ElementCodec.INTEGER), Node.ElementCodec.INTEGER)));
+            }
+        }
+    }
+
+    @Test
+    void roundTripsEveryElementCodec() throws IOException {
+        Node<Long> longs = new Node<>(Long.MIN_VALUE, 0L, null, Long.MAX_VALUE);
+        assertEquals(Trees.shape(longs), Trees.shape(read(write(longs, Node.ElementCodec.LONG), Node.ElementCodec.LONG)));
+        Node<Double> doubles = new Node<>(-0.0, Double.NaN, null, Double.POSITIVE_INFINITY, 1.5);
+        assertEquals(Trees.shape(doubles), Trees.shape(read(write(doubles, Node.ElementCodec.DOUBLE), Node.ElementCodec.DOUBLE)));
+        Node<String> strings = new Node<>("", "\u00e9t\u00e9", null, String.join("", java.util.Collections.nCopies(70000, "x")));
+        assertEquals(Trees.shape(strings), Trees.shape(read(write(strings, Node.ElementCodec.STRING), Node.ElementCodec.STRING)));
+    }
+
+    @Test
+    void roundTripsDeepTrees() throws IOException {
+        int size = 200000;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x4E4F4445);
+        out.writeByte(1);
+        out.writeByte(Node.TraversalAlgorithm.DEPTH_FIRST_LEFT.ordinal());
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            Node.writeVarInt(out, i < size - 1 ? 2 : 0);
+            out.writeInt(i);
+        }
+        Node<Integer> result = read(bytes.toByteArray(), Node.ElementCodec.INTEGER);
+        assertEquals(size, result.size());
+        assertEquals(size - 1, result.getHeight());
+        int i = 0;
+        for (Node<Integer> tmp = result; tmp != null; tmp = tmp.countDescendants() == 0 ? null : tmp.getDescendant(0), i++) {
+            assertEquals(i, tmp.getElement());
+            assertEquals(i, tmp.getY());
+        }
+        assertEquals(size, i);
+        assertArrayEquals(bytes.toByteArray(), write(result, Node.ElementCodec.INTEGER));
+    }
+
+    @Test
+    void roundTripsThroughFileChannels() throws IOException {
+        Random random = new Random(30);
+        Node<Integer> first = withNulls(random, 300), second = withNulls(random, 10);
+        Path file = this.directory.resolve("trees");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            Node.write(first, channel, Node.ElementCodec.INTEGER);
+            Node.write(second, channel, Node.ElementCodec.INTEGER);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(Trees.shape(first), Trees.shape(Node.read(channel, Node.ElementCodec.INTEGER)));
+            assertEquals(Trees.shape(second), Trees.shape(Node.read(channel, Node.ElementCodec.INTEGER)));
+            assertEquals(channel.size(), channel.position());
+        }
+    }
+
+    @Test
+    void roundTripsThroughSerialization() throws IOException, ClassNotFoundException {
+        Node<Integer> root = withNulls(new Random(31), 500);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(root);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            Node<Integer> result = (Node<Integer>) in.readObject();
+            assertEquals(Trees.shape(root), Trees.shape(result));
+            Trees.assertConsistent(result);
+        }
+    }
+
+    @Test
+    void rejectsCorruptedInput() throws IOException {
+        Random random = new Random(32);
+        byte[] bytes = write(withNulls(random, 200), Node.ElementCodec.INTEGER);
+        byte[] magic = bytes.clone();
+        magic[0] ^= 1;
+        assertThrows(StreamCorruptedException.class, () -> read(magic, Node.ElementCodec.INTEGER));
+        byte[] version = bytes.clone();
+        version[4]++;
+        assertThrows(StreamCorruptedException.class, () -> read(version, Node.ElementCodec.INTEGER));
+        byte[] algorithm = bytes.clone();
+        algorithm[5] = 100;
+        assertThrows(StreamCorruptedException.class, () -> read(algorithm, Node.ElementCodec.INTEGER));
+        byte[] size = bytes.clone();
+        size[6] = 0x7F;
+        assertThrows(IOException.class, () -> read(size, Node.ElementCodec.INTEGER));
+        for (int length : new int[]{0, 3, 10, bytes.length / 2, bytes.length - 1}) {
+            assertThrows(IOException.class, () -> read(Arrays.copyOf(bytes, length), Node.ElementCodec.INTEGER));
+        }
+        for (int i = 0; i < 2000; i++) {
+            byte[] tmp = bytes.clone();
+            tmp[10 + random.nextInt(tmp.length - 10)] = (byte) random.nextInt(256);
+            try {
+                Node<Integer> result = read(tmp, Node.ElementCodec.INTEGER);
+                List<Node<Integer>> nodes = Trees.preorder(result);
+                assertEquals(nodes.size(), result.size());
+                Trees.assertConsistent(result);
+            } catch (IOException e) {
+                assertNotNull(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTreeTest {
+    private static int find(CompactTree<Integer> tree, int node, Predicate<Integer> predicate, int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return tree.findBreadthFirstLeftNext(node, predicate, root);
+            case BREADTH_FIRST_RIGHT:
+                return tree.findBreadthFirstRightNext(node, predicate, root);
+            case DEPTH_FIRST_LEFT:
+                return tree.findDepthFirstLeftNext(node, predicate, root);
+            default:
+                return tree.findDepthFirstRightNext(node, predicate, root);
+        }
+    }
+
+    @Test
+    void matchesTheSourceTree() {
+        Random random = new Random(33);
+        for (int size : new int[]{1, 2, 9, 120, 400}) {
+            Node<Integer> root = Trees.random(random, size);
+            Trees.assertCompact(root.compact(), root, Function.identity());
+            Node<Integer> subtree = Trees.preorder(root).get(random.nextInt(size));
+            Trees.assertCompact(new CompactTree<>(subtree), subtree, Function.identity());
+        }
+    }
+
+    @Test
+    void searchesMatchTheOrdersOfEncounter() {
+        Random random = new Random(34);
+        Node<Integer> root = Trees.random(random, 300);
+        CompactTree<Integer> tree = root.compact();
+        int[] positions = new int[tree.size()];
+        for (int i = 0; i < positions.length; positions[tree.getElement(i)] = i, i++) ;
+        for (int i = 0; i < 200; i++) {
+            int subtree = random.nextInt(tree.size()), modulus = 2 + random.nextInt(20);
+            int node = subtree + random.nextInt(tree.size(subtree));
+            Predicate<Integer> predicate = e -> e % modulus == 0;
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                int expected = -1;
+                boolean started = false;
+                for (Node<Integer> tmp : Trees.order(Trees.preorder(root).get(subtree), traversalAlgorithm)) {
+                    started |= positions[tmp.getElement()] == node;
+                    if (started && predicate.test(tmp.getElement())) {
+                        expected = positions[tmp.getElement()];
+                        break;
+                    }
+                }
+                assertEquals(expected, CompactTreeTest.find(tree, node, predicate, subtree, traversalAlgorithm));
+            }
+        }
+    }
+
+    @Test
+    void convertsBackToTheSourceTree() {
+        Random random = new Random(35);
+        Node<Integer> root = Trees.random(random, 500);
+        CompactTree<Integer> tree = root.compact();
+        assertEquals(Trees.shape(root), Trees.shape(tree.toNode()));
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        for (int i = 0; i < 50; i++) {
+            int position = random.nextInt(nodes.size());
+            assertEquals(Trees.shape(nodes.get(position)), Trees.shape(tree.toNode(position)));
+        }
+    }
+
+    @Test
+    void collectionViewMatchesThePreferredOrder() {
+        Random random = new Random(36);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            Node<Integer> root = new Node<>(-1, traversalAlgorithm, Trees.random(random, 200), new Node<>((Integer) null));
+            CompactTree<Integer> tree = root.compact();
+            assertSame(traversalAlgorithm, tree.getTraversalAlgorithm());
+            List<Integer> expected = Trees.elements(Trees.order(root, traversalAlgorithm));
+            assertEquals(expected, new ArrayList<>(tree));
+            assertEquals(expected, Arrays.asList(tree.toArray()));
+            assertTrue(tree.contains(null));
+            assertTrue(tree.contains(199));
+            assertFalse(tree.contains(200));
+            assertThrows(UnsupportedOperationException.class, () -> tree.add(0));
+        }
+    }
+
+    @Test
+    void rejectsNodesOutsideTheSubtree() {
+        CompactTree<Integer> tree = new Node<>(0, new Node<>(1, new Node<>(2)), new Node<>(3)).compact();
+        assertThrows(IllegalArgumentException.class, () -> tree.getDepthFirstLeftNext(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> tree.getBreadthFirstLeftNext(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> tree.findDepthFirstRightNext(3, e -> true, 1));
+        assertThrows(NullPointerException.class, () -> new CompactTree<>(null));
+    }
+}
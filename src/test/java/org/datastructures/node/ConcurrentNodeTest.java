@@ -0,0 +1,70 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentNodeTest {
+    @Test
+    void snapshotsFollowThePreferredTraversalAlgorithm() {
+        Random random = new Random(14);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            for (int size : new int[]{1, 2, 30, 500}) {
+                Node<Integer> root = Trees.random(random, size);
+                root.setTraversalAlgorithm(traversalAlgorithm);
+                Object[] expected = root.toArray();
+                ConcurrentNode<Integer> node = new ConcurrentNode<>(root);
+                assertArrayEquals(expected, node.toArray());
+                assertArrayEquals(expected, node.toArray(new Integer[0]));
+                List<Integer> elements = new ArrayList<>();
+                node.forEach(elements::add);
+                assertArrayEquals(expected, elements.toArray());
+                assertEquals(size, node.size());
+            }
+        }
+    }
+
+    @Test
+    void snapshotsSeeWholeWrites() throws InterruptedException {
+        Random random = new Random(15);
+        Node<Integer> root = Trees.random(random, 200);
+        ConcurrentNode<Integer> node = new ConcurrentNode<>(root);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        Thread writer = new Thread(() -> {
+            Random tmp = new Random(16);
+            for (int i = 0; i < 20000; i++) {
+                Node<Integer> moved = nodes.get(1 + tmp.nextInt(nodes.size() - 1)), target = nodes.get(tmp.nextInt(nodes.size()));
+                if (!target.isDescendantOf(moved)) {
+                    node.add(target, moved);
+                }
+            }
+        });
+        writer.start();
+        List<Throwable> failures = new ArrayList<>();
+        while (writer.isAlive()) {
+            try {
+                Object[] snapshot = node.toArray();
+                Set<Object> elements = new HashSet<>();
+                for (Object tmp : snapshot) {
+                    elements.add(tmp);
+                }
+                assertEquals(200, snapshot.length);
+                assertEquals(200, elements.size());
+                assertEquals(0, snapshot[0]);
+            } catch (Throwable e) {
+                failures.add(e);
+                break;
+            }
+        }
+        writer.join();
+        assertEquals(new ArrayList<>(), failures);
+        assertEquals(200, node.size());
+        assertArrayEquals(root.toArray(), node.toArray());
+    }
+}
@@ -0,0 +1,52 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordinatesTest {
+    @Test
+    void coordinatesFollowRandomMutations() {
+        Random random = new Random(19);
+        Node<Integer> root = Trees.random(random, 60);
+        for (int i = 0; i < 1500; i++) {
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size())), target = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    target.addAll(random.nextInt(target.countDescendants() + 1), new Node<>(1000 + i, new Node<>(2000 + i), new Node<>(3000 + i)));
+                    break;
+                case 1:
+                    if (node != root && nodes.size() > 20) {
+                        node.detach();
+                    }
+                    break;
+                default:
+                    if (node != root && !target.isDescendantOf(node)) {
+                        target.addAll(random.nextInt(target.countDescendants() + (node.getPredecessor() == target ? 0 : 1)), node);
+                    }
+            }
+            Trees.assertConsistent(root);
+        }
+    }
+
+    @Test
+    void detachedTreesHaveCoordinatesOfTheirOwn() {
+        Random random = new Random(20);
+        Node<Integer> root = Trees.random(random, 300);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        for (int i = 0; i < 20; i++) {
+            Node<Integer> node = nodes.get(1 + random.nextInt(nodes.size() - 1));
+            if (node.getRoot() == root && node != root) {
+                node.detach();
+                assertEquals(0, node.getX());
+                assertEquals(0, node.getY());
+                Trees.assertConsistent(node);
+                Trees.assertConsistent(root);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+    private static Node<Integer> step(Node<Integer> node, Node<Integer> root, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return node.getBreadthFirstLeftNext(root);
+            case BREADTH_FIRST_RIGHT:
+                return node.getBreadthFirstRightNext(root);
+            case DEPTH_FIRST_LEFT:
+                return node.getDepthFirstLeftNext(root);
+            default:
+                return node.getDepthFirstRightNext(root);
+        }
+    }
+
+    private static Node<Integer> find(Node<Integer> node, Predicate<Integer> predicate, Node<Integer> root, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return node.findBreadthFirstLeftNext(predicate, root);
+            case BREADTH_FIRST_RIGHT:
+                return node.findBreadthFirstRightNext(predicate, root);
+            case DEPTH_FIRST_LEFT:
+                return node.findDepthFirstLeftNext(predicate, root);
+            default:
+                return node.findDepthFirstRightNext(predicate, root);
+        }
+    }
+
+    @Test
+    void walksMatchTheOrderOfEncounter() {
+        Random random = new Random(25);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            for (int size : new int[]{1, 2, 30, 400}) {
+                Node<Integer> tree = Trees.random(random, size);
+                List<Node<Integer>> nodes = Trees.preorder(tree);
+                for (int i = 0; i < 20; i++) {
+                    Node<Integer> root = i == 0 ? tree : nodes.get(random.nextInt(nodes.size()));
+                    List<Node<Integer>> expected = Trees.order(root, traversalAlgorithm);
+                    int from = random.nextInt(expected.size());
+                    List<Node<Integer>> walked = new ArrayList<>(), stepped = new ArrayList<>();
+                    Node.Cursor<Integer> cursor = expected.get(from).cursor(root, traversalAlgorithm);
+                    for (Node<Integer> tmp = cursor.getNode(); tmp != null; walked.add(tmp), tmp = cursor.next()) ;
+                    for (Node<Integer> tmp = expected.get(from); tmp != null; stepped.add(tmp), tmp = step(tmp, root, traversalAlgorithm)) ;
+                    assertEquals(expected.subList(from, expected.size()), walked);
+                    assertEquals(expected.subList(from, expected.size()), stepped);
+                    assertNull(cursor.getNode());
+                    assertNull(cursor.next());
+                }
+            }
+        }
+    }
+
+    @Test
+    void searchesMatchTheOrderOfEncounter() {
+        Random random = new Random(26);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            Node<Integer> tree = Trees.random(random, 500);
+            List<Node<Integer>> nodes = Trees.preorder(tree);
+            for (int i = 0; i < 50; i++) {
+                Node<Integer> root = nodes.get(random.nextInt(nodes.size()));
+                List<Node<Integer>> order = Trees.order(root, traversalAlgorithm);
+                int from = random.nextInt(order.size()), modulo = 1 + random.nextInt(20);
+                Predicate<Integer> predicate = e -> e % modulo == 0;
+                Node<Integer> expected = null;
+                for (int j = from; j < order.size() && expected == null; expected = predicate.test(order.get(j).getElement()) ? order.get(j) : null, j++) ;
+                assertSame(expected, order.get(from).cursor(root, traversalAlgorithm).find(predicate));
+                assertSame(expected, find(order.get(from), predicate, root, traversalAlgorithm));
+            }
+        }
+    }
+
+    @Test
+    void validatesTheRootOnce() {
+        Node<Integer> tree = new Node<>(0, 1, 2);
+        Node<Integer> leaf = tree.getDescendant(0);
+        assertThrows(IllegalArgumentException.class, () -> tree.cursor(leaf, Node.TraversalAlgorithm.DEPTH_FIRST_LEFT));
+        assertThrows(NullPointerException.class, () -> leaf.cursor(tree, null));
+        assertNull(leaf.getDepthFirstLeftNext(leaf));
+        assertNull(leaf.getDepthFirstRightNext(leaf));
+        assertNull(leaf.cursor(leaf, Node.TraversalAlgorithm.DEPTH_FIRST_LEFT).next());
+    }
+}
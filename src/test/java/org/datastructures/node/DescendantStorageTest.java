@@ -0,0 +1,92 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DescendantStorageTest {
+    @Test
+    void appendsMatchAList() {
+        Node<Integer> root = new Node<>(-1);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 3 == 0) {
+                root.add(i);
+            } else {
+                root.add(new Node<>(i));
+            }
+            expected.add(i);
+        }
+        assertEquals(expected.size(), root.countDescendants());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), root.getDescendant(i).getElement());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> root.getDescendant(1000));
+        assertThrows(IndexOutOfBoundsException.class, () -> root.getDescendant(-1));
+        Trees.assertConsistent(root);
+    }
+
+    @Test
+    void randomMutationsMatchTheModel() {
+        Random random = new Random(17);
+        Node<Integer> root = Trees.random(random, 30);
+        Trees.Model model = Trees.Model.of(root);
+        for (int i = 0; i < 2000; i++) {
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            List<Trees.Model> models = model.preorder();
+            int position = random.nextInt(nodes.size());
+            Node<Integer> node = nodes.get(position);
+            Trees.Model reference = models.get(position);
+            switch (random.nextInt(5)) {
+                case 0:
+                case 1:
+                    node.add(100 + i);
+                    reference.add(reference.descendants.size(), new Trees.Model(100 + i));
+                    break;
+                case 2:
+                    if (position > 0) {
+                        node.detach();
+                        reference.detach();
+                    }
+                    break;
+                case 3:
+                    int target = random.nextInt(nodes.size());
+                    if (position > 0 && !models.get(target).isDescendantOf(reference)) {
+                        nodes.get(target).add(node);
+                        reference.detach();
+                        models.get(target).add(models.get(target).descendants.size(), reference);
+                    }
+                    break;
+                default:
+                    if (random.nextBoolean()) {
+                        node.ensureCapacity(random.nextInt(40));
+                    } else {
+                        node.trimToSize();
+                    }
+            }
+            assertEquals(model.shape(), Trees.shape(root));
+            if (i % 50 == 0) {
+                Trees.assertConsistent(root);
+            }
+        }
+        Trees.assertConsistent(root);
+    }
+
+    @Test
+    void trimmedTreesKeepGrowing() {
+        Random random = new Random(18);
+        Node<Integer> root = Trees.random(random, 200);
+        String shape = Trees.shape(root);
+        root.trimToSize();
+        assertEquals(shape, Trees.shape(root));
+        for (Node<Integer> tmp : Trees.preorder(root)) {
+            tmp.add(-1);
+        }
+        Trees.assertConsistent(root);
+        assertEquals(400, root.size());
+    }
+}
@@ -0,0 +1,113 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ElementIndexTest {
+    private static Node<Integer> duplicates(Random random, int size) {
+        Node<Integer> root = Trees.random(random, size);
+        for (Node<Integer> tmp : Trees.preorder(root)) {
+            tmp.setElement(tmp.getElement() % 7);
+        }
+        return root;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node<Integer> copy(Node<Integer> root, boolean indexed) {
+        Node<Integer> result = (Node<Integer>) root.clone();
+        result.setIndexed(indexed);
+        return result;
+    }
+
+    private static int position(List<Node<Integer>> nodes, Node<Integer> node) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void findsTheSameNodesAsTraversals() {
+        Random random = new Random(11);
+        for (int i = 0; i < 20; i++) {
+            Node<Integer> plain = duplicates(random, 1 + random.nextInt(200)), indexed = copy(plain, true);
+            assertTrue(indexed.isIndexed());
+            List<Node<Integer>> plains = Trees.preorder(plain), indexeds = Trees.preorder(indexed);
+            for (int j = 0; j < 100; j++) {
+                int from = random.nextInt(plains.size());
+                Integer element = random.nextInt(8);
+                Node<Integer> node = plains.get(from), other = indexeds.get(from), ancestor = node;
+                for (int k = random.nextInt(node.getY() + 1); k > 0; ancestor = ancestor.getPredecessor(), k--) ;
+                int root = position(plains, ancestor);
+                assertEquals(position(plains, node.findBreadthFirstLeftNext(element)), position(indexeds, other.findBreadthFirstLeftNext(element)));
+                assertEquals(position(plains, node.findBreadthFirstRightNext(element)), position(indexeds, other.findBreadthFirstRightNext(element)));
+                assertEquals(position(plains, node.findDepthFirstLeftNext(element)), position(indexeds, other.findDepthFirstLeftNext(element)));
+                assertEquals(position(plains, node.findDepthFirstRightNext(element)), position(indexeds, other.findDepthFirstRightNext(element)));
+                assertEquals(position(plains, node.findDepthFirstLeftNext(element, plains.get(root))), position(indexeds, other.findDepthFirstLeftNext(element, indexeds.get(root))));
+                assertEquals(position(plains, node.findBreadthFirstRightNext(element, plains.get(root))), position(indexeds, other.findBreadthFirstRightNext(element, indexeds.get(root))));
+                assertEquals(plains.get(root).contains(element), indexeds.get(root).contains(element));
+            }
+        }
+    }
+
+    @Test
+    void followsModificationsOfTheTree() {
+        Random random = new Random(12);
+        Node<Integer> plain = duplicates(random, 100), indexed = copy(plain, true);
+        for (int i = 0; i < 300; i++) {
+            List<Node<Integer>> plains = Trees.preorder(plain), indexeds = Trees.preorder(indexed);
+            int position = random.nextInt(plains.size());
+            Integer element = random.nextInt(8);
+            switch (random.nextInt(3)) {
+                case 0:
+                    plains.get(position).add(new Node<>(element));
+                    indexeds.get(position).add(new Node<>(element));
+                    break;
+                case 1:
+                    plains.get(position).setElement(element);
+                    indexeds.get(position).setElement(element);
+                    break;
+                default:
+                    if (position > 0) {
+                        plains.get(position).detach();
+                        indexeds.get(position).detach();
+                    }
+            }
+            assertEquals(Trees.shape(plain), Trees.shape(indexed));
+            assertEquals(position(plains, plain.findDepthFirstLeftNext(element)), position(indexeds, indexed.findDepthFirstLeftNext(element)));
+            assertEquals(plain.contains(element), indexed.contains(element));
+        }
+        assertEquals(Trees.shape(copy(indexed, false)), Trees.shape(copy(indexed, true)));
+    }
+
+    @Test
+    void removesTheSameNodesAsTraversals() {
+        Random random = new Random(13);
+        for (int i = 0; i < 50; i++) {
+            Node<Integer> plain = duplicates(random, 1 + random.nextInt(100)), indexed = copy(plain, true);
+            List<Node<Integer>> plains = Trees.preorder(plain), indexeds = Trees.preorder(indexed);
+            int position = random.nextInt(plains.size());
+            Integer element = random.nextInt(8);
+            assertEquals(plains.get(position).remove(element), indexeds.get(position).remove(element));
+            assertEquals(Trees.shape(plain), Trees.shape(indexed));
+            assertEquals(element.equals(indexeds.get(position).getElement()), indexeds.get(position).contains(element));
+        }
+    }
+
+    @Test
+    void doesNotRemoveTheRoot() {
+        Node<Integer> plain = new Node<>(1, new Node<>(2), new Node<>(3)), indexed = copy(plain, true);
+        assertFalse(plain.remove(1));
+        assertFalse(indexed.remove(1));
+        assertEquals("1(2 3)", Trees.shape(indexed));
+        assertTrue(indexed.remove(3));
+        assertEquals("1(2)", Trees.shape(indexed));
+        assertFalse(indexed.remove(3));
+    }
+}
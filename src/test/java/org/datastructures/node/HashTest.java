@@ -0,0 +1,93 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashTest {
+    private static int hash(Node<?> node) {
+        int result = 31 * Objects.hashCode(node.getElement()) + node.countDescendants();
+        for (int i = 0; i < node.countDescendants(); result = 31 * result + HashTest.hash(node.getDescendant(i++))) ;
+        return result;
+    }
+
+    private static Node<Integer> random(Random random, int size, int elements) {
+        Node<Integer> result = Trees.random(random, size);
+        for (Node<Integer> tmp : Trees.preorder(result)) {
+            tmp.setElement(random.nextInt(elements) == 0 ? null : random.nextInt(elements));
+        }
+        return result;
+    }
+
+    @Test
+    void cachedHashesFollowModifications() {
+        Random random = new Random(42);
+        Node<Integer> root = Trees.random(random, 100);
+        for (int i = 0; i < 500; i++) {
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    node.add(new Node<>(1000 + i, new Node<>(2000 + i)));
+                    break;
+                case 1:
+                    node.detach();
+                    break;
+                case 2:
+                    node.setElement(random.nextBoolean() ? null : -i);
+                    break;
+                default:
+                    Node<Integer> target = nodes.get(random.nextInt(nodes.size()));
+                    if (!target.isDescendantOf(node)) {
+                        target.addAll(random.nextInt(target.countDescendants() + (node.getPredecessor() == target ? 0 : 1)), node);
+                    }
+            }
+            Node<Integer> checked = nodes.get(random.nextInt(nodes.size())).getRoot();
+            for (Node<Integer> tmp : random.nextBoolean() ? Trees.preorder(checked) : Trees.preorder(root)) {
+                assertEquals(HashTest.hash(tmp), tmp.hashCode());
+            }
+        }
+    }
+
+    @Test
+    void equalsMatchesTheShapes() {
+        Random random = new Random(43);
+        List<Node<Integer>> trees = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            trees.add(HashTest.random(random, 1 + random.nextInt(4), 2));
+        }
+        int equal = 0;
+        for (int i = 0; i < trees.size(); i++) {
+            for (int j = 0; j < trees.size(); j++) {
+                boolean expected = Trees.shape(trees.get(i)).equals(Trees.shape(trees.get(j)));
+                assertEquals(expected, trees.get(i).equals(trees.get(j)));
+                if (expected) {
+                    assertEquals(trees.get(i).hashCode(), trees.get(j).hashCode());
+                    equal += i != j ? 1 : 0;
+                }
+            }
+        }
+        assertTrue(equal > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void equalSubtreesAtOtherLocationsAreEqual() {
+        Random random = new Random(44);
+        Node<Integer> subtree = HashTest.random(random, 50, 5);
+        Node<Integer> root = new Node<>(0, HashTest.random(random, 30, 5), (Node<Integer>) subtree.clone(), new Node<>(1, (Node<Integer>) subtree.clone()));
+        Node<Integer> first = root.getDescendant(1), second = root.getDescendant(2).getDescendant(0);
+        assertEquals(subtree.hashCode(), first.hashCode());
+        assertEquals(first, second);
+        assertEquals(second, subtree);
+        Trees.preorder(second).get(49).setElement(-1);
+        assertNotEquals(first, second);
+        assertEquals(HashTest.hash(second), second.hashCode());
+        assertThrows(IllegalArgumentException.class, () -> first.equals("0"));
+    }
+}
@@ -0,0 +1,83 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IteratorsTest {
+    private static <N> List<N> drain(Iterator<N> iterator) {
+        List<N> result = new ArrayList<>();
+        for (; iterator.hasNext(); result.add(iterator.next())) ;
+        return result;
+    }
+
+    @Test
+    void iteratorsFollowTheOrderOfEncounter() {
+        Random random = new Random(23);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            for (int size : new int[]{1, 2, 40, 700}) {
+                Node<Integer> root = Trees.random(random, size);
+                root.setTraversalAlgorithm(traversalAlgorithm);
+                List<Node<Integer>> nodes = Trees.preorder(root);
+                for (int i = 0; i < 10; i++) {
+                    Node<Integer> node = i == 0 ? root : nodes.get(random.nextInt(nodes.size()));
+                    List<Integer> expected = Trees.elements(Trees.order(node, traversalAlgorithm));
+                    assertEquals(expected, drain(node.iterator()));
+                    assertEquals(expected, drain(new Node.NodeIterator<>(node, traversalAlgorithm)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void iteratorsAreExhausted() {
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            Node<Integer> root = new Node<>(0, traversalAlgorithm, 1, 2);
+            Iterator<Integer> iterator = root.iterator();
+            assertThrows(IllegalStateException.class, iterator::remove);
+            for (int i = 0; i < 3; i++, iterator.next()) ;
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, iterator::next);
+        }
+    }
+
+    @Test
+    void removalsMatchTheSteppingIterator() {
+        Random random = new Random(24);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            for (int i = 0; i < 30; i++) {
+                Node<Integer> root = Trees.random(random, 1 + random.nextInt(200));
+                root.setTraversalAlgorithm(traversalAlgorithm);
+                @SuppressWarnings("unchecked")
+                Node<Integer> copy = (Node<Integer>) root.clone();
+                List<Node<Integer>> nodes = Trees.preorder(root), copies = Trees.preorder(copy);
+                int position = random.nextInt(nodes.size()), modulo = 2 + random.nextInt(5);
+                List<Integer> visited = new ArrayList<>(), expected = new ArrayList<>();
+                for (Iterator<Integer> iterator = nodes.get(position).iterator(); iterator.hasNext(); ) {
+                    Integer tmp = iterator.next();
+                    visited.add(tmp);
+                    if (tmp % modulo == 0) {
+                        iterator.remove();
+                        assertThrows(IllegalStateException.class, iterator::remove);
+                    }
+                }
+                for (Iterator<Integer> iterator = new Node.NodeIterator<>(copies.get(position), traversalAlgorithm); iterator.hasNext(); ) {
+                    Integer tmp = iterator.next();
+                    expected.add(tmp);
+                    if (tmp % modulo == 0) {
+                        iterator.remove();
+                    }
+                }
+                assertEquals(expected, visited);
+                assertEquals(Trees.shape(copy), Trees.shape(root));
+                Trees.assertConsistent(root);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRebuildsRandomMutations() throws IOException {
+        Random random = new Random(1);
+        Node<Integer> root = Trees.random(random, 50);
+        try (Journal<Integer> journal = Journal.create(root, this.directory, Node.ElementCodec.INTEGER, 64, 40)) {
+            for (int i = 0; i < 300; i++) {
+                List<Node<Integer>> nodes = Trees.preorder(root);
+                Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        node.add(new Node<>(1000 + i, new Node<>(2000 + i)));
+                        break;
+                    case 1:
+                        node.detach();
+                        break;
+                    case 2:
+                        node.setElement(random.nextBoolean() ? null : -i);
+                        break;
+                    default:
+                        Node<Integer> target = nodes.get(random.nextInt(nodes.size()));
+                        if (!target.isDescendantOf(node)) {
+                            target.addAll(random.nextInt(target.countDescendants() + (node.getPredecessor() == target ? 0 : 1)), node);
+                        }
+                }
+            }
+            journal.commit();
+            assertEquals(Trees.shape(root), Trees.shape(Journal.replay(this.directory, Node.ElementCodec.INTEGER)));
+        }
+    }
+
+    @Test
+    void replayIgnoresTornBatch() throws IOException {
+        Node<Integer> root = new Node<>(0);
+        try (Journal<Integer> journal = Journal.create(root, this.directory, Node.ElementCodec.INTEGER, 1, 100)) {
+            root.add(new Node<>(1));
+            String committed = Trees.shape(root);
+            root.add(new Node<>(2));
+            Path file = this.directory.resolve("journal");
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+            assertEquals(committed, Trees.shape(Journal.replay(this.directory, Node.ElementCodec.INTEGER)));
+            assertFalse(journal.isFailed());
+        }
+    }
+
+    @Test
+    void failedCommitLeavesTreeAndJournalInAgreement() throws Exception {
+        Node<Integer> root = new Node<>(0);
+        Journal<Integer> journal = Journal.create(root, this.directory, Node.ElementCodec.INTEGER, 1, 100);
+        root.add(new Node<>(1));
+        Field field = Journal.class.getDeclaredField("channel");
+        field.setAccessible(true);
+        ((FileChannel) field.get(journal)).close();
+        assertThrows(UncheckedIOException.class, () -> root.add(new Node<>(5)));
+        assertEquals("0(1)", Trees.shape(root));
+        assertTrue(journal.isFailed());
+        assertThrows(IllegalStateException.class, () -> root.add(new Node<>(6)));
+        assertThrows(IllegalStateException.class, journal::commit);
+        assertEquals("0(1)", Trees.shape(root));
+        assertEquals("0(1)", Trees.shape(Journal.replay(this.directory, Node.ElementCodec.INTEGER)));
+        journal.checkpoint();
+        assertFalse(journal.isFailed());
+        root.add(new Node<>(7));
+        journal.close();
+        assertEquals("0(1 7)", Trees.shape(Journal.replay(this.directory, Node.ElementCodec.INTEGER)));
+    }
+
+    @Test
+    void failedCommitIsNotWrittenByTheNextCommit() throws Exception {
+        Node<Integer> root = new Node<>(0);
+        Journal<Integer> journal = Journal.create(root, this.directory, Node.ElementCodec.INTEGER, 1 << 20, 100);
+        root.add(new Node<>(1));
+        Field field = Journal.class.getDeclaredField("channel");
+        field.setAccessible(true);
+        FileChannel channel = (FileChannel) field.get(journal);
+        channel.close();
+        assertThrows(IOException.class, journal::commit);
+        assertThrows(IllegalStateException.class, journal::commit);
+        journal.close();
+        assertNull(root.getJournal());
+        assertEquals("0", Trees.shape(Journal.replay(this.directory, Node.ElementCodec.INTEGER)));
+    }
+}
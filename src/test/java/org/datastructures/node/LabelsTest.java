@@ -0,0 +1,114 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelsTest {
+    private static <N> boolean isDescendantOf(Node<N> node, Node<N> root) {
+        for (Node<N> tmp = node; tmp != null; tmp = tmp.getPredecessor()) {
+            if (tmp == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <N> Node<N> root(Node<N> node) {
+        Node<N> result = node;
+        for (; result.getPredecessor() != null; result = result.getPredecessor()) ;
+        return result;
+    }
+
+    private static void assertAncestry(List<Node<Integer>> nodes, Random random) {
+        for (int i = 0; i < 2000; i++) {
+            Node<Integer> node1 = nodes.get(random.nextInt(nodes.size())), node2 = random.nextInt(4) == 0 ? LabelsTest.root(node1) : nodes.get(random.nextInt(nodes.size()));
+            assertEquals(LabelsTest.isDescendantOf(node1, node2), node1.isDescendantOf(node2));
+            assertEquals(LabelsTest.isDescendantOf(node2, node1), node1.isPredecessorOf(node2));
+            assertEquals(LabelsTest.root(node1) == LabelsTest.root(node2), node1.containsNode(node2));
+        }
+    }
+
+    @Test
+    void ancestryMatchesPredecessorWalksAcrossModifications() {
+        Random random = new Random(45);
+        Node<Integer> root = Trees.random(random, 200);
+        root.setLabeled(true);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        for (int i = 0; i < 400; i++) {
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            assertTrue(node.isLabeled());
+            switch (random.nextInt(4)) {
+                case 0:
+                    Node<Integer> descendant = Trees.random(random, 1 + random.nextInt(5));
+                    node.addAll(random.nextInt(node.countDescendants() + 1), Collections.singletonList(descendant));
+                    nodes.addAll(Trees.preorder(descendant));
+                    break;
+                case 1:
+                    node.detach();
+                    break;
+                default:
+                    Node<Integer> target = nodes.get(random.nextInt(nodes.size()));
+                    if (!LabelsTest.isDescendantOf(target, node)) {
+                        target.addAll(random.nextInt(target.countDescendants() + (node.getPredecessor() == target ? 0 : 1)), node);
+                    }
+            }
+            LabelsTest.assertAncestry(nodes, random);
+        }
+        for (Node<Integer> tmp : nodes) {
+            LabelsTest.root(tmp).setLabeled(false);
+        }
+        for (Node<Integer> tmp : nodes) {
+            assertFalse(tmp.isLabeled());
+        }
+        LabelsTest.assertAncestry(nodes, random);
+    }
+
+    @Test
+    void insertionsIntoTheSameGapRelabel() {
+        Random random = new Random(46);
+        Node<Integer> root = new Node<>(0, new Node<>(1), new Node<>(2));
+        root.setLabeled(true);
+        List<Node<Integer>> nodes = new ArrayList<>(Trees.preorder(root));
+        Node<Integer> predecessor = root;
+        for (int i = 3; i < 300; i++) {
+            Node<Integer> node = new Node<>(i, new Node<>(-i));
+            predecessor.addAll(1, Collections.singletonList(node));
+            nodes.add(node);
+            nodes.add(node.getDescendant(0));
+            predecessor = random.nextInt(3) == 0 ? node : predecessor;
+            if (predecessor.countDescendants() < 2) {
+                predecessor.add(new Node<>(-1000 - i));
+                nodes.add(predecessor.getDescendant(predecessor.countDescendants() - 1));
+            }
+            LabelsTest.assertAncestry(nodes, random);
+        }
+        Trees.assertConsistent(root);
+    }
+
+    @Test
+    void boundedTraversalsMatchTheSubtrees() {
+        Random random = new Random(47);
+        Node<Integer> root = Trees.random(random, 100);
+        root.setLabeled(true);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        for (int i = 0; i < 500; i++) {
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size())), subtree = nodes.get(random.nextInt(nodes.size()));
+            if (LabelsTest.isDescendantOf(node, subtree)) {
+                List<Node<Integer>> depthFirst = new ArrayList<>(), breadthFirst = new ArrayList<>();
+                for (Node<Integer> tmp = subtree; tmp != null; depthFirst.add(tmp), tmp = tmp.getDepthFirstLeftNext(subtree)) ;
+                for (Node<Integer> tmp = subtree; tmp != null; breadthFirst.add(tmp), tmp = tmp.getBreadthFirstRightNext(subtree)) ;
+                assertEquals(Trees.order(subtree, Node.TraversalAlgorithm.DEPTH_FIRST_LEFT), depthFirst);
+                assertEquals(Trees.order(subtree, Node.TraversalAlgorithm.BREADTH_FIRST_RIGHT), breadthFirst);
+            } else {
+                assertThrows(IllegalArgumentException.class, () -> node.getDepthFirstLeftNext(subtree));
+                assertThrows(IllegalArgumentException.class, () -> node.getBreadthFirstRightNext(subtree));
+            }
+        }
+    }
+}
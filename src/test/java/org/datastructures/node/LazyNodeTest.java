@@ -0,0 +1,104 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyNodeTest {
+    /**
+     * Generates between 0 and 3 descendants for each object, the number being derived from the object itself.
+     */
+    private static final Function<Long, Long[]> GENERATOR = e -> {
+        int count = e < 100000 ? (int) ((e * 0x9E3779B97F4A7C15L >>> 40) % 4) : 0;
+        Long[] result = new Long[count];
+        for (int i = 0; i < count; result[i] = 4 * e + 1 + i, i++) ;
+        return result;
+    };
+
+    private static LazyNode<Long> find(LazyNode<Long> node, Predicate<Long> predicate, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return node.findBreadthFirstLeftNext(predicate);
+            case BREADTH_FIRST_RIGHT:
+                return node.findBreadthFirstRightNext(predicate);
+            case DEPTH_FIRST_LEFT:
+                return node.findDepthFirstLeftNext(predicate);
+            default:
+                return node.findDepthFirstRightNext(predicate);
+        }
+    }
+
+    @Test
+    void ordersMatchTheEagerTree() {
+        for (long root : new long[]{0, 2, 3, 6, 9}) {
+            Node<Long> eager = new Node<>(LazyNodeTest.GENERATOR, root, e -> e);
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                LazyNode<Long> lazy = new LazyNode<>(LazyNodeTest.GENERATOR, root, e -> e, traversalAlgorithm);
+                List<Long> actual = new ArrayList<>();
+                for (Iterator<Long> iterator = lazy.iterator(); iterator.hasNext(); actual.add(iterator.next())) ;
+                assertEquals(Trees.elements(Trees.order(eager, traversalAlgorithm)), actual);
+                assertEquals(eager.size(), lazy.size());
+                assertEquals(Trees.shape(eager), Trees.shape(lazy.toNode()));
+                assertSame(traversalAlgorithm, lazy.toNode().getTraversalAlgorithm());
+            }
+            LazyNode<Long> lazy = new LazyNode<>(LazyNodeTest.GENERATOR, root, e -> e);
+            for (Node<Long> node : Trees.preorder(eager)) {
+                LazyNode<Long> tmp = lazy.findDepthFirstLeftNext(node.getElement());
+                assertEquals(node.getY(), tmp.getY());
+                assertEquals(node.countDescendants(), tmp.countDescendants());
+                assertEquals(node.getPredecessor() == null ? null : node.getPredecessor().getElement(), tmp.getPredecessor() == null ? null : tmp.getPredecessor().getElement());
+                assertEquals(Trees.shape(node), Trees.shape(tmp.toNode()));
+            }
+        }
+    }
+
+    @Test
+    void searchesExpandOnlyTheNodesMovedPast() {
+        Node<Long> eager = new Node<>(LazyNodeTest.GENERATOR, 9L, e -> e);
+        List<Node<Long>> nodes = Trees.preorder(eager);
+        for (int i = 0; i < nodes.size(); i += 7) {
+            Long element = nodes.get(i).getElement();
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                Set<Long> expanded = new HashSet<>(), expected = new HashSet<>();
+                LazyNode<Long> lazy = new LazyNode<>(e -> {
+                    assertTrue(expanded.add(e));
+                    return LazyNodeTest.GENERATOR.apply(e);
+                }, 9L, e -> e);
+                for (Node<Long> tmp : Trees.order(eager, traversalAlgorithm)) {
+                    if (tmp.getElement().equals(element)) {
+                        break;
+                    }
+                    expected.add(tmp.getElement());
+                }
+                assertEquals(element, LazyNodeTest.find(lazy, e -> e.equals(element), traversalAlgorithm).getElement());
+                assertEquals(expected, expanded);
+                assertNull(LazyNodeTest.find(lazy, e -> e < 0, traversalAlgorithm));
+                assertEquals(new HashSet<>(Trees.elements(nodes)), expanded);
+            }
+        }
+    }
+
+    @Test
+    void exploresUnboundedTrees() {
+        LazyNode<Integer> root = new LazyNode<>(0, e -> new Integer[]{2 * e + 1, 2 * e + 2});
+        LazyNode<Integer> node = root.findBreadthFirstLeftNext(1000);
+        assertNotNull(node);
+        assertEquals(9, node.getY());
+        int y = 0;
+        for (LazyNode<Integer> tmp = node; tmp.getPredecessor() != null; tmp = tmp.getPredecessor(), y++) {
+            assertEquals((tmp.getElement() - 1) / 2, (int) tmp.getPredecessor().getElement());
+        }
+        assertEquals(9, y);
+        assertFalse(node.isExpanded());
+        assertEquals(2, node.countDescendants());
+        assertTrue(node.isExpanded());
+    }
+}
@@ -0,0 +1,109 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LevelsTest {
+    private static <N> List<List<Node<N>>> levels(Node<N> root) {
+        List<List<Node<N>>> result = new ArrayList<>();
+        for (List<Node<N>> level = Collections.singletonList(root); !level.isEmpty(); ) {
+            result.add(level);
+            List<Node<N>> next = new ArrayList<>();
+            for (Node<N> tmp : level) {
+                for (int i = 0; i < tmp.countDescendants(); next.add(tmp.getDescendant(i++))) ;
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    private static void assertLevels(Node<Integer> root) {
+        List<List<Node<Integer>>> levels = LevelsTest.levels(root);
+        for (int y = 0; y <= levels.size(); y++) {
+            Collection<Node<Integer>> level = root.getLevel(y);
+            List<Node<Integer>> expected = y == levels.size() ? Collections.emptyList() : levels.get(y), actual = new ArrayList<>(level);
+            assertEquals(Trees.elements(expected), Trees.elements(actual));
+            assertEquals(expected, actual);
+            assertEquals(y == levels.size() ? 0 : levels.get(y).size(), level.size());
+        }
+        for (Node.TraversalAlgorithm traversalAlgorithm : new Node.TraversalAlgorithm[]{Node.TraversalAlgorithm.BREADTH_FIRST_LEFT, Node.TraversalAlgorithm.BREADTH_FIRST_RIGHT}) {
+            List<Integer> elements = new ArrayList<>();
+            for (Iterator<Integer> iterator = traversalAlgorithm.iterator(root); iterator.hasNext(); elements.add(iterator.next())) ;
+            assertEquals(Trees.elements(Trees.order(root, traversalAlgorithm)), elements);
+        }
+    }
+
+    @Test
+    void directoriesFollowModificationsOfEveryPart() {
+        Random random = new Random(48);
+        List<Node<Integer>> nodes = Trees.preorder(Trees.random(random, 150));
+        for (int i = 0; i < 500; i++) {
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    Node<Integer> descendant = Trees.random(random, 1 + random.nextInt(6));
+                    node.addAll(random.nextInt(node.countDescendants() + 1), Collections.singletonList(descendant));
+                    nodes.addAll(Trees.preorder(descendant));
+                    break;
+                case 1:
+                    node.detach();
+                    LevelsTest.assertLevels(node);
+                    break;
+                default:
+                    Node<Integer> target = nodes.get(random.nextInt(nodes.size()));
+                    if (!target.isDescendantOf(node)) {
+                        Node<Integer> former = node.getRoot();
+                        target.addAll(random.nextInt(target.countDescendants() + (node.getPredecessor() == target ? 0 : 1)), node);
+                        if (former != node) {
+                            LevelsTest.assertLevels(former);
+                        }
+                    }
+            }
+            LevelsTest.assertLevels(node.getRoot());
+        }
+        for (int i = 0; i < nodes.size(); i += 10) {
+            Trees.assertConsistent(nodes.get(i));
+        }
+    }
+
+    @Test
+    void subtreeSiblingsMatchTheSubtreeLevels() {
+        Random random = new Random(49);
+        Node<Integer> root = Trees.random(random, 300);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        for (int i = 0; i < 100; i++) {
+            Node<Integer> subtree = nodes.get(random.nextInt(nodes.size()));
+            List<List<Node<Integer>>> levels = LevelsTest.levels(subtree);
+            for (List<Node<Integer>> level : levels) {
+                for (Node<Integer> tmp : level) {
+                    assertSame(level.get(0), tmp.getFirstSibling(subtree));
+                    assertSame(level.get(level.size() - 1), tmp.getLastSibling(subtree));
+                }
+            }
+        }
+    }
+
+    @Test
+    void levelsAreLiveReadOnlyViews() {
+        Node<Integer> root = new Node<>(0, new Node<>(1), new Node<>(2));
+        Collection<Node<Integer>> level = root.getLevel(2);
+        assertTrue(level.isEmpty());
+        root.getDescendant(1).add(new Node<>(3));
+        root.getDescendant(0).add(new Node<>(4));
+        assertEquals(2, level.size());
+        assertEquals("[4, 3]", Trees.elements(new ArrayList<>(level)).toString());
+        root.getDescendant(1).detach();
+        assertEquals(1, level.size());
+        assertThrows(UnsupportedOperationException.class, () -> level.add(new Node<>(5)));
+        assertThrows(UnsupportedOperationException.class, () -> level.clear());
+        assertThrows(IndexOutOfBoundsException.class, () -> root.getLevel(-1));
+    }
+}
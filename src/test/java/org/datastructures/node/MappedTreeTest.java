@@ -0,0 +1,97 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTreeTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenedTreesMatchTheSourceTree() throws IOException {
+        Random random = new Random(58);
+        Path file = this.directory.resolve("tree");
+        for (int size : new int[]{1, 2, 30, 400}) {
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                Node<Integer> root = new Node<>(-1, traversalAlgorithm, Trees.random(random, size));
+                for (Node<Integer> tmp : Trees.preorder(root)) {
+                    tmp.setElement(random.nextInt(8) == 0 ? null : tmp.getElement());
+                }
+                MappedTree.write(root, file, Node.ElementCodec.INTEGER);
+                try (MappedTree<Integer> tree = MappedTree.open(file, Node.ElementCodec.INTEGER)) {
+                    assertSame(traversalAlgorithm, tree.getTraversalAlgorithm());
+                    Trees.assertCompact(tree, root, Function.identity());
+                    assertEquals(Trees.elements(Trees.order(root, traversalAlgorithm)), new ArrayList<>(tree));
+                    List<Node<Integer>> nodes = Trees.preorder(root);
+                    for (int i = 0; i < 10; i++) {
+                        int position = random.nextInt(nodes.size());
+                        assertEquals(Trees.shape(nodes.get(position)), Trees.shape(tree.toNode(position)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void stringsAreDecodedOnEachRead() throws IOException {
+        Node<String> root = new Node<>("root");
+        for (int i = 0; i < 40; i++) {
+            Node<String> descendant = new Node<>("\u00e9l\u00e9ment " + i + " \ud83c\udf33");
+            root.add(descendant);
+            for (int j = 0; j < i % 4; descendant.add(new Node<>(j % 2 == 0 ? "" : String.valueOf(j))), j++) ;
+        }
+        Path file = this.directory.resolve("strings");
+        MappedTree.write(root, file, Node.ElementCodec.STRING);
+        try (MappedTree<String> tree = MappedTree.open(file, Node.ElementCodec.STRING)) {
+            Trees.assertCompact(tree, root, Function.identity());
+            assertTrue(tree.contains("\u00e9l\u00e9ment 3 \ud83c\udf33"));
+            assertFalse(tree.contains("\u00e9l\u00e9ment"));
+            assertNotSame(tree.getElement(1), tree.getElement(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> tree.getElement(tree.size()));
+        }
+    }
+
+    @Test
+    void closedTreesRejectEveryAccess() throws IOException {
+        Path file = this.directory.resolve("closed");
+        MappedTree.write(new Node<>(0, new Node<>(1)), file, Node.ElementCodec.INTEGER);
+        MappedTree<Integer> tree = MappedTree.open(file, Node.ElementCodec.INTEGER);
+        tree.close();
+        tree.close();
+        assertTrue(tree.isClosed());
+        assertThrows(IllegalStateException.class, () -> tree.getElement(0));
+        assertThrows(IllegalStateException.class, () -> tree.getDepthFirstLeftNext(0));
+        assertThrows(IllegalStateException.class, tree::toNode);
+    }
+
+    @Test
+    void corruptedFilesAreRejected() throws IOException {
+        Path file = this.directory.resolve("corrupted");
+        MappedTree.write(Trees.random(new Random(60), 50), file, Node.ElementCodec.INTEGER);
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] magic = bytes.clone();
+        magic[0] ^= 1;
+        Files.write(file, magic);
+        assertThrows(StreamCorruptedException.class, () -> MappedTree.open(file, Node.ElementCodec.INTEGER));
+        byte[] version = bytes.clone();
+        version[4] = 2;
+        Files.write(file, version);
+        assertThrows(StreamCorruptedException.class, () -> MappedTree.open(file, Node.ElementCodec.INTEGER));
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> MappedTree.open(file, Node.ElementCodec.INTEGER));
+        Files.write(file, Arrays.copyOf(bytes, 10));
+        assertThrows(IOException.class, () -> MappedTree.open(file, Node.ElementCodec.INTEGER));
+    }
+}
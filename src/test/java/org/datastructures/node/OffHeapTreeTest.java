@@ -0,0 +1,72 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTreeTest {
+    @Test
+    void matchesTheSourceTree() {
+        Random random = new Random(56);
+        for (int size : new int[]{1, 2, 9, 120, 400}) {
+            Node<Integer> root = Trees.random(random, size);
+            try (OffHeapTree<Integer> tree = new OffHeapTree<>(root)) {
+                Trees.assertCompact(tree, root, Function.identity());
+                assertEquals(Trees.shape(root), Trees.shape(tree.toNode()));
+                assertEquals(Trees.elements(Trees.order(root, root.getTraversalAlgorithm())), new ArrayList<>(tree));
+            }
+            Node<Integer> subtree = Trees.preorder(root).get(random.nextInt(size));
+            try (OffHeapTree<Integer> tree = new OffHeapTree<>(subtree)) {
+                Trees.assertCompact(tree, subtree, Function.identity());
+            }
+        }
+    }
+
+    @Test
+    void searchesMatchTheCompactTree() {
+        Random random = new Random(57);
+        Node<Integer> root = Trees.random(random, 300);
+        CompactTree<Integer> expected = root.compact();
+        try (OffHeapTree<Integer> tree = new OffHeapTree<>(root)) {
+            for (int i = 0; i < 200; i++) {
+                int subtree = random.nextInt(tree.size()), node = subtree + random.nextInt(tree.size(subtree)), modulus = 2 + random.nextInt(20);
+                assertEquals(expected.findBreadthFirstLeftNext(node, e -> e % modulus == 0, subtree), tree.findBreadthFirstLeftNext(node, e -> e % modulus == 0, subtree));
+                assertEquals(expected.findBreadthFirstRightNext(node, e -> e % modulus == 0, subtree), tree.findBreadthFirstRightNext(node, e -> e % modulus == 0, subtree));
+                assertEquals(expected.findDepthFirstLeftNext(node, e -> e % modulus == 0, subtree), tree.findDepthFirstLeftNext(node, e -> e % modulus == 0, subtree));
+                assertEquals(expected.findDepthFirstRightNext(node, e -> e % modulus == 0, subtree), tree.findDepthFirstRightNext(node, e -> e % modulus == 0, subtree));
+            }
+        }
+    }
+
+    @Test
+    void closedTreesRejectEveryAccess() {
+        OffHeapTree<Integer> tree = new OffHeapTree<>(new Node<>(0, new Node<>(1), new Node<>(2)));
+        assertFalse(tree.isClosed());
+        tree.close();
+        assertTrue(tree.isClosed());
+        tree.close();
+        assertThrows(IllegalStateException.class, () -> tree.getPredecessor(1));
+        assertThrows(IllegalStateException.class, () -> tree.getDepthFirstLeftNext(0));
+        assertThrows(IllegalStateException.class, () -> tree.getBreadthFirstLeftNext(0));
+        assertThrows(IllegalStateException.class, tree::iterator);
+        assertThrows(IllegalStateException.class, tree::toNode);
+    }
+
+    @Test
+    void fieldsSpanChunks() {
+        ByteBuffer[] chunks = {ByteBuffer.allocate(16).order(ByteOrder.nativeOrder()), ByteBuffer.allocate(16).order(ByteOrder.nativeOrder())};
+        OffHeapTree.put(chunks, 3, 7);
+        OffHeapTree.put(chunks, (1L << OffHeapTree.SHIFT) + 2, -9);
+        assertEquals(7, OffHeapTree.get(chunks, 3));
+        assertEquals(7, chunks[0].getInt(12));
+        assertEquals(-9, OffHeapTree.get(chunks, (1L << OffHeapTree.SHIFT) + 2));
+        assertEquals(-9, chunks[1].getInt(8));
+        assertEquals(3L * (AbstractCompactTree.FIELDS + 1), OffHeapTree.ints(3));
+    }
+}
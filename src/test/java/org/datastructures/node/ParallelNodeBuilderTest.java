@@ -0,0 +1,74 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelNodeBuilderTest {
+    /**
+     * Generates between 0 and 3 descendants for each object, the number being derived from the object itself.
+     */
+    private static final Function<Long, Long[]> GENERATOR = e -> {
+        int count = e < 1000000 ? (int) ((e * 0x9E3779B97F4A7C15L >>> 40) % 4) : 0;
+        Long[] result = new Long[count];
+        for (int i = 0; i < count; result[i] = 4 * e + 1 + i, i++) ;
+        return result;
+    };
+
+    private static String shape(Long element, int depth, int maxDepth) {
+        StringBuilder result = new StringBuilder(String.valueOf(-element));
+        Long[] descendants = depth == maxDepth ? new Long[0] : ParallelNodeBuilderTest.GENERATOR.apply(element);
+        if (descendants.length > 0) {
+            result.append('(');
+            for (int i = 0; i < descendants.length; i++) {
+                result.append(i == 0 ? "" : " ").append(ParallelNodeBuilderTest.shape(descendants[i], depth + 1, maxDepth));
+            }
+            result.append(')');
+        }
+        return result.toString();
+    }
+
+    @Test
+    void treesMatchARecursiveExpansion() {
+        for (long root : new long[]{0, 1, 2, 3, 6, 9}) {
+            for (int maxDepth : new int[]{0, 1, 3, Integer.MAX_VALUE}) {
+                String expected = ParallelNodeBuilderTest.shape(root, 0, maxDepth);
+                for (int parallelism : new int[]{1, 2, 4}) {
+                    Node<Long> result = new ParallelNodeBuilder<Long, Long>(ParallelNodeBuilderTest.GENERATOR, e -> -e, maxDepth, parallelism).build(root, Node.TraversalAlgorithm.DEPTH_FIRST_RIGHT);
+                    assertEquals(expected, Trees.shape(result));
+                    assertSame(Node.TraversalAlgorithm.DEPTH_FIRST_RIGHT, result.getTraversalAlgorithm());
+                    Trees.assertConsistent(result);
+                }
+            }
+        }
+    }
+
+    @Test
+    void buildsDeepTreesWithoutRecursion() {
+        int height = 100000;
+        Node<Integer> root = new ParallelNodeBuilder<Integer, Integer>(e -> e < height - 1 ? new Integer[]{e + 1} : new Integer[0], e -> e, Integer.MAX_VALUE, 2).build(0);
+        assertEquals(height, root.size());
+        int i = 0;
+        for (Node<Integer> tmp = root; tmp != null; tmp = tmp.countDescendants() == 0 ? null : tmp.getDescendant(0), i++) {
+            assertEquals(i, (int) tmp.getElement());
+            assertEquals(i, tmp.getY());
+        }
+        assertEquals(height, i);
+    }
+
+    @Test
+    void rethrowsExceptionsOfTheGenerator() {
+        ParallelNodeBuilder<Integer, Integer> builder = new ParallelNodeBuilder<>(e -> {
+            if (e == 50) {
+                throw new IllegalStateException();
+            }
+            return e < 100 ? new Integer[]{2 * e + 1, 2 * e + 2} : new Integer[0];
+        }, e -> e, Integer.MAX_VALUE, 2);
+        assertThrows(IllegalStateException.class, () -> builder.build(0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelNodeBuilder<Integer, Integer>(e -> new Integer[0], e -> e, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelNodeBuilder<Integer, Integer>(e -> new Integer[0], e -> e, 1, 0));
+        assertThrows(NullPointerException.class, () -> new ParallelNodeBuilder<Integer, Integer>(null, e -> e));
+    }
+}
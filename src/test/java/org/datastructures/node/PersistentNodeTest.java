@@ -0,0 +1,165 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentNodeTest {
+    private static <N> PersistentNode.Path<N> path(PersistentNode<N> root, Node<N> node) {
+        List<Integer> indexes = new ArrayList<>();
+        for (Node<N> tmp = node; tmp.getPredecessor() != null; tmp = tmp.getPredecessor()) {
+            int index = 0;
+            for (; tmp.getPredecessor().getDescendant(index) != tmp; index++) ;
+            indexes.add(0, index);
+        }
+        PersistentNode.Path<N> result = root.getPath();
+        for (int tmp : indexes) {
+            result = result.getDescendant(tmp);
+        }
+        return result;
+    }
+
+    private static <N> PersistentNode.Path<N> next(PersistentNode.Path<N> path, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return path.getBreadthFirstLeftNext();
+            case BREADTH_FIRST_RIGHT:
+                return path.getBreadthFirstRightNext();
+            case DEPTH_FIRST_LEFT:
+                return path.getDepthFirstLeftNext();
+            default:
+                return path.getDepthFirstRightNext();
+        }
+    }
+
+    private static <N> PersistentNode.Path<N> find(PersistentNode.Path<N> path, Predicate<N> predicate, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return path.findBreadthFirstLeftNext(predicate);
+            case BREADTH_FIRST_RIGHT:
+                return path.findBreadthFirstRightNext(predicate);
+            case DEPTH_FIRST_LEFT:
+                return path.findDepthFirstLeftNext(predicate);
+            default:
+                return path.findDepthFirstRightNext(predicate);
+        }
+    }
+
+    private static <N> N element(Node<N> node) {
+        return node == null ? null : node.getElement();
+    }
+
+    private static <N> N element(PersistentNode.Path<N> path) {
+        return path == null ? null : path.getElement();
+    }
+
+    @Test
+    void snapshotMatchesTheSourceTree() {
+        Random random = new Random(37);
+        for (int size : new int[]{1, 2, 13, 250}) {
+            Node<Integer> root = Trees.random(random, size);
+            PersistentNode<Integer> snapshot = root.snapshot();
+            assertEquals(Trees.shape(root), Trees.shape(snapshot.toNode()));
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                List<Integer> expected = Trees.elements(Trees.order(root, traversalAlgorithm)), actual = new ArrayList<>();
+                for (PersistentNode.Path<Integer> tmp = snapshot.getPath(); tmp != null; actual.add(tmp.getElement()), tmp = PersistentNodeTest.next(tmp, traversalAlgorithm)) ;
+                assertEquals(expected, actual);
+                actual.clear();
+                snapshot.iterator(traversalAlgorithm).forEachRemaining(actual::add);
+                assertEquals(expected, actual);
+            }
+            for (Node<Integer> node : Trees.preorder(root)) {
+                PersistentNode.Path<Integer> path = PersistentNodeTest.path(snapshot, node);
+                assertEquals(node.getElement(), path.getElement());
+                assertEquals(node.countDescendants(), path.countDescendants());
+                assertEquals(Trees.preorder(node).size(), path.getNode().size());
+                assertEquals(node.getBreadth(), path.getNode().getBreadth());
+                assertEquals(node.getHeight(), path.getNode().getHeight());
+                assertEquals(node.getX(), path.getX());
+                assertEquals(node.getY(), path.getY());
+                assertEquals(PersistentNodeTest.element(node.getPredecessor()), PersistentNodeTest.element(path.getPredecessor()));
+                assertEquals(PersistentNodeTest.element(node.getNextSibling()), PersistentNodeTest.element(path.getNextSibling()));
+                assertEquals(PersistentNodeTest.element(node.getPreviousSibling()), PersistentNodeTest.element(path.getPreviousSibling()));
+                assertTrue(path.isDescendantOf(snapshot.getPath()));
+                assertEquals(node == root, snapshot.getPath().isDescendantOf(path));
+            }
+        }
+    }
+
+    @Test
+    void searchesMatchTheOrdersOfEncounter() {
+        Random random = new Random(38);
+        Node<Integer> root = Trees.random(random, 300);
+        PersistentNode<Integer> snapshot = root.snapshot();
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        for (int i = 0; i < 100; i++) {
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            int modulus = 2 + random.nextInt(20);
+            Predicate<Integer> predicate = e -> e % modulus == 0;
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                List<Node<Integer>> order = Trees.order(root, traversalAlgorithm);
+                Integer expected = null;
+                for (int j = order.indexOf(node); j < order.size() && expected == null; j++) {
+                    expected = predicate.test(order.get(j).getElement()) ? order.get(j).getElement() : null;
+                }
+                assertEquals(expected, PersistentNodeTest.element(PersistentNodeTest.find(PersistentNodeTest.path(snapshot, node), predicate, traversalAlgorithm)));
+            }
+        }
+    }
+
+    @Test
+    void updatesLeaveFormerVersionsUntouched() {
+        Random random = new Random(39);
+        Node<Integer> root = Trees.random(random, 60);
+        List<PersistentNode<Integer>> versions = new ArrayList<>();
+        List<String> shapes = new ArrayList<>();
+        versions.add(root.snapshot());
+        shapes.add(Trees.shape(root));
+        for (int i = 0; i < 300; i++) {
+            PersistentNode<Integer> version = versions.get(versions.size() - 1);
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            PersistentNode.Path<Integer> path = PersistentNodeTest.path(version, node);
+            PersistentNode<Integer> next;
+            switch (random.nextInt(3)) {
+                case 0:
+                    node.setElement(-i);
+                    next = path.withElement(-i);
+                    break;
+                case 1:
+                    int index = random.nextInt(node.countDescendants() + 1);
+                    node.addAll(index, Collections.singletonList(new Node<>(1000 + i)));
+                    next = path.withChild(index, new PersistentNode<>(1000 + i));
+                    break;
+                default:
+                    if (node.countDescendants() == 0) {
+                        continue;
+                    }
+                    index = random.nextInt(node.countDescendants());
+                    node.getDescendant(index).detach();
+                    next = path.withoutChild(index);
+            }
+            assertEquals(Trees.shape(root), Trees.shape(next.toNode()));
+            if (node != root) {
+                PersistentNode.Path<Integer> top = path;
+                for (; top.getY() > 1; top = top.getPredecessor()) ;
+                for (int j = 0; j < next.countDescendants(); j++) {
+                    if (j != top.getIndex()) {
+                        assertSame(version.getDescendant(j), next.getDescendant(j));
+                    }
+                }
+            }
+            versions.add(next);
+            shapes.add(Trees.shape(root));
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(shapes.get(i), Trees.shape(versions.get(i).toNode()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveCompactTreeTest {
+    private static int find(IntCompactTree tree, int node, IntPredicate predicate, int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return tree.findBreadthFirstLeftNext(node, predicate, root);
+            case BREADTH_FIRST_RIGHT:
+                return tree.findBreadthFirstRightNext(node, predicate, root);
+            case DEPTH_FIRST_LEFT:
+                return tree.findDepthFirstLeftNext(node, predicate, root);
+            default:
+                return tree.findDepthFirstRightNext(node, predicate, root);
+        }
+    }
+
+    @Test
+    void treesMatchTheSourceTree() {
+        Random random = new Random(50);
+        for (int size : new int[]{1, 2, 40, 300}) {
+            Node<Integer> root = Trees.random(random, size);
+            Trees.assertCompact(new IntCompactTree(root), root, e -> e);
+            Trees.assertCompact(root.compactToLong(e -> 3L * e - (1L << 40)), root, e -> 3L * e - (1L << 40));
+            Trees.assertCompact(root.compactToDouble(e -> e / 4.0), root, e -> e / 4.0);
+        }
+    }
+
+    @Test
+    void streamsMatchTheOrdersOfEncounter() {
+        Random random = new Random(51);
+        Node<Integer> root = Trees.random(random, 500);
+        List<Node<Integer>> nodes = Trees.preorder(root);
+        IntCompactTree ints = root.compactToInt(e -> -e);
+        LongCompactTree longs = root.compactToLong(e -> (long) e << 33);
+        DoubleCompactTree doubles = root.compactToDouble(e -> e + 0.5);
+        for (int i = 0; i < 50; i++) {
+            int subtree = random.nextInt(nodes.size());
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                List<Integer> expected = Trees.elements(Trees.order(nodes.get(subtree), traversalAlgorithm));
+                assertEquals(expected.stream().map(e -> -e).collect(Collectors.toList()), ints.intStream(subtree, traversalAlgorithm).boxed().collect(Collectors.toList()));
+                assertEquals(expected.stream().map(e -> (long) e << 33).collect(Collectors.toList()), longs.longStream(subtree, traversalAlgorithm).boxed().collect(Collectors.toList()));
+                assertEquals(expected.stream().map(e -> e + 0.5).collect(Collectors.toList()), doubles.doubleStream(subtree, traversalAlgorithm).boxed().collect(Collectors.toList()));
+                assertEquals(expected.stream().mapToLong(e -> -e).sum(), ints.intStream(subtree, traversalAlgorithm).parallel().asLongStream().sum());
+            }
+        }
+    }
+
+    @Test
+    void searchesMatchTheOrdersOfEncounter() {
+        Random random = new Random(52);
+        Node<Integer> root = Trees.random(random, 300);
+        IntCompactTree tree = new IntCompactTree(root);
+        int[] positions = new int[tree.size()];
+        for (int i = 0; i < positions.length; positions[tree.getAsInt(i)] = i, i++) ;
+        for (int i = 0; i < 200; i++) {
+            int subtree = random.nextInt(tree.size()), node = subtree + random.nextInt(tree.size(subtree)), modulus = 2 + random.nextInt(20);
+            IntPredicate predicate = e -> e % modulus == 0;
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                int expected = -1;
+                boolean started = false;
+                for (Node<Integer> tmp : Trees.order(Trees.preorder(root).get(subtree), traversalAlgorithm)) {
+                    started |= positions[tmp.getElement()] == node;
+                    if (started && predicate.test(tmp.getElement())) {
+                        expected = positions[tmp.getElement()];
+                        break;
+                    }
+                }
+                assertEquals(expected, PrimitiveCompactTreeTest.find(tree, node, predicate, subtree, traversalAlgorithm));
+            }
+        }
+    }
+
+    @Test
+    void valuesAreReplacedInPlace() {
+        Random random = new Random(53);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            Node<Integer> root = new Node<>(-1, traversalAlgorithm, Trees.random(random, 100));
+            IntCompactTree ints = root.compactToInt(e -> e);
+            LongCompactTree longs = root.compactToLong(e -> e);
+            DoubleCompactTree doubles = root.compactToDouble(e -> e);
+            List<Integer> expected = new ArrayList<>(Trees.elements(Trees.order(root, traversalAlgorithm)));
+            assertEquals(expected, new ArrayList<>(ints));
+            assertTrue(ints.contains(99) && longs.contains(99L) && doubles.contains(99.0));
+            assertFalse(ints.contains(Long.valueOf(99)));
+            int position = random.nextInt(ints.size());
+            int former = ints.set(position, 1000);
+            assertEquals(former, longs.set(position, 1000L));
+            assertEquals(former, doubles.set(position, 1000.0));
+            expected.set(expected.indexOf(former), 1000);
+            assertFalse(ints.contains(former) || longs.contains(former) || doubles.contains(former));
+            assertEquals(expected, new ArrayList<>(ints));
+            assertArrayEquals(expected.stream().mapToInt(e -> e).toArray(), ints.toIntArray());
+            assertArrayEquals(expected.stream().mapToLong(e -> e).toArray(), longs.toLongArray());
+            assertArrayEquals(expected.stream().mapToDouble(e -> e).toArray(), doubles.toDoubleArray());
+            assertEquals(former, (int) Trees.preorder(root).get(position).getElement());
+        }
+    }
+}
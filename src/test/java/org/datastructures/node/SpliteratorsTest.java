@@ -0,0 +1,65 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpliteratorsTest {
+    private static void split(Spliterator<Integer> spliterator, Random random, List<Integer> result) {
+        long size = spliterator.estimateSize();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Spliterator<Integer> prefix = random.nextInt(4) == 0 ? null : spliterator.trySplit();
+        if (prefix == null) {
+            List<Integer> tmp = new ArrayList<>();
+            if (random.nextBoolean()) {
+                for (; spliterator.tryAdvance(tmp::add); ) ;
+            } else {
+                spliterator.forEachRemaining(tmp::add);
+            }
+            assertEquals(size, tmp.size());
+            assertFalse(spliterator.tryAdvance(tmp::add));
+            result.addAll(tmp);
+        } else {
+            assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+            split(prefix, random, result);
+            split(spliterator, random, result);
+        }
+    }
+
+    @Test
+    void splitsConcatenateToTheOrderOfEncounter() {
+        Random random = new Random(27);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            for (int size : new int[]{1, 2, 50, 3000}) {
+                Node<Integer> tree = Trees.random(random, size);
+                tree.setTraversalAlgorithm(traversalAlgorithm);
+                List<Node<Integer>> nodes = Trees.preorder(tree);
+                for (int i = 0; i < 10; i++) {
+                    Node<Integer> root = i == 0 ? tree : nodes.get(random.nextInt(nodes.size()));
+                    List<Integer> expected = Trees.elements(Trees.order(root, traversalAlgorithm)), result = new ArrayList<>();
+                    split(root.spliterator(), random, result);
+                    assertEquals(expected, result);
+                }
+            }
+        }
+    }
+
+    @Test
+    void parallelStreamsMatchSequentialOnes() {
+        Random random = new Random(28);
+        for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+            Node<Integer> tree = Trees.random(random, 20000);
+            tree.setTraversalAlgorithm(traversalAlgorithm);
+            List<Integer> expected = Trees.elements(Trees.order(tree, traversalAlgorithm));
+            assertEquals(expected, tree.parallelStream().collect(Collectors.toList()));
+            assertEquals(expected.stream().mapToLong(e -> e).sum(), tree.parallelStream().mapToLong(e -> e).sum());
+            assertEquals(expected.stream().filter(e -> e % 3 == 0).count(), tree.parallelStream().filter(e -> e % 3 == 0).count());
+        }
+    }
+}
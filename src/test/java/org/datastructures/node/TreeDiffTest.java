@@ -0,0 +1,93 @@
+package org.datastructures.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeDiffTest {
+    @SuppressWarnings("unchecked")
+    private static Node<Integer> copy(Node<Integer> root) {
+        return (Node<Integer>) root.clone();
+    }
+
+    private static void mutate(Node<Integer> root, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            List<Node<Integer>> nodes = Trees.preorder(root);
+            Node<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    node.add(new Node<>(-1 - i, new Node<>(-1000 - i)));
+                    break;
+                case 1:
+                    if (node != root) {
+                        node.detach();
+                    }
+                    break;
+                case 2:
+                    node.setElement(random.nextInt(10) == 0 ? null : random.nextInt(nodes.size()));
+                    break;
+                default:
+                    Node<Integer> target = nodes.get(random.nextInt(nodes.size()));
+                    if (node != root && !target.isDescendantOf(node)) {
+                        target.addAll(random.nextInt(target.countDescendants() + (node.getPredecessor() == target ? 0 : 1)), node);
+                    }
+            }
+        }
+    }
+
+    @Test
+    void appliedScriptsRebuildTheTarget() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            Node<Integer> source = Trees.random(random, 1 + random.nextInt(60)), target = copy(source);
+            mutate(target, random, random.nextInt(12));
+            TreeDiff<Integer> diff = new TreeDiff<>(source, target);
+            Node<Integer> replica = copy(source);
+            diff.apply(replica);
+            assertEquals(Trees.shape(target), Trees.shape(replica));
+            diff.apply(source);
+            assertEquals(Trees.shape(target), Trees.shape(source));
+        }
+    }
+
+    @Test
+    void appliedScriptsRebuildUnrelatedTargets() {
+        Random random = new Random(8);
+        for (int i = 0; i < 100; i++) {
+            Node<Integer> source = Trees.random(random, 1 + random.nextInt(40)), target = Trees.random(random, 1 + random.nextInt(40));
+            new TreeDiff<>(source, target, e -> e == null ? null : e % 5).apply(source);
+            assertEquals(Trees.shape(target), Trees.shape(source));
+        }
+    }
+
+    @Test
+    void equalTreesGiveEmptyScripts() {
+        Random random = new Random(9);
+        Node<Integer> source = Trees.random(random, 500);
+        assertTrue(new TreeDiff<>(source, copy(source)).isEmpty());
+        assertTrue(new TreeDiff<>(source, source).isEmpty());
+    }
+
+    @Test
+    void unchangedSubtreesAreNotKeyed() {
+        Random random = new Random(10);
+        Node<Integer> source = Trees.random(random, 5000), target = copy(source);
+        List<Node<Integer>> nodes = Trees.preorder(target);
+        Node<Integer> node = nodes.get(nodes.size() - 1);
+        node.setElement(-1);
+        source.hashCode();
+        AtomicInteger count = new AtomicInteger();
+        TreeDiff<Integer> diff = new TreeDiff<>(source, target, e -> {
+            count.incrementAndGet();
+            return e;
+        });
+        assertTrue(count.get() < 4 * node.getY() + 4, String.valueOf(count.get()));
+        Node<Integer> replica = copy(source);
+        diff.apply(replica);
+        assertEquals(Trees.shape(target), Trees.shape(replica));
+    }
+}
@@ -0,0 +1,300 @@
+package org.datastructures.node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Builds random trees and reads them back naively, by recursion over the direct descendants, as the reference the tests compare against.
+ */
+final class Trees {
+    private Trees() {
+    }
+
+    /**
+     * Builds a random tree of the given size, adding each node to a random node already in the tree, the elements being the positions of the nodes in the order of creation.
+     *
+     * @param random the source of randomness.
+     * @param size   the number of nodes.
+     * @return the root node of the tree.
+     */
+    static Node<Integer> random(Random random, int size) {
+        List<Node<Integer>> nodes = new ArrayList<>(size);
+        nodes.add(new Node<>(0));
+        for (int i = 1; i < size; i++) {
+            Node<Integer> node = new Node<>(i);
+            nodes.get(random.nextInt(nodes.size())).add(node);
+            nodes.add(node);
+        }
+        return nodes.get(0);
+    }
+
+    /**
+     * Lists the nodes of the (sub-)tree having the given node as its root in a depth-first left-to-right order of encounter.
+     *
+     * @param root the root node of the (sub-)tree.
+     * @param <N>  type of elements referenced by the nodes.
+     * @return the nodes of the (sub-)tree.
+     */
+    static <N> List<Node<N>> preorder(Node<N> root) {
+        List<Node<N>> result = new ArrayList<>();
+        Trees.preorder(root, result);
+        return result;
+    }
+
+    private static <N> void preorder(Node<N> node, List<Node<N>> result) {
+        result.add(node);
+        for (int i = 0; i < node.countDescendants(); Trees.preorder(node.getDescendant(i++), result)) ;
+    }
+
+    /**
+     * Lists the nodes of the (sub-)tree having the given node as its root in the order of encounter of the given traversal algorithm, level by level for breadth-first orders.
+     *
+     * @param root               the root node of the (sub-)tree.
+     * @param traversalAlgorithm the order of encounter.
+     * @param <N>                type of elements referenced by the nodes.
+     * @return the nodes of the (sub-)tree.
+     */
+    static <N> List<Node<N>> order(Node<N> root, Node.TraversalAlgorithm traversalAlgorithm) {
+        boolean left = traversalAlgorithm == Node.TraversalAlgorithm.BREADTH_FIRST_LEFT || traversalAlgorithm == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT;
+        List<Node<N>> result = new ArrayList<>();
+        if (traversalAlgorithm == Node.TraversalAlgorithm.DEPTH_FIRST_LEFT || traversalAlgorithm == Node.TraversalAlgorithm.DEPTH_FIRST_RIGHT) {
+            Trees.depthFirst(root, left, result);
+            return result;
+        }
+        for (List<Node<N>> level = Collections.singletonList(root); !level.isEmpty(); ) {
+            result.addAll(level);
+            List<Node<N>> next = new ArrayList<>();
+            for (Node<N> tmp : level) {
+                for (int i = 0; i < tmp.countDescendants(); next.add(tmp.getDescendant(left ? i : tmp.countDescendants() - 1 - i)), i++) ;
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    private static <N> void depthFirst(Node<N> node, boolean left, List<Node<N>> result) {
+        result.add(node);
+        for (int i = 0; i < node.countDescendants(); Trees.depthFirst(node.getDescendant(left ? i : node.countDescendants() - 1 - i), left, result), i++) ;
+    }
+
+    /**
+     * Lists the objects referenced by the given nodes.
+     *
+     * @param nodes the nodes.
+     * @param <N>   type of elements referenced by the nodes.
+     * @return the referenced objects.
+     */
+    static <N> List<N> elements(List<Node<N>> nodes) {
+        List<N> result = new ArrayList<>(nodes.size());
+        for (Node<N> tmp : nodes) {
+            result.add(tmp.getElement());
+        }
+        return result;
+    }
+
+    /**
+     * Describes the structure and elements of the (sub-)tree having the given node as its root, e.g. <code>0(1 2(3))</code>.
+     *
+     * @param root the root node of the (sub-)tree.
+     * @return the description of the (sub-)tree.
+     */
+    static String shape(Node<?> root) {
+        StringBuilder result = new StringBuilder();
+        Trees.shape(root, result);
+        return result.toString();
+    }
+
+    private static void shape(Node<?> node, StringBuilder result) {
+        result.append(node.getElement());
+        if (node.countDescendants() > 0) {
+            result.append('(');
+            for (int i = 0; i < node.countDescendants(); i++) {
+                Trees.shape(node.getDescendant(i), result.append(i == 0 ? "" : " "));
+            }
+            result.append(')');
+        }
+    }
+
+    /**
+     * Checks a compact tree against the tree of nodes it was created from: the positions being assigned in a depth-first left-to-right order of encounter, the properties of the node at each position and the orders of encounter of each (sub-)tree are compared with those of the corresponding node, coordinates being relative to the given root node and siblings having the same predecessor.
+     *
+     * @param tree   the compact tree.
+     * @param root   the root node of the tree the compact tree was created from.
+     * @param mapper the function mapping the object referenced by a node to the object the compact tree is expected to reference.
+     * @param <N>    type of elements referenced by the nodes.
+     * @param <E>    type of elements referenced by the compact tree.
+     */
+    static <N, E> void assertCompact(AbstractCompactTree<E> tree, Node<N> root, Function<? super N, ? extends E> mapper) {
+        List<Node<N>> nodes = Trees.preorder(root);
+        Map<Node<N>, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < nodes.size(); positions.put(nodes.get(i), i), i++) ;
+        assertEquals(nodes.size(), tree.size());
+        assertEquals(0, tree.getRoot());
+        for (int i = 0; i < nodes.size(); i++) {
+            Node<N> node = nodes.get(i);
+            assertEquals(mapper.apply(node.getElement()), tree.getElement(i));
+            assertEquals(node == root ? -1 : positions.get(node.getPredecessor()), tree.getPredecessor(i));
+            assertEquals(node.countDescendants() == 0 ? -1 : positions.get(node.getDescendant(0)), tree.getFirstDescendant(i));
+            assertEquals(node.countDescendants() == 0 ? -1 : positions.get(node.getDescendant(node.countDescendants() - 1)), tree.getLastDescendant(i));
+            Node<N> predecessor = node == root ? null : node.getPredecessor();
+            int index = 0;
+            for (; predecessor != null && predecessor.getDescendant(index) != node; index++) ;
+            assertEquals(predecessor == null || index == predecessor.countDescendants() - 1 ? -1 : positions.get(predecessor.getDescendant(index + 1)), tree.getNextSibling(i));
+            assertEquals(predecessor == null || index == 0 ? -1 : positions.get(predecessor.getDescendant(index - 1)), tree.getPreviousSibling(i));
+            assertEquals(node.countDescendants(), tree.countDescendants(i));
+            assertEquals(Trees.preorder(node).size(), tree.size(i));
+            assertEquals(node.getX() - root.getX(), tree.getX(i));
+            assertEquals(node.getY() - root.getY(), tree.getY(i));
+            for (Node.TraversalAlgorithm traversalAlgorithm : Node.TraversalAlgorithm.values()) {
+                List<Integer> expected = new ArrayList<>(), actual = new ArrayList<>();
+                List<E> elements = new ArrayList<>();
+                for (Node<N> tmp : Trees.order(node, traversalAlgorithm)) {
+                    expected.add(positions.get(tmp));
+                }
+                for (int tmp = i; tmp >= 0; actual.add(tmp), tmp = Trees.next(tree, tmp, i, traversalAlgorithm)) ;
+                assertEquals(expected, actual);
+                for (Iterator<E> iterator = tree.iterator(i, traversalAlgorithm); iterator.hasNext(); elements.add(iterator.next())) ;
+                assertEquals(expected.size(), elements.size());
+                for (int j = 0; j < elements.size(); j++) {
+                    assertEquals(tree.getElement(expected.get(j)), elements.get(j));
+                }
+            }
+        }
+    }
+
+    private static int next(AbstractCompactTree<?> tree, int node, int root, Node.TraversalAlgorithm traversalAlgorithm) {
+        switch (traversalAlgorithm) {
+            case BREADTH_FIRST_LEFT:
+                return tree.getBreadthFirstLeftNext(node, root);
+            case BREADTH_FIRST_RIGHT:
+                return tree.getBreadthFirstRightNext(node, root);
+            case DEPTH_FIRST_LEFT:
+                return tree.getDepthFirstLeftNext(node, root);
+            default:
+                return tree.getDepthFirstRightNext(node, root);
+        }
+    }
+
+    /**
+     * Checks the state maintained incrementally by the nodes of the tree to which the given node belongs against values computed naively from the arrays of direct descendants: sizes, breadths, heights, coordinates, predecessors, siblings and depth levels.
+     *
+     * @param node a node of the tree.
+     */
+    static void assertConsistent(Node<?> node) {
+        Node<?> root = node.getRoot();
+        assertNull(root.getPredecessor());
+        List<List<Node<?>>> levels = new ArrayList<>();
+        Trees.assertConsistent(root, root, 0, 0, levels);
+        for (int y = 0; y < levels.size(); y++) {
+            List<Node<?>> level = levels.get(y);
+            for (int i = 0; i < level.size(); i++) {
+                assertSame(i == 0 ? null : level.get(i - 1), level.get(i).getPreviousSibling());
+                assertSame(i == level.size() - 1 ? null : level.get(i + 1), level.get(i).getNextSibling());
+                assertSame(level.get(0), level.get(i).getFirstSibling());
+                assertSame(level.get(level.size() - 1), level.get(i).getLastSibling());
+            }
+            assertEquals(level, new ArrayList<>(root.getLevel(y)));
+            assertEquals(level.size(), root.getLevel(y).size());
+        }
+        assertTrue(root.getLevel(levels.size()).isEmpty());
+    }
+
+    private static int[] assertConsistent(Node<?> node, Node<?> root, int x, int y, List<List<Node<?>>> levels) {
+        if (levels.size() == y) {
+            levels.add(new ArrayList<>());
+        }
+        levels.get(y).add(node);
+        assertSame(root, node.getRoot());
+        assertEquals(x, node.getX());
+        assertEquals(y, node.getY());
+        int size = 1, breadth = 0, height = 0;
+        for (int i = 0; i < node.countDescendants(); i++) {
+            Node<?> descendant = node.getDescendant(i);
+            assertSame(node, descendant.getPredecessor());
+            int[] tmp = Trees.assertConsistent(descendant, root, x + breadth, y + 1, levels);
+            size += tmp[0];
+            breadth += tmp[1];
+            height = Math.max(height, tmp[2] + 1);
+        }
+        breadth = Math.max(breadth, 1);
+        assertEquals(size, node.size());
+        assertEquals(breadth, node.getBreadth());
+        assertEquals(height, node.getHeight());
+        return new int[]{size, breadth, height};
+    }
+
+    /**
+     * A naive tree of integers used as a reference: a node holds its object and the list of its direct descendants.
+     */
+    static final class Model {
+        final Integer element;
+        final List<Model> descendants = new ArrayList<>();
+        Model predecessor;
+
+        Model(Integer element) {
+            this.element = element;
+        }
+
+        /**
+         * Builds the model of the (sub-)tree having the given node as its root.
+         *
+         * @param root the root node of the (sub-)tree.
+         * @return the model of the (sub-)tree.
+         */
+        static Model of(Node<Integer> root) {
+            Model result = new Model(root.getElement());
+            for (int i = 0; i < root.countDescendants(); result.add(result.descendants.size(), Model.of(root.getDescendant(i++)))) ;
+            return result;
+        }
+
+        void add(int index, Model descendant) {
+            descendant.predecessor = this;
+            this.descendants.add(index, descendant);
+        }
+
+        void detach() {
+            if (this.predecessor != null) {
+                this.predecessor.descendants.remove(this);
+                this.predecessor = null;
+            }
+        }
+
+        boolean isDescendantOf(Model root) {
+            for (Model tmp = this; tmp != null; tmp = tmp.predecessor) {
+                if (tmp == root) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<Model> preorder() {
+            List<Model> result = new ArrayList<>();
+            result.add(this);
+            for (Model tmp : this.descendants) {
+                result.addAll(tmp.preorder());
+            }
+            return result;
+        }
+
+        String shape() {
+            StringBuilder result = new StringBuilder(String.valueOf(this.element));
+            if (!this.descendants.isEmpty()) {
+                result.append('(');
+                for (int i = 0; i < this.descendants.size(); i++) {
+                    result.append(i == 0 ? "" : " ").append(this.descendants.get(i).shape());
+                }
+                result.append(')');
+            }
+            return result.toString();
+        }
+    }
+}